@@ -0,0 +1,153 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/*
+ * Measures element lookups at HtmlElements.HtmlElementRepository from 64 concurrent threads, compared with the
+ * lock-based repository in attoparser 2.0.9 (LegacyHtmlElementRepository). Each operation looks up a batch of
+ * element names, taken from one of these mixes:
+ *
+ *   - standard: only standard HTML element names.
+ *   - custom:   mostly standard names plus a small, fixed set of custom element names (e.g. web components).
+ *   - random:   mostly standard names plus never-seen-before custom names (e.g. user-generated content), which
+ *               make the legacy repository grow without bounds.
+ *
+ * Repositories are recreated for each iteration so that the legacy one does not keep growing between them.
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(64)
+public class HtmlElementsContentionBenchmark {
+
+    private static final int BATCH_SIZE = 64;
+
+    private static final String[] STANDARD_NAMES =
+            new String[] { "div", "span", "a", "p", "li", "ul", "td", "tr", "img", "input", "DIV", "Span", "table" };
+
+    private static final String[] CUSTOM_NAMES =
+            new String[] { "my-app", "x-button", "app-header", "ui-card", "x-icon", "my-list-item" };
+
+
+    @Param({ "standard", "custom", "random" })
+    public String names;
+
+    private char[][] batch;
+
+    private HtmlElements.HtmlElementRepository repository;
+    private LegacyHtmlElementRepository legacyRepository;
+
+
+
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+
+        private final char[] randomName = "x-00000000".toCharArray();
+        private int counter = (int) Thread.currentThread().getId() << 20;
+
+        char[] nextRandomName() {
+            int value = this.counter++;
+            for (int i = this.randomName.length - 1; i >= 2; i--) {
+                this.randomName[i] = Character.forDigit(value & 0xF, 16);
+                value >>>= 4;
+            }
+            return this.randomName;
+        }
+
+    }
+
+
+
+
+    @Setup(Level.Trial)
+    public void setupBatch() {
+
+        this.batch = new char[BATCH_SIZE][];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            final String name;
+            if ("standard".equals(this.names) || i % 4 != 0) {
+                name = STANDARD_NAMES[i % STANDARD_NAMES.length];
+            } else {
+                name = ("custom".equals(this.names) ? CUSTOM_NAMES[(i / 4) % CUSTOM_NAMES.length] : null);
+            }
+            this.batch[i] = (name == null ? null : name.toCharArray());
+        }
+
+    }
+
+
+    @Setup(Level.Iteration)
+    public void setupRepositories() {
+        this.repository = new HtmlElements.HtmlElementRepository(HtmlElements.ALL_STANDARD_ELEMENTS);
+        this.legacyRepository = new LegacyHtmlElementRepository(HtmlElements.ALL_STANDARD_ELEMENTS);
+    }
+
+
+
+
+    @Benchmark
+    public int current(final ThreadState threadState) {
+        final HtmlElements.HtmlElementRepository repository = this.repository;
+        int result = 0;
+        for (final char[] name : this.batch) {
+            final char[] lookup = (name != null ? name : threadState.nextRandomName());
+            result += repository.getElement(lookup, 0, lookup.length).name.length;
+        }
+        return result;
+    }
+
+
+    @Benchmark
+    public int legacy(final ThreadState threadState) {
+        final LegacyHtmlElementRepository repository = this.legacyRepository;
+        int result = 0;
+        for (final char[] name : this.batch) {
+            final char[] lookup = (name != null ? name : threadState.nextRandomName());
+            result += repository.getElement(lookup, 0, lookup.length).name.length;
+        }
+        return result;
+    }
+
+
+}
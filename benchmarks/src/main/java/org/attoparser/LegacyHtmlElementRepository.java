@@ -0,0 +1,147 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.attoparser.util.TextUtil;
+
+
+/*
+ * Copy of HtmlElements.HtmlElementRepository as it was in attoparser 2.0.9 (unbounded, sorted lists protected
+ * by a fair read-write lock), used as baseline for HtmlElementsContentionBenchmark.
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+final class LegacyHtmlElementRepository {
+
+    private final List<HtmlElement> standardRepository; // read-only, no sync needed
+    private final List<HtmlElement> repository;  // read-write, sync will be needed
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock(true);
+    private final Lock readLock = this.lock.readLock();
+    private final Lock writeLock = this.lock.writeLock();
+
+
+    LegacyHtmlElementRepository(final Collection<HtmlElement> standardElements) {
+        super();
+        this.standardRepository = new ArrayList<HtmlElement>(standardElements);
+        this.repository = new ArrayList<HtmlElement>(standardElements);
+        Collections.sort(this.standardRepository, ElementComparator.INSTANCE);
+        Collections.sort(this.repository, ElementComparator.INSTANCE);
+    }
+
+
+
+    HtmlElement getElement(final char[] text, final int offset, final int len) {
+
+        int index = binarySearch(this.standardRepository, text, offset, len);
+
+        if (index >= 0) {
+            return this.standardRepository.get(index);
+        }
+
+        this.readLock.lock();
+        try {
+
+            index = binarySearch(this.repository, text, offset, len);
+
+            if (index >= 0) {
+                return this.repository.get(index);
+            }
+
+        } finally {
+            this.readLock.unlock();
+        }
+
+        this.writeLock.lock();
+        try {
+            return storeElement(text, offset, len);
+        } finally {
+            this.writeLock.unlock();
+        }
+
+    }
+
+
+    private HtmlElement storeElement(final char[] text, final int offset, final int len) {
+
+        final int index = binarySearch(this.repository, text, offset, len);
+        if (index >= 0) {
+            return this.repository.get(index);
+        }
+
+        final HtmlElement element = new HtmlElement(new String(text, offset, len).toLowerCase());
+        this.repository.add(((index + 1) * -1), element);
+
+        return element;
+
+    }
+
+
+    private static int binarySearch(final List<HtmlElement> values,
+                                    final char[] text, final int offset, final int len) {
+
+        int low = 0;
+        int high = values.size() - 1;
+
+        int mid, cmp;
+        char[] midVal;
+
+        while (low <= high) {
+
+            mid = (low + high) >>> 1;
+            midVal = values.get(mid).name;
+
+            cmp = TextUtil.compareTo(false, midVal, 0, midVal.length, text, offset, len);
+
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+
+        }
+
+        return -(low + 1);
+
+    }
+
+
+    private static class ElementComparator implements Comparator<HtmlElement> {
+
+        private static ElementComparator INSTANCE = new ElementComparator();
+
+        public int compare(final HtmlElement o1, final HtmlElement o2) {
+            return TextUtil.compareTo(false, o1.name, o2.name);
+        }
+    }
+
+}
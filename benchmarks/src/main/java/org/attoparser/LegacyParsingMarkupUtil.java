@@ -0,0 +1,118 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+
+/*
+ * Copy of the scanning methods in ParsingMarkupUtil as they were in attoparser 2.0.9, used as baseline for
+ * ScanningBenchmark.
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+final class LegacyParsingMarkupUtil {
+
+
+
+    private LegacyParsingMarkupUtil() {
+        super();
+    }
+
+
+
+
+    static int findNextStructureStart(
+            final char[] text, final int offset, final int maxi,
+            final int[] locator) {
+
+        char c;
+
+        int colIndex = offset;
+
+        int i = offset;
+        int n = (maxi - offset);
+
+        while (n-- != 0) {
+
+            c = text[i];
+
+            if (c == '\n') {
+                colIndex = i;
+                locator[1] = 0;
+                locator[0]++;
+            } else if (c == '<') {
+                locator[1] += (i - colIndex);
+                return i;
+            }
+
+            i++;
+
+        }
+
+        locator[1] += (maxi - colIndex);
+        return -1;
+
+    }
+
+
+    static int findCharacterSequence(
+            final char[] text, final int offset, final int maxi,
+            final int[] locator, final char[] charSeq) {
+
+        if (charSeq == null || charSeq.length == 0) {
+            return offset;
+        }
+
+        final char c1 = charSeq[0];
+        char c;
+
+        int i = offset;
+        int n = (maxi - offset);
+
+        while (n-- != 0) {
+
+            c = text[i];
+
+            if (c == c1) {
+                // First char matches, let's see the others
+
+                int j = 1;
+                for ( ; j < charSeq.length && (i + j) < maxi ; j++) {
+                    if (text[i + j] != charSeq[j]) {
+                        break;
+                    }
+                }
+                if (j >= charSeq.length) {
+                    return i;
+                }
+
+            }
+
+            ParsingLocatorUtil.countChar(locator, c);
+
+            i++;
+
+        }
+
+        return -1;
+
+    }
+
+}
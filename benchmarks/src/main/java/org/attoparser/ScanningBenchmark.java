@@ -0,0 +1,158 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+import java.util.concurrent.TimeUnit;
+
+import org.attoparser.benchmarks.BenchmarkDocuments;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/*
+ * Compares the current implementation of the scanning methods in ParsingMarkupUtil against the one in
+ * attoparser 2.0.9 (LegacyParsingMarkupUtil), by scanning a whole document the same way MarkupParser
+ * would: looking for the start of every structure, and then for its end. Documents are also scanned looking
+ * for "</script" sequences, as the parser does for the contents of script elements.
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ScanningBenchmark {
+
+    private static final char[] SCRIPT_LIMIT = "</script".toCharArray();
+
+
+    @Param({ BenchmarkDocuments.TEXT_HEAVY, BenchmarkDocuments.TAG_HEAVY, BenchmarkDocuments.SCRIPT_HEAVY })
+    public String documentType;
+
+    @Param({ "1048576" })
+    public int documentSize;
+
+    private char[] document;
+
+
+
+
+    @Setup
+    public void setup() {
+        this.document = BenchmarkDocuments.generate(this.documentType, this.documentSize).toCharArray();
+    }
+
+
+
+
+    @Benchmark
+    public int structureStartCurrent() {
+        final char[] text = this.document;
+        final int[] locator = new int[] { 1, 1 };
+        int i = 0;
+        int result = 0;
+        while (i < text.length) {
+            final int start = ParsingMarkupUtil.findNextStructureStart(text, i, text.length, locator);
+            if (start == -1) {
+                break;
+            }
+            final int end = ParsingMarkupUtil.findNextStructureEndAvoidQuotes(text, start, text.length, locator);
+            if (end == -1) {
+                break;
+            }
+            i = end + 1;
+            result += locator[0];
+        }
+        return result + locator[1];
+    }
+
+
+    @Benchmark
+    public int structureStartLegacy() {
+        final char[] text = this.document;
+        final int[] locator = new int[] { 1, 1 };
+        int i = 0;
+        int result = 0;
+        while (i < text.length) {
+            final int start = LegacyParsingMarkupUtil.findNextStructureStart(text, i, text.length, locator);
+            if (start == -1) {
+                break;
+            }
+            final int end = ParsingMarkupUtil.findNextStructureEndAvoidQuotes(text, start, text.length, locator);
+            if (end == -1) {
+                break;
+            }
+            i = end + 1;
+            result += locator[0];
+        }
+        return result + locator[1];
+    }
+
+
+    @Benchmark
+    public int characterSequenceCurrent() {
+        final char[] text = this.document;
+        final int[] locator = new int[] { 1, 1 };
+        int i = 0;
+        int result = 0;
+        while (i < text.length) {
+            final int index = ParsingMarkupUtil.findCharacterSequence(text, i, text.length, locator, SCRIPT_LIMIT);
+            if (index == -1) {
+                break;
+            }
+            i = index + 1;
+            locator[1]++;
+            result += locator[0];
+        }
+        return result + locator[1];
+    }
+
+
+    @Benchmark
+    public int characterSequenceLegacy() {
+        final char[] text = this.document;
+        final int[] locator = new int[] { 1, 1 };
+        int i = 0;
+        int result = 0;
+        while (i < text.length) {
+            final int index = LegacyParsingMarkupUtil.findCharacterSequence(text, i, text.length, locator, SCRIPT_LIMIT);
+            if (index == -1) {
+                break;
+            }
+            i = index + 1;
+            locator[1]++;
+            result += locator[0];
+        }
+        return result + locator[1];
+    }
+
+}
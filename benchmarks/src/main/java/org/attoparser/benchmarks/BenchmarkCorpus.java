@@ -0,0 +1,143 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import org.attoparser.config.ParseConfiguration;
+
+
+/*
+ * Access to the corpus of realistic documents checked in as resources of the benchmarks project (in the
+ * 'corpus' folder next to this class). All documents in the corpus are well-formed, so that they can be
+ * parsed both in HTML and XML mode:
+ *
+ *   - fragment.html: a small fragment of markup (a product card), as used in templating or sanitizing.
+ *   - page.html: a large blog page with navigation, articles, tables, forms, comments and small scripts.
+ *   - nested.html: very deeply nested (250 levels) elements.
+ *   - icons.svg: an SVG sprite, with lots of elements that contain lots of (long) attributes.
+ *   - scripts.html: a page mostly made of large inline scripts.
+ *   - feed.xml: an Atom feed, with namespaces and CDATA sections.
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+public final class BenchmarkCorpus {
+
+    public static final String FRAGMENT = "fragment.html";
+    public static final String PAGE = "page.html";
+    public static final String NESTED = "nested.html";
+    public static final String SVG = "icons.svg";
+    public static final String SCRIPTS = "scripts.html";
+    public static final String FEED = "feed.xml";
+
+    public static final String HTML = "html";
+    public static final String XML = "xml";
+
+
+    private static final String CORPUS_FOLDER = "corpus/";
+
+
+
+
+    private BenchmarkCorpus() {
+        super();
+    }
+
+
+
+
+    public static char[] load(final String name) {
+
+        final InputStream inputStream = BenchmarkCorpus.class.getResourceAsStream(CORPUS_FOLDER + name);
+        if (inputStream == null) {
+            throw new IllegalArgumentException("Unknown corpus document: " + name);
+        }
+
+        final StringBuilder strBuilder = new StringBuilder();
+        final char[] buffer = new char[4096];
+        try (final Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                strBuilder.append(buffer, 0, read);
+            }
+        } catch (final IOException e) {
+            throw new IllegalStateException("Could not read corpus document: " + name, e);
+        }
+
+        return strBuilder.toString().toCharArray();
+
+    }
+
+
+    public static ParseConfiguration configuration(final String mode) {
+        if (HTML.equals(mode)) {
+            return ParseConfiguration.htmlConfiguration();
+        }
+        if (XML.equals(mode)) {
+            return ParseConfiguration.xmlConfiguration();
+        }
+        throw new IllegalArgumentException("Unknown parsing mode: " + mode);
+    }
+
+
+
+
+    /*
+     * Writer that discards everything, so that benchmarks of output handlers measure the handler and not
+     * the writer.
+     */
+    static final class NullWriter extends Writer {
+
+        static final NullWriter INSTANCE = new NullWriter();
+
+        @Override
+        public void write(final char[] cbuf, final int off, final int len) {
+            // Nothing to do
+        }
+
+        @Override
+        public void write(final int c) {
+            // Nothing to do
+        }
+
+        @Override
+        public void write(final String str, final int off, final int len) {
+            // Nothing to do
+        }
+
+        @Override
+        public void flush() {
+            // Nothing to do
+        }
+
+        @Override
+        public void close() {
+            // Nothing to do
+        }
+
+    }
+
+}
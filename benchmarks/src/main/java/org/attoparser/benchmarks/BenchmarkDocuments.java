@@ -0,0 +1,201 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser.benchmarks;
+
+import java.util.Random;
+
+
+/*
+ * Generator of the synthetic documents used by benchmarks. Documents are generated from a fixed seed, so
+ * that they are the same for every benchmark run.
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+public final class BenchmarkDocuments {
+
+    public static final String TEXT_HEAVY = "text-heavy";
+    public static final String TAG_HEAVY = "tag-heavy";
+    public static final String SCRIPT_HEAVY = "script-heavy";
+
+
+    private static final String[] WORDS =
+            new String[] {
+                    "lorem", "ipsum", "dolor", "sit", "amet", "consectetur", "adipiscing", "elit", "sed", "do",
+                    "eiusmod", "tempor", "incididunt", "ut", "labore", "et", "dolore", "magna", "aliqua" };
+
+    private static final String[] ELEMENTS =
+            new String[] { "div", "span", "a", "p", "li", "em", "strong", "td" };
+
+    private static final String[] CLASSES =
+            new String[] { "nav", "item", "active", "col-md-4", "btn btn-primary", "row" };
+
+
+
+
+    private BenchmarkDocuments() {
+        super();
+    }
+
+
+
+
+    /*
+     * Returns a document of the specified type, of approximately the specified size (in chars).
+     */
+    public static String generate(final String type, final int size) {
+        if (TEXT_HEAVY.equals(type)) {
+            return generateTextHeavy(size);
+        }
+        if (TAG_HEAVY.equals(type)) {
+            return generateTagHeavy(size);
+        }
+        if (SCRIPT_HEAVY.equals(type)) {
+            return generateScriptHeavy(size);
+        }
+        throw new IllegalArgumentException("Unknown document type: " + type);
+    }
+
+
+
+
+    /*
+     * Long paragraphs of text (with line breaks) and only a few tags among them.
+     */
+    static String generateTextHeavy(final int size) {
+
+        final Random random = new Random(size);
+        final StringBuilder strBuilder = new StringBuilder(size + 1024);
+
+        strBuilder.append("<!DOCTYPE html>\n<html>\n<head><title>Text</title></head>\n<body>\n");
+        while (strBuilder.length() < size) {
+            strBuilder.append("<p>");
+            final int words = 100 + random.nextInt(200);
+            for (int i = 0; i < words; i++) {
+                appendWord(strBuilder, random);
+                strBuilder.append(random.nextInt(12) == 0 ? '\n' : ' ');
+            }
+            if (random.nextBoolean()) {
+                strBuilder.append("<em>");
+                appendWord(strBuilder, random);
+                strBuilder.append("</em>");
+            }
+            strBuilder.append("</p>\n");
+        }
+        strBuilder.append("</body>\n</html>\n");
+
+        return strBuilder.toString();
+
+    }
+
+
+    /*
+     * Deeply nested elements with attributes and very short texts (mostly whitespace).
+     */
+    static String generateTagHeavy(final int size) {
+
+        final Random random = new Random(size);
+        final StringBuilder strBuilder = new StringBuilder(size + 1024);
+
+        strBuilder.append("<!DOCTYPE html>\n<html>\n<head><title>Tags</title></head>\n<body>\n");
+        while (strBuilder.length() < size) {
+            appendTagTree(strBuilder, random, 0);
+        }
+        strBuilder.append("</body>\n</html>\n");
+
+        return strBuilder.toString();
+
+    }
+
+
+    /*
+     * Large <script> and <style> blocks (which are scanned looking for their closing tag) among some markup.
+     */
+    static String generateScriptHeavy(final int size) {
+
+        final Random random = new Random(size);
+        final StringBuilder strBuilder = new StringBuilder(size + 1024);
+
+        strBuilder.append("<!DOCTYPE html>\n<html>\n<head><title>Scripts</title></head>\n<body>\n");
+        while (strBuilder.length() < size) {
+            strBuilder.append("<script type=\"text/javascript\">\n");
+            final int lines = 20 + random.nextInt(80);
+            for (int i = 0; i < lines; i++) {
+                strBuilder.append("  var ");
+                appendWord(strBuilder, random);
+                strBuilder.append(" = (a < b && c > d) ? '<p>' : \"");
+                appendWord(strBuilder, random);
+                strBuilder.append("\";\n");
+            }
+            strBuilder.append("</script>\n<div class=\"");
+            strBuilder.append(CLASSES[random.nextInt(CLASSES.length)]);
+            strBuilder.append("\"><a href=\"#\">");
+            appendWord(strBuilder, random);
+            strBuilder.append("</a></div>\n");
+        }
+        strBuilder.append("</body>\n</html>\n");
+
+        return strBuilder.toString();
+
+    }
+
+
+
+
+    private static void appendTagTree(final StringBuilder strBuilder, final Random random, final int depth) {
+
+        final String element = ELEMENTS[random.nextInt(ELEMENTS.length)];
+
+        indent(strBuilder, depth);
+        strBuilder.append('<').append(element);
+        strBuilder.append(" class=\"").append(CLASSES[random.nextInt(CLASSES.length)]).append('"');
+        if (random.nextBoolean()) {
+            strBuilder.append(" id=\"e").append(random.nextInt(10000)).append('"');
+        }
+        strBuilder.append('>');
+
+        if (depth < 6 && random.nextInt(4) != 0) {
+            strBuilder.append('\n');
+            final int children = 1 + random.nextInt(3);
+            for (int i = 0; i < children; i++) {
+                appendTagTree(strBuilder, random, depth + 1);
+            }
+            indent(strBuilder, depth);
+        } else {
+            appendWord(strBuilder, random);
+        }
+
+        strBuilder.append("</").append(element).append(">\n");
+
+    }
+
+
+    private static void appendWord(final StringBuilder strBuilder, final Random random) {
+        strBuilder.append(WORDS[random.nextInt(WORDS.length)]);
+    }
+
+
+    private static void indent(final StringBuilder strBuilder, final int depth) {
+        for (int i = 0; i < depth; i++) {
+            strBuilder.append("  ");
+        }
+    }
+
+}
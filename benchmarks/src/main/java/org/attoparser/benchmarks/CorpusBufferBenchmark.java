@@ -0,0 +1,97 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser.benchmarks;
+
+import java.io.CharArrayReader;
+import java.util.concurrent.TimeUnit;
+
+import org.attoparser.IMarkupParser;
+import org.attoparser.MarkupParser;
+import org.attoparser.ParseException;
+import org.attoparser.discard.DiscardMarkupHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/*
+ * Measures the throughput of parsing the documents in the corpus from a Reader, with different sizes for the
+ * parser's buffers and buffer pool (which are only used when parsing from Readers, as char[] documents are
+ * parsed directly). A pool size of 0 means no pooling at all. Run with '-prof gc' in order to also obtain the
+ * allocation rate (see README.txt).
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CorpusBufferBenchmark {
+
+    @Param({
+            BenchmarkCorpus.FRAGMENT, BenchmarkCorpus.PAGE, BenchmarkCorpus.NESTED,
+            BenchmarkCorpus.SVG, BenchmarkCorpus.SCRIPTS, BenchmarkCorpus.FEED })
+    public String document;
+
+    @Param({ BenchmarkCorpus.HTML, BenchmarkCorpus.XML })
+    public String mode;
+
+    @Param({ "256", "4096", "65536" })
+    public int bufferSize;
+
+    @Param({ "0", "2", "16" })
+    public int poolSize;
+
+    private IMarkupParser parser;
+    private char[] documentChars;
+    private DiscardMarkupHandler handler;
+
+
+
+
+    @Setup
+    public void setup() throws ParseException {
+        this.parser = new MarkupParser(BenchmarkCorpus.configuration(this.mode), this.poolSize, this.bufferSize);
+        this.documentChars = BenchmarkCorpus.load(this.document);
+        // DiscardMarkupHandler is stateless, so it can be reused
+        this.handler = new DiscardMarkupHandler();
+        this.parser.parse(new CharArrayReader(this.documentChars), this.handler);
+    }
+
+
+
+
+    @Benchmark
+    public void parse() throws ParseException {
+        this.parser.parse(new CharArrayReader(this.documentChars), this.handler);
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.attoparser.IMarkupHandler;
+import org.attoparser.IMarkupParser;
+import org.attoparser.MarkupParser;
+import org.attoparser.ParseException;
+import org.attoparser.discard.DiscardMarkupHandler;
+import org.attoparser.dom.DOMBuilderMarkupHandler;
+import org.attoparser.output.OutputMarkupHandler;
+import org.attoparser.select.BlockSelectorMarkupHandler;
+import org.attoparser.simple.AbstractSimpleMarkupHandler;
+import org.attoparser.simple.SimplifierMarkupHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/*
+ * Measures the throughput of parsing each of the documents in the corpus (as char[]) with each of the
+ * handler implementations shipped with attoparser, in both HTML and XML mode. Run with '-prof gc' in order to
+ * also obtain the allocation rate (see README.txt).
+ *
+ * MinimizeHtmlMarkupHandler can only be used in HTML mode, so it is measured in CorpusMinimizeBenchmark.
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CorpusHandlerBenchmark {
+
+    public static final String DISCARD = "discard";
+    public static final String OUTPUT = "output";
+    public static final String DOM = "dom";
+    public static final String SIMPLIFIER = "simplifier";
+    public static final String BLOCK_SELECTOR = "blockSelector";
+
+
+    @Param({
+            BenchmarkCorpus.FRAGMENT, BenchmarkCorpus.PAGE, BenchmarkCorpus.NESTED,
+            BenchmarkCorpus.SVG, BenchmarkCorpus.SCRIPTS, BenchmarkCorpus.FEED })
+    public String document;
+
+    @Param({ DISCARD, OUTPUT, DOM, SIMPLIFIER, BLOCK_SELECTOR })
+    public String handler;
+
+    @Param({ BenchmarkCorpus.HTML, BenchmarkCorpus.XML })
+    public String mode;
+
+    private IMarkupParser parser;
+    private char[] documentChars;
+
+
+
+
+    @Setup
+    public void setup() throws ParseException {
+        this.parser = new MarkupParser(BenchmarkCorpus.configuration(this.mode));
+        this.documentChars = BenchmarkCorpus.load(this.document);
+        // Fail early if the document cannot be parsed in this mode (would make measurements meaningless)
+        this.parser.parse(this.documentChars, new DiscardMarkupHandler());
+    }
+
+
+
+
+    @Benchmark
+    public void parse(final Blackhole blackhole) throws ParseException {
+
+        if (DOM.equals(this.handler)) {
+            final DOMBuilderMarkupHandler domHandler = new DOMBuilderMarkupHandler();
+            this.parser.parse(this.documentChars, domHandler);
+            blackhole.consume(domHandler.getDocument());
+            return;
+        }
+
+        this.parser.parse(this.documentChars, createHandler(this.handler));
+
+    }
+
+
+
+
+    static IMarkupHandler createHandler(final String handler) {
+        // Handlers are created for every parsing operation, as most of them are stateful
+        if (DISCARD.equals(handler)) {
+            return new DiscardMarkupHandler();
+        }
+        if (OUTPUT.equals(handler)) {
+            return new OutputMarkupHandler(BenchmarkCorpus.NullWriter.INSTANCE);
+        }
+        if (SIMPLIFIER.equals(handler)) {
+            return new SimplifierMarkupHandler(new AbstractSimpleMarkupHandler() {});
+        }
+        if (BLOCK_SELECTOR.equals(handler)) {
+            return new BlockSelectorMarkupHandler(
+                    new OutputMarkupHandler(BenchmarkCorpus.NullWriter.INSTANCE), "//a");
+        }
+        throw new IllegalArgumentException("Unknown handler: " + handler);
+    }
+
+}
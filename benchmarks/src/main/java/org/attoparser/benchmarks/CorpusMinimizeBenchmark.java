@@ -0,0 +1,87 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.attoparser.IMarkupParser;
+import org.attoparser.MarkupParser;
+import org.attoparser.ParseException;
+import org.attoparser.minimize.MinimizeHtmlMarkupHandler;
+import org.attoparser.output.OutputMarkupHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/*
+ * Measures the throughput of minimizing each of the HTML documents in the corpus (MinimizeHtmlMarkupHandler
+ * can only be used in HTML mode). Run with '-prof gc' in order to also obtain the allocation rate (see
+ * README.txt).
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CorpusMinimizeBenchmark {
+
+    @Param({ BenchmarkCorpus.FRAGMENT, BenchmarkCorpus.PAGE, BenchmarkCorpus.NESTED, BenchmarkCorpus.SCRIPTS })
+    public String document;
+
+    @Param({ "ONLY_WHITE_SPACE", "COMPLETE" })
+    public MinimizeHtmlMarkupHandler.MinimizeMode minimizeMode;
+
+    private IMarkupParser parser;
+    private char[] documentChars;
+
+
+
+
+    @Setup
+    public void setup() {
+        this.parser = new MarkupParser(BenchmarkCorpus.configuration(BenchmarkCorpus.HTML));
+        this.documentChars = BenchmarkCorpus.load(this.document);
+    }
+
+
+
+
+    @Benchmark
+    public void parse() throws ParseException {
+        this.parser.parse(
+                this.documentChars,
+                new MinimizeHtmlMarkupHandler(
+                        this.minimizeMode, new OutputMarkupHandler(BenchmarkCorpus.NullWriter.INSTANCE)));
+    }
+
+}
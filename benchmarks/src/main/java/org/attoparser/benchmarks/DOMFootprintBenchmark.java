@@ -0,0 +1,209 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.TimeUnit;
+
+import org.attoparser.IMarkupParser;
+import org.attoparser.MarkupParser;
+import org.attoparser.ParseException;
+import org.attoparser.dom.CompactDOMBuilderMarkupHandler;
+import org.attoparser.dom.CompactDocument;
+import org.attoparser.dom.DOMBuilderMarkupHandler;
+import org.attoparser.dom.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/*
+ * Compares building a DOM tree (DOMBuilderMarkupHandler, both eager and lazy) and a compact document
+ * (CompactDOMBuilderMarkupHandler) for the documents in the corpus. Run with '-prof gc' in order to also obtain the bytes allocated per
+ * operation.
+ *
+ * As JMH cannot measure the memory retained by the result of each operation, that footprint is measured by
+ * the main method of this class, which keeps a number of copies of each tree alive and compares the heap
+ * used after garbage collection:
+ *
+ *     java -cp target/benchmarks.jar org.attoparser.benchmarks.DOMFootprintBenchmark
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class DOMFootprintBenchmark {
+
+    private static final String[] DOCUMENTS =
+            new String[] {
+                    BenchmarkCorpus.FRAGMENT, BenchmarkCorpus.PAGE, BenchmarkCorpus.NESTED,
+                    BenchmarkCorpus.SVG, BenchmarkCorpus.SCRIPTS, BenchmarkCorpus.FEED };
+
+    // Enough copies of each document are kept alive so that they add up to at least this amount of source chars
+    private static final int FOOTPRINT_MIN_CHARS = 8 * 1024 * 1024;
+
+
+    @Param({
+            BenchmarkCorpus.FRAGMENT, BenchmarkCorpus.PAGE, BenchmarkCorpus.NESTED,
+            BenchmarkCorpus.SVG, BenchmarkCorpus.SCRIPTS, BenchmarkCorpus.FEED })
+    public String document;
+
+    private IMarkupParser parser;
+    private char[] documentChars;
+
+
+
+
+    @Setup
+    public void setup() {
+        this.parser = new MarkupParser(BenchmarkCorpus.configuration(BenchmarkCorpus.HTML));
+        this.documentChars = BenchmarkCorpus.load(this.document);
+    }
+
+
+
+
+    @Benchmark
+    public Document dom() throws ParseException {
+        return buildDocument(this.parser, this.documentChars);
+    }
+
+
+    @Benchmark
+    public Document lazyDom() throws ParseException {
+        return buildLazyDocument(this.parser, this.documentChars);
+    }
+
+
+    @Benchmark
+    public CompactDocument compact() throws ParseException {
+        return buildCompactDocument(this.parser, this.documentChars);
+    }
+
+
+
+
+    public static void main(final String[] args) throws Exception {
+
+        final IMarkupParser parser = new MarkupParser(BenchmarkCorpus.configuration(BenchmarkCorpus.HTML));
+
+        System.out.println(
+                String.format("%-14s %12s %14s %14s %14s %12s",
+                        "document", "source", "dom", "lazyDom", "compact", "dom/compact"));
+
+        for (final String name : DOCUMENTS) {
+
+            final char[] documentChars = BenchmarkCorpus.load(name);
+
+            final int copies = Math.max(20, FOOTPRINT_MIN_CHARS / documentChars.length);
+            final Object[] retained = new Object[copies];
+
+            final long baseline = usedHeap();
+            for (int i = 0; i < copies; i++) {
+                retained[i] = buildDocument(parser, documentChars);
+            }
+            final long dom = (usedHeap() - baseline) / copies;
+
+            for (int i = 0; i < copies; i++) {
+                retained[i] = null;
+            }
+
+            final long lazyBaseline = usedHeap();
+            for (int i = 0; i < copies; i++) {
+                retained[i] = buildLazyDocument(parser, documentChars);
+            }
+            final long lazyDom = (usedHeap() - lazyBaseline) / copies;
+
+            for (int i = 0; i < copies; i++) {
+                retained[i] = null;
+            }
+
+            final long compactBaseline = usedHeap();
+            for (int i = 0; i < copies; i++) {
+                retained[i] = buildCompactDocument(parser, documentChars);
+            }
+            final long compact = (usedHeap() - compactBaseline) / copies;
+
+            System.out.println(
+                    String.format("%-14s %12d %14d %14d %14d %11.1fx",
+                            name, Long.valueOf(documentChars.length * 2L), Long.valueOf(dom), Long.valueOf(lazyDom),
+                            Long.valueOf(compact),
+                            Double.valueOf((double) dom / Math.max(compact, 1L))));
+
+            // Keep the compact documents reachable until they have been measured
+            if (retained[copies - 1] == null) {
+                throw new IllegalStateException();
+            }
+
+        }
+
+    }
+
+
+
+
+    private static Document buildDocument(final IMarkupParser parser, final char[] documentChars)
+            throws ParseException {
+        final DOMBuilderMarkupHandler handler = new DOMBuilderMarkupHandler();
+        parser.parse(documentChars, handler);
+        return handler.getDocument();
+    }
+
+
+    private static Document buildLazyDocument(final IMarkupParser parser, final char[] documentChars)
+            throws ParseException {
+        final DOMBuilderMarkupHandler handler = new DOMBuilderMarkupHandler(null, true);
+        parser.parse(documentChars, handler);
+        return handler.getDocument();
+    }
+
+
+    private static CompactDocument buildCompactDocument(final IMarkupParser parser, final char[] documentChars)
+            throws ParseException {
+        final CompactDOMBuilderMarkupHandler handler = new CompactDOMBuilderMarkupHandler();
+        parser.parse(documentChars, handler);
+        return handler.getDocument();
+    }
+
+
+    private static long usedHeap() throws InterruptedException {
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.attoparser.AbstractMarkupHandler;
+import org.attoparser.MarkupParser;
+import org.attoparser.ParseException;
+import org.attoparser.config.ParseConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/*
+ * Measures the element stack management of the parser (close element matching and auto-closing) with very deep
+ * documents, in HTML and XML modes:
+ *
+ *   - nested:    'depth' nested elements, all of them correctly closed.
+ *   - misnested: 'depth' nested elements, followed by close elements that have never been open (each of which
+ *                needs the whole stack to be checked), close elements in the wrong order (which force the
+ *                auto-closing of the elements open after them) and finally no close elements at all for the
+ *                remaining elements, which will have to be auto-closed at the end of the document.
+ *
+ * Element names can be either standard HTML names or custom names. In XML mode, documents are parsed with
+ * auto-close balancing, so that mis-nested documents are allowed.
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class DeepNestingBenchmark {
+
+    private static final String[] STANDARD_NAMES = new String[] { "div", "span", "section", "b", "article" };
+    private static final String[] CUSTOM_NAMES = new String[] { "x-div", "x-span", "x-section", "x-b", "x-article" };
+
+
+    @Param({ "nested", "misnested" })
+    public String document;
+
+    @Param({ "standard", "custom" })
+    public String names;
+
+    @Param({ "html", "xml" })
+    public String mode;
+
+    @Param({ "10000" })
+    public int depth;
+
+    private MarkupParser parser;
+    private char[] documentChars;
+
+
+
+
+    @Setup
+    public void setup() {
+
+        final ParseConfiguration configuration = BenchmarkCorpus.configuration(this.mode);
+        if ("xml".equals(this.mode)) {
+            // XML requires balanced elements by default, which would make mis-nested documents fail
+            configuration.setElementBalancing(ParseConfiguration.ElementBalancing.AUTO_CLOSE);
+            configuration.setNoUnmatchedCloseElementsRequired(false);
+        }
+        this.parser = new MarkupParser(configuration);
+
+        final String[] elementNames = ("standard".equals(this.names) ? STANDARD_NAMES : CUSTOM_NAMES);
+
+        final StringBuilder strBuilder = new StringBuilder();
+        for (int i = 0; i < this.depth; i++) {
+            strBuilder.append('<').append(elementNames[i % elementNames.length]).append('>');
+            if (i % 100 == 0) {
+                strBuilder.append('\n');
+            }
+        }
+        strBuilder.append("text");
+
+        if ("nested".equals(this.document)) {
+
+            for (int i = this.depth - 1; i >= 0; i--) {
+                strBuilder.append("</").append(elementNames[i % elementNames.length]).append('>');
+            }
+
+        } else {
+
+            int open = this.depth;
+            while (open > this.depth / 2) {
+                // Never open: the whole stack will be checked
+                strBuilder.append("</nothing>");
+                // Wrong order: the element open before the last one is closed, so the last one is auto-closed
+                strBuilder.append("</").append(elementNames[(open - 2) % elementNames.length]).append('>');
+                open -= 2;
+            }
+            // The remaining elements are never closed
+
+        }
+
+        this.documentChars = strBuilder.toString().toCharArray();
+
+    }
+
+
+
+
+    @Benchmark
+    public void parse() throws ParseException {
+        this.parser.parse(this.documentChars, new AbstractMarkupHandler() {});
+    }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.attoparser.IMarkupParser;
+import org.attoparser.MarkupParser;
+import org.attoparser.ParseException;
+import org.attoparser.dom.DOMMarkupParser;
+import org.attoparser.dom.Document;
+import org.attoparser.dom.Element;
+import org.attoparser.dom.INestableNode;
+import org.attoparser.dom.INode;
+import org.attoparser.dom.Text;
+import org.attoparser.extract.ExtractionMarkupHandler;
+import org.attoparser.extract.ExtractionResult;
+import org.attoparser.extract.ExtractionRule;
+import org.attoparser.extract.ExtractionRules;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/*
+ * Measures the extraction of a handful of values (title, description, links and post titles) from the
+ * 'page.html' document in the corpus, both by streaming them through an extraction handler and by building
+ * a DOM tree and then walking it.
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ExtractionBenchmark {
+
+    private static final ExtractionRules RULES =
+            new ExtractionRules(
+                    ExtractionRule.text("title", "title"),
+                    ExtractionRule.attribute("description", "meta[@name='description']", "content"),
+                    ExtractionRule.attribute("links", "a", "href"),
+                    ExtractionRule.text("headlines", "h2.post-title"));
+
+    private IMarkupParser parser;
+    private DOMMarkupParser domParser;
+    private char[] documentChars;
+    private ExtractionResult result;
+
+
+
+
+    @Setup
+    public void setup() throws ParseException {
+        this.parser = new MarkupParser(BenchmarkCorpus.configuration(BenchmarkCorpus.HTML));
+        this.domParser = new DOMMarkupParser(BenchmarkCorpus.configuration(BenchmarkCorpus.HTML));
+        this.documentChars = BenchmarkCorpus.load(BenchmarkCorpus.PAGE);
+        this.result = new ExtractionResult(RULES);
+    }
+
+
+
+
+    @Benchmark
+    public ExtractionResult extract() throws ParseException {
+        this.result.reset();
+        this.parser.parse(this.documentChars, new ExtractionMarkupHandler(RULES, this.result));
+        return this.result;
+    }
+
+
+    @Benchmark
+    public List<String> dom() throws ParseException {
+        final Document document = this.domParser.parse(this.documentChars);
+        final List<String> values = new ArrayList<String>();
+        collect(document, values);
+        return values;
+    }
+
+
+
+
+    private static void collect(final INestableNode node, final List<String> values) {
+        for (final INode child : node.getChildren()) {
+            if (!(child instanceof Element)) {
+                continue;
+            }
+            final Element element = (Element) child;
+            if (element.elementNameMatches("title")) {
+                values.add(text(element));
+            } else if (element.elementNameMatches("meta")) {
+                if ("description".equals(element.getAttributeValue("name"))) {
+                    values.add(element.getAttributeValue("content"));
+                }
+            } else if (element.elementNameMatches("a")) {
+                if (element.hasAttribute("href")) {
+                    values.add(element.getAttributeValue("href"));
+                }
+            } else if (element.elementNameMatches("h2")) {
+                final String classValue = element.getAttributeValue("class");
+                if (classValue != null && classValue.contains("post-title")) {
+                    values.add(text(element));
+                }
+            }
+            collect(element, values);
+        }
+    }
+
+
+    private static String text(final INestableNode node) {
+        final StringBuilder strBuilder = new StringBuilder();
+        appendText(node, strBuilder);
+        return strBuilder.toString();
+    }
+
+
+    private static void appendText(final INestableNode node, final StringBuilder strBuilder) {
+        for (final INode child : node.getChildren()) {
+            if (child instanceof Text) {
+                strBuilder.append(((Text) child).getContent());
+            } else if (child instanceof INestableNode) {
+                appendText((INestableNode) child, strBuilder);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser.benchmarks;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.attoparser.AbstractMarkupHandler;
+import org.attoparser.MarkupParser;
+import org.attoparser.ParseException;
+import org.attoparser.ParseSession;
+import org.attoparser.config.ParseConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/*
+ * Measures parsing of documents made of pathologically long (64K chars) attribute-heavy tags, which do not
+ * fit in the parser's default buffer and therefore need to be scanned across several buffer refills. Documents
+ * are parsed both from a Reader and by feeding them in chunks to a ParseSession.
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class LongTagBenchmark {
+
+    @Param({ "65536" })
+    public int tagLength;
+
+    @Param({ "16" })
+    public int tagCount;
+
+    @Param({ "1024" })
+    public int chunkSize;
+
+    private MarkupParser parser;
+    private String document;
+    private char[] documentChars;
+
+
+
+
+    @Setup
+    public void setup() {
+
+        this.parser = new MarkupParser(ParseConfiguration.htmlConfiguration());
+
+        final StringBuilder strBuilder = new StringBuilder();
+        strBuilder.append("<!DOCTYPE html>\n<html><body>\n");
+        for (int i = 0; i < this.tagCount; i++) {
+            final int tagStart = strBuilder.length();
+            strBuilder.append("<div");
+            int j = 0;
+            while (strBuilder.length() - tagStart < this.tagLength) {
+                strBuilder.append(" data-attr").append(j).append("=\"value > ").append(j).append('"');
+                if (++j % 8 == 0) {
+                    strBuilder.append("\n    ");
+                }
+            }
+            strBuilder.append(">content</div>\n");
+        }
+        strBuilder.append("</body></html>\n");
+
+        this.document = strBuilder.toString();
+        this.documentChars = this.document.toCharArray();
+
+    }
+
+
+
+
+    @Benchmark
+    public void parseReader() throws ParseException {
+        this.parser.parse(new StringReader(this.document), new AbstractMarkupHandler() {});
+    }
+
+
+    @Benchmark
+    public void parseSession() throws ParseException {
+        final ParseSession session = this.parser.openSession(new AbstractMarkupHandler() {});
+        final char[] chars = this.documentChars;
+        for (int i = 0; i < chars.length; i += this.chunkSize) {
+            session.feed(chars, i, Math.min(this.chunkSize, chars.length - i));
+        }
+        session.finish();
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.attoparser.IMarkupHandler;
+import org.attoparser.IMarkupParser;
+import org.attoparser.MarkupParser;
+import org.attoparser.ParseException;
+import org.attoparser.discard.DiscardMarkupHandler;
+import org.attoparser.output.OutputMarkupHandler;
+import org.attoparser.select.BlockSelectorMarkupHandler;
+import org.attoparser.select.NodeSelectorMarkupHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/*
+ * Measures the cost of applying an increasing number of markup selectors at once (as done for fragment
+ * extraction) to the 'page.html' document in the corpus, by means of both block and node selector handlers.
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ManySelectorsBenchmark {
+
+    public static final String BLOCK = "block";
+    public static final String NODE = "node";
+
+    private static final IMarkupHandler DISCARD = new DiscardMarkupHandler();
+
+    private static final String[] SELECTORS = new String[] {
+            "article.post", "div.post-body", "header.post-header", "footer.post-footer", "h2.post-title",
+            "div.post-meta", "time", "article/header/h2", "article//footer//a", "table.table",
+            "table/thead/tr/th", "table/tbody/tr[0]", "tr/td.num", "td[@class='num']", "ul.list/li",
+            "ul.list/li[odd()]", "ul.list/li[even()]", "nav//li.nav-item", "a.nav-link", "form.form-inline",
+            "figure.figure", "img.img-fluid", "pre/code", "code.language-java", "div.ad", "aside", "section",
+            "p/strong", "p/em", "p//a[@href^='http']", "li/a", "li/code", "h1", "h3", "blockquote",
+            "div[@id='sidebar']", "div[@id='content']//article[0]", "article[>40]", "footer", "header//nav",
+            "x-widget", "x-card/x-title", "span.badge", "button.btn", "input[@type='search']", "dl/dt",
+            "dl/dd", "caption", "table//th[@scope]", "body/div[@class='container']"
+    };
+
+
+    @Param({ "1", "10", "50" })
+    public int selectors;
+
+    @Param({ BLOCK, NODE })
+    public String handler;
+
+    private IMarkupParser parser;
+    private char[] documentChars;
+    private String[] selectorArray;
+
+
+
+
+    @Setup
+    public void setup() throws ParseException {
+        this.parser = new MarkupParser(BenchmarkCorpus.configuration(BenchmarkCorpus.HTML));
+        this.documentChars = BenchmarkCorpus.load(BenchmarkCorpus.PAGE);
+        this.selectorArray = Arrays.copyOf(SELECTORS, this.selectors);
+    }
+
+
+
+
+    @Benchmark
+    public void parse() throws ParseException {
+
+        final IMarkupHandler output = new OutputMarkupHandler(BenchmarkCorpus.NullWriter.INSTANCE);
+        final IMarkupHandler selectorHandler =
+                (BLOCK.equals(this.handler) ?
+                        new BlockSelectorMarkupHandler(output, DISCARD, this.selectorArray) :
+                        new NodeSelectorMarkupHandler(output, DISCARD, this.selectorArray));
+
+        this.parser.parse(this.documentChars, selectorHandler);
+
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser.benchmarks;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.attoparser.AbstractMarkupHandler;
+import org.attoparser.MarkupParser;
+import org.attoparser.ParseException;
+import org.attoparser.config.ParseConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/*
+ * Compares sequential parsing of a single large document with speculative parallel parsing using a pool of
+ * the specified number of threads. Note speedup is bounded by the handler chain, which always runs on a single
+ * thread.
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class ParallelParsingBenchmark {
+
+    @Param({ BenchmarkDocuments.TEXT_HEAVY, BenchmarkDocuments.TAG_HEAVY, BenchmarkDocuments.SCRIPT_HEAVY })
+    public String documentType;
+
+    @Param({ "33554432" })
+    public int documentSize;
+
+    @Param({ "4", "16" })
+    public int threads;
+
+    private MarkupParser parser;
+    private ForkJoinPool pool;
+    private char[] document;
+
+
+
+
+    @Setup
+    public void setup() {
+        this.parser = new MarkupParser(ParseConfiguration.htmlConfiguration());
+        this.pool = new ForkJoinPool(this.threads);
+        this.document = BenchmarkDocuments.generate(this.documentType, this.documentSize).toCharArray();
+    }
+
+
+    @TearDown
+    public void tearDown() {
+        this.pool.shutdown();
+    }
+
+
+
+
+    @Benchmark
+    public void sequential() throws ParseException {
+        this.parser.parse(this.document, new AbstractMarkupHandler() {});
+    }
+
+
+    @Benchmark
+    public void parallel() throws ParseException {
+        this.parser.parseInParallel(
+                this.document, 0, this.document.length, new AbstractMarkupHandler() {}, this.pool);
+    }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.attoparser.AbstractMarkupHandler;
+import org.attoparser.IMarkupParser;
+import org.attoparser.MarkupParser;
+import org.attoparser.ParseException;
+import org.attoparser.config.ParseConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/*
+ * Measures the throughput of parsing whole HTML documents with a handler that does nothing, so that the
+ * measured time is mostly spent in the parser itself, both with and without tracking of line and column
+ * numbers.
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ParsingBenchmark {
+
+    @Param({ BenchmarkDocuments.TEXT_HEAVY, BenchmarkDocuments.TAG_HEAVY, BenchmarkDocuments.SCRIPT_HEAVY })
+    public String documentType;
+
+    @Param({ "1048576" })
+    public int documentSize;
+
+    @Param({ "true", "false" })
+    public boolean positionTracking;
+
+    private IMarkupParser parser;
+    private char[] document;
+
+
+
+
+    @Setup
+    public void setup() {
+        final ParseConfiguration configuration = ParseConfiguration.htmlConfiguration();
+        configuration.setPositionTracking(this.positionTracking);
+        this.parser = new MarkupParser(configuration);
+        this.document = BenchmarkDocuments.generate(this.documentType, this.documentSize).toCharArray();
+    }
+
+
+
+
+    @Benchmark
+    public void parse() throws ParseException {
+        this.parser.parse(this.document, new AbstractMarkupHandler() {});
+    }
+
+}
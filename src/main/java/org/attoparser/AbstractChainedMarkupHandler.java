@@ -312,6 +312,16 @@ public void handleUnmatchedCloseElementEnd(
     }
 
 
+
+    public void handleSkippedElementContents(
+            final char[] buffer,
+            final int offset, final int len,
+            final int line, final int col)
+            throws ParseException {
+        this.next.handleSkippedElementContents(buffer, offset, len, line, col);
+    }
+
+
     
     public void handleAttribute(
             final char[] buffer,
@@ -264,6 +264,16 @@ public void handleUnmatchedCloseElementEnd(
     }
 
 
+
+    public void handleSkippedElementContents(
+            final char[] buffer,
+            final int offset, final int len,
+            final int line, final int col)
+            throws ParseException {
+        // Nothing to be done here, meant to be overridden if required
+    }
+
+
     
     public void handleAttribute(
             final char[] buffer,
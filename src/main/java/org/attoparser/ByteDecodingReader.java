@@ -0,0 +1,532 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+
+/*
+ * Reader implementation that decodes bytes directly into the char[] buffers it is asked to fill (which, when used
+ * from MarkupParser, will be the parser's pooled buffers). This avoids the intermediate char buffer and the
+ * additional copy that an InputStreamReader would need.
+ *
+ * Decoding for US-ASCII and ISO-8859-1 is performed directly by this class, as is decoding of runs of ASCII
+ * characters in UTF-8. Everything else is delegated to a CharsetDecoder. As these fast paths work on byte[], input
+ * not backed by an array (direct buffers and memory-mapped windows) is bulk-copied in chunks to a reusable staging
+ * buffer before being decoded, which is still much faster than letting the CharsetDecoder read it byte by byte.
+ *
+ * Input can also come from a FileChannel, in which case the file is memory-mapped in windows of (at most)
+ * mappingWindowSize bytes, each one being mapped only when the previous one has been completely decoded. Mapped
+ * windows are released simply by dropping the reference to them (there is no way to explicitly unmap a buffer
+ * in Java 8), which will make them eligible for garbage collection.
+ *
+ * Malformed or unmappable input is replaced (same as InputStreamReader does).
+ *
+ * This class is NOT thread-safe.
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+final class ByteDecodingReader extends Reader {
+
+    static final int DEFAULT_INPUT_BUFFER_SIZE = 8192;
+    static final int DEFAULT_MAPPING_WINDOW_SIZE = 64 * 1024 * 1024; // 64MB
+    static final int STAGING_BUFFER_SIZE = 8192;
+
+    private static final int DECODING_MODE_GENERIC = 0;
+    private static final int DECODING_MODE_ASCII = 1;
+    private static final int DECODING_MODE_LATIN1 = 2;
+    private static final int DECODING_MODE_UTF8 = 3;
+
+
+    private final InputStream source;
+    private final byte[] sourceBuffer;
+    private final FileChannel channel;
+    private final long channelLimit;
+    private final int mappingWindowSize;
+    private long windowStart;
+    private ByteBuffer input;
+    private ByteBuffer stagingBuffer = null; // Only created if needed
+
+    private final Charset charset;
+    private final CharsetDecoder decoder;
+    private final int decodingMode;
+
+    private boolean endOfInput;
+    private boolean flushed;
+
+    // Used for single-char reads, as a supplementary character would not fit in their output
+    private final char[] pairBuffer = new char[2];
+    private boolean pendingChar = false;
+
+
+
+
+    /*
+     * Creates a reader for the remaining bytes in a ByteBuffer. Charset can be null, in which case it will be
+     * detected from the buffer contents.
+     */
+    ByteDecodingReader(final ByteBuffer input, final Charset charset) {
+
+        super();
+
+        this.source = null;
+        this.sourceBuffer = null;
+        this.channel = null;
+        this.channelLimit = 0L;
+        this.mappingWindowSize = 0;
+        this.input = input;
+        this.endOfInput = true;
+
+        this.charset = (charset != null ? charset : detectAndSkipBOM(this.input));
+
+        this.decoder = createDecoder(this.charset);
+        this.decodingMode = computeDecodingMode(this.charset);
+        this.flushed = false;
+
+    }
+
+
+    /*
+     * Creates a reader for an InputStream. Charset can be null, in which case it will be detected from the
+     * first bytes of the stream.
+     */
+    ByteDecodingReader(final InputStream source, final Charset charset, final int inputBufferSize) throws IOException {
+
+        super();
+
+        this.source = source;
+        this.sourceBuffer = new byte[Math.max(inputBufferSize, ParsingCharsetUtil.DETECTION_LIMIT)];
+        this.channel = null;
+        this.channelLimit = 0L;
+        this.mappingWindowSize = 0;
+        this.input = ByteBuffer.wrap(this.sourceBuffer, 0, 0);
+        this.endOfInput = false;
+
+        if (charset != null) {
+            this.charset = charset;
+        } else {
+            // We need a few bytes to be able to detect the charset
+            while (!this.endOfInput && this.input.remaining() < ParsingCharsetUtil.DETECTION_LIMIT) {
+                fill();
+            }
+            this.charset = detectAndSkipBOM(this.input);
+        }
+
+        this.decoder = createDecoder(this.charset);
+        this.decodingMode = computeDecodingMode(this.charset);
+        this.flushed = false;
+
+    }
+
+
+
+
+    /*
+     * Creates a reader for the contents of a FileChannel, from its current position to its end, by memory-mapping
+     * them. Charset can be null, in which case it will be detected from the first bytes of the file.
+     */
+    ByteDecodingReader(final FileChannel channel, final Charset charset, final int mappingWindowSize)
+            throws IOException {
+
+        super();
+
+        this.source = null;
+        this.sourceBuffer = null;
+        this.channel = channel;
+        this.channelLimit = channel.size();
+        // Windows need to be big enough for charset detection, and for not splitting multi-byte sequences forever
+        this.mappingWindowSize = Math.max(mappingWindowSize, ParsingCharsetUtil.DETECTION_LIMIT);
+        this.windowStart = Math.min(channel.position(), this.channelLimit);
+        this.input = null;
+
+        map(this.windowStart);
+
+        this.charset = (charset != null ? charset : detectAndSkipBOM(this.input));
+
+        this.decoder = createDecoder(this.charset);
+        this.decodingMode = computeDecodingMode(this.charset);
+        this.flushed = false;
+
+    }
+
+
+
+
+    Charset getCharset() {
+        return this.charset;
+    }
+
+
+
+
+    @Override
+    public int read(final char[] cbuf, final int off, final int len) throws IOException {
+
+        if (len == 0) {
+            return 0;
+        }
+
+        if (this.pendingChar) {
+            this.pendingChar = false;
+            cbuf[off] = this.pairBuffer[1];
+            return 1;
+        }
+
+        if (len == 1) {
+            // A supplementary character would not fit in the output, so we decode into a buffer of our own
+            final int pairRead = read(this.pairBuffer, 0, 2);
+            if (pairRead == -1) {
+                return -1;
+            }
+            cbuf[off] = this.pairBuffer[0];
+            this.pendingChar = (pairRead == 2);
+            return 1;
+        }
+
+        int read = 0;
+
+        while (read == 0) {
+
+            if (!this.input.hasRemaining()) {
+                if (this.endOfInput) {
+                    return (this.flushed ? -1 : flush(cbuf, off, len));
+                }
+                fill();
+                continue;
+            }
+
+            if (this.decodingMode == DECODING_MODE_GENERIC) {
+                read = decode(cbuf, off, len);
+            } else if (this.input.hasArray()) {
+                read = decodeFast(cbuf, off, len);
+            } else {
+                read = decodeStaged(cbuf, off, len);
+            }
+
+            if (read == 0 && !this.endOfInput) {
+                // Some bytes might be left in input because they are an incomplete multi-byte sequence, so we
+                // need more bytes in order to go on.
+                fill();
+            } else if (read == 0) {
+                // Incomplete sequence at the end of input: the decoder will replace it when flushing
+                return flush(cbuf, off, len);
+            }
+
+        }
+
+        return read;
+
+    }
+
+
+
+
+    private int decodeFast(final char[] cbuf, final int off, final int len) throws IOException {
+        switch (this.decodingMode) {
+            case DECODING_MODE_LATIN1:
+                return decodeLatin1(cbuf, off, len);
+            case DECODING_MODE_ASCII:
+                return decodeAscii(cbuf, off, len);
+            default:
+                return decodeUtf8(cbuf, off, len);
+        }
+    }
+
+
+    /*
+     * Fast paths need direct access to the input byte[], so when input is not backed by an array, a chunk of it
+     * is bulk-copied to the staging buffer and decoded from there. Input position is then advanced by the amount
+     * of bytes actually consumed, so that any bytes left (e.g. an incomplete multi-byte sequence at the end of
+     * the chunk) will be staged again in the next call.
+     */
+    private int decodeStaged(final char[] cbuf, final int off, final int len) throws IOException {
+
+        if (this.stagingBuffer == null) {
+            this.stagingBuffer = ByteBuffer.allocate(STAGING_BUFFER_SIZE);
+        }
+
+        final ByteBuffer unstagedInput = this.input;
+        final int inputPos = unstagedInput.position();
+        final int inputLimit = unstagedInput.limit();
+        final int n = Math.min(unstagedInput.remaining(), this.stagingBuffer.capacity());
+
+        this.stagingBuffer.clear();
+        unstagedInput.limit(inputPos + n);
+        this.stagingBuffer.put(unstagedInput);
+        unstagedInput.limit(inputLimit);
+        this.stagingBuffer.flip();
+
+        final int read;
+        this.input = this.stagingBuffer;
+        try {
+            read = decodeFast(cbuf, off, len);
+        } finally {
+            this.input = unstagedInput;
+        }
+
+        unstagedInput.position(inputPos + this.stagingBuffer.position());
+        return read;
+
+    }
+
+
+    private int decodeLatin1(final char[] cbuf, final int off, final int len) {
+
+        final byte[] in = this.input.array();
+        final int inOffset = this.input.arrayOffset();
+        final int inPos = this.input.position();
+
+        final int n = Math.min(len, this.input.remaining());
+        int i = inOffset + inPos;
+        int o = off;
+        final int maxo = off + n;
+
+        while (o < maxo) {
+            cbuf[o++] = (char) (in[i++] & 0xFF);
+        }
+
+        this.input.position(inPos + n);
+        return n;
+
+    }
+
+
+    private int decodeAscii(final char[] cbuf, final int off, final int len) {
+
+        final byte[] in = this.input.array();
+        final int inOffset = this.input.arrayOffset();
+        final int inPos = this.input.position();
+
+        final int n = Math.min(len, this.input.remaining());
+        int i = inOffset + inPos;
+        int o = off;
+        final int maxo = off + n;
+
+        byte b;
+        while (o < maxo) {
+            b = in[i++];
+            cbuf[o++] = (b >= 0 ? (char) b : '\uFFFD');
+        }
+
+        this.input.position(inPos + n);
+        return n;
+
+    }
+
+
+    private int decodeUtf8(final char[] cbuf, final int off, final int len) throws IOException {
+
+        final byte[] in = this.input.array();
+        final int inOffset = this.input.arrayOffset();
+
+        int read = 0;
+
+        while (read < len && this.input.hasRemaining()) {
+
+            // First, copy the longest run of ASCII characters we can directly into the output
+            final int inPos = this.input.position();
+            final int n = Math.min(len - read, this.input.remaining());
+
+            int i = inOffset + inPos;
+            int o = off + read;
+            final int maxo = o + n;
+
+            byte b;
+            while (o < maxo && (b = in[i]) >= 0) {
+                cbuf[o++] = (char) b;
+                i++;
+            }
+
+            final int asciiRead = o - (off + read);
+            this.input.position(inPos + asciiRead);
+            read += asciiRead;
+
+            if (read == len || !this.input.hasRemaining()) {
+                break;
+            }
+
+            // Then, let the decoder take care of the non-ASCII sequence that comes after it. We limit the
+            // decoder's input to the non-ASCII run so that it does not take care of the next ASCII run itself.
+            final int nonAsciiStart = this.input.position();
+            int nonAsciiEnd = inOffset + nonAsciiStart;
+            final int maxi = inOffset + this.input.limit();
+            while (nonAsciiEnd < maxi && in[nonAsciiEnd] < 0) {
+                nonAsciiEnd++;
+            }
+            nonAsciiEnd -= inOffset;
+
+            final int limit = this.input.limit();
+            this.input.limit(nonAsciiEnd);
+            final int decoded = decode(cbuf, off + read, len - read);
+            this.input.limit(limit);
+            read += decoded;
+
+            if (this.input.position() < nonAsciiEnd && read < len) {
+                // The non-ASCII run seems to end with an incomplete sequence. If that's because we limited
+                // decoder input, let the decoder see the following bytes (and replace the malformed sequence).
+                if (nonAsciiEnd < limit) {
+                    read += decode(cbuf, off + read, len - read);
+                }
+                break;
+            }
+
+        }
+
+        return read;
+
+    }
+
+
+    private int decode(final char[] cbuf, final int off, final int len) throws IOException {
+
+        final CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+        final CoderResult result = this.decoder.decode(this.input, out, false);
+        if (result.isError()) {
+            // Should never happen, as we are replacing malformed input
+            result.throwException();
+        }
+        return out.position() - off;
+
+    }
+
+
+    private int flush(final char[] cbuf, final int off, final int len) throws IOException {
+
+        final CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+
+        CoderResult result = this.decoder.decode(this.input, out, true);
+        if (result.isError()) {
+            result.throwException();
+        }
+        if (result.isOverflow()) {
+            return out.position() - off;
+        }
+
+        result = this.decoder.flush(out);
+        if (result.isError()) {
+            result.throwException();
+        }
+        if (result.isUnderflow()) {
+            this.flushed = true;
+        }
+
+        final int read = out.position() - off;
+        return (read == 0 && this.flushed ? -1 : read);
+
+    }
+
+
+    private void fill() throws IOException {
+
+        if (this.channel != null) {
+            // Map the next window, starting at the first byte not consumed yet (which might be part of an
+            // incomplete multi-byte sequence). The previous window is released by dropping our reference to it.
+            map(this.windowStart + this.input.position());
+            return;
+        }
+
+        // Move any remaining (incomplete) bytes to the beginning of the buffer
+        this.input.compact();
+
+        final int read =
+                this.source.read(this.sourceBuffer, this.input.position(), this.sourceBuffer.length - this.input.position());
+
+        if (read == -1) {
+            this.endOfInput = true;
+        } else {
+            this.input.position(this.input.position() + read);
+        }
+
+        this.input.flip();
+
+    }
+
+
+
+
+    private void map(final long start) throws IOException {
+
+        final long size = Math.min(this.mappingWindowSize, this.channelLimit - start);
+
+        this.input = this.channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        this.windowStart = start;
+        this.endOfInput = (start + size >= this.channelLimit);
+
+    }
+
+
+
+
+    @Override
+    public void close() throws IOException {
+        if (this.source != null) {
+            this.source.close();
+        }
+        if (this.channel != null) {
+            this.channel.close();
+        }
+    }
+
+
+
+
+    private static Charset detectAndSkipBOM(final ByteBuffer input) {
+
+        final int bomLen = ParsingCharsetUtil.computeBOMLength(input);
+        final Charset charset = ParsingCharsetUtil.detectCharset(input);
+        input.position(input.position() + bomLen);
+        return charset;
+
+    }
+
+
+    private static CharsetDecoder createDecoder(final Charset charset) {
+        return charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+
+    private static int computeDecodingMode(final Charset charset) {
+        if (StandardCharsets.ISO_8859_1.equals(charset)) {
+            return DECODING_MODE_LATIN1;
+        }
+        if (StandardCharsets.US_ASCII.equals(charset)) {
+            return DECODING_MODE_ASCII;
+        }
+        if (StandardCharsets.UTF_8.equals(charset)) {
+            return DECODING_MODE_UTF8;
+        }
+        return DECODING_MODE_GENERIC;
+    }
+
+
+}
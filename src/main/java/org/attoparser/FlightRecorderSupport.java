@@ -0,0 +1,84 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+import org.attoparser.config.ParseConfiguration;
+
+
+/*
+ * Emission of JDK Flight Recorder (JFR) events for parsing operations.
+ *
+ * This is the Java 8 version of this class, which does nothing at all (and is therefore completely removed by
+ * the JIT compiler). The attoparser jar is a multi-release jar, and a different version of this class, which
+ * actually emits JFR events, lives at src/main/java11 and is used instead when running on Java 11+.
+ *
+ * Both versions of this class must always have the same (package-private) methods.
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+final class FlightRecorderSupport {
+
+    static final String INPUT_CHARS = "char[]";
+    static final String INPUT_READER = "Reader";
+    static final String INPUT_PARALLEL = "char[] (parallel)";
+
+
+
+
+    private FlightRecorderSupport() {
+        super();
+    }
+
+
+
+
+    /*
+     * Starts timing a document parsing event, returning the event object to be later passed to endDocument(...),
+     * or null if the event is not enabled.
+     */
+    static Object beginDocument() {
+        return null;
+    }
+
+
+    static void endDocument(
+            final Object event, final long chars, final String input,
+            final ParseConfiguration configuration, final boolean successful) {
+        // Nothing to do
+    }
+
+
+    static void bufferGrown(final int oldSize, final int newSize) {
+        // Nothing to do
+    }
+
+
+    static void poolExhausted(final int bufferSize, final int poolSize) {
+        // Nothing to do
+    }
+
+
+    static void parseFailed(final ParseException exception) {
+        // Nothing to do
+    }
+
+
+}
@@ -34,6 +34,8 @@ class HtmlAutoCloseElement extends HtmlElement {
 
     protected final char[][] autoCloseRequired;
     protected final char[][] autoCloseLimits;
+    protected final StandardNameSet autoCloseRequiredSet;
+    protected final StandardNameSet autoCloseLimitsSet;
 
 
     HtmlAutoCloseElement(final String name, final String[] autoCloseElements, final String[] autoCloseLimits) {
@@ -61,6 +63,8 @@ class HtmlAutoCloseElement extends HtmlElement {
 
         this.autoCloseRequired = autoCloseElementsCharArray;
         this.autoCloseLimits = autoCloseLimitsCharArray;
+        this.autoCloseRequiredSet = StandardNameSet.of(this.autoCloseRequired);
+        this.autoCloseLimitsSet = StandardNameSet.of(this.autoCloseLimits);
 
     }
 
@@ -76,7 +80,8 @@ public void handleOpenElementStart(
             throws ParseException {
 
         if (autoCloseEnabled && !status.isAutoOpenCloseDone()) {
-            status.setAutoCloseRequired(this.autoCloseRequired, this.autoCloseLimits);
+            status.setAutoCloseRequired(
+                    this.autoCloseRequired, this.autoCloseLimits, this.autoCloseRequiredSet, this.autoCloseLimitsSet);
             return;
         }
 
@@ -98,7 +103,8 @@ public void handleStandaloneElementStart(
             throws ParseException {
 
         if (autoCloseEnabled && !status.isAutoOpenCloseDone()) {
-            status.setAutoCloseRequired(this.autoCloseRequired, this.autoCloseLimits);
+            status.setAutoCloseRequired(
+                    this.autoCloseRequired, this.autoCloseLimits, this.autoCloseRequiredSet, this.autoCloseLimitsSet);
             return;
         }
 
@@ -36,6 +36,8 @@ class HtmlAutoOpenCDATAContentElement extends HtmlCDATAContentElement {
 
     private final char[][] autoOpenParents;
     private final char[][] autoOpenLimits;
+    private final StandardNameSet autoOpenParentsSet;
+    private final StandardNameSet autoOpenLimitsSet;
 
 
     public HtmlAutoOpenCDATAContentElement(final String name, final String[] autoOpenParents, final String[] autoOpenLimits) {
@@ -63,6 +65,8 @@ public HtmlAutoOpenCDATAContentElement(final String name, final String[] autoOpe
 
         this.autoOpenParents = autoOpenParentsCharArray;
         this.autoOpenLimits = autoOpenLimitsCharArray;
+        this.autoOpenParentsSet = StandardNameSet.of(this.autoOpenParents);
+        this.autoOpenLimitsSet = StandardNameSet.of(this.autoOpenLimits);
 
     }
 
@@ -78,7 +82,8 @@ public void handleOpenElementStart(
             throws ParseException {
 
         if (autoOpenEnabled && !status.isAutoOpenCloseDone()) {
-            status.setAutoOpenRequired(this.autoOpenParents, this.autoOpenLimits);
+            status.setAutoOpenRequired(
+                    this.autoOpenParents, this.autoOpenLimits, this.autoOpenParentsSet, this.autoOpenLimitsSet);
             return;
         }
 
@@ -101,7 +106,8 @@ public void handleStandaloneElementStart(
             throws ParseException {
 
         if (autoOpenEnabled && !status.isAutoOpenCloseDone()) {
-            status.setAutoOpenRequired(this.autoOpenParents, this.autoOpenLimits);
+            status.setAutoOpenRequired(
+                    this.autoOpenParents, this.autoOpenLimits, this.autoOpenParentsSet, this.autoOpenLimitsSet);
             return;
         }
 
@@ -36,6 +36,8 @@ class HtmlAutoOpenCloseElement extends HtmlAutoCloseElement {
 
     private final char[][] autoOpenParents;
     private final char[][] autoOpenLimits;
+    private final StandardNameSet autoOpenParentsSet;
+    private final StandardNameSet autoOpenLimitsSet;
 
 
     HtmlAutoOpenCloseElement(final String name,
@@ -65,6 +67,8 @@ class HtmlAutoOpenCloseElement extends HtmlAutoCloseElement {
 
         this.autoOpenParents = autoOpenParentsCharArray;
         this.autoOpenLimits = autoOpenLimitsCharArray;
+        this.autoOpenParentsSet = StandardNameSet.of(this.autoOpenParents);
+        this.autoOpenLimitsSet = StandardNameSet.of(this.autoOpenLimits);
 
     }
 
@@ -81,10 +85,12 @@ public void handleOpenElementStart(
 
         if ((autoOpenEnabled || autoCloseEnabled) && !status.isAutoOpenCloseDone()) {
             if (autoCloseEnabled) {
-                status.setAutoCloseRequired(this.autoCloseRequired, this.autoCloseLimits);
+                status.setAutoCloseRequired(
+                        this.autoCloseRequired, this.autoCloseLimits, this.autoCloseRequiredSet, this.autoCloseLimitsSet);
             }
             if (autoOpenEnabled) {
-                status.setAutoOpenRequired(this.autoOpenParents, this.autoOpenLimits);
+                status.setAutoOpenRequired(
+                        this.autoOpenParents, this.autoOpenLimits, this.autoOpenParentsSet, this.autoOpenLimitsSet);
             }
             return;
         }
@@ -108,10 +114,12 @@ public void handleStandaloneElementStart(
 
         if ((autoOpenEnabled || autoCloseEnabled) && !status.isAutoOpenCloseDone()) {
             if (autoCloseEnabled) {
-                status.setAutoCloseRequired(this.autoCloseRequired, this.autoCloseLimits);
+                status.setAutoCloseRequired(
+                        this.autoCloseRequired, this.autoCloseLimits, this.autoCloseRequiredSet, this.autoCloseLimitsSet);
             }
             if (autoOpenEnabled) {
-                status.setAutoOpenRequired(this.autoOpenParents, this.autoOpenLimits);
+                status.setAutoOpenRequired(
+                        this.autoOpenParents, this.autoOpenLimits, this.autoOpenParentsSet, this.autoOpenLimitsSet);
             }
             return;
         }
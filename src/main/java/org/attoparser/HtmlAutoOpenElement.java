@@ -34,6 +34,8 @@ class HtmlAutoOpenElement extends HtmlElement {
 
     private final char[][] autoOpenParents;
     private final char[][] autoOpenLimits;
+    private final StandardNameSet autoOpenParentsSet;
+    private final StandardNameSet autoOpenLimitsSet;
 
 
     HtmlAutoOpenElement(final String name, final String[] autoOpenParents, final String[] autoOpenLimits) {
@@ -61,6 +63,8 @@ class HtmlAutoOpenElement extends HtmlElement {
 
         this.autoOpenParents = autoOpenParentsCharArray;
         this.autoOpenLimits = autoOpenLimitsCharArray;
+        this.autoOpenParentsSet = StandardNameSet.of(this.autoOpenParents);
+        this.autoOpenLimitsSet = StandardNameSet.of(this.autoOpenLimits);
 
     }
 
@@ -76,7 +80,8 @@ public void handleOpenElementStart(
             throws ParseException {
 
         if (autoOpenEnabled && !status.isAutoOpenCloseDone()) {
-            status.setAutoOpenRequired(this.autoOpenParents, this.autoOpenLimits);
+            status.setAutoOpenRequired(
+                    this.autoOpenParents, this.autoOpenLimits, this.autoOpenParentsSet, this.autoOpenLimitsSet);
             return;
         }
 
@@ -98,7 +103,8 @@ public void handleStandaloneElementStart(
             throws ParseException {
 
         if (autoOpenEnabled && !status.isAutoOpenCloseDone()) {
-            status.setAutoOpenRequired(this.autoOpenParents, this.autoOpenLimits);
+            status.setAutoOpenRequired(
+                    this.autoOpenParents, this.autoOpenLimits, this.autoOpenParentsSet, this.autoOpenLimitsSet);
             return;
         }
 
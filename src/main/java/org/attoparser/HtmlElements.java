@@ -19,16 +19,12 @@
  */
 package org.attoparser;
 
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.LinkedHashSet;
-import java.util.List;
 import java.util.Set;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.attoparser.util.TextUtil;
 
@@ -47,7 +43,7 @@
  */
 final class HtmlElements {
 
-    private static final HtmlElementRepository ELEMENTS = new HtmlElementRepository();
+    private static final HtmlElementRepository ELEMENTS;
 
 
     // Set containing all the standard elements, for possible external reference
@@ -219,10 +215,7 @@ final class HtmlElements {
         /*
          * Register the standard elements at the element repository, in order to initialize it
          */
-        for (final HtmlElement element : ALL_STANDARD_ELEMENTS) {
-            ELEMENTS.storeStandardElement(element);
-        }
-        ELEMENTS.sortRepositories();
+        ELEMENTS = new HtmlElementRepository(ALL_STANDARD_ELEMENTS);
 
 
     }
@@ -250,156 +243,156 @@ private HtmlElements() {
     
 
     /*
-     * This repository class is thread-safe. The reason for this is that it not only contains the
-     * standard elements, but will also contain new instances of HtmlElement created during parsing (created
-     * when asking the repository for them when they do not exist yet. As any thread can create a new element,
-     * this has to be lock-protected.
+     * This repository class is thread-safe, and lookups never block. The reason why thread-safety is needed is
+     * that it not only contains the standard elements, but will also cache new instances of HtmlElement created
+     * during parsing (created when asking the repository for elements that do not exist yet), and any thread
+     * can create a new element.
+     *
+     * Standard elements live in an open-addressing hash table that is built once at class initialization and
+     * never modified afterwards, so it can be read without any synchronization.
+     *
+     * Non-standard (custom) elements live in a fixed-size cache in which each name can occupy one of a small
+     * number of slots starting at the one its hash points to. When all of those slots are taken, one of them is
+     * evicted and replaced. Names longer than CUSTOM_NAME_MAX_LEN are not cached at all. As custom elements have
+     * no behaviour of their own, evicting or not caching one only means that lookups for its name can return
+     * different (but equivalent) HtmlElement instances, and it guarantees memory used by the cache is bounded no
+     * matter how many different element names are found in the parsed documents.
      */
     static final class HtmlElementRepository {
 
-        private final List<HtmlElement> standardRepository; // read-only, no sync needed
-        private final List<HtmlElement> repository;  // read-write, sync will be needed
+        static final int CUSTOM_CACHE_SIZE = 1024; // must be a power of 2
+        static final int CUSTOM_CACHE_PROBES = 4; // must be a power of 2
+        static final int CUSTOM_NAME_MAX_LEN = 64;
+
+        private final HtmlElement[] standardRepository; // read-only, no sync needed
+        private final int standardMask;
+        private final AtomicReferenceArray<HtmlElement> customRepository;  // read-write, lock-free
 
-        private final ReadWriteLock lock = new ReentrantReadWriteLock(true);
-        private final Lock readLock = this.lock.readLock();
-        private final Lock writeLock = this.lock.writeLock();
 
+        HtmlElementRepository(final Collection<HtmlElement> standardElements) {
+
+            super();
+
+            int capacity = 1;
+            while (capacity < standardElements.size() * 4) {
+                capacity <<= 1;
+            }
+
+            this.standardRepository = new HtmlElement[capacity];
+            this.standardMask = capacity - 1;
+
+            for (final HtmlElement element : standardElements) {
+                int index = hashCode(element.name, 0, element.name.length) & this.standardMask;
+                while (this.standardRepository[index] != null) {
+                    index = (index + 1) & this.standardMask;
+                }
+                this.standardRepository[index] = element;
+            }
+
+            this.customRepository = new AtomicReferenceArray<HtmlElement>(CUSTOM_CACHE_SIZE);
 
-        HtmlElementRepository() {
-            this.standardRepository = new ArrayList<HtmlElement>(150);
-            this.repository = new ArrayList<HtmlElement>(150);
         }
 
 
 
         HtmlElement getElement(final char[] text, final int offset, final int len) {
 
+            final int hash = hashCode(text, offset, len);
+
             /*
              * We first try to find it in the repository containing the standard elements, which does not need
              * any synchronization.
              */
-            int index = binarySearch(this.standardRepository, text, offset, len);
-
-            if (index >= 0) {
-                return this.standardRepository.get(index);
+            HtmlElement element;
+            int index = hash & this.standardMask;
+            while ((element = this.standardRepository[index]) != null) {
+                if (matches(element, text, offset, len)) {
+                    return element;
+                }
+                index = (index + 1) & this.standardMask;
             }
 
             /*
-             * We did not find it in the repository of standard elements, so let's try in the read+write one,
-             * which does require synchronization through a readwrite lock.
+             * Not a standard element, so let's try the cache of custom elements (unless the name is too long
+             * to be cached).
              */
+            if (len > CUSTOM_NAME_MAX_LEN) {
+                return new HtmlElement(new String(text, offset, len));
+            }
 
-            this.readLock.lock();
-            try {
-
-                index = binarySearch(this.repository, text, offset, len);
-
-                if (index >= 0) {
-                    return this.repository.get(index);
+            final int home = hash & (CUSTOM_CACHE_SIZE - 1);
+            int free = -1;
+            for (int i = 0; i < CUSTOM_CACHE_PROBES; i++) {
+                index = (home + i) & (CUSTOM_CACHE_SIZE - 1);
+                element = this.customRepository.get(index);
+                if (element == null) {
+                    if (free < 0) {
+                        free = index;
+                    }
+                } else if (matches(element, text, offset, len)) {
+                    return element;
                 }
-
-            } finally {
-                this.readLock.unlock();
             }
 
-
             /*
-             * NOT FOUND. We need to obtain a write lock and store the text
+             * NOT FOUND. We create the element and store it, either at a free slot or evicting one of the existing
+             * elements (chosen by means of a different set of hash bits than the ones used for the home slot).
              */
-            this.writeLock.lock();
-            try {
-                return storeElement(text, offset, len);
-            } finally {
-                this.writeLock.unlock();
-            }
+            final HtmlElement newElement = new HtmlElement(new String(text, offset, len));
 
-        }
-
-
-        private HtmlElement storeElement(final char[] text, final int offset, final int len) {
-
-            final int index = binarySearch(this.repository, text, offset, len);
-            if (index >= 0) {
-                // It was already added while we were waiting for the lock!
-                return this.repository.get(index);
+            if (free >= 0) {
+                if (this.customRepository.compareAndSet(free, null, newElement)) {
+                    return newElement;
+                }
+                // Some other thread took the slot while we were creating the element. If it was precisely for
+                // the same name we will use that one, and if not we will just return a transient instance.
+                element = this.customRepository.get(free);
+                return (element != null && matches(element, text, offset, len) ? element : newElement);
             }
 
-            final HtmlElement element = new HtmlElement(new String(text, offset, len).toLowerCase());
-
-            // binary Search returned (-(insertion point) - 1)
-            this.repository.add(((index + 1) * -1), element);
-
-            return element;
+            final int victim = (home + ((hash >>> 24) & (CUSTOM_CACHE_PROBES - 1))) & (CUSTOM_CACHE_SIZE - 1);
+            this.customRepository.set(victim, newElement);
+            return newElement;
 
         }
 
 
-        private HtmlElement storeStandardElement(final HtmlElement element) {
-
-            // This method will only be called from within the HtmlElements class itself, during initialization of
-            // standard elements. Sorting is not done here but once, after all elements have been added, by means
-            // of the sortRepositories() method.
-
-            this.standardRepository.add(element);
-            this.repository.add(element);
-
-            return element;
-
+        int customSize() {
+            int size = 0;
+            for (int i = 0; i < CUSTOM_CACHE_SIZE; i++) {
+                if (this.customRepository.get(i) != null) {
+                    size++;
+                }
+            }
+            return size;
         }
 
 
-        private void sortRepositories() {
-
-            // Both repositories must be kept lexicographically ordered so that they can be binary-searched. As all
-            // standard elements are added in a single batch during initialization, we sort just once at the end
-            // instead of after every insertion.
-
-            Collections.sort(this.standardRepository, ElementComparator.INSTANCE);
-            Collections.sort(this.repository, ElementComparator.INSTANCE);
 
+        private static boolean matches(final HtmlElement element, final char[] text, final int offset, final int len) {
+            final char[] name = element.name;
+            return name.length == len && TextUtil.equals(false, name, 0, len, text, offset, len);
         }
 
 
-
-        private static int binarySearch(final List<HtmlElement> values,
-                                        final char[] text, final int offset, final int len) {
-
-            int low = 0;
-            int high = values.size() - 1;
-
-            int mid, cmp;
-            char[] midVal;
-
-            while (low <= high) {
-
-                mid = (low + high) >>> 1;
-                midVal = values.get(mid).name;
-
-                cmp = TextUtil.compareTo(false, midVal, 0, midVal.length, text, offset, len);
-
-                if (cmp < 0) {
-                    low = mid + 1;
-                } else if (cmp > 0) {
-                    high = mid - 1;
-                } else {
-                    // Found!!
-                    return mid;
+        /*
+         * Case-insensitive hash code, consistent with TextUtil.equals(false, ...), which considers two chars
+         * equal if either their upper case or their lower case versions are equal.
+         */
+        private static int hashCode(final char[] text, final int offset, final int len) {
+            int h = 0;
+            final int maxi = offset + len;
+            char c;
+            for (int i = offset; i < maxi; i++) {
+                c = text[i];
+                if (c >= 'A' && c <= 'Z') {
+                    c = (char) (c + ('a' - 'A'));
+                } else if (c > 0x7F) {
+                    c = Character.toLowerCase(Character.toUpperCase(c));
                 }
-
-            }
-
-            return -(low + 1);  // Not Found!! We return (-(insertion point) - 1), to guarantee all non-founds are < 0
-
-        }
-
-
-        private static class ElementComparator implements Comparator<HtmlElement> {
-
-            private static ElementComparator INSTANCE = new ElementComparator();
-
-            public int compare(final HtmlElement o1, final HtmlElement o2) {
-                return TextUtil.compareTo(false, o1.name, o2.name);
+                h = 31 * h + c;
             }
+            return h ^ (h >>> 16);
         }
 
     }
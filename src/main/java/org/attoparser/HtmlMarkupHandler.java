@@ -63,6 +63,25 @@ final class HtmlMarkupHandler extends AbstractMarkupHandler {
 
 
 
+    IMarkupHandler getNext() {
+        return this.next;
+    }
+
+
+
+    /*
+     * Resets the state of this handler so that it can be reused for a new parsing operation (see ParseContext).
+     */
+    void reset() {
+        this.currentElement = null;
+        this.markupLevel = 0;
+        this.htmlElementHandled = false;
+        this.headElementHandled = false;
+        this.bodyElementHandled = false;
+    }
+
+
+
     @Override
     public void setParseStatus(final ParseStatus status) {
         // This will be ALWAYS called, so there is no need to actually check whether this property is null when using it
@@ -506,6 +525,20 @@ public void handleUnmatchedCloseElementEnd(
         element.handleUnmatchedCloseElementEnd(buffer, nameOffset, nameLen, line, col, this.next, this.status, this.autoOpenEnabled, this.autoCloseEnabled);
 
     }
+
+
+
+
+    @Override
+    public void handleSkippedElementContents(
+            final char[] buffer,
+            final int offset, final int len,
+            final int line, final int col)
+            throws ParseException {
+
+        this.next.handleSkippedElementContents(buffer, offset, len, line, col);
+
+    }
     
     
     
@@ -35,6 +35,8 @@ class HtmlVoidAutoCloseElement extends HtmlVoidElement {
 
     protected final char[][] autoCloseRequired;
     protected final char[][] autoCloseLimits;
+    protected final StandardNameSet autoCloseRequiredSet;
+    protected final StandardNameSet autoCloseLimitsSet;
 
 
     HtmlVoidAutoCloseElement(final String name, final String[] autoCloseElements, final String[] autoCloseLimits) {
@@ -62,6 +64,8 @@ class HtmlVoidAutoCloseElement extends HtmlVoidElement {
 
         this.autoCloseRequired = autoCloseElementsCharArray;
         this.autoCloseLimits = autoCloseLimitsCharArray;
+        this.autoCloseRequiredSet = StandardNameSet.of(this.autoCloseRequired);
+        this.autoCloseLimitsSet = StandardNameSet.of(this.autoCloseLimits);
 
     }
 
@@ -81,7 +85,8 @@ public void handleOpenElementStart(
         status.setAvoidStacking(true);
 
         if (autoCloseEnabled && !status.isAutoOpenCloseDone()) {
-            status.setAutoCloseRequired(this.autoCloseRequired, this.autoCloseLimits);
+            status.setAutoCloseRequired(
+                    this.autoCloseRequired, this.autoCloseLimits, this.autoCloseRequiredSet, this.autoCloseLimitsSet);
             return;
         }
 
@@ -105,7 +110,8 @@ public void handleStandaloneElementStart(
         status.setAvoidStacking(true);
 
         if (autoCloseEnabled && !status.isAutoOpenCloseDone()) {
-            status.setAutoCloseRequired(this.autoCloseRequired, this.autoCloseLimits);
+            status.setAutoCloseRequired(
+                    this.autoCloseRequired, this.autoCloseLimits, this.autoCloseRequiredSet, this.autoCloseLimitsSet);
             return;
         }
 
@@ -35,6 +35,8 @@ class HtmlVoidAutoOpenCloseElement extends HtmlVoidAutoCloseElement {
 
     private final char[][] autoOpenParents;
     private final char[][] autoOpenLimits;
+    private final StandardNameSet autoOpenParentsSet;
+    private final StandardNameSet autoOpenLimitsSet;
 
 
     HtmlVoidAutoOpenCloseElement(final String name,
@@ -64,6 +66,8 @@ class HtmlVoidAutoOpenCloseElement extends HtmlVoidAutoCloseElement {
 
         this.autoOpenParents = autoOpenParentsCharArray;
         this.autoOpenLimits = autoOpenLimitsCharArray;
+        this.autoOpenParentsSet = StandardNameSet.of(this.autoOpenParents);
+        this.autoOpenLimitsSet = StandardNameSet.of(this.autoOpenLimits);
 
     }
 
@@ -87,10 +91,12 @@ public void handleOpenElementStart(
 
         if ((autoOpenEnabled || autoCloseEnabled) && !status.isAutoOpenCloseDone()) {
             if (autoCloseEnabled) {
-                status.setAutoCloseRequired(this.autoCloseRequired, this.autoCloseLimits);
+                status.setAutoCloseRequired(
+                        this.autoCloseRequired, this.autoCloseLimits, this.autoCloseRequiredSet, this.autoCloseLimitsSet);
             }
             if (autoOpenEnabled) {
-                status.setAutoOpenRequired(this.autoOpenParents, this.autoOpenLimits);
+                status.setAutoOpenRequired(
+                        this.autoOpenParents, this.autoOpenLimits, this.autoOpenParentsSet, this.autoOpenLimitsSet);
             }
             return;
         }
@@ -116,10 +122,12 @@ public void handleStandaloneElementStart(
 
         if ((autoOpenEnabled || autoCloseEnabled) && !status.isAutoOpenCloseDone()) {
             if (autoCloseEnabled) {
-                status.setAutoCloseRequired(this.autoCloseRequired, this.autoCloseLimits);
+                status.setAutoCloseRequired(
+                        this.autoCloseRequired, this.autoCloseLimits, this.autoCloseRequiredSet, this.autoCloseLimitsSet);
             }
             if (autoOpenEnabled) {
-                status.setAutoOpenRequired(this.autoOpenParents, this.autoOpenLimits);
+                status.setAutoOpenRequired(
+                        this.autoOpenParents, this.autoOpenLimits, this.autoOpenParentsSet, this.autoOpenLimitsSet);
             }
             return;
         }
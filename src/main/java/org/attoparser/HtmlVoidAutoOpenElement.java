@@ -34,6 +34,8 @@ class HtmlVoidAutoOpenElement extends HtmlVoidElement {
 
     private final char[][] autoOpenParents;
     private final char[][] autoOpenLimits;
+    private final StandardNameSet autoOpenParentsSet;
+    private final StandardNameSet autoOpenLimitsSet;
 
 
     HtmlVoidAutoOpenElement(final String name,
@@ -62,6 +64,8 @@ class HtmlVoidAutoOpenElement extends HtmlVoidElement {
 
         this.autoOpenParents = autoOpenParentsCharArray;
         this.autoOpenLimits = autoOpenLimitsCharArray;
+        this.autoOpenParentsSet = StandardNameSet.of(this.autoOpenParents);
+        this.autoOpenLimitsSet = StandardNameSet.of(this.autoOpenLimits);
 
     }
 
@@ -84,7 +88,8 @@ public void handleOpenElementStart(
         status.setAvoidStacking(true);
 
         if (autoOpenEnabled && !status.isAutoOpenCloseDone()) {
-            status.setAutoOpenRequired(this.autoOpenParents, this.autoOpenLimits);
+            status.setAutoOpenRequired(
+                    this.autoOpenParents, this.autoOpenLimits, this.autoOpenParentsSet, this.autoOpenLimitsSet);
             return;
         }
 
@@ -108,7 +113,8 @@ public void handleStandaloneElementStart(
         status.setAvoidStacking(true);
 
         if (autoOpenEnabled && status.isAutoOpenCloseDone()) {
-            status.setAutoOpenRequired(this.autoOpenParents, this.autoOpenLimits);
+            status.setAutoOpenRequired(
+                    this.autoOpenParents, this.autoOpenLimits, this.autoOpenParentsSet, this.autoOpenLimitsSet);
             return;
         }
 
@@ -0,0 +1,110 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+
+/**
+ * <p>
+ *   Interface to be implemented by pools of <kbd>char[]</kbd> buffers used by {@link MarkupParser} for
+ *   reading documents (and for parsing sessions, see {@link ParseSession}). Default implementation is
+ *   {@link StripedBufferPool}.
+ * </p>
+ * <p>
+ *   The parser will first request buffers of the size returned by {@link #getBufferSize()}. If a markup
+ *   structure (or a non-splittable text) does not fit in a buffer, the parser will request a new buffer
+ *   of double the size, release the old one and go on with the bigger buffer.
+ * </p>
+ * <p>
+ *   Pools are not required to keep track of the buffers they have allocated, so they should be prepared to
+ *   be returned buffers they have not allocated themselves (which they can simply discard) and, conversely,
+ *   buffers allocated by a pool might never be released back (e.g. if a parsing session is abandoned without
+ *   being closed).
+ * </p>
+ * <p>
+ *   Implementations of this interface should be <strong>thread-safe</strong>, as parsers can be used by any
+ *   number of concurrent threads. Pools should never block waiting for a buffer to become available: if they
+ *   cannot serve a buffer from the pool, they should simply allocate a new one.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 2.0.10
+ *
+ */
+public interface IBufferPool {
+
+
+    /**
+     * <p>
+     *   Returns the size (in chars) of the buffers the parser should initially request to this pool.
+     * </p>
+     *
+     * @return the default buffer size.
+     */
+    public int getBufferSize();
+
+
+    /**
+     * <p>
+     *   Obtain a buffer of (at least) the specified size, either from the pool or newly allocated.
+     * </p>
+     *
+     * @param bufferSize the required size of the buffer (in chars).
+     * @return the buffer.
+     */
+    public char[] allocateBuffer(final int bufferSize);
+
+
+    /**
+     * <p>
+     *   Obtain a buffer of (at least) the specified size, either from the pool or newly allocated, counting
+     *   the request in the metrics of the parsing operation that performs it as either a hit (by calling
+     *   {@link ParseMetrics#countPoolHit()}) or a miss (by calling {@link ParseMetrics#countPoolMiss()}).
+     * </p>
+     * <p>
+     *   This is called by parsers instead of {@link #allocateBuffer(int)} when metrics are enabled (see
+     *   {@link IParseMetricsListener}). The default implementation simply calls {@link #allocateBuffer(int)},
+     *   without counting anything, so implementations should override it in order to report their hits and misses.
+     * </p>
+     *
+     * @param bufferSize the required size of the buffer (in chars).
+     * @param metrics the metrics of the parsing operation requesting the buffer (never null).
+     * @return the buffer.
+     * @since 2.0.10
+     */
+    public default char[] allocateBuffer(final int bufferSize, final ParseMetrics metrics) {
+        return allocateBuffer(bufferSize);
+    }
+
+
+    /**
+     * <p>
+     *   Release a buffer that is no longer being used, so that it can be returned to the pool (or discarded).
+     * </p>
+     * <p>
+     *   Once released, the buffer must not be used by the caller any more.
+     * </p>
+     *
+     * @param buffer the buffer to be released (might be null, in which case nothing will be done).
+     */
+    public void releaseBuffer(final char[] buffer);
+
+
+}
@@ -379,4 +379,49 @@ public void handleUnmatchedCloseElementEnd(
             final int line, final int col)
             throws ParseException;
 
+    /**
+     * <p>
+     *   Called when the contents of an open element (everything between its open and its close tags) have been
+     *   skipped by the parser, because an event handler asked for it by calling
+     *   {@link ParseStatus#skipElementContents()} while handling the open element.
+     * </p>
+     * <p>
+     *   Skipped contents are not parsed into events at all (only the nesting of elements with the same name as
+     *   the skipped one is tracked in order to find the matching close tag), so they are reported as a whole by
+     *   means of their offsets in the document buffer. Note this event might be fired more than once for the
+     *   same element if its contents do not fit in the parsing buffer (when parsing from a
+     *   {@link java.io.Reader} or a {@link ParseSession}). The close element events will be fired normally
+     *   afterwards.
+     * </p>
+     * <p>
+     *   Artifacts are reported using the document <kbd>buffer</kbd> directly, and this buffer
+     *   should not be considered to be immutable, so reported structures should be copied if they need
+     *   to be stored (either by copying <kbd>len</kbd> chars from the buffer <kbd>char[]</kbd> starting
+     *   in <kbd>offset</kbd> or by creating a <kbd>String</kbd> from it using the same specification).
+     * </p>
+     * <p>
+     *   <b>Implementations of this handler should never modify the document buffer.</b>
+     * </p>
+     * <p>
+     *   The default implementation of this method does nothing, so that handlers implementing this interface
+     *   directly and written before this method existed keep working. Handlers that delegate events to other
+     *   handlers (e.g. to the next handler in a chain) should override it in order to pass the event on.
+     * </p>
+     *
+     * @param buffer the document buffer (not copied)
+     * @param offset the offset (position in buffer) where the skipped contents start.
+     * @param len the length (in chars) of the skipped contents.
+     * @param line the line in the original document where the skipped contents start.
+     * @param col the column in the original document where the skipped contents start.
+     * @throws ParseException if any exceptions occur during handling.
+     * @since 2.0.10
+     */
+    public default void handleSkippedElementContents(
+            final char[] buffer,
+            final int offset, final int len,
+            final int line, final int col)
+            throws ParseException {
+        // Nothing to be done by default
+    }
+
 }
\ No newline at end of file
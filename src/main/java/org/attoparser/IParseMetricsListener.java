@@ -0,0 +1,59 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+
+/**
+ * <p>
+ *   Interface to be implemented by listeners of the metrics collected by {@link MarkupParser} for each
+ *   parsing operation, when a listener has been specified at the parser's constructor. Default implementation is
+ *   {@link ParseMetricsCollector}, which aggregates the metrics of all parsing operations.
+ * </p>
+ * <p>
+ *   Listeners are notified once the whole document has been parsed (right after the document end event has been
+ *   handled), or once the parsing operation has failed (right before the {@link ParseException} is thrown to
+ *   the caller, see {@link ParseMetrics#isFailed()}), from the thread that performed the parsing operation.
+ *   Implementations should therefore be <strong>thread-safe</strong>, should return quickly and should not
+ *   throw any exceptions, as these would make a successful parsing operation fail.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 2.0.10
+ *
+ */
+public interface IParseMetricsListener {
+
+
+    /**
+     * <p>
+     *   Called once a parsing operation has finished, either successfully or not.
+     * </p>
+     * <p>
+     *   The metrics object is not modified by the parser after this method is called, so listeners can keep
+     *   a reference to it.
+     * </p>
+     *
+     * @param metrics the metrics collected during the parsing operation.
+     */
+    public void parseFinished(final ParseMetrics metrics);
+
+
+}
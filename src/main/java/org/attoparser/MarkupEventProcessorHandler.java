@@ -19,10 +19,7 @@
  */
 package org.attoparser;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
 
 import org.attoparser.config.ParseConfiguration;
 import org.attoparser.util.TextUtil;
@@ -37,7 +34,8 @@
  * events to their specific position in the original document.
  *
  * Note that, although MarkupParser's are stateless, objects of this class are STATEFUL just like markup handlers can
- * potentially be, and therefore a new MarkupEventProcessor object will be built for each parsing operation.
+ * potentially be, and therefore a new MarkupEventProcessor object will be built for each parsing operation (unless
+ * it is part of a ParseContext, which will reset it before reusing it for a new parsing operation).
  *
  * @author Daniel Fernandez
  * @since 2.0.0
@@ -48,6 +46,9 @@ final class MarkupEventProcessorHandler extends AbstractChainedMarkupHandler {
     private static final int DEFAULT_STACK_LEN = 10;
     private static final int DEFAULT_ATTRIBUTE_NAMES_LEN = 3;
 
+    // Maximum number of names kept in the structure names repository when reset for a new parsing operation
+    private static final int MAX_RETAINED_STRUCTURE_NAMES = 500;
+
     private ParseStatus status;
 
     private boolean useStack;
@@ -75,8 +76,15 @@ final class MarkupEventProcessorHandler extends AbstractChainedMarkupHandler {
     // char[] object each time an element is pushed into the stack or an attribute
     // is processed to check its uniqueness.
     private StructureNamesRepository structureNamesRepository;
+    // Will be used for assigning int ids to the elements in the stack, so that they can be compared by id.
+    private StructureIdsRepository structureIdsRepository;
 
     private char[][] elementStack;
+    private int[] elementIdStack; // ids for the elements in the stack (see StructureIdsRepository)
+    // Number of elements in the stack for each standard name id, and a bitset of the ids with count > 0. These
+    // allow skipping the search of the stack for elements to be auto-closed when none of them is open.
+    private int[] openStandardCounts;
+    private long[] openStandardIds;
     private int elementStackSize;
 
     private boolean validPrologXmlDeclarationRead = false;
@@ -146,15 +154,23 @@ public void setParseConfiguration(final ParseConfiguration parseConfiguration) {
         if (this.useStack) {
 
             this.elementStack = new char[DEFAULT_STACK_LEN][];
+            this.elementIdStack = new int[DEFAULT_STACK_LEN];
+            this.openStandardCounts = new int[StandardNameInterner.size()];
+            this.openStandardIds = new long[(StandardNameInterner.size() + 63) >>> 6];
             this.elementStackSize = 0;
 
             this.structureNamesRepository = new StructureNamesRepository();
+            this.structureIdsRepository = new StructureIdsRepository(this.caseSensitive);
 
         } else {
 
             this.elementStack = null;
+            this.elementIdStack = null;
+            this.openStandardCounts = null;
+            this.openStandardIds = null;
             this.elementStackSize = 0;
             this.structureNamesRepository = null;
+            this.structureIdsRepository = null;
 
         }
 
@@ -165,10 +181,49 @@ public void setParseConfiguration(final ParseConfiguration parseConfiguration) {
 
 
 
+    /*
+     * Resets the state of this object so that it can be reused for a new parsing operation with the same
+     * configuration, without the need to allocate a new element stack or structure name repository.
+     */
+    void reset() {
+
+        if (this.elementStack != null) {
+            Arrays.fill(this.elementStack, 0, this.elementStackSize, null);
+            Arrays.fill(this.openStandardCounts, 0);
+            Arrays.fill(this.openStandardIds, 0L);
+        }
+        this.elementStackSize = 0;
+
+        if (this.structureNamesRepository != null &&
+                this.structureNamesRepository.size() > MAX_RETAINED_STRUCTURE_NAMES) {
+            // Names are kept among parsing operations, but we should avoid unlimited growth
+            this.structureNamesRepository.clear();
+        }
+        if (this.structureIdsRepository != null &&
+                this.structureIdsRepository.size() > MAX_RETAINED_STRUCTURE_NAMES) {
+            this.structureIdsRepository.clear();
+        }
+
+        this.validPrologXmlDeclarationRead = false;
+        this.validPrologDocTypeRead = false;
+        this.elementRead = false;
+        this.rootElementName = null;
+        this.currentElementAttributeNamesSize = 0;
+        this.closeElementIsMatched = true;
+
+    }
+
+
+
+
     public void handleDocumentEnd(final long endTimeNanos, final long totalTimeNanos, final int line, final int col)
             throws ParseException {
 
-        if (this.requireBalancedElements && this.elementStackSize > 0) {
+        // If a handler has stopped parsing, the document has been truncated, so it cannot be checked for
+        // completeness. Open elements will be closed if possible so that handlers still receive balanced events.
+        final boolean parsingStopped = this.status.parsingStopped;
+
+        if (!parsingStopped && this.requireBalancedElements && this.elementStackSize > 0) {
             final char[] popped = popFromStack();
             throw new ParseException(
                 "Malformed markup: element " +
@@ -176,14 +231,14 @@ public void handleDocumentEnd(final long endTimeNanos, final long totalTimeNanos
                 " is never closed (no closing tag at the end of document)");
         }
 
-        if (!this.elementRead && (
+        if (!parsingStopped && !this.elementRead && (
                 (this.validPrologDocTypeRead && this.uniqueRootElementPresence.isDependsOnPrologDoctype()) ||
                 this.uniqueRootElementPresence.isRequiredAlways())) {
             throw new ParseException(
                     "Malformed markup: no root element present");
         }
 
-        if (this.useStack) {
+        if (this.useStack && (!parsingStopped || this.autoClose)) {
             cleanStack(line, col);
         }
 
@@ -281,6 +336,10 @@ public void handleStandaloneElementStart(
         this.status.autoOpenLimits = null;
         this.status.autoCloseRequired = null;
         this.status.autoCloseLimits = null;
+        this.status.autoOpenParentIds = null;
+        this.status.autoOpenLimitsSet = null;
+        this.status.autoCloseRequiredSet = null;
+        this.status.autoCloseLimitsSet = null;
         this.status.avoidStacking = true; // Default for standalone elements is avoid stacking
 
         getNext().handleStandaloneElementStart(buffer, nameOffset, nameLen, minimized, line, col);
@@ -359,7 +418,12 @@ public void handleOpenElementStart(
         this.status.autoOpenLimits = null;
         this.status.autoCloseRequired = null;
         this.status.autoCloseLimits = null;
+        this.status.autoOpenParentIds = null;
+        this.status.autoOpenLimitsSet = null;
+        this.status.autoCloseRequiredSet = null;
+        this.status.autoCloseLimitsSet = null;
         this.status.avoidStacking = false; // Default for open elements is not to avoid stacking
+        this.status.skipElementContentsRequested = false; // Requests will only be valid for this element
 
         getNext().handleOpenElementStart(buffer, nameOffset, nameLen, line, col);
 
@@ -401,6 +465,20 @@ public void handleOpenElementEnd(
         this.elementRead = true;
         getNext().handleOpenElementEnd(buffer, nameOffset, nameLen, line, col);
 
+        if (this.status.skipElementContentsRequested) {
+            // A handler has asked for the contents of this element to be skipped, so the parser will look for its
+            // close tag instead of parsing them. Note HTML void elements (not stacked) have no contents at all.
+            this.status.skipElementContentsRequested = false;
+            if (!this.status.avoidStacking) {
+                final char[] skippedElementName = new char[nameLen];
+                System.arraycopy(buffer, nameOffset, skippedElementName, 0, nameLen);
+                this.status.skippedElementName = skippedElementName;
+                this.status.skippedElementStatus[0] = 1;
+                // If parsing has been disabled for the contents of this element (e.g. <script>), the parser will
+                // only look for its limit sequence while skipping, and will enable parsing again once found.
+            }
+        }
+
     }
 
 
@@ -746,12 +824,22 @@ private boolean checkStackForElement(
             final char[] buffer, final int offset, final int len, final int line, final int col)
             throws ParseException {
 
+        // Names are compared by id. If the name has never been given an id, or it is a standard name and we know
+        // there is no element with that name open, it cannot be in the stack and there is no need to search it.
+        final int id = this.structureIdsRepository.getId(buffer, offset, len, false);
+        final boolean searchStack =
+                (id >= this.openStandardCounts.length || (id >= 0 && this.openStandardCounts[id] > 0));
+
         int peekDelta = 0;
         char[] peek = peekFromStack(peekDelta);
 
         while (peek != null) {
 
-            if (TextUtil.equals(this.caseSensitive, peek, 0, peek.length, buffer, offset, len)) {
+            if (!searchStack && !this.requireBalancedElements) {
+                break;
+            }
+
+            if (searchStack && this.elementIdStack[(this.elementStackSize - 1) - peekDelta] == id) {
 
                 // We found the corresponding opening element, so we execute all pending auto-close events
                 // (if needed) and return true (meaning the close element has a matching open element).
@@ -810,7 +898,8 @@ private void cleanStack(final int line, final int col)
         if (this.elementStackSize > 0) {
 
             // When we arrive here we know that "requireBalancedElements" is
-            // false. If it were true, an exception would have been raised before.
+            // false. If it were true, an exception would have been raised before
+            // (or parsing would have been stopped, with no auto-closing allowed).
 
             char[] popped = popFromStack();
 
@@ -841,6 +930,77 @@ private void autoClose(
             final char[][] autoCloseElements, final char[][] autoCloseLimits, final int line, final int col)
             throws ParseException {
 
+        final int unstackCount;
+
+        if (this.status.autoCloseRequiredSet != null &&
+                (autoCloseLimits == null || this.status.autoCloseLimitsSet != null)) {
+            // Rules have been precompiled into sets of standard name ids, so we can use the id stack
+            unstackCount =
+                    computeAutoCloseUnstackCount(this.status.autoCloseRequiredSet, this.status.autoCloseLimitsSet);
+        } else {
+            unstackCount = computeAutoCloseUnstackCount(autoCloseElements, autoCloseLimits);
+        }
+
+
+        char[] peek;
+        int n = unstackCount;
+        while (n-- != 0) {
+
+            peek = popFromStack();
+
+            if (this.requireBalancedElements) {
+                throw new ParseException(
+                        "Malformed markup: element " +
+                                "\"" + new String(peek, 0, peek.length) + "\"" +
+                                " is not closed where it should be", line, col);
+            }
+
+            if (this.autoClose) {
+                getNext().handleAutoCloseElementStart(peek, 0, peek.length, line, col);
+                getNext().handleAutoCloseElementEnd(peek, 0, peek.length, line, col);
+            }
+
+        }
+
+    }
+
+
+
+    private int computeAutoCloseUnstackCount(
+            final StandardNameSet autoCloseElements, final StandardNameSet autoCloseLimits) {
+
+        if (!autoCloseElements.intersects(this.openStandardIds)) {
+            // None of the elements to be closed is open, so no need to search the stack
+            return 0;
+        }
+
+        int unstackCount = 0;
+        int id;
+
+        for (int i = this.elementStackSize - 1; i >= 0; i--) {
+
+            id = this.elementIdStack[i];
+
+            if (autoCloseLimits != null && autoCloseLimits.contains(id)) {
+                // Just found a limit, we should stop computing unstacking here
+                break;
+            }
+
+            if (autoCloseElements.contains(id)) {
+                // This is an element we must unstack, so we should mark unstackCount
+                unstackCount = this.elementStackSize - i;
+            }
+
+        }
+
+        return unstackCount;
+
+    }
+
+
+
+    private int computeAutoCloseUnstackCount(final char[][] autoCloseElements, final char[][] autoCloseLimits) {
+
         int peekDelta = 0;
         int unstackCount = 0;
         char[] peek = peekFromStack(peekDelta);
@@ -884,25 +1044,7 @@ private void autoClose(
 
         }
 
-
-        n = unstackCount;
-        while (n-- != 0) {
-
-            peek = popFromStack();
-
-            if (this.requireBalancedElements) {
-                throw new ParseException(
-                        "Malformed markup: element " +
-                                "\"" + new String(peek, 0, peek.length) + "\"" +
-                                " is not closed where it should be", line, col);
-            }
-
-            if (this.autoClose) {
-                getNext().handleAutoCloseElementStart(peek, 0, peek.length, line, col);
-                getNext().handleAutoCloseElementEnd(peek, 0, peek.length, line, col);
-            }
-
-        }
+        return unstackCount;
 
     }
 
@@ -920,6 +1062,11 @@ private void autoOpen(
         int parentInsertCount = 0;
         int i,n;
 
+        // If rules have been precompiled into standard name ids, we will compare ids instead of names
+        final int[] autoOpenParentIds = this.status.autoOpenParentIds;
+        final StandardNameSet autoOpenLimitsSet = this.status.autoOpenLimitsSet;
+        final boolean useIds = (autoOpenParentIds != null && (autoOpenLimits == null || autoOpenLimitsSet != null));
+
         if (autoOpenLimits == null) {
             // There are no limits, so all we have to check is whether we need to complete the parent sequence.
 
@@ -938,9 +1085,13 @@ private void autoOpen(
 
             } else {
 
+                final int peekId = this.elementIdStack[this.elementStackSize - 1];
+
                 n = autoOpenParents.length;
                 while (peek != null && n-- != 0) {
-                    if (TextUtil.equals(this.caseSensitive, autoOpenParents[n], peek)) {
+                    if (useIds ?
+                            autoOpenParentIds[n] == peekId :
+                            TextUtil.equals(this.caseSensitive, autoOpenParents[n], peek)) {
                         // We compute the amount of parent elements we need to insert
                         parentInsertCount = (autoOpenParents.length - n) - 1;
                         break;
@@ -961,7 +1112,15 @@ private void autoOpen(
 
             final char[] peek = peekFromStack(0);
 
-            if (peek != null) {
+            if (peek != null && useIds) {
+                // Let's check the immediate parent and see if it is in the set of limits
+
+                if (autoOpenLimitsSet.contains(this.elementIdStack[this.elementStackSize - 1])) {
+                    // Just found a limit, so there's nothing to insert here
+                    return;
+                }
+
+            } else if (peek != null) {
                 // Let's check the immediate parent and see if it is in the list of limits
 
                 i = 0;
@@ -1010,8 +1169,14 @@ private void pushToStack(
             growStack();
         }
 
-        this.elementStack[this.elementStackSize] =
-                this.structureNamesRepository.getStructureName(buffer, offset, len);
+        final char[] elementName = this.structureNamesRepository.getStructureName(buffer, offset, len);
+
+        this.elementStack[this.elementStackSize] = elementName;
+        final int id = this.structureIdsRepository.getId(elementName, 0, len, true);
+        this.elementIdStack[this.elementStackSize] = id;
+        if (id < this.openStandardCounts.length && this.openStandardCounts[id]++ == 0) {
+            this.openStandardIds[id >>> 6] |= (1L << id);
+        }
 
         this.elementStackSize++;
 
@@ -1031,6 +1196,10 @@ private char[] popFromStack() {
             return null;
         }
         final char[] popped = this.elementStack[this.elementStackSize - 1];
+        final int id = this.elementIdStack[this.elementStackSize - 1];
+        if (id < this.openStandardCounts.length && --this.openStandardCounts[id] == 0) {
+            this.openStandardIds[id >>> 6] &= ~(1L << id);
+        }
         this.elementStack[this.elementStackSize - 1] = null;
         this.elementStackSize--;
         return popped;
@@ -1039,10 +1208,14 @@ private char[] popFromStack() {
 
     private void growStack() {
 
-        final int newStackLen = this.elementStack.length + DEFAULT_STACK_LEN;
+        // Growth is geometric, so that very deep documents do not need a quadratic amount of copying
+        final int newStackLen = this.elementStack.length * 2;
         final char[][] newStack = new char[newStackLen][];
         System.arraycopy(this.elementStack, 0, newStack, 0, this.elementStack.length);
         this.elementStack = newStack;
+        final int[] newIdStack = new int[newStackLen];
+        System.arraycopy(this.elementIdStack, 0, newIdStack, 0, this.elementIdStack.length);
+        this.elementIdStack = newIdStack;
 
     }
 
@@ -1056,7 +1229,8 @@ private void growStack() {
      * In-instance repository for structure names (element + attribute names).
      *
      * This class is NOT thread-safe. Should only be used inside a specific handler
-     * instance/thread and only during a single execution.
+     * instance/thread and only during a single execution (or several consecutive ones, if
+     * the handler is reused by a ParseContext).
      */
     static final class StructureNamesRepository {
 
@@ -1075,6 +1249,13 @@ static final class StructureNamesRepository {
 
         char[] getStructureName(final char[] text, final int offset, final int len) {
 
+            // Standard names (written in lowercase or uppercase) are resolved in O(1) by the shared interner,
+            // so there is no need to retain them here.
+            final char[] standardName = StandardNameInterner.getChars(text, offset, len);
+            if (standardName != null) {
+                return standardName;
+            }
+
             final int index =
                     TextUtil.binarySearch(true, this.repository, 0, this.repositorySize, text, offset, len);
 
@@ -1090,6 +1271,17 @@ char[] getStructureName(final char[] text, final int offset, final int len) {
         }
 
 
+        int size() {
+            return this.repositorySize;
+        }
+
+
+        void clear() {
+            Arrays.fill(this.repository, 0, this.repositorySize, null);
+            this.repositorySize = 0;
+        }
+
+
         private char[] storeStructureName(final int index, final char[] text, final int offset, final int len) {
 
             if (this.repositorySize == this.repository.length) {
@@ -1103,9 +1295,8 @@ private char[] storeStructureName(final int index, final char[] text, final int
             // binary search returned (-(insertion point) - 1)
             final int insertionIndex = ((index + 1) * -1);
 
-            // We rely on the static structure name cache, just in case it is a standard HTML structure name.
-            // Note the StandardNamesRepository will create the new char[] if not found, so no need to null-check.
-            final char[] structureName = StandardNamesRepository.getStructureName(text, offset, len);
+            final char[] structureName = new char[len];
+            System.arraycopy(text, offset, structureName, 0, len);
 
             // Make room and insert the new element
             System.arraycopy(this.repository, insertionIndex, this.repository, insertionIndex + 1, this.repositorySize - insertionIndex);
@@ -1122,59 +1313,168 @@ private char[] storeStructureName(final int index, final char[] text, final int
 
 
     /*
-     *     This class is IMMUTABLE, and therefore thread-safe. Will be used in a static manner by all
-     *     threads which require the use of a repository of standard names (HTML names, in this case).
+     * In-instance repository for element name ids, used for comparing the names of elements in the stack by means
+     * of int comparisons.
+     *
+     * Standard names are given the ids assigned to them by the StandardNameInterner, and the rest of names are
+     * given ids from StandardNameInterner.size() on, in order of appearance. Two names get the same id if and only
+     * if they would be considered equal by TextUtil.equals(caseSensitive, ...). When case-sensitive (XML), only
+     * the lowercase version of standard names gets their standard id.
+     *
+     * This class is NOT thread-safe. Should only be used inside a specific handler
+     * instance/thread and only during a single execution (or several consecutive ones, if
+     * the handler is reused by a ParseContext).
      */
-    static final class StandardNamesRepository {
+    static final class StructureIdsRepository {
 
+        private static final int REPOSITORY_INITIAL_LEN = 64; // must be a power of 2
 
-        private static final char[][] REPOSITORY;
+        private final boolean caseSensitive;
+        private char[][] names;
+        private int[] ids;
+        private int size;
 
 
-        static {
+        StructureIdsRepository(final boolean caseSensitive) {
+            super();
+            this.caseSensitive = caseSensitive;
+            this.names = new char[REPOSITORY_INITIAL_LEN][];
+            this.ids = new int[REPOSITORY_INITIAL_LEN];
+            this.size = 0;
+        }
 
-            final List<String> names = new ArrayList<String>(150);
-            // Add all the standard HTML element (tag) names
-            names.addAll(HtmlNames.ALL_STANDARD_ELEMENT_NAMES);
-            // We know all standard element names are lowercase, so let's cache them uppercase too
-            for (final String name : HtmlNames.ALL_STANDARD_ELEMENT_NAMES) {
-                names.add(name.toUpperCase());
+
+        /*
+         * Returns -1 if the name is not standard and it has not been registered yet (and create is false).
+         */
+        int getId(final char[] text, final int offset, final int len, final boolean create) {
+
+            int id = StandardNameInterner.getId(text, offset, len);
+
+            if (id >= 0) {
+                if (!this.caseSensitive ||
+                        TextUtil.equals(true, StandardNameInterner.getName(id), 0, len, text, offset, len)) {
+                    return id;
+                }
+            } else if (!this.caseSensitive && hasNonAscii(text, offset, len)) {
+                // Some non-ASCII chars are considered equal to ASCII letters when ignoring case (e.g. the Kelvin
+                // sign and 'k'), so these names could still be equal to standard names.
+                final char[] folded = fold(text, offset, len);
+                id = StandardNameInterner.getId(folded, 0, len);
+                if (id >= 0) {
+                    return id;
+                }
             }
-            // Add all the standard HTML attribute names
-            names.addAll(HtmlNames.ALL_STANDARD_ATTRIBUTE_NAMES);
-            // We know all standard attribute names are lowercase, so let's cache them uppercase too
-            for (final String name : HtmlNames.ALL_STANDARD_ATTRIBUTE_NAMES) {
-                names.add(name.toUpperCase());
+
+            final int mask = this.names.length - 1;
+            int index = hashCode(text, offset, len) & mask;
+            char[] name;
+            while ((name = this.names[index]) != null) {
+                if (TextUtil.equals(this.caseSensitive, name, 0, name.length, text, offset, len)) {
+                    return this.ids[index];
+                }
+                index = (index + 1) & mask;
             }
-            Collections.sort(names);
 
-            REPOSITORY = new char[names.size()][];
+            if (!create) {
+                return -1;
+            }
+
+            name = new char[len];
+            System.arraycopy(text, offset, name, 0, len);
+            id = StandardNameInterner.size() + this.size;
+
+            this.names[index] = name;
+            this.ids[index] = id;
+            this.size++;
 
-            for (int i = 0; i < names.size(); i++) {
-                final String name = names.get(i);
-                REPOSITORY[i] = name.toCharArray();
+            if (this.size * 2 > this.names.length) {
+                grow();
             }
 
+            return id;
+
         }
 
 
-        static char[] getStructureName(final char[] text, final int offset, final int len) {
+        int size() {
+            return this.size;
+        }
+
+
+        void clear() {
+            Arrays.fill(this.names, null);
+            this.size = 0;
+        }
 
-            final int index = TextUtil.binarySearch(true, REPOSITORY, text, offset, len);
 
-            if (index < 0) {
-                final char[] structureName = new char[len];
-                System.arraycopy(text, offset, structureName, 0, len);
-                return structureName;
+        private void grow() {
+
+            final char[][] oldNames = this.names;
+            final int[] oldIds = this.ids;
+
+            this.names = new char[oldNames.length * 2][];
+            this.ids = new int[oldIds.length * 2];
+
+            final int mask = this.names.length - 1;
+            for (int i = 0; i < oldNames.length; i++) {
+                if (oldNames[i] != null) {
+                    int index = hashCode(oldNames[i], 0, oldNames[i].length) & mask;
+                    while (this.names[index] != null) {
+                        index = (index + 1) & mask;
+                    }
+                    this.names[index] = oldNames[i];
+                    this.ids[index] = oldIds[i];
+                }
             }
 
-            return REPOSITORY[index];
+        }
+
 
+        private int hashCode(final char[] text, final int offset, final int len) {
+            int h = 0;
+            final int maxi = offset + len;
+            char c;
+            for (int i = offset; i < maxi; i++) {
+                c = text[i];
+                if (!this.caseSensitive) {
+                    c = foldChar(c);
+                }
+                h = 31 * h + c;
+            }
+            return h ^ (h >>> 16);
         }
 
 
-        private StandardNamesRepository() {
-            super();
+        private static boolean hasNonAscii(final char[] text, final int offset, final int len) {
+            final int maxi = offset + len;
+            for (int i = offset; i < maxi; i++) {
+                if (text[i] > 0x7F) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+
+        private static char[] fold(final char[] text, final int offset, final int len) {
+            final char[] folded = new char[len];
+            for (int i = 0; i < len; i++) {
+                folded[i] = foldChar(text[offset + i]);
+            }
+            return folded;
+        }
+
+
+        /*
+         * Two chars are equal ignoring case for TextUtil.equals(false, ...) if and only if their folded versions
+         * are equal.
+         */
+        private static char foldChar(final char c) {
+            if (c <= 0x7F) {
+                return (c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c);
+            }
+            return Character.toLowerCase(Character.toUpperCase(c));
         }
 
     }
@@ -20,9 +20,15 @@
 package org.attoparser;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 import java.io.StringReader;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
 
 import org.attoparser.config.ParseConfiguration;
 import org.attoparser.select.ParseSelection;
@@ -84,6 +90,17 @@
  *   objects. In such case, the <kbd>char[]</kbd> documents themselves will be used as buffers, avoiding the need
  *   to allocate pooled buffers or use any additional amount of memory.)</em>
  * </p>
+ * <p>
+ *   Documents can also be specified as bytes (<kbd>byte[]</kbd>, {@link ByteBuffer} or {@link InputStream}),
+ *   in which case they will be decoded directly into the pooled buffers, optionally detecting their charset.
+ *   Documents stored in files can be parsed by means of memory-mapping (see
+ *   {@link #parse(FileChannel, Charset, IMarkupHandler)}).
+ * </p>
+ * <p>
+ *   Besides parsing documents provided as a whole or through a {@link Reader}, this parser can also work in
+ *   <em>push mode</em> by means of a {@link ParseSession} obtained from {@link #openSession(IMarkupHandler)},
+ *   which allows documents to be fed to the parser chunk by chunk without blocking while waiting for input.
+ * </p>
  *
  * @author Daniel Fern&aacute;ndez
  * 
@@ -103,32 +120,53 @@ public final class MarkupParser implements IMarkupParser {
 
     /**
      * <p>
-     *   Default pool size to be used. Buffers will be kept in a pool and
+     *   Minimum default pool size to be used. Buffers will be kept in a pool and
      *   reused in order to increase performance. Pool will be non-exclusive
      *   so that if pool size = 2 and a 3rd request arrives, it is assigned
      *   a new buffer object (not linked to the pool, and therefore GC-ed
      *   at the end). Value: 2.
      * </p>
+     * <p>
+     *   Parsers created without specifying a pool size will use one buffer per available processor,
+     *   with this value as a minimum (see {@link StripedBufferPool#forAvailableProcessors(int)}).
+     * </p>
      */
     public static final int DEFAULT_POOL_SIZE = 2;
 
 
+    // Maximum number of chars needed for recognizing the start of a structure ("<!DOCTYPE" plus the char after it)
+    private static final int STRUCTURE_START_MAX_LEN = 10;
+
+    // Ways in which the scanning of an unfinished text or structure can be resumed (see ParseStatus)
+    static final int RESUME_NONE = 0;
+    static final int RESUME_TEXT = 1;
+    static final int RESUME_DISABLED_TEXT = 2;
+    static final int RESUME_OPEN_ELEMENT = 3;
+    static final int RESUME_CLOSE_ELEMENT = 4;
+    static final int RESUME_COMMENT = 5;
+    static final int RESUME_CDATA = 6;
+    static final int RESUME_XML_DECLARATION = 7;
+    static final int RESUME_PROCESSING_INSTRUCTION = 8;
+
+
     private final ParseConfiguration configuration;
-    private final BufferPool pool;
+    private final IBufferPool pool;
+    private final IParseMetricsListener metricsListener;
 
 
 
 
     /**
      * <p>
-     *   Creates a new instance of this parser, using the specified configuration and default
-     *   sizes for pool ({@link #DEFAULT_POOL_SIZE}) and pooled buffers ({@link #DEFAULT_BUFFER_SIZE}).
+     *   Creates a new instance of this parser, using the specified configuration, the default size for
+     *   pooled buffers ({@link #DEFAULT_BUFFER_SIZE}) and a pool sized for the number of available
+     *   processors (see {@link StripedBufferPool#forAvailableProcessors(int)}).
      * </p>
      *
      * @param configuration the parsing configuration to be used.
      */
     public MarkupParser(final ParseConfiguration configuration) {
-        this(configuration, DEFAULT_POOL_SIZE, DEFAULT_BUFFER_SIZE);
+        this(configuration, StripedBufferPool.forAvailableProcessors(DEFAULT_BUFFER_SIZE));
     }
 
 
@@ -145,22 +183,80 @@ public MarkupParser(final ParseConfiguration configuration) {
      *   Pool size is the size of the pool of <kbd>char[]</kbd> buffers that will be kept in memory in order to
      *   allow their reuse. This pool works in a non-exclusive mode, so that if pool size is 3 and a 4th request
      *   arrives, it is served a new non-pooled buffer without the need to block waiting for one of the pooled
-     *   instances. Default size is {@link MarkupParser#DEFAULT_POOL_SIZE}.
+     *   instances. Parsers created without specifying a pool size use one pooled buffer per available processor
+     *   (see {@link StripedBufferPool#forAvailableProcessors(int)}).
      * </p>
      * <p>
      *   Note that these pooled buffers will not be used when parsing documents specified as <kbd>char[]</kbd>
      *   objects. In such case, the <kbd>char[]</kbd> documents themselves will be used as buffers, avoiding the need
      *   to allocate buffers or use any additional amount of memory.
      * </p>
+     * <p>
+     *   The pool used will be a {@link StripedBufferPool}, which will also pool the bigger buffers
+     *   created when buffers need to grow.
+     * </p>
      *
      * @param configuration the parsing configuration to be used.
      * @param poolSize the size of the pool of buffers to be used.
      * @param bufferSize the default size of the buffers to be instanced for this parser.
      */
     public MarkupParser(final ParseConfiguration configuration, final int poolSize, final int bufferSize) {
+        this(configuration, new StripedBufferPool(poolSize, bufferSize));
+    }
+
+
+    /**
+     * <p>
+     *   Creates a new instance of this parser, specifying the pool of buffers to be used.
+     * </p>
+     * <p>
+     *   This allows the configuration of the default {@link StripedBufferPool} implementation (e.g. for
+     *   sizing it for a high number of concurrent threads), the sharing of the same pool among several
+     *   parsers, or the use of a custom {@link IBufferPool} implementation.
+     * </p>
+     *
+     * @param configuration the parsing configuration to be used.
+     * @param pool the pool of buffers to be used.
+     * @since 2.0.10
+     */
+    public MarkupParser(final ParseConfiguration configuration, final IBufferPool pool) {
+        this(configuration, pool, null);
+    }
+
+
+    /**
+     * <p>
+     *   Creates a new instance of this parser, specifying the pool of buffers to be used and a listener that
+     *   will be notified of the metrics collected for every parsing operation (see {@link ParseMetrics}).
+     * </p>
+     * <p>
+     *   If <kbd>metricsListener</kbd> is null, no metrics will be collected at all (which is the behaviour of the
+     *   rest of the constructors of this class), and parsing will not incur in any additional cost. Otherwise,
+     *   the handler specified for each parsing operation will be wrapped in order to count the events reported
+     *   to it and measure the time spent in it. Note this adds a small overhead to each event, and also that
+     *   {@link ParseContext} objects will no longer be allocation-free, as metrics are collected in a new
+     *   object for each parsing operation.
+     * </p>
+     * <p>
+     *   A {@link ParseMetricsCollector} can be used as listener in order to aggregate the metrics of all the
+     *   parsing operations performed by one or several parsers.
+     * </p>
+     *
+     * @param configuration the parsing configuration to be used.
+     * @param pool the pool of buffers to be used.
+     * @param metricsListener the listener to be notified of parsing metrics (can be null).
+     * @since 2.0.10
+     */
+    public MarkupParser(
+            final ParseConfiguration configuration, final IBufferPool pool,
+            final IParseMetricsListener metricsListener) {
         super();
+        if (pool == null) {
+            throw new IllegalArgumentException("Buffer pool cannot be null");
+        }
         this.configuration = configuration;
-        this.pool = new BufferPool(poolSize, bufferSize);
+        this.pool = pool;
+        this.metricsListener = metricsListener;
     }
 
 
@@ -203,21 +299,8 @@ public void parse(
             throw new IllegalArgumentException("Handler cannot be null");
         }
 
-        IMarkupHandler markupHandler =
-                (ParseConfiguration.ParsingMode.HTML.equals(this.configuration.getMode()) ?
-                        new HtmlMarkupHandler(handler) : handler);
-
-        // We will not report directly to the specified handler, but instead to an intermediate class that will be in
-        // charge of applying the required markup logic and rules, according to the specified configuration
-        markupHandler = new MarkupEventProcessorHandler(markupHandler);
-
-        markupHandler.setParseConfiguration(this.configuration);
-
         final ParseStatus status = new ParseStatus();
-        markupHandler.setParseStatus(status);
-
-        final ParseSelection selection = new ParseSelection();
-        markupHandler.setParseSelection(selection);
+        final IMarkupHandler markupHandler = buildHandlerChain(handler, status);
 
         // We already have a suitable char[] buffer, so there is no need to use one from the pool.
         parseDocument(document, offset, len, markupHandler, status);
@@ -238,167 +321,449 @@ public void parse(
             throw new IllegalArgumentException("Handler cannot be null");
         }
 
-        IMarkupHandler markupHandler =
-                (ParseConfiguration.ParsingMode.HTML.equals(this.configuration.getMode()) ?
-                        new HtmlMarkupHandler(handler) : handler);
+        final ParseStatus status = new ParseStatus();
+        final IMarkupHandler markupHandler = buildHandlerChain(handler, status);
 
-        // We will not report directly to the specified handler, but instead to an intermediate class that will be in
-        // charge of applying the required markup logic and rules, according to the specified configuration
-        markupHandler = new MarkupEventProcessorHandler(markupHandler);
+        // We don't already have a suitable char[] buffer, so we expect the parser to use one of its pooled buffers.
+        parseDocument(reader, this.pool.getBufferSize(), markupHandler, status);
 
-        markupHandler.setParseConfiguration(this.configuration);
+    }
 
-        final ParseStatus status = new ParseStatus();
-        markupHandler.setParseStatus(status);
 
-        final ParseSelection selection = new ParseSelection();
-        markupHandler.setParseSelection(selection);
 
-        // We don't already have a suitable char[] buffer, so we expect the parser to use one of its pooled buffers.
-        parseDocument(reader, this.pool.poolBufferSize, markupHandler, status);
+    /**
+     * <p>
+     *   Parse a document specified as a <kbd>byte[]</kbd>, decoding it with the specified charset.
+     * </p>
+     * <p>
+     *   Bytes are decoded directly into this parser's pooled buffers (with specific fast paths for
+     *   <kbd>US-ASCII</kbd>, <kbd>ISO-8859-1</kbd> and <kbd>UTF-8</kbd>), so there is no need to create
+     *   an intermediate {@link java.io.InputStreamReader} or <kbd>String</kbd>.
+     * </p>
+     * <p>
+     *   If <kbd>charset</kbd> is <kbd>null</kbd>, the charset will be detected from the document itself,
+     *   by looking at its Byte Order Mark (which will be skipped), its XML Declaration or its HTML
+     *   <kbd>&lt;meta&gt;</kbd> charset specifications, defaulting to <kbd>UTF-8</kbd> if no charset can be
+     *   determined.
+     * </p>
+     *
+     * @param document the document to be parsed, as a byte[].
+     * @param charset the charset to be used for decoding the document bytes (can be null).
+     * @param handler the handler to be used, an {@link IMarkupHandler} implementation.
+     * @throws ParseException if the document cannot be parsed.
+     * @since 2.0.10
+     */
+    public void parse(final byte[] document, final Charset charset, final IMarkupHandler handler)
+            throws ParseException {
+        if (document == null) {
+            throw new IllegalArgumentException("Document cannot be null");
+        }
+        parse(document, 0, document.length, charset, handler);
+    }
 
+
+    /**
+     * <p>
+     *   Parse a document specified as a fragment of a <kbd>byte[]</kbd>, decoding it with the specified charset.
+     * </p>
+     * <p>
+     *   See {@link #parse(byte[], Charset, IMarkupHandler)} for details on decoding and charset detection.
+     * </p>
+     *
+     * @param document the byte[] containing the document to be parsed.
+     * @param offset the offset to be applied on the byte[] document to determine the
+     *        start of the document contents.
+     * @param len the length (in bytes) of the document stored in the byte[].
+     * @param charset the charset to be used for decoding the document bytes (can be null).
+     * @param handler the handler to be used, an {@link IMarkupHandler} implementation.
+     * @throws ParseException if the document cannot be parsed.
+     * @since 2.0.10
+     */
+    public void parse(
+            final byte[] document, final int offset, final int len,
+            final Charset charset, final IMarkupHandler handler)
+            throws ParseException {
+        if (document == null) {
+            throw new IllegalArgumentException("Document cannot be null");
+        }
+        if (offset < 0 || len < 0) {
+            throw new IllegalArgumentException(
+                    "Neither document offset (" + offset + ") nor document length (" +
+                            len + ") can be less than zero");
+        }
+        parse(new ByteDecodingReader(ByteBuffer.wrap(document, offset, len), charset), handler);
     }
 
 
+    /**
+     * <p>
+     *   Parse a document specified as the remaining bytes of a {@link ByteBuffer}, decoding them with the
+     *   specified charset.
+     * </p>
+     * <p>
+     *   The position of the buffer is not modified. See {@link #parse(byte[], Charset, IMarkupHandler)} for
+     *   details on decoding and charset detection.
+     * </p>
+     *
+     * @param document the buffer containing the document to be parsed.
+     * @param charset the charset to be used for decoding the document bytes (can be null).
+     * @param handler the handler to be used, an {@link IMarkupHandler} implementation.
+     * @throws ParseException if the document cannot be parsed.
+     * @since 2.0.10
+     */
+    public void parse(final ByteBuffer document, final Charset charset, final IMarkupHandler handler)
+            throws ParseException {
+        if (document == null) {
+            throw new IllegalArgumentException("Document cannot be null");
+        }
+        parse(new ByteDecodingReader(document.duplicate(), charset), handler);
+    }
+
 
+    /**
+     * <p>
+     *   Parse a document read from an {@link InputStream}, decoding it with the specified charset.
+     * </p>
+     * <p>
+     *   The stream will be closed after parsing. See {@link #parse(byte[], Charset, IMarkupHandler)} for
+     *   details on decoding and charset detection.
+     * </p>
+     *
+     * @param document the stream on the document to be parsed.
+     * @param charset the charset to be used for decoding the document bytes (can be null).
+     * @param handler the handler to be used, an {@link IMarkupHandler} implementation.
+     * @throws ParseException if the document cannot be parsed.
+     * @since 2.0.10
+     */
+    public void parse(final InputStream document, final Charset charset, final IMarkupHandler handler)
+            throws ParseException {
 
+        if (document == null) {
+            throw new IllegalArgumentException("Document cannot be null");
+        }
 
-    /*
-     * This method receiving the buffer size with package visibility allows
-     * testing different buffer sizes.
+        final Reader reader;
+        try {
+            reader = new ByteDecodingReader(document, charset, ByteDecodingReader.DEFAULT_INPUT_BUFFER_SIZE);
+        } catch (final IOException e) {
+            try {
+                document.close();
+            } catch (final Throwable ignored) {
+                // This exception can be safely ignored
+            }
+            throw new ParseException(e);
+        }
+
+        parse(reader, handler);
+
+    }
+
+
+    /**
+     * <p>
+     *   Parse a document stored in a file, decoding it with the specified charset.
+     * </p>
+     * <p>
+     *   The file will be memory-mapped (see {@link #parse(FileChannel, Charset, IMarkupHandler)}), which makes
+     *   this the preferred way to parse very large documents stored in the file system. See
+     *   {@link #parse(byte[], Charset, IMarkupHandler)} for details on decoding and charset detection.
+     * </p>
+     *
+     * @param document the path to the file containing the document to be parsed.
+     * @param charset the charset to be used for decoding the document bytes (can be null).
+     * @param handler the handler to be used, an {@link IMarkupHandler} implementation.
+     * @throws ParseException if the document cannot be parsed.
+     * @since 2.0.10
      */
-    void parseDocument(
-            final Reader reader, final int suggestedBufferSize,
-            final IMarkupHandler handler, final ParseStatus status)
+    public void parse(final Path document, final Charset charset, final IMarkupHandler handler)
             throws ParseException {
 
+        if (document == null) {
+            throw new IllegalArgumentException("Document cannot be null");
+        }
 
-        final long parsingStartTimeNanos = System.nanoTime();
+        final FileChannel channel;
+        try {
+            channel = FileChannel.open(document, StandardOpenOption.READ);
+        } catch (final IOException e) {
+            throw new ParseException(e);
+        }
+
+        parse(channel, charset, handler);
+
+    }
 
-        char[] buffer = null;
 
+    /**
+     * <p>
+     *   Parse a document read from a {@link FileChannel} (from its current position to its end), decoding it
+     *   with the specified charset.
+     * </p>
+     * <p>
+     *   Instead of being read into intermediate buffers, the file is memory-mapped in windows of 64MB, which
+     *   are decoded directly into the parsing buffer and released as soon as parsing moves past them. This
+     *   avoids the cost of issuing a system call for each buffer-full of document, and lets the operating
+     *   system take care of read-ahead.
+     * </p>
+     * <p>
+     *   The channel will be closed after parsing. See {@link #parse(byte[], Charset, IMarkupHandler)} for
+     *   details on decoding and charset detection.
+     * </p>
+     *
+     * @param document the channel on the file containing the document to be parsed.
+     * @param charset the charset to be used for decoding the document bytes (can be null).
+     * @param handler the handler to be used, an {@link IMarkupHandler} implementation.
+     * @throws ParseException if the document cannot be parsed.
+     * @since 2.0.10
+     */
+    public void parse(final FileChannel document, final Charset charset, final IMarkupHandler handler)
+            throws ParseException {
+        parse(document, ByteDecodingReader.DEFAULT_MAPPING_WINDOW_SIZE, charset, handler);
+    }
+
+
+    /*
+     * Used internally (and by tests) for specifying the size of the mapping windows.
+     */
+    void parse(
+            final FileChannel document, final int mappingWindowSize,
+            final Charset charset, final IMarkupHandler handler)
+            throws ParseException {
+
+        if (document == null) {
+            throw new IllegalArgumentException("Document cannot be null");
+        }
+
+        final Reader reader;
         try {
+            reader = new ByteDecodingReader(document, charset, mappingWindowSize);
+        } catch (final IOException e) {
+            try {
+                document.close();
+            } catch (final Throwable ignored) {
+                // This exception can be safely ignored
+            }
+            throw new ParseException(e);
+        }
 
-            handler.handleDocumentStart(parsingStartTimeNanos, 1, 1);
+        parse(reader, handler);
 
-            int bufferSize = suggestedBufferSize;
-            buffer = this.pool.allocateBuffer(bufferSize);
+    }
 
-            int bufferContentSize = reader.read(buffer);
 
-            boolean cont = (bufferContentSize != -1);
 
-            status.offset = -1;
-            status.line = 1;
-            status.col = 1;
-            status.inStructure = false;
-            status.parsingDisabled = true;
-            status.parsingDisabledLimitSequence = null;
-            status.autoCloseRequired = null;
-            status.autoCloseLimits = null;
+    /**
+     * <p>
+     *   Parse a document specified as a <kbd>char[]</kbd> using several threads from the common
+     *   {@link ForkJoinPool}.
+     * </p>
+     * <p>
+     *   See {@link #parseInParallel(char[], int, int, IMarkupHandler, ForkJoinPool)} for details.
+     * </p>
+     *
+     * @param document the document to be parsed, as a char[].
+     * @param handler the handler to be used, an {@link IMarkupHandler} implementation.
+     * @throws ParseException if the document cannot be parsed.
+     * @since 2.0.10
+     */
+    public void parseInParallel(final char[] document, final IMarkupHandler handler)
+            throws ParseException {
+        if (document == null) {
+            throw new IllegalArgumentException("Document cannot be null");
+        }
+        parseInParallel(document, 0, document.length, handler, ForkJoinPool.commonPool());
+    }
 
-            while (cont) {
 
-                parseBuffer(buffer, 0, bufferContentSize, handler, status);
+    /**
+     * <p>
+     *   Parse a (large) document specified as a <kbd>char[]</kbd> using several threads from the specified
+     *   {@link ForkJoinPool}.
+     * </p>
+     * <p>
+     *   The document is split into chunks starting at the beginning of elements, which are tokenized
+     *   concurrently in the pool's threads assuming each of them starts outside of any markup structure and with
+     *   parsing enabled. Results are then stitched together in document order on the calling thread, which fires
+     *   all events to the handler (so the handler is never called concurrently, and receives exactly the same
+     *   events as it would in a sequential parsing of the same document).
+     * </p>
+     * <p>
+     *   Whenever that assumption turns out to be wrong for a chunk (e.g. because it starts in the middle of a
+     *   <kbd>&lt;script&gt;</kbd> element, a comment or an attribute value, or because an event handler disables
+     *   parsing), the affected part of the document is parsed again sequentially. So this will be most effective
+     *   for large documents with few parsing-disabled regions (such as big XML data files). Small documents
+     *   will simply be parsed sequentially.
+     * </p>
+     *
+     * @param document the document to be parsed, as a char[].
+     * @param offset the offset to be applied on the char[] document to determine the start of the document contents.
+     * @param len the length (in chars) of the document stored in the char[].
+     * @param handler the handler to be used, an {@link IMarkupHandler} implementation.
+     * @param pool the pool whose threads will be used for tokenizing the document.
+     * @throws ParseException if the document cannot be parsed.
+     * @since 2.0.10
+     */
+    public void parseInParallel(
+            final char[] document, final int offset, final int len,
+            final IMarkupHandler handler, final ForkJoinPool pool)
+            throws ParseException {
+        parseInParallel(document, offset, len, handler, pool, ParallelDocumentParser.DEFAULT_CHUNK_SIZE);
+    }
 
-                int readOffset = 0;
-                int readLen = bufferSize;
 
-                if (status.offset == 0) {
+    /*
+     * This method receiving the chunk size with package visibility allows
+     * testing different chunk sizes.
+     */
+    void parseInParallel(
+            final char[] document, final int offset, final int len,
+            final IMarkupHandler handler, final ForkJoinPool pool, final int chunkSize)
+            throws ParseException {
 
-                    if (bufferContentSize == bufferSize) {
-                        // Buffer is not big enough, double it!
+        if (document == null) {
+            throw new IllegalArgumentException("Document cannot be null");
+        }
+        if (offset < 0 || len < 0) {
+            throw new IllegalArgumentException(
+                    "Neither document offset (" + offset + ") nor document length (" +
+                            len + ") can be less than zero");
+        }
+        if (handler == null) {
+            throw new IllegalArgumentException("Handler cannot be null");
+        }
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool cannot be null");
+        }
 
-                        char[] newBuffer = null;
-                        try {
+        final ParseStatus status = new ParseStatus();
+        final IMarkupHandler markupHandler = buildHandlerChain(handler, status);
 
-                            bufferSize *= 2;
+        new ParallelDocumentParser(this, pool, chunkSize).parseDocument(document, offset, len, markupHandler, status);
 
-                            newBuffer = this.pool.allocateBuffer(bufferSize);
-                            System.arraycopy(buffer, 0, newBuffer, 0, bufferContentSize);
+    }
 
-                            this.pool.releaseBuffer(buffer);
 
-                            buffer = newBuffer;
 
-                        } catch (final Exception ignored) {
-                            this.pool.releaseBuffer(newBuffer);
-                        }
+    /**
+     * <p>
+     *   Create a reusable {@link ParseContext} for parsing any number of <kbd>char[]</kbd> documents with this
+     *   parser and the specified handler, avoiding the allocation of internal parsing structures for each
+     *   document.
+     * </p>
+     * <p>
+     *   Contexts are not thread-safe. See {@link ParseContext} for details.
+     * </p>
+     *
+     * @param handler the handler to be used, an {@link IMarkupHandler} implementation.
+     * @return the new parse context.
+     * @since 2.0.10
+     */
+    public ParseContext createContext(final IMarkupHandler handler) {
+        if (handler == null) {
+            throw new IllegalArgumentException("Handler cannot be null");
+        }
+        return new ParseContext(this, handler);
+    }
 
-                    }
 
-                    // it's possible for two reads to occur in a row and 1) read less than the bufferSize and 2)
-                    // still not find the next tag/end of structure
-                    readOffset = bufferContentSize;
-                    readLen = bufferSize - readOffset;
 
-                } else if (status.offset < bufferContentSize) {
+    /**
+     * <p>
+     *   Open a push-mode parsing session, which allows parsing a document by feeding it to the parser
+     *   chunk by chunk (as it becomes available) instead of providing a {@link Reader} for the parser
+     *   to pull it from.
+     * </p>
+     * <p>
+     *   The document start event will be fired before this method returns. The session will use a buffer
+     *   from this parser's pool until it is finished or closed. See {@link ParseSession} for details.
+     * </p>
+     *
+     * @param handler the handler to be used, an {@link IMarkupHandler} implementation.
+     * @return the new parsing session, already started.
+     * @throws ParseException if the document start event cannot be handled.
+     * @since 2.0.10
+     */
+    public ParseSession openSession(final IMarkupHandler handler)
+            throws ParseException {
 
-                    System.arraycopy(buffer, status.offset, buffer, 0, bufferContentSize - status.offset);
+        if (handler == null) {
+            throw new IllegalArgumentException("Handler cannot be null");
+        }
 
-                    readOffset = bufferContentSize - status.offset;
-                    readLen = bufferSize - readOffset;
+        final ParseStatus status = new ParseStatus();
+        final IMarkupHandler markupHandler = buildHandlerChain(handler, status);
 
-                    status.offset = 0;
-                    bufferContentSize = readOffset;
+        return openSession(this.pool.getBufferSize(), markupHandler, status);
 
-                }
+    }
 
-                final int read = reader.read(buffer, readOffset, readLen);
-                if (read != -1) {
-                    bufferContentSize = readOffset + read;
-                } else {
-                    cont = false;
-                }
 
-            }
 
-            // Iteration done, now it's time to clean up in case we still have some text to be notified
+    /*
+     * This method receiving the buffer size with package visibility allows
+     * testing different buffer sizes.
+     */
+    ParseSession openSession(
+            final int suggestedBufferSize, final IMarkupHandler handler, final ParseStatus status)
+            throws ParseException {
+        final ParseSession session = new ParseSession(this, suggestedBufferSize, handler, status);
+        try {
+            session.start();
+        } catch (final ParseException e) {
+            throw parseFailed(e, status);
+        }
+        return session;
+    }
 
-            int lastLine = status.line;
-            int lastCol = status.col;
 
-            final int lastStart = status.offset;
-            final int lastLen = bufferContentSize - lastStart;
 
-            if (lastLen > 0) {
 
-                if (status.inStructure) {
-                    throw new ParseException(
-                            "Incomplete structure: \"" + new String(buffer, lastStart, lastLen) + "\"", status.line, status.col);
-                }
 
-                handler.handleText(buffer, lastStart, lastLen, status.line, status.col);
+    /*
+     * This method receiving the buffer size with package visibility allows
+     * testing different buffer sizes.
+     */
+    void parseDocument(
+            final Reader reader, final int suggestedBufferSize,
+            final IMarkupHandler handler, final ParseStatus status)
+            throws ParseException {
 
-                // As we have produced an additional text event, we need to fast-forward the
-                // lastLine and lastCol position to include the last text structure.
-                for (int i = lastStart; i < (lastStart + lastLen); i++) {
-                    final char c = buffer[i];
-                    if (c == '\n') {
-                        lastLine++;
-                        lastCol = 1;
-                    } else {
-                        lastCol++;
-                    }
 
-                }
+        final Object flightRecorderEvent = FlightRecorderSupport.beginDocument();
+        boolean successful = false;
 
+        ParseSession session = null;
+
+        try {
+
+            // Reading from the Reader directly into the session's buffer, so that there is no additional copy
+            session = new ParseSession(this, suggestedBufferSize, handler, status);
+            session.start();
+
+            // If a handler stops parsing, the rest of the document will not even be read
+            while (!status.parsingStopped && session.read(reader)) {
+                // Nothing to do here, every chunk read is parsed by the session itself
             }
 
-            final long parsingEndTimeNanos = System.nanoTime();
-            handler.handleDocumentEnd(parsingEndTimeNanos, (parsingEndTimeNanos - parsingStartTimeNanos), lastLine, lastCol);
+            session.finishDocument();
+            successful = true;
 
         } catch (final ParseException e) {
-            throw e;
+            throw parseFailed(status.resolvePosition(e), status);
         } catch (final IOException e) {
             // An IOException here means the underlying Reader itself failed (e.g. a network or
             // filesystem issue), which has nothing to do with a position in the parsed markup, so we
             // deliberately do NOT attach a line/col here.
-            throw new ParseException(e);
+            throw parseFailed(new ParseException(e), status);
         } catch (final Exception e) {
-            throw new ParseException(e, status.line, status.col);
+            throw parseFailed(status.resolvePosition(new ParseException(e, status.line, status.col)), status);
         } finally {
-            this.pool.releaseBuffer(buffer);
+            FlightRecorderSupport.endDocument(
+                    flightRecorderEvent, (session != null ? session.getDocumentChars() : 0L),
+                    FlightRecorderSupport.INPUT_READER, this.configuration, successful);
+            if (session != null) {
+                session.close();
+            }
             try {
                 reader.close();
             } catch (final Throwable ignored) {
@@ -426,42 +791,99 @@ void parseDocument(
             throws ParseException {
 
 
+        final Object flightRecorderEvent = FlightRecorderSupport.beginDocument();
+        boolean successful = false;
+
         final long parsingStartTimeNanos = System.nanoTime();
 
+        final boolean positionTracking = this.configuration.isPositionTracking();
+        status.initPositions(positionTracking, buffer, -offset);
+
+        if (status.metrics != null) {
+            status.metrics.documentChars = len;
+        }
+
         try {
 
-            handler.handleDocumentStart(parsingStartTimeNanos, 1, 1);
+            if (positionTracking) {
+                handler.handleDocumentStart(parsingStartTimeNanos, 1, 1);
+            } else {
+                handler.handleDocumentStart(parsingStartTimeNanos, 0, 0);
+            }
 
             status.offset = -1;
-            status.line = 1;
-            status.col = 1;
+            status.line = (positionTracking? 1 : 0);
+            status.col = (positionTracking? 1 : 0);
             status.inStructure = false;
             status.parsingDisabled = true;
             status.parsingDisabledLimitSequence = null;
             status.autoCloseRequired = null;
             status.autoCloseLimits = null;
+            status.resumeMode = RESUME_NONE;
 
             parseBuffer(buffer, offset, len, handler, status);
 
             // First parse done, now it's time to clean up in case we still have some text to be notified
+            finishDocument(buffer, offset + len, parsingStartTimeNanos, handler, status);
+            successful = true;
+
+        } catch (final ParseException e) {
+            throw parseFailed(status.resolvePosition(e), status);
+        } catch (final Exception e) {
+            throw parseFailed(status.resolvePosition(new ParseException(e, status.line, status.col)), status);
+        } finally {
+            FlightRecorderSupport.endDocument(
+                    flightRecorderEvent, len, FlightRecorderSupport.INPUT_CHARS, this.configuration, successful);
+        }
+
+    }
+
+
+
+
+
 
-            int lastLine = status.line;
-            int lastCol = status.col;
 
-            final int lastStart = status.offset;
-            final int lastLen = (offset + len) - lastStart;
 
-            if (lastLen > 0) {
 
-                if (status.inStructure) {
-                    throw new ParseException(
-                            "Incomplete structure: \"" + new String(buffer, lastStart, lastLen) + "\"", status.line, status.col);
-                }
 
+
+
+    /*
+     * Fires the events for the part of the document that could not be consumed by parseBuffer (which can only be
+     * text or skipped element contents, as an unfinished structure at this point means the document is not
+     * complete), and then the document end event. If parsing has been stopped by a handler, the rest of the
+     * document is simply ignored. Package visibility allows this to be used by ParseSession and
+     * ParallelDocumentParser.
+     */
+    void finishDocument(
+            final char[] buffer, final int maxi, final long parsingStartTimeNanos,
+            final IMarkupHandler handler, final ParseStatus status)
+            throws ParseException {
+
+        int lastLine = status.line;
+        int lastCol = status.col;
+
+        final int lastStart = status.offset;
+        final int lastLen = (status.parsingStopped? 0 : maxi - lastStart);
+
+        if (lastLen > 0) {
+
+            if (status.inStructure) {
+                throw new ParseException(
+                        "Incomplete structure: \"" + new String(buffer, lastStart, lastLen) + "\"", status.line, status.col);
+            }
+
+            if (status.skippedElementName != null) {
+                // The close tag of the element being skipped has not been found
+                handler.handleSkippedElementContents(buffer, lastStart, lastLen, status.line, status.col);
+            } else {
                 handler.handleText(buffer, lastStart, lastLen, status.line, status.col);
+            }
 
-                // As we have produced an additional text event, we need to fast-forward the
-                // lastLine and lastCol position to include the last text structure.
+            // As we have produced an additional text event, we need to fast-forward the
+            // lastLine and lastCol position to include the last text structure.
+            if (status.positionTracking) {
                 for (int i = lastStart; i < (lastStart + lastLen); i++) {
                     final char c = buffer[i];
                     if (c == '\n') {
@@ -472,22 +894,16 @@ void parseDocument(
                     }
 
                 }
-
+            } else {
+                lastCol += lastLen;
             }
 
-            final long parsingEndTimeNanos = System.nanoTime();
-            handler.handleDocumentEnd(parsingEndTimeNanos, (parsingEndTimeNanos - parsingStartTimeNanos), lastLine, lastCol);
-
-        } catch (final ParseException e) {
-            throw e;
-        } catch (final Exception e) {
-            throw new ParseException(e, status.line, status.col);
         }
 
-    }
-
-
+        final long parsingEndTimeNanos = System.nanoTime();
+        handler.handleDocumentEnd(parsingEndTimeNanos, (parsingEndTimeNanos - parsingStartTimeNanos), lastLine, lastCol);
 
+    }
 
 
 
@@ -497,16 +913,28 @@ void parseDocument(
 
 
 
-    
-    
-    private void parseBuffer(
+    /*
+     * Parses the contents of a buffer, firing the corresponding events and updating the parse status so that
+     * parsing can be resumed if the buffer ends in the middle of a structure. Package visibility allows this
+     * to be used by ParseSession.
+     */
+    void parseBuffer(
             final char[] buffer, final int offset, final int len,
             final IMarkupHandler handler,
             final ParseStatus status)
             throws ParseException {
 
 
-        final int[] locator = new int[] {status.line, status.col};
+        final int[] locator = status.locator;
+        locator[0] = status.line;
+        locator[1] = status.col;
+        final boolean[] quotes = status.quotes;
+
+        // If position tracking is disabled, scanning will not maintain the locator, and events will be reported
+        // at line 0 and col = offset in the document (see ParseStatus for how real lines and cols are computed).
+        // Offsets beyond Integer.MAX_VALUE are reported wrapped around, which int arithmetic already does.
+        final boolean positionTracking = status.positionTracking;
+        final int offsetDelta = (int) status.bufferOffsetDelta;
         
         int currentLine;
         int currentCol;
@@ -528,31 +956,105 @@ private void parseBuffer(
         int tagStart;
         int tagEnd;
 
+        // If the previous call stopped in the middle of a text or structure, we will be able to resume scanning it
+        // from the point where it stopped (only applicable to the text or structure starting at offset).
+        int resumeMode = status.resumeMode;
+        final int resumeOffset = offset + status.resumeDistance;
+        status.resumeMode = RESUME_NONE;
+
         try {
 
-            while (i < maxi) {
+            while (i < maxi && !status.parsingStopped) {
     
-                currentLine = locator[0];
-                currentCol = locator[1];
+                if (positionTracking) {
+                    currentLine = locator[0];
+                    currentCol = locator[1];
+                } else {
+                    currentLine = 0;
+                    currentCol = current + offsetDelta;
+                }
+
+                if (status.skippedElementName != null) {
+                    // A handler has asked for the contents of the last open element to be skipped, so we will just
+                    // look for its close tag and report everything until it as skipped contents. If parsing is
+                    // disabled for the element (e.g. <script>), its contents are raw text, so only the limit
+                    // sequence is looked for (no comments, CDATA sections or nested elements in there).
+
+                    final char[] limitSequence = status.parsingDisabledLimitSequence;
+                    final int skippedEnd;
+                    final int contentsEnd;
+                    if (limitSequence != null) {
+                        skippedEnd = ParsingMarkupUtil.findCharacterSequence(buffer, current, maxi, limitSequence);
+                        // The last chars might be the start of the limit sequence, so they cannot be skipped yet
+                        contentsEnd =
+                                (skippedEnd != -1 ? skippedEnd : Math.max(current, maxi - (limitSequence.length - 1)));
+                    } else {
+                        skippedEnd =
+                                ParsingElementMarkupUtil.findSkippedElementContentsEnd(
+                                        buffer, current, maxi, status.skippedElementName,
+                                        this.configuration.isCaseSensitive(), status.skippedElementStatus, quotes);
+                        contentsEnd = (skippedEnd != -1 ? skippedEnd : status.skippedElementStatus[1]);
+                    }
+
+                    if (contentsEnd > current) {
+                        handler.handleSkippedElementContents(
+                                buffer, current, contentsEnd - current, currentLine, currentCol);
+                        if (positionTracking) {
+                            for (int j = current; j < contentsEnd; j++) {
+                                ParsingLocatorUtil.countChar(locator, buffer[j]);
+                            }
+                        }
+                    }
+
+                    current = contentsEnd;
+                    i = current;
+
+                    if (skippedEnd == -1) {
+                        // Close tag not found yet, the rest of the contents will have to be skipped with more buffer
+                        status.offset = current;
+                        status.line = (positionTracking? locator[0] : 0);
+                        status.col = (positionTracking? locator[1] : current + offsetDelta);
+                        status.inStructure = false;
+                        return;
+                    }
+
+                    status.skippedElementName = null;
+                    if (limitSequence != null) {
+                        // Same as when the limit sequence is found after reporting parsing-disabled text
+                        status.parsingDisabledLimitSequence = null;
+                        status.parsingDisabled = true;
+                    }
+                    continue;
+
+                }
     
                 if (status.parsingDisabledLimitSequence != null) {
                     // We need to disable parsing until we find a specific character sequence.
                     // This allows correct parsing of CDATA (not PCDATA) sections (e.g. <script> tags).
+
+                    int searchStart = i;
+                    if (resumeMode == RESUME_DISABLED_TEXT && current == offset) {
+                        searchStart = resumeOffset;
+                        locator[0] = status.resumeLine;
+                        locator[1] = status.resumeCol;
+                    }
+                    resumeMode = RESUME_NONE;
+
                     final int sequenceIndex =
-                            ParsingMarkupUtil.findCharacterSequence(buffer, i, maxi, locator, status.parsingDisabledLimitSequence);
+                            (positionTracking?
+                                    ParsingMarkupUtil.findCharacterSequence(
+                                            buffer, searchStart, maxi, locator, status.parsingDisabledLimitSequence) :
+                                    ParsingMarkupUtil.findCharacterSequence(
+                                            buffer, searchStart, maxi, status.parsingDisabledLimitSequence));
                     if (sequenceIndex == -1) {
     
-                        // Not found, should ask for more buffer
-                        if (this.configuration.isTextSplittable()) {
-                            handler.handleText(buffer, current, len - current, currentLine, currentCol);
-                            // No need to change the disability limit, as we havent reached the sequence yet
-                            current = len;
-                        }
-    
-                        status.offset = current;
-                        status.line = currentLine;
-                        status.col = currentCol;
-                        status.inStructure = false;
+                        // Not found, should ask for more buffer. The last chars might be the start of the limit
+                        // sequence, so they cannot be considered text yet.
+                        // No need to change the disability limit, as we havent reached the sequence yet
+                        stopInText(
+                                buffer, current, currentLine, currentCol,
+                                maxi - (status.parsingDisabledLimitSequence.length - 1), maxi, locator,
+                                RESUME_DISABLED_TEXT, handler, status);
                         return;
     
                     }
@@ -568,6 +1070,10 @@ private void parseBuffer(
     
                     current = sequenceIndex;
                     i = current;
+
+                    if (status.parsingStopped) {
+                        break;
+                    }
     
                 }
     
@@ -575,28 +1081,28 @@ private void parseBuffer(
                         (inOpenElement || inCloseElement || inComment || inCdata || inDocType || inXmlDeclaration || inProcessingInstruction);
     
                 if (!inStructure) {
+
+                    int searchStart = i;
+                    if (resumeMode == RESUME_TEXT && current == offset) {
+                        searchStart = resumeOffset;
+                        locator[0] = status.resumeLine;
+                        locator[1] = status.resumeCol;
+                        resumeMode = RESUME_NONE;
+                    }
                     
-                    tagStart = ParsingMarkupUtil.findNextStructureStart(buffer, i, maxi, locator);
+                    tagStart =
+                            (positionTracking?
+                                    ParsingMarkupUtil.findNextStructureStart(buffer, searchStart, maxi, locator) :
+                                    ParsingMarkupUtil.findNextStructureStart(buffer, searchStart, maxi));
                     
                     if (tagStart == -1) {
-    
-                        if (this.configuration.isTextSplittable()) {
-    
-                            handler.handleText(buffer, current, len - current, currentLine, currentCol);
-                            if (status.parsingDisabledLimitSequence != null) {
-                                status.parsingDisabled = false;
-                            }
-    
-                            current = len;
-    
-                        }
-    
-                        status.offset = current;
-                        status.line = currentLine;
-                        status.col = currentCol;
-                        status.inStructure = false;
+                        // The last chars might be the start of a structure we cannot recognize yet (because it
+                        // is not complete), so they cannot be considered text yet.
+                        stopInText(
+                                buffer, current, currentLine, currentCol,
+                                maxi - STRUCTURE_START_MAX_LEN + 1, maxi, locator,
+                                RESUME_TEXT, handler, status);
                         return;
-    
                     }
     
                     inOpenElement = ParsingElementMarkupUtil.isOpenElementStart(buffer, tagStart, maxi);
@@ -628,13 +1134,16 @@ private void parseBuffer(
                         // the beginning of any known structure
                         
                         ParsingLocatorUtil.countChar(locator, buffer[tagStart]);
-                        tagStart = ParsingMarkupUtil.findNextStructureStart(buffer, tagStart + 1, maxi, locator);
+                        tagStart =
+                                (positionTracking?
+                                        ParsingMarkupUtil.findNextStructureStart(buffer, tagStart + 1, maxi, locator) :
+                                        ParsingMarkupUtil.findNextStructureStart(buffer, tagStart + 1, maxi));
                         
                         if (tagStart == -1) {
-                            status.offset = current;
-                            status.line = currentLine;
-                            status.col = currentCol;
-                            status.inStructure = false;
+                            stopInText(
+                                    buffer, current, currentLine, currentCol,
+                                    maxi - STRUCTURE_START_MAX_LEN + 1, maxi, locator,
+                                    RESUME_TEXT, handler, status);
                             return;
                         }
     
@@ -687,21 +1196,42 @@ private void parseBuffer(
                     // which will terminate the instruction.
                     final boolean avoidQuotes =
                             (inOpenElement || inCloseElement || inDocType || inXmlDeclaration);
-    
+
+                    // DOCTYPE clauses cannot be resumed, as finding their end requires additional state
+                    final int structureResumeMode =
+                            (inOpenElement? RESUME_OPEN_ELEMENT :
+                             inCloseElement? RESUME_CLOSE_ELEMENT :
+                             inComment? RESUME_COMMENT :
+                             inCdata? RESUME_CDATA :
+                             inXmlDeclaration? RESUME_XML_DECLARATION :
+                             inProcessingInstruction? RESUME_PROCESSING_INSTRUCTION : RESUME_NONE);
+
+                    int searchStart = i;
+                    quotes[0] = false;
+                    quotes[1] = false;
+                    if (resumeMode != RESUME_NONE && resumeMode == structureResumeMode && current == offset) {
+                        searchStart = resumeOffset;
+                        locator[0] = status.resumeLine;
+                        locator[1] = status.resumeCol;
+                        quotes[0] = status.resumeInQuotes;
+                        quotes[1] = status.resumeInApos;
+                    }
+                    resumeMode = RESUME_NONE;
                     
                     tagEnd =
                             (inDocType?
                                     ParsingDocTypeMarkupUtil.findNextDocTypeStructureEnd(buffer, i, maxi, locator) :
+                                    !positionTracking?
+                                            (avoidQuotes?
+                                                    ParsingMarkupUtil.findNextStructureEndAvoidQuotes(buffer, searchStart, maxi, quotes) :
+                                                    ParsingMarkupUtil.findNextStructureEndDontAvoidQuotes(buffer, searchStart, maxi)) :
                                     (avoidQuotes?
-                                            ParsingMarkupUtil.findNextStructureEndAvoidQuotes(buffer, i, maxi, locator) :
-                                            ParsingMarkupUtil.findNextStructureEndDontAvoidQuotes(buffer, i, maxi, locator)));
+                                            ParsingMarkupUtil.findNextStructureEndAvoidQuotes(buffer, searchStart, maxi, locator, quotes) :
+                                            ParsingMarkupUtil.findNextStructureEndDontAvoidQuotes(buffer, searchStart, maxi, locator)));
                     
                     if (tagEnd < 0) {
                         // This is an unfinished structure
-                        status.offset = current;
-                        status.line = currentLine;
-                        status.col = currentCol;
-                        status.inStructure = true;
+                        stopInStructure(current, currentLine, currentCol, maxi, locator, quotes, structureResumeMode, status);
                         return;
                     }
     
@@ -712,11 +1242,13 @@ private void parseBuffer(
                         if ((buffer[tagEnd - 1] == '/')) {
                             ParsingElementMarkupUtil.
                                     parseStandaloneElement(
-                                            buffer, current, (tagEnd - current) + 1, currentLine, currentCol, handler);
+                                            buffer, current, (tagEnd - current) + 1, currentLine, currentCol, handler,
+                                            status.elementLocator, status.attributeLocator);
                         } else {
                             ParsingElementMarkupUtil.
                                     parseOpenElement(
-                                            buffer, current, (tagEnd - current) + 1, currentLine, currentCol, handler);
+                                            buffer, current, (tagEnd - current) + 1, currentLine, currentCol, handler,
+                                            status.elementLocator, status.attributeLocator);
                         }
     
     
@@ -731,7 +1263,8 @@ private void parseBuffer(
     
                         ParsingElementMarkupUtil.
                                 parseCloseElement(
-                                        buffer, current, (tagEnd - current) + 1, currentLine, currentCol, handler);
+                                        buffer, current, (tagEnd - current) + 1, currentLine, currentCol, handler,
+                                        status.elementLocator, status.attributeLocator);
     
                         if (status.parsingDisabledLimitSequence != null) {
                             status.parsingDisabled = false;
@@ -746,13 +1279,13 @@ private void parseBuffer(
                             // the '>' we chose is not the comment-closing one. Let's find again
                             
                             ParsingLocatorUtil.countChar(locator, buffer[tagEnd]);
-                            tagEnd = ParsingMarkupUtil.findNextStructureEndDontAvoidQuotes(buffer, tagEnd + 1, maxi, locator);
+                            tagEnd =
+                                    (positionTracking?
+                                            ParsingMarkupUtil.findNextStructureEndDontAvoidQuotes(buffer, tagEnd + 1, maxi, locator) :
+                                            ParsingMarkupUtil.findNextStructureEndDontAvoidQuotes(buffer, tagEnd + 1, maxi));
                             
                             if (tagEnd == -1) {
-                                status.offset = current;
-                                status.line = currentLine;
-                                status.col = currentCol;
-                                status.inStructure = true;
+                                stopInStructure(current, currentLine, currentCol, maxi, locator, quotes, structureResumeMode, status);
                                 return;
                             }
                             
@@ -773,13 +1306,13 @@ private void parseBuffer(
                             // the '>' we chose is not the comment-closing one. Let's find again
                             
                             ParsingLocatorUtil.countChar(locator, buffer[tagEnd]);
-                            tagEnd = ParsingMarkupUtil.findNextStructureEndDontAvoidQuotes(buffer, tagEnd + 1, maxi, locator);
+                            tagEnd =
+                                    (positionTracking?
+                                            ParsingMarkupUtil.findNextStructureEndDontAvoidQuotes(buffer, tagEnd + 1, maxi, locator) :
+                                            ParsingMarkupUtil.findNextStructureEndDontAvoidQuotes(buffer, tagEnd + 1, maxi));
                             
                             if (tagEnd == -1) {
-                                status.offset = current;
-                                status.line = currentLine;
-                                status.col = currentCol;
-                                status.inStructure = true;
+                                stopInStructure(current, currentLine, currentCol, maxi, locator, quotes, structureResumeMode, status);
                                 return;
                             }
                             
@@ -824,13 +1357,13 @@ private void parseBuffer(
                             // the '>' we chose is not the PI-closing one. Let's find again
     
                             ParsingLocatorUtil.countChar(locator, buffer[tagEnd]);
-                            tagEnd = ParsingMarkupUtil.findNextStructureEndDontAvoidQuotes(buffer, tagEnd + 1, maxi, locator);
+                            tagEnd =
+                                    (positionTracking?
+                                            ParsingMarkupUtil.findNextStructureEndDontAvoidQuotes(buffer, tagEnd + 1, maxi, locator) :
+                                            ParsingMarkupUtil.findNextStructureEndDontAvoidQuotes(buffer, tagEnd + 1, maxi));
                             
                             if (tagEnd == -1) {
-                                status.offset = current;
-                                status.line = currentLine;
-                                status.col = currentCol;
-                                status.inStructure = true;
+                                stopInStructure(current, currentLine, currentCol, maxi, locator, quotes, structureResumeMode, status);
                                 return;
                             }
                             
@@ -863,8 +1396,8 @@ private void parseBuffer(
             }
     
             status.offset = current;
-            status.line = locator[0];
-            status.col = locator[1];
+            status.line = (positionTracking? locator[0] : 0);
+            status.col = (positionTracking? locator[1] : current + offsetDelta);
             status.inStructure = false;
 
         } catch (final ParseException e) {
@@ -873,6 +1406,9 @@ private void parseBuffer(
             // We use the locator's live position (not status.line/col, which are only updated above on a
             // normal return) so that exceptions thrown from a handler callback mid-scan are reported at the
             // actual point of failure, instead of at the start of the buffer chunk being parsed.
+            if (!positionTracking) {
+                throw new ParseException(e, 0, current + offsetDelta);
+            }
             throw new ParseException(e, locator[0], locator[1]);
         }
 
@@ -881,72 +1417,181 @@ private void parseBuffer(
 
 
 
+    /*
+     * Called when the end of the buffer is reached while looking for the end of a text (i.e. the start of the
+     * next structure). Chars up to textEnd are known to be text, but those after it could still be the start of a
+     * structure (or limit sequence) that cannot be recognized until more chars are available. The locator
+     * contains the position at maxi.
+     */
+    private void stopInText(
+            final char[] buffer, final int current, final int currentLine, final int currentCol,
+            final int textEnd, final int maxi, final int[] locator,
+            final int resumeMode, final IMarkupHandler handler, final ParseStatus status)
+            throws ParseException {
+
+        status.inStructure = false;
+
+        if (textEnd <= current) {
+            // Nothing can be considered text yet
+            status.offset = current;
+            status.line = currentLine;
+            status.col = currentCol;
+            return;
+        }
+
+        final int textEndLine;
+        final int textEndCol;
+        if (status.positionTracking) {
+            // Compute the position at textEnd by going back from the position at maxi
+            int line = locator[0];
+            for (int j = textEnd; j < maxi; j++) {
+                if (buffer[j] == '\n') {
+                    line--;
+                }
+            }
+            int lastNewLine = textEnd - 1;
+            while (lastNewLine >= current && buffer[lastNewLine] != '\n') {
+                lastNewLine--;
+            }
+            textEndLine = line;
+            textEndCol = (lastNewLine >= current ? (textEnd - lastNewLine) : currentCol + (textEnd - current));
+        } else {
+            textEndLine = 0;
+            textEndCol = textEnd + (int) status.bufferOffsetDelta;
+        }
+
+        if (this.configuration.isTextSplittable()) {
+
+            handler.handleText(buffer, current, textEnd - current, currentLine, currentCol);
+            if (resumeMode == RESUME_TEXT && status.parsingDisabledLimitSequence != null) {
+                status.parsingDisabled = false;
+            }
+
+            status.offset = textEnd;
+            status.line = textEndLine;
+            status.col = textEndCol;
+            return;
+
+        }
+
+        status.offset = current;
+        status.line = currentLine;
+        status.col = currentCol;
+
+        status.resumeMode = resumeMode;
+        status.resumeDistance = textEnd - current;
+        status.resumeLine = textEndLine;
+        status.resumeCol = textEndCol;
+
+    }
+
+
+    /*
+     * Called when the end of the buffer is reached while looking for the end of a structure. The locator (and the
+     * quote status, if the search was avoiding quotes) contain the state at maxi.
+     */
+    private static void stopInStructure(
+            final int current, final int currentLine, final int currentCol,
+            final int maxi, final int[] locator, final boolean[] quotes,
+            final int resumeMode, final ParseStatus status) {
+
+        status.offset = current;
+        status.line = currentLine;
+        status.col = currentCol;
+        status.inStructure = true;
+
+        if (resumeMode != RESUME_NONE) {
+            status.resumeMode = resumeMode;
+            status.resumeDistance = maxi - current;
+            status.resumeLine = locator[0];
+            status.resumeCol = locator[1];
+            status.resumeInQuotes = quotes[0];
+            status.resumeInApos = quotes[1];
+        }
+
+    }
+
+
+
+
+
 
 
+    ParseConfiguration getConfiguration() {
+        return this.configuration;
+    }
+
 
     /*
-     * This class models a pool of buffers, used to keep the amount of
-     * large char[] buffer objects required to operate to a minimum.
-     *
-     * Note this pool never blocks, so if a new buffer is needed and all
-     * are currently allocated, a new char[] object is created and returned.
-     *
+     * We will not report directly to the specified handler, but instead to an intermediate class that will be in
+     * charge of applying the required markup logic and rules, according to the specified configuration (and to
+     * the HTML-specific rules, when in HTML mode). Package visibility allows this to be used by ParseContext.
      */
-    private static final class BufferPool {
+    MarkupEventProcessorHandler buildHandlerChain(final IMarkupHandler handler, final ParseStatus status) {
 
-        private final char[][] pool;
-        private final boolean[] allocated;
-        private final int poolBufferSize;
+        IMarkupHandler markupHandler = instrumentHandler(handler);
+        markupHandler =
+                (ParseConfiguration.ParsingMode.HTML.equals(this.configuration.getMode()) ?
+                        new HtmlMarkupHandler(markupHandler) : markupHandler);
 
-        private BufferPool(final int poolSize, final int poolBufferSize) {
+        final MarkupEventProcessorHandler processorHandler = new MarkupEventProcessorHandler(markupHandler);
+        processorHandler.setParseConfiguration(this.configuration);
+        processorHandler.setParseStatus(status);
+        processorHandler.setParseSelection(new ParseSelection());
 
-            super();
+        return processorHandler;
 
-            this.pool = new char[poolSize][];
-            this.allocated = new boolean[poolSize];
-            this.poolBufferSize = poolBufferSize;
+    }
 
-            for (int i = 0; i < this.pool.length; i++) {
-                this.pool[i] = new char[this.poolBufferSize];
-            }
-            Arrays.fill(this.allocated, false);
 
+    /*
+     * If metrics are enabled, the handler is wrapped so that events reported to it can be counted and the time
+     * spent in it can be measured. If not, nothing at all is added to the handler chain.
+     */
+    private IMarkupHandler instrumentHandler(final IMarkupHandler handler) {
+        if (this.metricsListener == null) {
+            return handler;
         }
+        return new MetricsMarkupHandler(handler, this.metricsListener);
+    }
 
-        private synchronized char[] allocateBuffer(final int bufferSize) {
-            if (bufferSize != this.poolBufferSize) {
-                // We will only pool buffers of the default size. If a different size is required, we just
-                // create it without pooling.
-                return new char[bufferSize];
-            }
-            for (int i = 0; i < this.pool.length; i++) {
-                if (!this.allocated[i]) {
-                    this.allocated[i] = true;
-                    return this.pool[i];
-                }
+
+    /*
+     * Reports the failure of a parsing operation (to Flight Recorder if its events are enabled, and to the metrics
+     * listener if metrics are enabled) and returns the same exception so that it can be thrown.
+     */
+    ParseException parseFailed(final ParseException exception, final ParseStatus status) {
+
+        FlightRecorderSupport.parseFailed(exception);
+
+        final ParseMetrics metrics = status.metrics;
+        if (this.metricsListener != null && metrics != null && !metrics.reported) {
+            metrics.reported = true;
+            metrics.failed = true;
+            metrics.totalTimeNanos = System.nanoTime() - metrics.startTimeNanos;
+            try {
+                this.metricsListener.parseFinished(metrics);
+            } catch (final RuntimeException e) {
+                // Listeners should not fail, but if they do, the parsing error is still the one to be reported
+                exception.addSuppressed(e);
             }
-            return new char[bufferSize];
         }
 
-        private synchronized void releaseBuffer(final char[] buffer) {
-            if (buffer == null) {
-                return;
-            }
-            if (buffer.length != this.poolBufferSize) {
-                // This buffer cannot be part of the pool - only buffers with a specific size are contained
-                return;
-            }
-            for (int i = 0; i < this.pool.length; i++) {
-                if (this.pool[i] == buffer) {
-                    // Found it. Mark it as non-allocated
-                    this.allocated[i] = false;
-                    return;
-                }
-            }
-            // The buffer wasn't part of our pool. Just return.
+        return exception;
+
+    }
+
+
+    char[] allocateBuffer(final int bufferSize, final ParseMetrics metrics) {
+        if (metrics != null) {
+            return this.pool.allocateBuffer(bufferSize, metrics);
         }
+        return this.pool.allocateBuffer(bufferSize);
+    }
 
 
+    void releaseBuffer(final char[] buffer) {
+        this.pool.releaseBuffer(buffer);
     }
 
 
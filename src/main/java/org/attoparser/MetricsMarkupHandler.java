@@ -0,0 +1,433 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+
+/*
+ * Handler wrapping the handler specified for a parsing operation when metrics are enabled at the parser (see
+ * MarkupParser#instrumentHandler), counting the events reported to it and measuring the time spent in it.
+ *
+ * This handler is set as the last step in the internal chain (right before the user's handler), so that events
+ * are counted after the application of markup logic, i.e. the same way the user's handler receives them.
+ *
+ * Metrics are collected in a new ParseMetrics object for every parsing operation, which is also set into the
+ * ParseStatus so that the parser can count buffer-related metrics.
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+final class MetricsMarkupHandler extends AbstractChainedMarkupHandler {
+
+    private final IParseMetricsListener listener;
+    private ParseStatus status = null;
+    private ParseMetrics metrics;
+
+
+
+    MetricsMarkupHandler(final IMarkupHandler next, final IParseMetricsListener listener) {
+        super(next);
+        this.listener = listener;
+        this.metrics = new ParseMetrics();
+    }
+
+
+
+    /*
+     * Called by ParseContext before reusing this handler for a new parsing operation
+     */
+    void reset() {
+        this.metrics = new ParseMetrics();
+        if (this.status != null) {
+            this.status.metrics = this.metrics;
+        }
+    }
+
+
+
+
+    @Override
+    public void setParseStatus(final ParseStatus status) {
+        this.status = status;
+        this.status.metrics = this.metrics;
+        super.setParseStatus(status);
+    }
+
+
+
+
+    @Override
+    public void handleDocumentStart(
+            final long startTimeNanos, final int line, final int col)
+            throws ParseException {
+        this.metrics.startTimeNanos = startTimeNanos;
+        final long start = System.nanoTime();
+        super.handleDocumentStart(startTimeNanos, line, col);
+        this.metrics.handlerTimeNanos += System.nanoTime() - start;
+    }
+
+
+    @Override
+    public void handleDocumentEnd(
+            final long endTimeNanos, final long totalTimeNanos, final int line, final int col)
+            throws ParseException {
+        final long start = System.nanoTime();
+        super.handleDocumentEnd(endTimeNanos, totalTimeNanos, line, col);
+        this.metrics.handlerTimeNanos += System.nanoTime() - start;
+        this.metrics.totalTimeNanos = totalTimeNanos;
+        this.metrics.reported = true;
+        this.listener.parseFinished(this.metrics);
+    }
+
+
+
+    @Override
+    public void handleXmlDeclaration(
+            final char[] buffer,
+            final int keywordOffset, final int keywordLen,
+            final int keywordLine, final int keywordCol,
+            final int versionOffset, final int versionLen,
+            final int versionLine, final int versionCol,
+            final int encodingOffset, final int encodingLen,
+            final int encodingLine, final int encodingCol,
+            final int standaloneOffset, final int standaloneLen,
+            final int standaloneLine, final int standaloneCol,
+            final int outerOffset, final int outerLen,
+            final int line, final int col)
+            throws ParseException {
+        final long start = System.nanoTime();
+        super.handleXmlDeclaration(
+                buffer,
+                keywordOffset, keywordLen, keywordLine, keywordCol,
+                versionOffset, versionLen, versionLine, versionCol,
+                encodingOffset, encodingLen, encodingLine, encodingCol,
+                standaloneOffset, standaloneLen, standaloneLine, standaloneCol,
+                outerOffset, outerLen, line, col);
+        this.metrics.handlerTimeNanos += System.nanoTime() - start;
+        this.metrics.countEvent(ParseMetrics.EventType.XML_DECLARATION);
+    }
+
+
+
+    @Override
+    public void handleDocType(
+            final char[] buffer,
+            final int keywordOffset, final int keywordLen,
+            final int keywordLine, final int keywordCol,
+            final int elementNameOffset, final int elementNameLen,
+            final int elementNameLine, final int elementNameCol,
+            final int typeOffset, final int typeLen,
+            final int typeLine, final int typeCol,
+            final int publicIdOffset, final int publicIdLen,
+            final int publicIdLine, final int publicIdCol,
+            final int systemIdOffset, final int systemIdLen,
+            final int systemIdLine, final int systemIdCol,
+            final int internalSubsetOffset, final int internalSubsetLen,
+            final int internalSubsetLine, final int internalSubsetCol,
+            final int outerOffset, final int outerLen,
+            final int outerLine, final int outerCol)
+            throws ParseException {
+        final long start = System.nanoTime();
+        super.handleDocType(
+                buffer,
+                keywordOffset, keywordLen, keywordLine, keywordCol,
+                elementNameOffset, elementNameLen, elementNameLine, elementNameCol,
+                typeOffset, typeLen, typeLine, typeCol,
+                publicIdOffset, publicIdLen, publicIdLine, publicIdCol,
+                systemIdOffset, systemIdLen, systemIdLine, systemIdCol,
+                internalSubsetOffset, internalSubsetLen, internalSubsetLine, internalSubsetCol,
+                outerOffset, outerLen, outerLine, outerCol);
+        this.metrics.handlerTimeNanos += System.nanoTime() - start;
+        this.metrics.countEvent(ParseMetrics.EventType.DOC_TYPE);
+    }
+
+
+
+    @Override
+    public void handleCDATASection(
+            final char[] buffer,
+            final int contentOffset, final int contentLen,
+            final int outerOffset, final int outerLen,
+            final int line, final int col)
+            throws ParseException {
+        final long start = System.nanoTime();
+        super.handleCDATASection(buffer, contentOffset, contentLen, outerOffset, outerLen, line, col);
+        this.metrics.handlerTimeNanos += System.nanoTime() - start;
+        this.metrics.countEvent(ParseMetrics.EventType.CDATA_SECTION);
+    }
+
+
+
+    @Override
+    public void handleComment(
+            final char[] buffer,
+            final int contentOffset, final int contentLen,
+            final int outerOffset, final int outerLen,
+            final int line, final int col)
+            throws ParseException {
+        final long start = System.nanoTime();
+        super.handleComment(buffer, contentOffset, contentLen, outerOffset, outerLen, line, col);
+        this.metrics.handlerTimeNanos += System.nanoTime() - start;
+        this.metrics.countEvent(ParseMetrics.EventType.COMMENT);
+    }
+
+
+
+    @Override
+    public void handleText(
+            final char[] buffer,
+            final int offset, final int len,
+            final int line, final int col)
+            throws ParseException {
+        final long start = System.nanoTime();
+        super.handleText(buffer, offset, len, line, col);
+        this.metrics.handlerTimeNanos += System.nanoTime() - start;
+        this.metrics.countEvent(ParseMetrics.EventType.TEXT);
+    }
+
+
+
+    @Override
+    public void handleStandaloneElementStart(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final boolean minimized, final int line, final int col)
+            throws ParseException {
+        final long start = System.nanoTime();
+        super.handleStandaloneElementStart(buffer, nameOffset, nameLen, minimized, line, col);
+        this.metrics.handlerTimeNanos += System.nanoTime() - start;
+        this.metrics.countEvent(ParseMetrics.EventType.STANDALONE_ELEMENT);
+    }
+
+    @Override
+    public void handleStandaloneElementEnd(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final boolean minimized, final int line, final int col)
+            throws ParseException {
+        final long start = System.nanoTime();
+        super.handleStandaloneElementEnd(buffer, nameOffset, nameLen, minimized, line, col);
+        this.metrics.handlerTimeNanos += System.nanoTime() - start;
+    }
+
+
+
+    @Override
+    public void handleOpenElementStart(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int line, final int col)
+            throws ParseException {
+        final long start = System.nanoTime();
+        super.handleOpenElementStart(buffer, nameOffset, nameLen, line, col);
+        this.metrics.handlerTimeNanos += System.nanoTime() - start;
+        this.metrics.countEvent(ParseMetrics.EventType.OPEN_ELEMENT);
+        this.metrics.increaseDepth();
+    }
+
+    @Override
+    public void handleOpenElementEnd(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int line, final int col)
+            throws ParseException {
+        final long start = System.nanoTime();
+        super.handleOpenElementEnd(buffer, nameOffset, nameLen, line, col);
+        this.metrics.handlerTimeNanos += System.nanoTime() - start;
+    }
+
+
+
+    @Override
+    public void handleAutoOpenElementStart(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int line, final int col)
+            throws ParseException {
+        final long start = System.nanoTime();
+        super.handleAutoOpenElementStart(buffer, nameOffset, nameLen, line, col);
+        this.metrics.handlerTimeNanos += System.nanoTime() - start;
+        this.metrics.countEvent(ParseMetrics.EventType.AUTO_OPEN_ELEMENT);
+        this.metrics.increaseDepth();
+    }
+
+    @Override
+    public void handleAutoOpenElementEnd(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int line, final int col)
+            throws ParseException {
+        final long start = System.nanoTime();
+        super.handleAutoOpenElementEnd(buffer, nameOffset, nameLen, line, col);
+        this.metrics.handlerTimeNanos += System.nanoTime() - start;
+    }
+
+
+
+    @Override
+    public void handleCloseElementStart(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int line, final int col)
+            throws ParseException {
+        final long start = System.nanoTime();
+        super.handleCloseElementStart(buffer, nameOffset, nameLen, line, col);
+        this.metrics.handlerTimeNanos += System.nanoTime() - start;
+        this.metrics.countEvent(ParseMetrics.EventType.CLOSE_ELEMENT);
+        this.metrics.decreaseDepth();
+    }
+
+    @Override
+    public void handleCloseElementEnd(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int line, final int col)
+            throws ParseException {
+        final long start = System.nanoTime();
+        super.handleCloseElementEnd(buffer, nameOffset, nameLen, line, col);
+        this.metrics.handlerTimeNanos += System.nanoTime() - start;
+    }
+
+
+
+    @Override
+    public void handleAutoCloseElementStart(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int line, final int col)
+            throws ParseException {
+        final long start = System.nanoTime();
+        super.handleAutoCloseElementStart(buffer, nameOffset, nameLen, line, col);
+        this.metrics.handlerTimeNanos += System.nanoTime() - start;
+        this.metrics.countEvent(ParseMetrics.EventType.AUTO_CLOSE_ELEMENT);
+        this.metrics.decreaseDepth();
+    }
+
+    @Override
+    public void handleAutoCloseElementEnd(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int line, final int col)
+            throws ParseException {
+        final long start = System.nanoTime();
+        super.handleAutoCloseElementEnd(buffer, nameOffset, nameLen, line, col);
+        this.metrics.handlerTimeNanos += System.nanoTime() - start;
+    }
+
+
+
+    @Override
+    public void handleUnmatchedCloseElementStart(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int line, final int col)
+            throws ParseException {
+        final long start = System.nanoTime();
+        super.handleUnmatchedCloseElementStart(buffer, nameOffset, nameLen, line, col);
+        this.metrics.handlerTimeNanos += System.nanoTime() - start;
+        this.metrics.countEvent(ParseMetrics.EventType.UNMATCHED_CLOSE_ELEMENT);
+    }
+
+    @Override
+    public void handleUnmatchedCloseElementEnd(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int line, final int col)
+            throws ParseException {
+        final long start = System.nanoTime();
+        super.handleUnmatchedCloseElementEnd(buffer, nameOffset, nameLen, line, col);
+        this.metrics.handlerTimeNanos += System.nanoTime() - start;
+    }
+
+
+
+    @Override
+    public void handleSkippedElementContents(
+            final char[] buffer,
+            final int offset, final int len,
+            final int line, final int col)
+            throws ParseException {
+        final long start = System.nanoTime();
+        super.handleSkippedElementContents(buffer, offset, len, line, col);
+        this.metrics.handlerTimeNanos += System.nanoTime() - start;
+        this.metrics.countEvent(ParseMetrics.EventType.SKIPPED_ELEMENT_CONTENTS);
+    }
+
+
+
+    @Override
+    public void handleAttribute(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int nameLine, final int nameCol,
+            final int operatorOffset, final int operatorLen,
+            final int operatorLine, final int operatorCol,
+            final int valueContentOffset, final int valueContentLen,
+            final int valueOuterOffset, final int valueOuterLen,
+            final int valueLine, final int valueCol)
+            throws ParseException {
+        final long start = System.nanoTime();
+        super.handleAttribute(
+                buffer,
+                nameOffset, nameLen, nameLine, nameCol,
+                operatorOffset, operatorLen, operatorLine, operatorCol,
+                valueContentOffset, valueContentLen,
+                valueOuterOffset, valueOuterLen, valueLine, valueCol);
+        this.metrics.handlerTimeNanos += System.nanoTime() - start;
+        this.metrics.countEvent(ParseMetrics.EventType.ATTRIBUTE);
+    }
+
+
+
+    @Override
+    public void handleInnerWhiteSpace(
+            final char[] buffer,
+            final int offset, final int len,
+            final int line, final int col)
+            throws ParseException {
+        final long start = System.nanoTime();
+        super.handleInnerWhiteSpace(buffer, offset, len, line, col);
+        this.metrics.handlerTimeNanos += System.nanoTime() - start;
+        this.metrics.countEvent(ParseMetrics.EventType.INNER_WHITE_SPACE);
+    }
+
+
+
+    @Override
+    public void handleProcessingInstruction(
+            final char[] buffer,
+            final int targetOffset, final int targetLen,
+            final int targetLine, final int targetCol,
+            final int contentOffset, final int contentLen,
+            final int contentLine, final int contentCol,
+            final int outerOffset, final int outerLen,
+            final int line, final int col)
+            throws ParseException {
+        final long start = System.nanoTime();
+        super.handleProcessingInstruction(
+                buffer,
+                targetOffset, targetLen, targetLine, targetCol,
+                contentOffset, contentLen, contentLine, contentCol,
+                outerOffset, outerLen, line, col);
+        this.metrics.handlerTimeNanos += System.nanoTime() - start;
+        this.metrics.countEvent(ParseMetrics.EventType.PROCESSING_INSTRUCTION);
+    }
+
+
+}
@@ -0,0 +1,403 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+
+/*
+ * Parses a document available as a single char[] by splitting it into chunks that are tokenized speculatively
+ * and concurrently, and then stitched in document order by replaying their events to the real handler chain.
+ *
+ * Chunks start at '<' chars that look like the start of an element (and follow a '>' or a line feed, which
+ * makes it less likely for them to be in the middle of an attribute value or a comment). Each chunk is then
+ * tokenized by the parser itself (parseBuffer) assuming it starts outside any structure and with parsing
+ * enabled, recording the events into a ParsingEventRecorder.
+ *
+ * Stitching is done on the calling thread, chunk by chunk. A chunk's recorded events are only replayed if the
+ * real parsing state at the start of the chunk matches the speculation (i.e. the previous chunk did not end in
+ * the middle of a structure, and parsing has not been disabled by the handler chain, as happens for the bodies
+ * of <script> or <style> elements in HTML). Otherwise, or if the handler chain disables parsing while one of its
+ * events is being replayed, the rest of the chunk is parsed again sequentially, directly to the handler chain,
+ * and speculation is resumed at the first chunk at which the state matches again. This way every event
+ * reaches the handler chain in document order, and the element stack and parsing-disabled regions are handled
+ * by the handler chain exactly as in sequential parsing.
+ *
+ * Only a limited number of chunks are tokenized ahead of the one being stitched, so that memory used for
+ * recording events is bounded.
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+final class ParallelDocumentParser {
+
+    // Default minimum size of chunks (in chars)
+    static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+    private final MarkupParser parser;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+
+
+
+    ParallelDocumentParser(final MarkupParser parser, final ForkJoinPool pool, final int chunkSize) {
+        super();
+        this.parser = parser;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+
+
+
+    void parseDocument(
+            final char[] buffer, final int offset, final int len,
+            final IMarkupHandler handler, final ParseStatus status)
+            throws ParseException {
+
+        final int maxi = offset + len;
+        final int[] chunkStarts = computeChunkStarts(buffer, offset, maxi, this.chunkSize);
+        final int chunkCount = chunkStarts.length;
+
+        if (chunkCount < 2) {
+            // Not worth it, just parse sequentially
+            this.parser.parseDocument(buffer, offset, len, handler, status);
+            return;
+        }
+
+        final Object flightRecorderEvent = FlightRecorderSupport.beginDocument();
+        boolean successful = false;
+
+        final long parsingStartTimeNanos = System.nanoTime();
+
+        final boolean positionTracking = this.parser.getConfiguration().isPositionTracking();
+        status.initPositions(positionTracking, buffer, -offset);
+
+        if (status.metrics != null) {
+            status.metrics.documentChars = len;
+        }
+
+        final ChunkTokenizer[] tokenizers = new ChunkTokenizer[chunkCount];
+        final int maxAhead = Math.max(2, this.pool.getParallelism() * 2);
+        int submitted = 0;
+
+        try {
+
+            if (positionTracking) {
+                handler.handleDocumentStart(parsingStartTimeNanos, 1, 1);
+            } else {
+                handler.handleDocumentStart(parsingStartTimeNanos, 0, 0);
+            }
+
+            status.offset = offset;
+            status.line = (positionTracking? 1 : 0);
+            status.col = (positionTracking? 1 : 0);
+            status.inStructure = false;
+            status.parsingDisabled = true;
+            status.parsingDisabledLimitSequence = null;
+            status.autoCloseRequired = null;
+            status.autoCloseLimits = null;
+            status.resumeMode = MarkupParser.RESUME_NONE;
+
+            // Whether the real parsing state at the start of the next chunk matches speculation
+            boolean matchesSpeculation = true;
+
+            for (int k = 0; k < chunkCount && !status.parsingStopped; k++) {
+
+                while (submitted < chunkCount && submitted <= k + maxAhead) {
+                    final int chunkStart = chunkStarts[submitted];
+                    final int chunkEnd = (submitted + 1 < chunkCount ? chunkStarts[submitted + 1] : maxi);
+                    tokenizers[submitted] =
+                            new ChunkTokenizer(this.parser, buffer, offset, chunkStart, chunkEnd, positionTracking);
+                    this.pool.execute(tokenizers[submitted]);
+                    submitted++;
+                }
+
+                final ChunkTokenizer tokenizer = tokenizers[k];
+                tokenizers[k] = null;
+
+                final int chunkEnd = tokenizer.chunkEnd;
+
+                if (matchesSpeculation) {
+                    tokenizer.join();
+                    if (!tokenizer.failed) {
+                        matchesSpeculation = replayChunk(tokenizer, buffer, maxi, handler, status);
+                        continue;
+                    }
+                    // Tokenization failed (the document might be malformed, or speculation might be wrong), so
+                    // parse again in order to obtain the real events (or the real error).
+                } else {
+                    tokenizer.cancel(false);
+                }
+
+                this.parser.parseBuffer(buffer, status.offset, chunkEnd - status.offset, handler, status);
+                matchesSpeculation = stitch(buffer, chunkEnd, maxi, handler, status);
+
+            }
+
+            this.parser.finishDocument(buffer, maxi, parsingStartTimeNanos, handler, status);
+            successful = true;
+
+        } catch (final ParseException e) {
+            throw this.parser.parseFailed(status.resolvePosition(e), status);
+        } catch (final Exception e) {
+            throw this.parser.parseFailed(
+                    status.resolvePosition(new ParseException(e, status.line, status.col)), status);
+        } finally {
+            FlightRecorderSupport.endDocument(
+                    flightRecorderEvent, len, FlightRecorderSupport.INPUT_PARALLEL,
+                    this.parser.getConfiguration(), successful);
+            for (int k = 0; k < submitted; k++) {
+                if (tokenizers[k] != null) {
+                    tokenizers[k].cancel(false);
+                }
+            }
+        }
+
+    }
+
+
+
+
+    /*
+     * Replays the events recorded for a chunk, which starts at status.offset (with status.line and status.col
+     * being its real position). Returns whether the state at the start of the next chunk matches speculation.
+     */
+    private boolean replayChunk(
+            final ChunkTokenizer tokenizer, final char[] buffer, final int maxi,
+            final IMarkupHandler handler, final ParseStatus status)
+            throws ParseException {
+
+        final ParsingEventRecorder recorder = tokenizer.recorder;
+        recorder.setBasePosition(status.line, status.col);
+
+        final int size = recorder.size();
+        int index = 0;
+        while (index < size) {
+
+            final int end = recorder.getEnd(index);
+            index = recorder.replay(index, handler);
+
+            if (end >= 0 && status.parsingStopped) {
+                // The handler chain has stopped parsing after this text or structure, so nothing else is fired
+                moveTo(buffer, end, status);
+                return false;
+            }
+
+            if (end >= 0 && (status.parsingDisabledLimitSequence != null || status.skippedElementName != null)) {
+                // The handler chain has disabled parsing after this text or structure (as happens with <script>),
+                // or has asked for the contents of this element to be skipped, so the rest of the recorded events
+                // are not valid and the chunk must be parsed again from here.
+                status.parsingDisabled = false;
+                moveTo(buffer, end, status);
+                this.parser.parseBuffer(buffer, end, tokenizer.chunkEnd - end, handler, status);
+                return stitch(buffer, tokenizer.chunkEnd, maxi, handler, status);
+            }
+
+        }
+
+        // Move status to the point where tokenization stopped (an unfinished text or structure)
+        status.offset = tokenizer.endOffset;
+        status.line = recorder.translateLine(tokenizer.endLine);
+        status.col = recorder.translateCol(tokenizer.endLine, tokenizer.endCol);
+        status.inStructure = tokenizer.endInStructure;
+        status.resumeMode = MarkupParser.RESUME_NONE;
+
+        return stitch(buffer, tokenizer.chunkEnd, maxi, handler, status);
+
+    }
+
+
+    /*
+     * Called once all the events up to the end of a chunk have been fired (except for an unfinished text or
+     * structure at its end), in order to determine whether the state at the start of the next chunk matches
+     * the speculation its tokenization was based on. If it does, any unfinished text at the end of the chunk
+     * is fired (the next chunk starting with a '<' means it cannot be the start of a structure).
+     */
+    private static boolean stitch(
+            final char[] buffer, final int chunkEnd, final int maxi,
+            final IMarkupHandler handler, final ParseStatus status)
+            throws ParseException {
+
+        if (chunkEnd >= maxi || status.inStructure || status.parsingDisabledLimitSequence != null ||
+                status.skippedElementName != null || status.parsingStopped) {
+            return false;
+        }
+
+        if (status.offset < chunkEnd) {
+
+            handler.handleText(buffer, status.offset, chunkEnd - status.offset, status.line, status.col);
+            moveTo(buffer, chunkEnd, status);
+
+            if (status.parsingDisabledLimitSequence != null) {
+                status.parsingDisabled = false;
+                return false;
+            }
+
+        }
+
+        status.resumeMode = MarkupParser.RESUME_NONE;
+        return true;
+
+    }
+
+
+    /*
+     * Moves the status forward to the specified offset, computing line and col if needed.
+     */
+    private static void moveTo(final char[] buffer, final int target, final ParseStatus status) {
+
+        if (status.positionTracking) {
+            int line = status.line;
+            int col = status.col;
+            for (int i = status.offset; i < target; i++) {
+                if (buffer[i] == '\n') {
+                    line++;
+                    col = 1;
+                } else {
+                    col++;
+                }
+            }
+            status.line = line;
+            status.col = col;
+        } else {
+            status.col = target + (int) status.bufferOffsetDelta;
+        }
+
+        status.offset = target;
+        status.inStructure = false;
+        status.resumeMode = MarkupParser.RESUME_NONE;
+
+    }
+
+
+
+
+    static int[] computeChunkStarts(final char[] buffer, final int offset, final int maxi, final int chunkSize) {
+
+        final List<Integer> chunkStarts = new ArrayList<Integer>();
+        chunkStarts.add(Integer.valueOf(offset));
+
+        int i = offset + chunkSize;
+        while (i < maxi) {
+
+            i = ParsingMarkupUtil.findNextStructureStart(buffer, i, maxi);
+            if (i == -1) {
+                break;
+            }
+
+            final char previous = buffer[i - 1];
+            if ((previous == '>' || previous == '\n') &&
+                    (ParsingElementMarkupUtil.isOpenElementStart(buffer, i, maxi) ||
+                     ParsingElementMarkupUtil.isCloseElementStart(buffer, i, maxi))) {
+                chunkStarts.add(Integer.valueOf(i));
+                i += chunkSize;
+            } else {
+                i++;
+            }
+
+        }
+
+        final int[] result = new int[chunkStarts.size()];
+        for (int k = 0; k < result.length; k++) {
+            result[k] = chunkStarts.get(k).intValue();
+        }
+        return result;
+
+    }
+
+
+
+
+    /*
+     * Speculatively tokenizes a chunk, assuming it starts outside any structure and with parsing enabled.
+     */
+    private static final class ChunkTokenizer extends RecursiveAction {
+
+        private static final long serialVersionUID = 7165370349542129418L;
+
+        private final MarkupParser parser;
+        private final char[] buffer;
+        private final int documentOffset;
+        private final int chunkStart;
+        final int chunkEnd;
+        private final boolean positionTracking;
+
+        ParsingEventRecorder recorder;
+        boolean failed;
+        int endOffset;
+        int endLine;
+        int endCol;
+        boolean endInStructure;
+
+
+        ChunkTokenizer(
+                final MarkupParser parser, final char[] buffer, final int documentOffset,
+                final int chunkStart, final int chunkEnd, final boolean positionTracking) {
+            super();
+            this.parser = parser;
+            this.buffer = buffer;
+            this.documentOffset = documentOffset;
+            this.chunkStart = chunkStart;
+            this.chunkEnd = chunkEnd;
+            this.positionTracking = positionTracking;
+        }
+
+
+        @Override
+        protected void compute() {
+
+            final int len = this.chunkEnd - this.chunkStart;
+
+            final ParsingEventRecorder chunkRecorder =
+                    new ParsingEventRecorder(this.buffer, this.positionTracking, len / 8);
+
+            final ParseStatus status = new ParseStatus();
+            status.initPositions(this.positionTracking, this.buffer, -this.documentOffset);
+            status.offset = this.chunkStart;
+            status.line = (this.positionTracking? 1 : 0);
+            status.col = (this.positionTracking? 1 : this.chunkStart - this.documentOffset);
+            status.inStructure = false;
+            status.parsingDisabled = true;
+            status.parsingDisabledLimitSequence = null;
+            status.resumeMode = MarkupParser.RESUME_NONE;
+
+            try {
+                this.parser.parseBuffer(this.buffer, this.chunkStart, len, chunkRecorder, status);
+            } catch (final Exception e) {
+                this.failed = true;
+                return;
+            }
+
+            this.recorder = chunkRecorder;
+            this.endOffset = status.offset;
+            this.endLine = status.line;
+            this.endCol = status.col;
+            this.endInStructure = status.inStructure;
+
+        }
+
+    }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+
+/**
+ * <p>
+ *   Reusable context for parsing documents specified as <kbd>char[]</kbd> objects with a specific parser and
+ *   handler, created by {@link MarkupParser#createContext(IMarkupHandler)}.
+ * </p>
+ * <p>
+ *   Every call to {@link MarkupParser#parse(char[], IMarkupHandler)} needs to build the chain of internal
+ *   handlers that apply markup logic (element balancing, HTML-specific rules, etc.) before the events reach the
+ *   specified handler, along with the structures they need (an element stack, a cache of element names...).
+ *   A parse context builds all of these only once, and resets them before each new parsing operation. This way,
+ *   applications parsing a large number of small documents (e.g. fragments of markup) can avoid the allocation
+ *   of these objects for each document.
+ * </p>
+ * <p>
+ *   All documents parsed with the same context will be reported to the same handler, which will therefore
+ *   be responsible for resetting any state of its own between documents (e.g. in its
+ *   {@link IDocumentHandler#handleDocumentStart(long, int, int)} method).
+ * </p>
+ * <p>
+ *   Objects of this class are <strong>not thread-safe</strong>, and should never be used concurrently. The
+ *   usual way of using them is keeping one context per thread, for example:
+ * </p>
+ * <pre><code>
+ *   private static final ThreadLocal&lt;ParseContext&gt; CONTEXTS = new ThreadLocal&lt;ParseContext&gt;() {
+ *       protected ParseContext initialValue() {
+ *           return PARSER.createContext(new MyFragmentHandler());
+ *       }
+ *   };
+ *   ...
+ *   CONTEXTS.get().parse(fragment);
+ * </code></pre>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 2.0.10
+ *
+ */
+public final class ParseContext {
+
+    private final MarkupParser parser;
+    private final IMarkupHandler handler;
+    private final MarkupEventProcessorHandler processorHandler;
+    private final HtmlMarkupHandler htmlHandler;
+    private final MetricsMarkupHandler metricsHandler;
+    private final ParseStatus status;
+
+    private boolean inUse = false;
+
+
+
+
+    ParseContext(final MarkupParser parser, final IMarkupHandler handler) {
+
+        super();
+
+        this.parser = parser;
+
+        this.status = new ParseStatus();
+        this.processorHandler = parser.buildHandlerChain(handler, this.status);
+        this.handler = this.processorHandler;
+
+        // The rest of the handlers in the chain that keep state among parsing operations need to be reset too
+        IMarkupHandler next = this.processorHandler.getNext();
+        this.htmlHandler = (next instanceof HtmlMarkupHandler ? (HtmlMarkupHandler) next : null);
+        if (this.htmlHandler != null) {
+            next = this.htmlHandler.getNext();
+        }
+        this.metricsHandler = (next instanceof MetricsMarkupHandler ? (MetricsMarkupHandler) next : null);
+
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Parse a document using this context.
+     * </p>
+     *
+     * @param document the document to be parsed, as a char[].
+     * @throws ParseException if the document cannot be parsed.
+     */
+    public void parse(final char[] document) throws ParseException {
+        if (document == null) {
+            throw new IllegalArgumentException("Document cannot be null");
+        }
+        parse(document, 0, document.length);
+    }
+
+
+    /**
+     * <p>
+     *   Parse a document using this context.
+     * </p>
+     * <p>
+     *   The <kbd>document</kbd> array will be used directly as the parsing buffer, so it should not be
+     *   modified during parsing.
+     * </p>
+     *
+     * @param document the document to be parsed, as a char[].
+     * @param offset the offset to be applied on the char[] document to determine the start of the document contents.
+     * @param len the length (in chars) of the document stored in the char[].
+     * @throws ParseException if the document cannot be parsed.
+     */
+    public void parse(final char[] document, final int offset, final int len) throws ParseException {
+
+        if (document == null) {
+            throw new IllegalArgumentException("Document cannot be null");
+        }
+        if (offset < 0 || len < 0) {
+            throw new IllegalArgumentException(
+                    "Neither document offset (" + offset + ") nor document length (" +
+                            len + ") can be less than zero");
+        }
+        if (this.inUse) {
+            throw new IllegalStateException(
+                    "Parse context is already being used: contexts cannot be used concurrently or re-entrantly");
+        }
+
+        this.inUse = true;
+
+        try {
+
+            this.status.reset();
+            this.processorHandler.reset();
+            if (this.htmlHandler != null) {
+                this.htmlHandler.reset();
+            }
+            if (this.metricsHandler != null) {
+                this.metricsHandler.reset();
+            }
+
+            this.parser.parseDocument(document, offset, len, this.handler, this.status);
+
+        } finally {
+            // Avoid keeping a reference to the document
+            this.status.buffer = null;
+            this.inUse = false;
+        }
+
+    }
+
+}
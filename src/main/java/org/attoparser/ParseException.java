@@ -37,6 +37,8 @@ public class ParseException extends Exception {
 
     private final Integer line;
     private final Integer col;
+    // Message this exception was created with, without the position prefix (see getRawMessage())
+    private final String rawMessage;
 
     
 
@@ -44,6 +46,7 @@ public ParseException() {
         super();
         this.line = null;
         this.col = null;
+        this.rawMessage = null;
     }
 
     public ParseException(final String message, final Throwable throwable) {
@@ -53,9 +56,11 @@ public ParseException(final String message, final Throwable throwable) {
         if (throwable != null && throwable instanceof ParseException) {
             this.line = ((ParseException)throwable).getLine();
             this.col = ((ParseException)throwable).getCol();
+            this.rawMessage = (message != null? message : ((ParseException)throwable).getRawMessage());
         } else {
             this.line = null;
             this.col = null;
+            this.rawMessage = message;
         }
         
     }
@@ -64,6 +69,7 @@ public ParseException(final String message) {
         super(message);
         this.line = null;
         this.col = null;
+        this.rawMessage = message;
     }
 
     public ParseException(final Throwable throwable) {
@@ -73,9 +79,11 @@ public ParseException(final Throwable throwable) {
         if (throwable != null && throwable instanceof ParseException) {
             this.line = ((ParseException)throwable).getLine();
             this.col = ((ParseException)throwable).getCol();
+            this.rawMessage = ((ParseException)throwable).getRawMessage();
         } else {
             this.line = null;
             this.col = null;
+            this.rawMessage = null;
         }
         
     }
@@ -85,24 +93,28 @@ public ParseException(final int line, final int col) {
         super(messagePrefix(line, col));
         this.line = Integer.valueOf(line);
         this.col = Integer.valueOf(col);
+        this.rawMessage = null;
     }
 
     public ParseException(final String message, final Throwable throwable, final int line, final int col) {
         super(messagePrefix(line, col) + " " + message, throwable);
         this.line = Integer.valueOf(line);
         this.col = Integer.valueOf(col);
+        this.rawMessage = message;
     }
 
     public ParseException(final String message, final int line, final int col) {
         super(messagePrefix(line, col) + " " + message);
         this.line = Integer.valueOf(line);
         this.col = Integer.valueOf(col);
+        this.rawMessage = message;
     }
 
     public ParseException(final Throwable throwable, final int line, final int col) {
         super(messagePrefix(line, col), throwable);
         this.line = Integer.valueOf(line);
         this.col = Integer.valueOf(col);
+        this.rawMessage = null;
     }
 
     
@@ -147,5 +159,14 @@ public Integer getCol() {
         return this.col;
     }
 
+    /*
+     * Returns the message this exception was created with, without the "(Line = x, Column = y)" prefix added
+     * when a position is specified. Used for re-creating the exception at a different position (see
+     * ParseStatus#resolvePosition).
+     */
+    String getRawMessage() {
+        return this.rawMessage;
+    }
+
     
 }
@@ -0,0 +1,304 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+
+/**
+ * <p>
+ *   Metrics collected by {@link MarkupParser} during a single parsing operation, reported to an
+ *   {@link IParseMetricsListener}.
+ * </p>
+ * <p>
+ *   Parsing time is split between the time spent inside the handler specified for the parsing operation
+ *   (<em>handler time</em>) and the rest of the parsing time (<em>tokenize time</em>), which includes the
+ *   scanning of the document and the application of markup logic (element balancing, HTML-specific rules, etc.).
+ * </p>
+ * <p>
+ *   Buffer metrics only apply to parsing operations performed on documents not specified as <kbd>char[]</kbd>
+ *   (as these are used themselves as buffers), and pool hits and misses are only available when the parser's
+ *   {@link IBufferPool} reports them (see {@link IBufferPool#allocateBuffer(int, ParseMetrics)}), as
+ *   {@link StripedBufferPool} does.
+ * </p>
+ * <p>
+ *   Objects of this class are only modified by the parser (and its buffer pool) before being reported to the
+ *   listener.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 2.0.10
+ *
+ */
+public final class ParseMetrics {
+
+
+    /**
+     * <p>
+     *   Types of events counted for each parsing operation. Elements are counted once per element (i.e. the
+     *   start and end events of an open element are counted as one open element).
+     * </p>
+     */
+    public enum EventType {
+        XML_DECLARATION, DOC_TYPE, CDATA_SECTION, COMMENT, TEXT,
+        STANDALONE_ELEMENT, OPEN_ELEMENT, AUTO_OPEN_ELEMENT, CLOSE_ELEMENT, AUTO_CLOSE_ELEMENT,
+        UNMATCHED_CLOSE_ELEMENT, ATTRIBUTE, INNER_WHITE_SPACE, PROCESSING_INSTRUCTION, SKIPPED_ELEMENT_CONTENTS
+    }
+
+
+    static final int EVENT_TYPE_COUNT = EventType.values().length;
+
+
+    long documentChars = 0L;
+    long startTimeNanos = 0L;
+    long totalTimeNanos = 0L;
+    long handlerTimeNanos = 0L;
+    int bufferGrowths = 0;
+    int poolHits = 0;
+    int poolMisses = 0;
+    int depth = 0;
+    int maxDepth = 0;
+    final long[] eventCounts = new long[EVENT_TYPE_COUNT];
+    boolean failed = false;
+    // Set once these metrics have been reported to the listener, so that they are never reported twice
+    boolean reported = false;
+
+
+
+
+    ParseMetrics() {
+        super();
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Returns whether the parsing operation failed (i.e. raised a {@link ParseException}). Metrics of failed
+     *   parsing operations only include the part of the document processed before the failure.
+     * </p>
+     *
+     * @return <kbd>true</kbd> if parsing failed, <kbd>false</kbd> if it finished successfully.
+     */
+    public boolean isFailed() {
+        return this.failed;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the length (in chars) of the parsed document.
+     * </p>
+     *
+     * @return the document length.
+     */
+    public long getDocumentChars() {
+        return this.documentChars;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the total time (in nanoseconds) taken by the parsing operation, the same reported to the
+     *   handler at {@link IDocumentHandler#handleDocumentEnd(long, long, int, int)} (or, for failed parsing
+     *   operations, the time until the failure).
+     * </p>
+     *
+     * @return the total parsing time.
+     */
+    public long getTotalTimeNanos() {
+        return this.totalTimeNanos;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the time (in nanoseconds) spent inside the handler specified for the parsing operation.
+     * </p>
+     *
+     * @return the handler time.
+     */
+    public long getHandlerTimeNanos() {
+        return this.handlerTimeNanos;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the time (in nanoseconds) spent by the parser itself, i.e. total time minus handler time.
+     * </p>
+     *
+     * @return the tokenize time.
+     */
+    public long getTokenizeTimeNanos() {
+        return Math.max(0L, this.totalTimeNanos - this.handlerTimeNanos);
+    }
+
+
+    /**
+     * <p>
+     *   Returns the number of times the parsing buffer had to be doubled because a markup structure (or a
+     *   non-splittable text) did not fit in it.
+     * </p>
+     *
+     * @return the number of buffer growths.
+     */
+    public int getBufferGrowths() {
+        return this.bufferGrowths;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the number of buffer requests that were served from the parser's {@link IBufferPool}.
+     * </p>
+     *
+     * @return the number of pool hits.
+     */
+    public int getPoolHits() {
+        return this.poolHits;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the number of buffer requests that required the parser's {@link IBufferPool} to allocate
+     *   a new buffer.
+     * </p>
+     *
+     * @return the number of pool misses.
+     */
+    public int getPoolMisses() {
+        return this.poolMisses;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the maximum depth of nested elements reached in the document (counting elements automatically
+     *   opened by the parser).
+     * </p>
+     *
+     * @return the maximum depth.
+     */
+    public int getMaxDepth() {
+        return this.maxDepth;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the number of events of the specified type reported to the handler.
+     * </p>
+     *
+     * @param eventType the type of event.
+     * @return the number of events.
+     */
+    public long getEventCount(final EventType eventType) {
+        if (eventType == null) {
+            throw new IllegalArgumentException("Event type cannot be null");
+        }
+        return this.eventCounts[eventType.ordinal()];
+    }
+
+
+    /**
+     * <p>
+     *   Returns the total number of events (of any type) reported to the handler.
+     * </p>
+     *
+     * @return the number of events.
+     */
+    public long getEventCount() {
+        long total = 0L;
+        for (int i = 0; i < this.eventCounts.length; i++) {
+            total += this.eventCounts[i];
+        }
+        return total;
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Counts a buffer request that has been served with a buffer from the pool. Meant to be called only by
+     *   {@link IBufferPool} implementations, from {@link IBufferPool#allocateBuffer(int, ParseMetrics)}.
+     * </p>
+     */
+    public void countPoolHit() {
+        this.poolHits++;
+    }
+
+
+    /**
+     * <p>
+     *   Counts a buffer request that required a new buffer to be allocated. Meant to be called only by
+     *   {@link IBufferPool} implementations, from {@link IBufferPool#allocateBuffer(int, ParseMetrics)}.
+     * </p>
+     */
+    public void countPoolMiss() {
+        this.poolMisses++;
+    }
+
+
+
+
+    void countEvent(final EventType eventType) {
+        this.eventCounts[eventType.ordinal()]++;
+    }
+
+
+    void increaseDepth() {
+        this.depth++;
+        if (this.depth > this.maxDepth) {
+            this.maxDepth = this.depth;
+        }
+    }
+
+
+    void decreaseDepth() {
+        if (this.depth > 0) {
+            this.depth--;
+        }
+    }
+
+
+
+
+    @Override
+    public String toString() {
+        final StringBuilder strBuilder = new StringBuilder();
+        strBuilder.append("[failed=").append(this.failed);
+        strBuilder.append(", chars=").append(this.documentChars);
+        strBuilder.append(", totalTimeNanos=").append(this.totalTimeNanos);
+        strBuilder.append(", handlerTimeNanos=").append(this.handlerTimeNanos);
+        strBuilder.append(", bufferGrowths=").append(this.bufferGrowths);
+        strBuilder.append(", poolHits=").append(this.poolHits);
+        strBuilder.append(", poolMisses=").append(this.poolMisses);
+        strBuilder.append(", maxDepth=").append(this.maxDepth);
+        for (final EventType eventType : EventType.values()) {
+            strBuilder.append(", ").append(eventType).append('=').append(this.eventCounts[eventType.ordinal()]);
+        }
+        strBuilder.append(']');
+        return strBuilder.toString();
+    }
+
+}
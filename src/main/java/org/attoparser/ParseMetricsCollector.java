@@ -0,0 +1,340 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * <p>
+ *   Default implementation of {@link IParseMetricsListener}, which aggregates the metrics of all the parsing
+ *   operations it is notified of.
+ * </p>
+ * <p>
+ *   Counters are kept in {@link LongAdder} objects (which are internally striped), so that a collector can be
+ *   shared among a large number of concurrent parsing threads (and among several parsers) without these
+ *   contending to update it. Because of this, values returned by the getters of this class while parsing
+ *   operations are being performed might not reflect a consistent snapshot (e.g. the number of events might
+ *   already include a parsing operation that is not yet counted in the number of parsing operations).
+ * </p>
+ * <p>
+ *   Sample usage:
+ * </p>
+ * <pre><code>
+ *   final ParseMetricsCollector metrics = new ParseMetricsCollector();
+ *   final MarkupParser parser =
+ *       new MarkupParser(ParseConfiguration.htmlConfiguration(), new StripedBufferPool(16, 4096), metrics);
+ *   ...
+ *   // Periodically, e.g. from a monitoring thread
+ *   report(metrics.getParseCount(), metrics.getCharsPerSecond(), metrics.getTokenizeTimeNanos(), ...);
+ * </code></pre>
+ * <p>
+ *   Objects of this class are <strong>thread-safe</strong>.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 2.0.10
+ *
+ */
+public final class ParseMetricsCollector implements IParseMetricsListener {
+
+    private final LongAdder parseCount = new LongAdder();
+    private final LongAdder failedParseCount = new LongAdder();
+    private final LongAdder documentChars = new LongAdder();
+    private final LongAdder totalTimeNanos = new LongAdder();
+    private final LongAdder handlerTimeNanos = new LongAdder();
+    private final LongAdder bufferGrowths = new LongAdder();
+    private final LongAdder poolHits = new LongAdder();
+    private final LongAdder poolMisses = new LongAdder();
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0L);
+    private final LongAdder[] eventCounts;
+
+
+
+
+    /**
+     * <p>
+     *   Creates a new, empty collector.
+     * </p>
+     */
+    public ParseMetricsCollector() {
+        super();
+        this.eventCounts = new LongAdder[ParseMetrics.EVENT_TYPE_COUNT];
+        for (int i = 0; i < this.eventCounts.length; i++) {
+            this.eventCounts[i] = new LongAdder();
+        }
+    }
+
+
+
+
+    public void parseFinished(final ParseMetrics metrics) {
+
+        this.parseCount.increment();
+        if (metrics.failed) {
+            this.failedParseCount.increment();
+        }
+        this.documentChars.add(metrics.documentChars);
+        this.totalTimeNanos.add(metrics.totalTimeNanos);
+        this.handlerTimeNanos.add(metrics.handlerTimeNanos);
+
+        if (metrics.bufferGrowths > 0) {
+            this.bufferGrowths.add(metrics.bufferGrowths);
+        }
+        if (metrics.poolHits > 0) {
+            this.poolHits.add(metrics.poolHits);
+        }
+        if (metrics.poolMisses > 0) {
+            this.poolMisses.add(metrics.poolMisses);
+        }
+
+        this.maxDepth.accumulate(metrics.maxDepth);
+
+        final long[] counts = metrics.eventCounts;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0L) {
+                this.eventCounts[i].add(counts[i]);
+            }
+        }
+
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Returns the number of parsing operations finished (including those that failed).
+     * </p>
+     *
+     * @return the number of parsing operations.
+     */
+    public long getParseCount() {
+        return this.parseCount.sum();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the number of parsing operations that failed.
+     * </p>
+     *
+     * @return the number of failed parsing operations.
+     */
+    public long getFailedParseCount() {
+        return this.failedParseCount.sum();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the total number of chars parsed.
+     * </p>
+     *
+     * @return the number of chars.
+     */
+    public long getDocumentChars() {
+        return this.documentChars.sum();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the sum of the total time (in nanoseconds) taken by all parsing operations.
+     * </p>
+     *
+     * @return the total parsing time.
+     */
+    public long getTotalTimeNanos() {
+        return this.totalTimeNanos.sum();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the sum of the time (in nanoseconds) spent inside handlers by all parsing operations.
+     * </p>
+     *
+     * @return the handler time.
+     */
+    public long getHandlerTimeNanos() {
+        return this.handlerTimeNanos.sum();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the sum of the time (in nanoseconds) spent by the parser itself in all parsing operations,
+     *   i.e. total time minus handler time.
+     * </p>
+     *
+     * @return the tokenize time.
+     */
+    public long getTokenizeTimeNanos() {
+        return Math.max(0L, getTotalTimeNanos() - getHandlerTimeNanos());
+    }
+
+
+    /**
+     * <p>
+     *   Returns the average parsing throughput, in chars per second of parsing time (not of wall-clock time,
+     *   as parsing operations might be performed concurrently).
+     * </p>
+     *
+     * @return the number of chars parsed per second, or 0 if nothing has been parsed yet.
+     */
+    public double getCharsPerSecond() {
+        final long nanos = getTotalTimeNanos();
+        if (nanos <= 0L) {
+            return 0.0d;
+        }
+        return ((double) getDocumentChars() * 1000000000.0d) / (double) nanos;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the total number of times parsing buffers had to be doubled.
+     * </p>
+     *
+     * @return the number of buffer growths.
+     */
+    public long getBufferGrowths() {
+        return this.bufferGrowths.sum();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the total number of buffer requests served from the parsers' {@link IBufferPool}.
+     * </p>
+     *
+     * @return the number of pool hits.
+     */
+    public long getPoolHits() {
+        return this.poolHits.sum();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the total number of buffer requests that required the parsers' {@link IBufferPool} to
+     *   allocate a new buffer.
+     * </p>
+     *
+     * @return the number of pool misses.
+     */
+    public long getPoolMisses() {
+        return this.poolMisses.sum();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the maximum depth of nested elements reached in any of the parsed documents.
+     * </p>
+     *
+     * @return the maximum depth.
+     */
+    public long getMaxDepth() {
+        return this.maxDepth.get();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the total number of events of the specified type reported to handlers.
+     * </p>
+     *
+     * @param eventType the type of event.
+     * @return the number of events.
+     */
+    public long getEventCount(final ParseMetrics.EventType eventType) {
+        if (eventType == null) {
+            throw new IllegalArgumentException("Event type cannot be null");
+        }
+        return this.eventCounts[eventType.ordinal()].sum();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the total number of events (of any type) reported to handlers.
+     * </p>
+     *
+     * @return the number of events.
+     */
+    public long getEventCount() {
+        long total = 0L;
+        for (int i = 0; i < this.eventCounts.length; i++) {
+            total += this.eventCounts[i].sum();
+        }
+        return total;
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Resets all the counters of this collector to zero. Note that, if performed while parsing operations
+     *   are being notified, some of the metrics of these operations might be lost.
+     * </p>
+     */
+    public void reset() {
+        this.parseCount.reset();
+        this.failedParseCount.reset();
+        this.documentChars.reset();
+        this.totalTimeNanos.reset();
+        this.handlerTimeNanos.reset();
+        this.bufferGrowths.reset();
+        this.poolHits.reset();
+        this.poolMisses.reset();
+        this.maxDepth.reset();
+        for (int i = 0; i < this.eventCounts.length; i++) {
+            this.eventCounts[i].reset();
+        }
+    }
+
+
+
+
+    @Override
+    public String toString() {
+        final StringBuilder strBuilder = new StringBuilder();
+        strBuilder.append("ParseMetricsCollector{");
+        strBuilder.append("parseCount=").append(getParseCount());
+        strBuilder.append(", documentChars=").append(getDocumentChars());
+        strBuilder.append(", totalTimeNanos=").append(getTotalTimeNanos());
+        strBuilder.append(", handlerTimeNanos=").append(getHandlerTimeNanos());
+        strBuilder.append(", bufferGrowths=").append(getBufferGrowths());
+        strBuilder.append(", poolHits=").append(getPoolHits());
+        strBuilder.append(", poolMisses=").append(getPoolMisses());
+        strBuilder.append(", maxDepth=").append(getMaxDepth());
+        for (final ParseMetrics.EventType eventType : ParseMetrics.EventType.values()) {
+            strBuilder.append(", ").append(eventType).append('=').append(getEventCount(eventType));
+        }
+        strBuilder.append('}');
+        return strBuilder.toString();
+    }
+
+}
@@ -0,0 +1,430 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+import java.io.IOException;
+import java.io.Reader;
+
+
+/**
+ * <p>
+ *   Push-mode (non-blocking) parsing session, created by {@link MarkupParser#openSession(IMarkupHandler)}.
+ * </p>
+ * <p>
+ *   Instead of pulling the document from a {@link Reader} (which would block the parsing thread while
+ *   waiting for input to be available), a parsing session allows the document to be <em>pushed</em> into the
+ *   parser chunk by chunk as it arrives, by calling {@link #feed(char[], int, int)} as many times as needed
+ *   and then {@link #finish()} once the whole document has been fed. This makes it possible to parse a large
+ *   amount of concurrent documents from a small number of threads (e.g. the event loop threads of an NIO
+ *   server).
+ * </p>
+ * <p>
+ *   Every chunk is parsed as soon as it is fed, and events are fired to the handler before
+ *   {@link #feed(char[], int, int)} returns, except for those corresponding to markup structures (or
+ *   non-splittable texts) which are still incomplete at the end of the chunk. These are kept in the session's
+ *   buffer and parsed as soon as the rest of the structure is fed, resuming the scanning of the structure at the
+ *   point where it was left instead of scanning it again from its start. The session buffer is obtained from the
+ *   parser's buffer pool and will only grow if a single structure does not fit in it, so the amount of memory
+ *   used by each session is bounded by the size of the largest structure in the document.
+ * </p>
+ * <p>
+ *   Sample usage:
+ * </p>
+ * <pre><code>
+ *   final ParseSession session = parser.openSession(handler);
+ *   try {
+ *       // As chunks arrive...
+ *       session.feed(chunk, 0, chunkLen);
+ *       ...
+ *       // Once the document is complete
+ *       session.finish();
+ *   } finally {
+ *       session.close();
+ *   }
+ * </code></pre>
+ * <p>
+ *   Objects of this class are <strong>not thread-safe</strong>: they can be fed from different threads, but
+ *   never concurrently. Once {@link #finish()} has been called or a {@link ParseException} has been thrown,
+ *   the session cannot be fed any more.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 2.0.10
+ *
+ */
+public final class ParseSession implements AutoCloseable {
+
+    private final MarkupParser parser;
+    private final IMarkupHandler handler;
+    private final ParseStatus status;
+    private final boolean positionTracking;
+
+    private char[] buffer;
+    private int bufferContentSize;
+    private long documentChars;
+
+    private long parsingStartTimeNanos;
+
+    private boolean closed = false;
+
+
+
+
+    ParseSession(
+            final MarkupParser parser, final int bufferSize,
+            final IMarkupHandler handler, final ParseStatus status) {
+        super();
+        this.parser = parser;
+        this.handler = handler;
+        this.status = status;
+        this.positionTracking = this.parser.getConfiguration().isPositionTracking();
+        this.buffer = this.parser.allocateBuffer(bufferSize, this.status.metrics);
+        this.bufferContentSize = 0;
+    }
+
+
+
+
+    /*
+     * Initializes the parse status and launches the document start event. Called by MarkupParser before
+     * returning the session to the user (or before starting to read from a Reader).
+     */
+    void start() throws ParseException {
+
+        checkOpen();
+
+        this.parsingStartTimeNanos = System.nanoTime();
+
+        this.status.initPositions(this.positionTracking, this.buffer, 0);
+
+        final int startLine = (this.positionTracking? 1 : 0);
+        final int startCol = (this.positionTracking? 1 : 0);
+
+        try {
+            this.handler.handleDocumentStart(this.parsingStartTimeNanos, startLine, startCol);
+        } catch (final ParseException e) {
+            close();
+            throw e;
+        } catch (final Exception e) {
+            close();
+            throw new ParseException(e, startLine, startCol);
+        }
+
+        this.status.offset = 0;
+        this.status.line = startLine;
+        this.status.col = startCol;
+        this.status.inStructure = false;
+        this.status.parsingDisabled = true;
+        this.status.parsingDisabledLimitSequence = null;
+        this.status.autoCloseRequired = null;
+        this.status.autoCloseLimits = null;
+        this.status.resumeMode = MarkupParser.RESUME_NONE;
+
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Feed a chunk of the document to the session, parsing it and firing the corresponding events.
+     * </p>
+     *
+     * @param chunk the chunk of document to be parsed, as a char[].
+     * @throws ParseException if the fed markup cannot be parsed.
+     */
+    public void feed(final char[] chunk) throws ParseException {
+        if (chunk == null) {
+            throw new IllegalArgumentException("Chunk cannot be null");
+        }
+        feed(chunk, 0, chunk.length);
+    }
+
+
+    /**
+     * <p>
+     *   Feed a chunk of the document to the session, parsing it and firing the corresponding events.
+     * </p>
+     * <p>
+     *   Contents of the <kbd>chunk</kbd> array are copied into the session's buffer, so the array can be
+     *   reused by the caller once this method returns.
+     * </p>
+     * <p>
+     *   If an event handler has stopped parsing (see {@link ParseStatus#stopParsing()}), the chunk will be
+     *   ignored. See {@link #isParsingStopped()}.
+     * </p>
+     *
+     * @param chunk the char[] containing the chunk of document to be parsed.
+     * @param offset the offset of the chunk contents in the array.
+     * @param len the length (in chars) of the chunk.
+     * @throws ParseException if the fed markup cannot be parsed.
+     */
+    public void feed(final char[] chunk, final int offset, final int len) throws ParseException {
+
+        if (chunk == null) {
+            throw new IllegalArgumentException("Chunk cannot be null");
+        }
+        if (offset < 0 || len < 0 || offset + len > chunk.length) {
+            throw new IllegalArgumentException(
+                    "Invalid chunk offset (" + offset + ") and length (" + len + ") for an array of " +
+                    "length " + chunk.length);
+        }
+
+        checkOpen();
+
+        try {
+
+            int chunkOffset = offset;
+            int chunkRemaining = len;
+
+            // Once a handler has stopped parsing, the rest of the document is simply ignored
+            while (chunkRemaining > 0 && !this.status.parsingStopped) {
+
+                ensureBufferCapacity();
+
+                final int copyLen = Math.min(chunkRemaining, this.buffer.length - this.bufferContentSize);
+                System.arraycopy(chunk, chunkOffset, this.buffer, this.bufferContentSize, copyLen);
+
+                this.bufferContentSize += copyLen;
+                this.documentChars += copyLen;
+                if (this.status.metrics != null) {
+                    this.status.metrics.documentChars += copyLen;
+                }
+                chunkOffset += copyLen;
+                chunkRemaining -= copyLen;
+
+                parseBufferContent();
+
+            }
+
+        } catch (final ParseException e) {
+            final ParseException exception = this.status.resolvePosition(e);
+            close();
+            throw this.parser.parseFailed(exception, this.status);
+        } catch (final Exception e) {
+            final ParseException exception =
+                    this.status.resolvePosition(new ParseException(e, this.status.line, this.status.col));
+            close();
+            throw this.parser.parseFailed(exception, this.status);
+        }
+
+    }
+
+
+
+
+    /*
+     * Reads the next chunk of the document directly from a Reader into the session buffer (avoiding the copy
+     * performed by feed(...)) and parses it. Returns false if the Reader has reached its end.
+     *
+     * Exceptions are not handled here, as this is meant to be called from MarkupParser itself.
+     */
+    boolean read(final Reader reader) throws IOException, ParseException {
+
+        checkOpen();
+        ensureBufferCapacity();
+
+        final int read = reader.read(this.buffer, this.bufferContentSize, this.buffer.length - this.bufferContentSize);
+        if (read == -1) {
+            return false;
+        }
+
+        this.bufferContentSize += read;
+        this.documentChars += read;
+        if (this.status.metrics != null) {
+            this.status.metrics.documentChars += read;
+        }
+        parseBufferContent();
+
+        return true;
+
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Signal the end of the document, firing any pending events (including the document end event) and
+     *   releasing the resources used by the session.
+     * </p>
+     *
+     * @throws ParseException if the document is not complete (e.g. it ends in the middle of a markup structure)
+     *         or the pending events cannot be handled.
+     */
+    public void finish() throws ParseException {
+        try {
+            finishDocument();
+        } catch (final ParseException e) {
+            throw this.parser.parseFailed(e, this.status);
+        }
+    }
+
+
+    /*
+     * Equivalent to finish(), but without reporting failures (used when parsing from a Reader, in which case
+     * failures are reported by MarkupParser itself).
+     */
+    void finishDocument() throws ParseException {
+
+        checkOpen();
+
+        try {
+            this.parser.finishDocument(
+                    this.buffer, this.bufferContentSize, this.parsingStartTimeNanos, this.handler, this.status);
+        } catch (final ParseException e) {
+            throw this.status.resolvePosition(e);
+        } catch (final Exception e) {
+            throw this.status.resolvePosition(new ParseException(e, this.status.line, this.status.col));
+        } finally {
+            close();
+        }
+
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Close the session, releasing its buffer back to the parser's pool. After this, the session cannot be
+     *   fed any more.
+     * </p>
+     * <p>
+     *   Calling this method is only needed if the session is abandoned before being finished (e.g. because
+     *   the connection providing the document has been dropped), as both {@link #finish()} and any
+     *   {@link ParseException} thrown by {@link #feed(char[], int, int)} will close the session. Calling it
+     *   on an already-closed session has no effect.
+     * </p>
+     */
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        this.parser.releaseBuffer(this.buffer);
+        this.buffer = null;
+    }
+
+
+    /**
+     * <p>
+     *   Returns whether parsing has been stopped by an event handler (see {@link ParseStatus#stopParsing()}),
+     *   in which case there is no need to feed the session with the rest of the document, and it can be
+     *   directly finished.
+     * </p>
+     *
+     * @return <kbd>true</kbd> if parsing has been stopped, <kbd>false</kbd> if not.
+     */
+    public boolean isParsingStopped() {
+        return this.status.parsingStopped;
+    }
+
+
+    /**
+     * <p>
+     *   Returns whether this session has already been closed (either explicitly, by being finished, or because
+     *   of a parsing error).
+     * </p>
+     *
+     * @return <kbd>true</kbd> if the session has been closed, <kbd>false</kbd> if it can still be fed.
+     */
+    public boolean isClosed() {
+        return this.closed;
+    }
+
+
+
+
+    /*
+     * Total number of chars fed to (or read by) this session.
+     */
+    long getDocumentChars() {
+        return this.documentChars;
+    }
+
+
+    private void checkOpen() {
+        if (this.closed) {
+            throw new IllegalStateException("Parse session has already been closed");
+        }
+    }
+
+
+    /*
+     * The buffer works as a sliding window: content is always appended at its end, and the unconsumed part of it
+     * (from status.offset to bufferContentSize) is only moved to the beginning of the buffer once there is no
+     * more room for appending. Only if nothing at all could be consumed will the buffer need to grow.
+     */
+    private void ensureBufferCapacity() {
+
+        if (this.bufferContentSize < this.buffer.length) {
+            return;
+        }
+
+        final int windowStart = this.status.offset;
+
+        if (windowStart > 0) {
+            // Shift the unconsumed part of the buffer to its beginning so that more content can be appended.
+            // Note scanning of an unfinished structure will be resumed at the same point relative to window start.
+            this.status.advancePositionCheckpoint(windowStart);
+            System.arraycopy(this.buffer, windowStart, this.buffer, 0, this.bufferContentSize - windowStart);
+            this.bufferContentSize -= windowStart;
+            this.status.offset = 0;
+            this.status.bufferOffsetDelta += windowStart;
+            return;
+        }
+
+        // Buffer is full and nothing could be consumed from it (the whole buffer is taken by a single structure
+        // or non-splittable text), so it is not big enough: double it!
+        final char[] newBuffer = this.parser.allocateBuffer(this.buffer.length * 2, this.status.metrics);
+        FlightRecorderSupport.bufferGrown(this.buffer.length, newBuffer.length);
+        if (this.status.metrics != null) {
+            this.status.metrics.bufferGrowths++;
+        }
+        System.arraycopy(this.buffer, 0, newBuffer, 0, this.bufferContentSize);
+
+        this.parser.releaseBuffer(this.buffer);
+        this.buffer = newBuffer;
+        this.status.buffer = newBuffer;
+
+    }
+
+
+    private void parseBufferContent() throws ParseException {
+
+        final int windowStart = this.status.offset;
+
+        this.parser.parseBuffer(
+                this.buffer, windowStart, this.bufferContentSize - windowStart, this.handler, this.status);
+
+        if (this.status.offset == this.bufferContentSize) {
+            // Everything has been consumed, so we can start again at the beginning of the buffer at no cost
+            this.status.advancePositionCheckpoint(this.bufferContentSize);
+            this.status.bufferOffsetDelta += this.bufferContentSize;
+            this.bufferContentSize = 0;
+            this.status.offset = 0;
+        }
+
+    }
+
+
+}
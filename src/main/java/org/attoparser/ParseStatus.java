@@ -49,6 +49,57 @@ public final class ParseStatus {
 
     boolean avoidStacking;
 
+    // Set by handlers (by means of stopParsing()) in order to instruct the parser to stop reading and tokenizing
+    // the document, and to jump directly to the document end event.
+    boolean parsingStopped;
+
+    // Set by handlers (by means of skipElementContents()) while handling an open element, in order to instruct the
+    // parser to skip everything until the corresponding close element. Once the open element has been completely
+    // handled, the event processor sets the name of the element being skipped, and the parser will keep track of
+    // the nesting of elements with that same name inside it (skippedElementStatus[0]) while skipping. When skipping
+    // stops at the end of a buffer, skippedElementStatus[1] contains the offset up to which the contents are known
+    // to be skipped (see ParsingElementMarkupUtil#findSkippedElementContentsEnd).
+    boolean skipElementContentsRequested;
+    char[] skippedElementName;
+    final int[] skippedElementStatus = new int[2];
+
+    // These allow the parser to resume the scanning of a text or structure that could not be completed during the
+    // previous call to parseBuffer (because it reached the end of the buffer), instead of scanning it again from its
+    // start. resumeDistance is relative to offset (and not to the buffer start) so that it remains valid when the
+    // buffer is compacted. Resume mode values are defined at MarkupParser.
+    int resumeMode;
+    int resumeDistance;
+    int resumeLine;
+    int resumeCol;
+    boolean resumeInQuotes;
+    boolean resumeInApos;
+
+    // When position tracking is disabled, events are reported with line = 0 and col = offset in the document,
+    // computed as (index in buffer + bufferOffsetDelta). Real lines and cols are only computed when asked for, by
+    // counting line feeds from a checkpoint that is advanced (in bulk) before any contents are discarded from the
+    // buffer, so that any offset not yet discarded can be resolved. Offsets are kept here as long, but reported
+    // as int, so for documents longer than Integer.MAX_VALUE chars (which can only be parsed from a Reader or a
+    // ParseSession) reported offsets wrap around. As the buffer is always much smaller than 2^32 chars, the
+    // complete offset can always be recovered from a wrapped one (see computeOffset).
+    boolean positionTracking = true;
+    char[] buffer;
+    long bufferOffsetDelta;
+    long checkpointOffset;
+    int checkpointLine;
+    int checkpointCol;
+
+    // Scratch structures used by the parser for tracking position and quote status while scanning. They are kept
+    // here so that they do not have to be allocated each time a buffer is parsed (or each time an element or
+    // attribute sequence is parsed, in the case of the element and attribute locators).
+    final int[] locator = new int[2];
+    final boolean[] quotes = new boolean[2];
+    final int[] elementLocator = new int[2];
+    final int[] attributeLocator = new int[2];
+
+    // Metrics of the current parsing operation, only if a metrics listener has been set into the parser (null
+    // otherwise). Set by the MetricsMarkupHandler in the handler chain.
+    ParseMetrics metrics = null;
+
 
     // These attributes instruct the event processor to make sure an element is correctly stacked inside the elements
     // it needs to. For example, a <tr> element will ask for the auto-opening of a <tbody> element as its
@@ -92,6 +143,15 @@ public final class ParseStatus {
     char[][] autoCloseRequired;
     char[][] autoCloseLimits;
 
+    // Precompiled versions of the above auto-open and auto-close rules, in the form of standard name ids
+    // (see StandardNameSet), set by the standard HTML elements. Will be null if rules have been set by means of
+    // the public setters (or contain non-standard names), in which case names in the stack will be compared with
+    // the char[] versions.
+    int[] autoOpenParentIds;
+    StandardNameSet autoOpenLimitsSet;
+    StandardNameSet autoCloseRequiredSet;
+    StandardNameSet autoCloseLimitsSet;
+
     // This flag indicates whether the auto-open and auto-close operations have already been done, so that the
     // firing events know that they don't need to stop the execution chain again.
     boolean autoOpenCloseDone;
@@ -147,6 +207,237 @@ public int getCol() {
 
 
 
+    /**
+     * <p>
+     *   Computes the line in the document corresponding to the specified offset, as reported at the
+     *   <kbd>col</kbd> argument of events when position tracking has been disabled at the parse
+     *   configuration (see {@link org.attoparser.config.ParseConfiguration#isPositionTracking()}).
+     * </p>
+     * <p>
+     *   The line is computed lazily by counting line feeds in the document, and can only be computed for offsets
+     *   in the fragment of document being currently parsed, i.e. from within an event handler for the offsets
+     *   reported for that event or any event fired after it.
+     * </p>
+     *
+     * @param offset the offset in the document (in chars).
+     * @return the line number.
+     * @since 2.0.10
+     */
+    public int computeLine(final int offset) {
+        return computePosition(offset)[0];
+    }
+
+
+    /**
+     * <p>
+     *   Computes the column in the document corresponding to the specified offset, as reported at the
+     *   <kbd>col</kbd> argument of events when position tracking has been disabled at the parse
+     *   configuration (see {@link org.attoparser.config.ParseConfiguration#isPositionTracking()}).
+     * </p>
+     * <p>
+     *   The column is computed lazily by looking for line feeds in the document, and can only be computed for
+     *   offsets in the fragment of document being currently parsed, i.e. from within an event handler for the
+     *   offsets reported for that event or any event fired after it.
+     * </p>
+     *
+     * @param offset the offset in the document (in chars).
+     * @return the column number.
+     * @since 2.0.10
+     */
+    public int computeCol(final int offset) {
+        return computePosition(offset)[1];
+    }
+
+
+    /**
+     * <p>
+     *   Computes the complete offset in the document corresponding to the specified offset, as reported at the
+     *   <kbd>col</kbd> argument of events when position tracking has been disabled at the parse
+     *   configuration (see {@link org.attoparser.config.ParseConfiguration#isPositionTracking()}).
+     * </p>
+     * <p>
+     *   Offsets are reported at events as <kbd>int</kbd>, so for documents longer than
+     *   <kbd>Integer.MAX_VALUE</kbd> chars (which can be parsed from a <kbd>Reader</kbd> or by means of a
+     *   {@link ParseSession}) the offsets reported beyond that point wrap around, and only their lower 32 bits
+     *   are reported. This method returns the complete offset. For any offset not exceeding
+     *   <kbd>Integer.MAX_VALUE</kbd>, the returned value is equal to the reported one.
+     * </p>
+     * <p>
+     *   As with {@link #computeLine(int)}, this can only be computed for offsets in the fragment of document being
+     *   currently parsed, i.e. from within an event handler for the offsets reported for that event or any event
+     *   fired after it.
+     * </p>
+     *
+     * @param offset the offset in the document (in chars), as reported at the event.
+     * @return the complete offset in the document (in chars).
+     * @since 2.0.10
+     */
+    public long computeOffset(final int offset) {
+        return this.bufferOffsetDelta + computeBufferIndex(offset);
+    }
+
+
+    private int[] computePosition(final int offset) {
+
+        final int from = (int) (this.checkpointOffset - this.bufferOffsetDelta);
+        final int to = computeBufferIndex(offset);
+
+        final int[] locator = new int[] {this.checkpointLine, this.checkpointCol};
+        for (int i = from; i < to; i++) {
+            ParsingLocatorUtil.countChar(locator, this.buffer[i]);
+        }
+        return locator;
+
+    }
+
+
+    private int computeBufferIndex(final int offset) {
+
+        if (this.positionTracking) {
+            throw new IllegalStateException(
+                    "Positions can only be computed from offsets when position tracking is disabled");
+        }
+
+        final int from = (int) (this.checkpointOffset - this.bufferOffsetDelta);
+        // Reported offsets are the lower 32 bits of the real ones, so int arithmetic (wrapping around in the same
+        // way) gives the right index in the buffer
+        final int to = offset - (int) this.bufferOffsetDelta;
+
+        if (this.buffer == null || to < from || to > this.buffer.length) {
+            throw new IllegalArgumentException(
+                    "Cannot compute position for offset " + offset + ", which is not in the fragment of " +
+                    "document currently being parsed");
+        }
+
+        return to;
+
+    }
+
+
+    /*
+     * Called before buffer contents are discarded, so that the checkpoint used for computing positions is moved
+     * to the first char that will remain in the buffer (at index 'bufferIndex').
+     */
+    void advancePositionCheckpoint(final int bufferIndex) {
+
+        if (this.positionTracking) {
+            return;
+        }
+
+        final int from = (int) (this.checkpointOffset - this.bufferOffsetDelta);
+
+        int line = this.checkpointLine;
+        int col = this.checkpointCol;
+        for (int i = from; i < bufferIndex; i++) {
+            if (this.buffer[i] == '\n') {
+                line++;
+                col = 1;
+            } else {
+                col++;
+            }
+        }
+
+        this.checkpointOffset = bufferIndex + this.bufferOffsetDelta;
+        this.checkpointLine = line;
+        this.checkpointCol = col;
+
+    }
+
+
+    /*
+     * When position tracking is disabled, exceptions will be raised with line = 0 and col = offset. This
+     * resolves them into real lines and cols.
+     */
+    ParseException resolvePosition(final ParseException exception) {
+
+        if (this.positionTracking || exception.getLine() == null || exception.getLine().intValue() != 0) {
+            return exception;
+        }
+
+        final int offset = exception.getCol().intValue();
+        final int[] position;
+        try {
+            position = computePosition(offset);
+        } catch (final IllegalArgumentException ignored) {
+            // Offset cannot be resolved, so there is nothing we can do
+            return exception;
+        }
+
+        // Keep the original message and cause, just changing the position
+        final String message = exception.getRawMessage();
+        final ParseException resolved =
+                (message == null ?
+                        new ParseException(exception.getCause(), position[0], position[1]) :
+                        new ParseException(message, exception.getCause(), position[0], position[1]));
+        resolved.setStackTrace(exception.getStackTrace());
+        return resolved;
+
+    }
+
+
+    /*
+     * Resets all the parsing state, so that this object can be reused for a new parsing operation (see
+     * ParseContext).
+     */
+    void reset() {
+        this.offset = 0;
+        this.line = 1;
+        this.col = 1;
+        this.inStructure = false;
+        this.shouldDisableParsing = false;
+        this.parsingDisabled = true;
+        this.parsingDisabledLimitSequence = null;
+        this.avoidStacking = false;
+        this.parsingStopped = false;
+        this.skipElementContentsRequested = false;
+        this.skippedElementName = null;
+        this.resumeMode = MarkupParser.RESUME_NONE;
+        this.resumeDistance = 0;
+        this.autoOpenParents = null;
+        this.autoOpenLimits = null;
+        this.autoCloseRequired = null;
+        this.autoCloseLimits = null;
+        this.autoOpenParentIds = null;
+        this.autoOpenLimitsSet = null;
+        this.autoCloseRequiredSet = null;
+        this.autoCloseLimitsSet = null;
+        this.autoOpenCloseDone = false;
+        this.buffer = null;
+    }
+
+
+    /**
+     * <p>
+     *   Determines whether the specified <kbd>char[]</kbd> is the buffer the parser is currently reading the
+     *   document from.
+     * </p>
+     * <p>
+     *   Events fired by the parser itself carry this buffer, and its contents for a markup structure (e.g. an
+     *   element start tag and its attributes) are not modified until all the events for that structure have been
+     *   handled. Events sent with any other buffer (e.g. by a previous handler in a chain, which might be reusing
+     *   a scratch array) offer no such guarantee.
+     * </p>
+     *
+     * @param buffer the buffer to be checked.
+     * @return <kbd>true</kbd> if it is the document buffer being parsed, <kbd>false</kbd> if not.
+     * @since 2.0.10
+     */
+    public boolean isDocumentBuffer(final char[] buffer) {
+        return buffer != null && buffer == this.buffer;
+    }
+
+
+    void initPositions(final boolean positionTracking, final char[] buffer, final int bufferOffsetDelta) {
+        this.positionTracking = positionTracking;
+        this.buffer = buffer;
+        this.bufferOffsetDelta = bufferOffsetDelta;
+        this.checkpointOffset = 0;
+        this.checkpointLine = 1;
+        this.checkpointCol = 1;
+    }
+
+
+
     /**
      * <p>
      *   Determines whether parsing is currently disabled or not. This only happens if an event handler calls the
@@ -178,6 +469,76 @@ public void setParsingDisabled(final char[] limitSequence) {
     }
 
 
+
+    /**
+     * <p>
+     *   Stop parsing the current document. This can be called by any event handler that does not need to be
+     *   notified of any more events (e.g. because it only needs the <kbd>&lt;head&gt;</kbd> of an HTML
+     *   document, or because all the fragments it was interested in have already been found).
+     * </p>
+     * <p>
+     *   Parsing will stop right after the text or markup structure currently being reported is complete (i.e.
+     *   after the rest of its events, such as the attributes of an element, have been fired). The rest of the
+     *   document will not be read or tokenized, and parsing will directly finish with a document end event.
+     *   Any elements still open at that point will be auto-closed (if the parse configuration allows it), and
+     *   no checks on the completeness of the document (such as element balancing or the presence of a root
+     *   element) will be performed.
+     * </p>
+     * <p>
+     *   Handlers can know whether the document they are receiving the document end event for has been
+     *   truncated this way by calling {@link #isParsingStopped()}.
+     * </p>
+     *
+     * @since 2.0.10
+     */
+    public void stopParsing() {
+        this.parsingStopped = true;
+    }
+
+
+    /**
+     * <p>
+     *   Determines whether parsing of the current document has been stopped by an event handler calling
+     *   {@link #stopParsing()}, in which case the document events have been truncated at that point.
+     * </p>
+     *
+     * @return whether parsing has been stopped or not.
+     * @since 2.0.10
+     */
+    public boolean isParsingStopped() {
+        return this.parsingStopped;
+    }
+
+
+
+    /**
+     * <p>
+     *   Skip the contents of the open element currently being handled, i.e. everything between its open tag and
+     *   its corresponding close tag. This can only be called by event handlers from the
+     *   {@link IElementHandler#handleOpenElementStart(char[], int, int, int, int)} or
+     *   {@link IElementHandler#handleOpenElementEnd(char[], int, int, int, int)} events of the element (or from
+     *   the attribute events in between), and has no effect for elements that are reported as standalone (such
+     *   as HTML void elements).
+     * </p>
+     * <p>
+     *   Instead of being parsed into events, the contents of the element will be scanned looking for its
+     *   matching close tag, only keeping track of the nesting of elements with the same name (and avoiding
+     *   comments, CDATA sections and attribute values), and then reported as a whole by means of
+     *   {@link IElementHandler#handleSkippedElementContents(char[], int, int, int, int)}. Parsing will
+     *   continue normally at the close tag.
+     * </p>
+     * <p>
+     *   Note the close tag of the element needs to be explicitly present in markup (e.g. an HTML
+     *   <kbd>&lt;li&gt;</kbd> whose close tag has been omitted will be skipped until the end of the document).
+     * </p>
+     *
+     * @since 2.0.10
+     */
+    public void skipElementContents() {
+        this.skipElementContentsRequested = true;
+    }
+
+
     /**
      * <p>
      *   Indicates whether the parser has already performed a required auto-open or auto-close operation. This
@@ -244,8 +605,17 @@ public boolean isAutoOpenCloseDone() {
      *                       the parent sequence will only be applied if at root level, or of the sequence is incomplete.
      */
     public void setAutoOpenRequired(final char[][] autoOpenParents, final char[][] autoOpenLimits) {
+        setAutoOpenRequired(autoOpenParents, autoOpenLimits, null, null);
+    }
+
+
+    void setAutoOpenRequired(
+            final char[][] autoOpenParents, final char[][] autoOpenLimits,
+            final StandardNameSet autoOpenParentsSet, final StandardNameSet autoOpenLimitsSet) {
         this.autoOpenParents = autoOpenParents;
         this.autoOpenLimits = autoOpenLimits;
+        this.autoOpenParentIds = (autoOpenParentsSet != null ? autoOpenParentsSet.getIds() : null);
+        this.autoOpenLimitsSet = (autoOpenLimitsSet != null && autoOpenLimitsSet.isStandard() ? autoOpenLimitsSet : null);
     }
 
 
@@ -275,8 +645,18 @@ public void setAutoOpenRequired(final char[][] autoOpenParents, final char[][] a
      * @param autoCloseLimits the names of the elements that will serve as limits for the auto-closing operation.
      */
     public void setAutoCloseRequired(final char[][] autoCloseRequired, final char[][] autoCloseLimits) {
+        setAutoCloseRequired(autoCloseRequired, autoCloseLimits, null, null);
+    }
+
+
+    void setAutoCloseRequired(
+            final char[][] autoCloseRequired, final char[][] autoCloseLimits,
+            final StandardNameSet autoCloseRequiredSet, final StandardNameSet autoCloseLimitsSet) {
         this.autoCloseRequired = autoCloseRequired;
         this.autoCloseLimits = autoCloseLimits;
+        this.autoCloseRequiredSet =
+                (autoCloseRequiredSet != null && autoCloseRequiredSet.isStandard() ? autoCloseRequiredSet : null);
+        this.autoCloseLimitsSet = (autoCloseLimitsSet != null && autoCloseLimitsSet.isStandard() ? autoCloseLimitsSet : null);
     }
 
     /**
@@ -47,13 +47,28 @@ public static void parseAttributeSequence(
             final int line, final int col,
             final IAttributeSequenceHandler handler)
             throws ParseException {
+        parseAttributeSequence(buffer, offset, len, line, col, handler, new int[2]);
+    }
+
+
+    /*
+     * The scratch locator array is provided by the caller so that it can be reused, avoiding allocation.
+     */
+    static void parseAttributeSequence(
+            final char[] buffer,
+            final int offset, final int len,
+            final int line, final int col,
+            final IAttributeSequenceHandler handler,
+            final int[] locator)
+            throws ParseException {
 
         // Any string will be recognized as an "attribute sequence", so this will always either return a not-null result
         // or raise an exception.
 
         final int maxi = offset + len;
 
-        final int[] locator = new int[] {line, col};
+        locator[0] = line;
+        locator[1] = col;
 
         int i = offset;
         int current = i;
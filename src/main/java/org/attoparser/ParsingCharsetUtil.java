@@ -0,0 +1,282 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+
+/*
+ * Class containing utility methods for detecting the charset of documents specified as bytes.
+ *
+ * Detection is performed (in this order) by looking at:
+ *
+ *   - A Byte Order Mark (UTF-8, UTF-16BE, UTF-16LE).
+ *   - The first characters of an XML Declaration written in UTF-16 without BOM.
+ *   - The 'encoding' pseudo-attribute of an XML Declaration.
+ *   - The 'charset' specified at an HTML <meta> element (either as <meta charset="..."> or as
+ *     <meta http-equiv="Content-Type" content="...; charset=...">).
+ *
+ * Only the first DETECTION_LIMIT bytes of the document are examined. If no charset can be detected this way,
+ * UTF-8 is returned.
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+final class ParsingCharsetUtil {
+
+    static final int DETECTION_LIMIT = 1024;
+
+    static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
+
+
+    private static final char[] XML_DECLARATION_START = "<?xml".toCharArray();
+    private static final char[] XML_DECLARATION_ENCODING = "encoding".toCharArray();
+    private static final char[] META_START = "<meta".toCharArray();
+    private static final char[] META_CHARSET = "charset".toCharArray();
+
+
+
+
+    private ParsingCharsetUtil() {
+        super();
+    }
+
+
+
+
+    /*
+     * Returns the length of the Byte Order Mark at the current position of the buffer (0 if there is none).
+     * Buffer position is not modified.
+     */
+    static int computeBOMLength(final ByteBuffer input) {
+
+        final int pos = input.position();
+        final int len = input.remaining();
+
+        if (len >= 3 && (input.get(pos) & 0xFF) == 0xEF && (input.get(pos + 1) & 0xFF) == 0xBB && (input.get(pos + 2) & 0xFF) == 0xBF) {
+            return 3;
+        }
+        if (len >= 2 && (input.get(pos) & 0xFF) == 0xFE && (input.get(pos + 1) & 0xFF) == 0xFF) {
+            return 2;
+        }
+        if (len >= 2 && (input.get(pos) & 0xFF) == 0xFF && (input.get(pos + 1) & 0xFF) == 0xFE) {
+            return 2;
+        }
+        return 0;
+
+    }
+
+
+    /*
+     * Detects the charset of the document starting at the current position of the buffer. Buffer position is
+     * not modified.
+     */
+    static Charset detectCharset(final ByteBuffer input) {
+
+        final int pos = input.position();
+        final int len = Math.min(input.remaining(), DETECTION_LIMIT);
+
+        /*
+         * Byte Order Mark
+         */
+        if (len >= 3 && (input.get(pos) & 0xFF) == 0xEF && (input.get(pos + 1) & 0xFF) == 0xBB && (input.get(pos + 2) & 0xFF) == 0xBF) {
+            return StandardCharsets.UTF_8;
+        }
+        if (len >= 2 && (input.get(pos) & 0xFF) == 0xFE && (input.get(pos + 1) & 0xFF) == 0xFF) {
+            return StandardCharsets.UTF_16BE;
+        }
+        if (len >= 2 && (input.get(pos) & 0xFF) == 0xFF && (input.get(pos + 1) & 0xFF) == 0xFE) {
+            return StandardCharsets.UTF_16LE;
+        }
+
+        /*
+         * UTF-16 XML Declaration without BOM ("<?" encoded in UTF-16)
+         */
+        if (len >= 4 && input.get(pos) == 0x00 && input.get(pos + 1) == '<' && input.get(pos + 2) == 0x00 && input.get(pos + 3) == '?') {
+            return StandardCharsets.UTF_16BE;
+        }
+        if (len >= 4 && input.get(pos) == '<' && input.get(pos + 1) == 0x00 && input.get(pos + 2) == '?' && input.get(pos + 3) == 0x00) {
+            return StandardCharsets.UTF_16LE;
+        }
+
+        /*
+         * From this point on, we can consider the encoding ASCII-compatible, so we will simply examine the
+         * bytes as if they were ASCII chars.
+         */
+        final char[] text = new char[len];
+        for (int i = 0; i < len; i++) {
+            final byte b = input.get(pos + i);
+            text[i] = (b >= 0 ? (char) b : ' ');
+        }
+
+        /*
+         * XML Declaration
+         */
+        if (startsWith(text, 0, len, XML_DECLARATION_START)) {
+            final int declEnd = indexOf(text, 0, len, '>');
+            final int maxi = (declEnd == -1 ? len : declEnd);
+            final Charset charset = findPseudoAttributeCharset(text, XML_DECLARATION_START.length, maxi, XML_DECLARATION_ENCODING);
+            if (charset != null) {
+                return charset;
+            }
+        }
+
+        /*
+         * HTML <meta> elements
+         */
+        int i = 0;
+        while (i < len) {
+
+            final int metaStart = indexOfIgnoreCase(text, i, len, META_START);
+            if (metaStart == -1) {
+                break;
+            }
+
+            final int metaEnd = indexOf(text, metaStart, len, '>');
+            final int maxi = (metaEnd == -1 ? len : metaEnd);
+
+            final Charset charset = findPseudoAttributeCharset(text, metaStart + META_START.length, maxi, META_CHARSET);
+            if (charset != null) {
+                return charset;
+            }
+
+            i = maxi;
+
+        }
+
+        return DEFAULT_CHARSET;
+
+    }
+
+
+
+
+    /*
+     * Looks for a "name = value" sequence (value can be quoted or not) and tries to resolve it into a Charset.
+     */
+    private static Charset findPseudoAttributeCharset(
+            final char[] text, final int offset, final int maxi, final char[] name) {
+
+        int i = offset;
+
+        while (i < maxi) {
+
+            final int nameStart = indexOfIgnoreCase(text, i, maxi, name);
+            if (nameStart == -1) {
+                return null;
+            }
+
+            i = nameStart + name.length;
+            while (i < maxi && Character.isWhitespace(text[i])) {
+                i++;
+            }
+            if (i >= maxi || text[i] != '=') {
+                continue;
+            }
+            i++;
+            while (i < maxi && (Character.isWhitespace(text[i]) || text[i] == '"' || text[i] == '\'')) {
+                i++;
+            }
+
+            final int valueStart = i;
+            while (i < maxi && !Character.isWhitespace(text[i]) &&
+                    text[i] != '"' && text[i] != '\'' && text[i] != ';' && text[i] != '/' && text[i] != '?') {
+                i++;
+            }
+
+            if (i > valueStart) {
+                return resolveDeclaredCharset(new String(text, valueStart, i - valueStart));
+            }
+
+        }
+
+        return null;
+
+    }
+
+
+    private static Charset resolveDeclaredCharset(final String charsetName) {
+
+        final Charset charset;
+        try {
+            if (!Charset.isSupported(charsetName)) {
+                return null;
+            }
+            charset = Charset.forName(charsetName);
+        } catch (final IllegalArgumentException ignored) {
+            // Illegal charset name
+            return null;
+        }
+
+        // If we have been able to read the declaration as ASCII, the document cannot be UTF-16 or UTF-32 (this
+        // is also what the HTML spec mandates for UTF-16 charsets declared at <meta> elements).
+        final String name = charset.name();
+        if (name.startsWith("UTF-16") || name.startsWith("UTF-32")) {
+            return StandardCharsets.UTF_8;
+        }
+
+        return charset;
+
+    }
+
+
+
+
+    private static boolean startsWith(final char[] text, final int offset, final int maxi, final char[] prefix) {
+        if (maxi - offset < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (text[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    private static int indexOf(final char[] text, final int offset, final int maxi, final char c) {
+        for (int i = offset; i < maxi; i++) {
+            if (text[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+
+    private static int indexOfIgnoreCase(final char[] text, final int offset, final int maxi, final char[] seq) {
+        final int n = maxi - seq.length;
+        for (int i = offset; i <= n; i++) {
+            int j = 0;
+            while (j < seq.length && Character.toLowerCase(text[i + j]) == seq[j]) {
+                j++;
+            }
+            if (j == seq.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+
+}
@@ -19,6 +19,8 @@
  */
 package org.attoparser;
 
+import org.attoparser.util.TextUtil;
+
 
 /**
  * Class containing utility methods for parsing elements (tags).
@@ -28,6 +30,10 @@
  */
 public final class ParsingElementMarkupUtil {
 
+    private static final char[] COMMENT_START = "<!--".toCharArray();
+    private static final char[] COMMENT_END = "-->".toCharArray();
+    private static final char[] CDATA_START = "<![CDATA[".toCharArray();
+    private static final char[] CDATA_END = "]]>".toCharArray();
 
     
 
@@ -45,6 +51,21 @@ public static void parseStandaloneElement(
             final int line, final int col,
             final IMarkupHandler markupHandler)
             throws ParseException {
+        parseStandaloneElement(buffer, offset, len, line, col, markupHandler, new int[2], new int[2]);
+    }
+
+
+    /*
+     * Scratch locator arrays are provided by the caller so that they can be reused across elements, avoiding
+     * allocation. The attribute locator must be a different array from the element locator.
+     */
+    static void parseStandaloneElement(
+            final char[] buffer,
+            final int offset, final int len,
+            final int line, final int col,
+            final IMarkupHandler markupHandler,
+            final int[] locator, final int[] attributeLocator)
+            throws ParseException {
 
         if (len < 4 || !isOpenElementStart(buffer, offset, offset + len) || !isElementEnd(buffer, (offset + len) - 2, offset + len, true)) {
             throw new ParseException(
@@ -56,7 +77,8 @@ public static void parseStandaloneElement(
 
         final int maxi = contentOffset + contentLen;
         
-        final int[] locator = new int[] {line, col + 1};
+        locator[0] = line;
+        locator[1] = col + 1;
         
         /*
          * Extract the element name first 
@@ -88,7 +110,8 @@ public static void parseStandaloneElement(
 
         // This parseAttributeSequence will take care of calling handleInnerWhitespace when appropriate.
         ParsingAttributeSequenceUtil.parseAttributeSequence(
-                buffer, elementNameEnd, maxi - elementNameEnd, locator[0], locator[1], markupHandler);
+                buffer, elementNameEnd, maxi - elementNameEnd, locator[0], locator[1], markupHandler,
+                attributeLocator);
 
         // We need to forward the locator to the position corresponding with the element end (note we are discarding result)
         ParsingMarkupUtil.findNextStructureEndAvoidQuotes(buffer, elementNameEnd, maxi, locator);
@@ -108,6 +131,21 @@ public static void parseOpenElement(
             final int line, final int col,
             final IMarkupHandler markupHandler)
             throws ParseException {
+        parseOpenElement(buffer, offset, len, line, col, markupHandler, new int[2], new int[2]);
+    }
+
+
+    /*
+     * Scratch locator arrays are provided by the caller so that they can be reused across elements, avoiding
+     * allocation. The attribute locator must be a different array from the element locator.
+     */
+    static void parseOpenElement(
+            final char[] buffer,
+            final int offset, final int len,
+            final int line, final int col,
+            final IMarkupHandler markupHandler,
+            final int[] locator, final int[] attributeLocator)
+            throws ParseException {
 
         if (len < 3 || !isOpenElementStart(buffer, offset, offset + len) || !isElementEnd(buffer, (offset + len) - 1, offset + len, false)) {
             throw new ParseException(
@@ -119,7 +157,8 @@ public static void parseOpenElement(
 
         final int maxi = contentOffset + contentLen;
 
-        final int[] locator = new int[] {line, col + 1};
+        locator[0] = line;
+        locator[1] = col + 1;
 
         /*
          * Extract the element name first
@@ -151,7 +190,8 @@ public static void parseOpenElement(
 
         // This parseAttributeSequence will take care of calling handleInnerWhitespace when appropriate.
         ParsingAttributeSequenceUtil.parseAttributeSequence(
-                buffer, elementNameEnd, maxi - elementNameEnd, locator[0], locator[1], markupHandler);
+                buffer, elementNameEnd, maxi - elementNameEnd, locator[0], locator[1], markupHandler,
+                attributeLocator);
 
         // We need to forward the locator to the position corresponding with the element end (note we are discarding result)
         ParsingMarkupUtil.findNextStructureEndAvoidQuotes(buffer, elementNameEnd, maxi, locator);
@@ -171,6 +211,21 @@ public static void parseCloseElement(
             final int line, final int col,
             final IMarkupHandler markupHandler)
             throws ParseException {
+        parseCloseElement(buffer, offset, len, line, col, markupHandler, new int[2], new int[2]);
+    }
+
+
+    /*
+     * Scratch locator arrays are provided by the caller so that they can be reused across elements, avoiding
+     * allocation. The attribute locator must be a different array from the element locator.
+     */
+    static void parseCloseElement(
+            final char[] buffer,
+            final int offset, final int len,
+            final int line, final int col,
+            final IMarkupHandler markupHandler,
+            final int[] locator, final int[] attributeLocator)
+            throws ParseException {
 
         if (len < 4 || !isCloseElementStart(buffer, offset, offset + len) || !isElementEnd(buffer, (offset + len) - 1, offset + len, false)) {
             throw new ParseException(
@@ -182,7 +237,8 @@ public static void parseCloseElement(
 
         final int maxi = contentOffset + contentLen;
         
-        final int[] locator = new int[] {line, col + 2};
+        locator[0] = line;
+        locator[1] = col + 2;
         
         /*
          * Extract the element name first 
@@ -286,6 +342,134 @@ static boolean isElementEnd(final char[] buffer, final int offset, final int max
 
 
 
+
+    /*
+     * Scans the contents of an element being skipped (see ParseStatus#skipElementContents()) looking for the close
+     * tag that matches it, only keeping track of the nesting of elements with the same name (skipStatus[0], which
+     * is updated) and avoiding comments, CDATA sections and attribute values. No events are fired at all.
+     *
+     * Returns the offset of the matching close tag, or -1 if it cannot be found before maxi. In such case,
+     * skipStatus[1] will contain the offset up to which contents are known to be part of the skipped element, as
+     * anything after it could be the start of a structure that is not complete yet (and therefore will have to
+     * be scanned again once more chars are available).
+     */
+    static int findSkippedElementContentsEnd(
+            final char[] buffer, final int offset, final int maxi,
+            final char[] elementName, final boolean caseSensitive,
+            final int[] skipStatus, final boolean[] quotes) {
+
+        int depth = skipStatus[0];
+
+        int i = offset;
+        int tagStart;
+        int tagEnd;
+        int match;
+
+        while ((tagStart = ParsingMarkupUtil.findNextStructureStart(buffer, i, maxi)) != -1) {
+
+            i = tagStart + 1;
+
+            if ((match = matchesSequence(buffer, tagStart, maxi, COMMENT_START)) != 0) {
+                tagEnd = (match > 0 ? ParsingMarkupUtil.findCharacterSequence(buffer, i, maxi, COMMENT_END) : -1);
+                if (tagEnd == -1) {
+                    break;
+                }
+                i = tagEnd + COMMENT_END.length;
+                continue;
+            }
+
+            if ((match = matchesSequence(buffer, tagStart, maxi, CDATA_START)) != 0) {
+                tagEnd = (match > 0 ? ParsingMarkupUtil.findCharacterSequence(buffer, i, maxi, CDATA_END) : -1);
+                if (tagEnd == -1) {
+                    break;
+                }
+                i = tagEnd + CDATA_END.length;
+                continue;
+            }
+
+            if (maxi - tagStart < 3) {
+                // Not enough chars for knowing whether this is an element
+                break;
+            }
+
+            if (isCloseElementStart(buffer, tagStart, maxi)) {
+                tagEnd = ParsingMarkupUtil.findNextStructureEndDontAvoidQuotes(buffer, i, maxi);
+                if (tagEnd == -1) {
+                    break;
+                }
+                if (isElementNamed(buffer, tagStart + 2, tagEnd, elementName, caseSensitive) && --depth == 0) {
+                    skipStatus[0] = 0;
+                    return tagStart;
+                }
+                i = tagEnd + 1;
+                continue;
+            }
+
+            if (isOpenElementStart(buffer, tagStart, maxi)) {
+                // Every open element is scanned until its end, so that its attribute values are avoided
+                quotes[0] = false;
+                quotes[1] = false;
+                tagEnd = ParsingMarkupUtil.findNextStructureEndAvoidQuotes(buffer, i, maxi, quotes);
+                if (tagEnd == -1) {
+                    break;
+                }
+                if (buffer[tagEnd - 1] != '/' &&
+                        isElementNamed(buffer, tagStart + 1, tagEnd, elementName, caseSensitive)) {
+                    depth++;
+                }
+                i = tagEnd + 1;
+            }
+
+        }
+
+        skipStatus[0] = depth;
+        skipStatus[1] = (tagStart == -1 ? maxi : tagStart);
+        return -1;
+
+    }
+
+
+    /*
+     * Checks whether the element name starting at offset (and ending before maxi, the end of the tag) equals the
+     * specified one.
+     */
+    private static boolean isElementNamed(
+            final char[] buffer, final int offset, final int maxi,
+            final char[] elementName, final boolean caseSensitive) {
+
+        final int nameEnd = offset + elementName.length;
+        if (nameEnd > maxi) {
+            return false;
+        }
+        if (nameEnd < maxi) {
+            final char c = buffer[nameEnd];
+            if (c != '/' && !Character.isWhitespace(c)) {
+                return false;
+            }
+        }
+        return TextUtil.equals(caseSensitive, buffer, offset, elementName.length, elementName, 0, elementName.length);
+
+    }
+
+
+    /*
+     * Returns 1 if the (case-insensitive) sequence is found at offset, 0 if it is not, and -1 if it cannot be
+     * determined because the chars before maxi match the start of the sequence.
+     */
+    private static int matchesSequence(final char[] buffer, final int offset, final int maxi, final char[] sequence) {
+
+        final int len = Math.min(sequence.length, maxi - offset);
+        for (int i = 0; i < len; i++) {
+            if (Character.toUpperCase(buffer[offset + i]) != sequence[i]) {
+                return 0;
+            }
+        }
+        return (len == sequence.length ? 1 : -1);
+
+    }
+
+
+
     
     
     private static boolean isElementName(final char[] buffer, final int offset, final int maxi) {
@@ -0,0 +1,477 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+import java.util.Arrays;
+
+
+/*
+ * Handler used by ParallelDocumentParser for recording the events produced by the parser for a fragment of a
+ * document, so that they can be replayed afterwards (in document order) to the real handler chain.
+ *
+ * As the whole document is available as a single char[], events are recorded as a sequence of ints (type, end
+ * offset and the event's own arguments) without copying any chars at all.
+ *
+ * Positions are recorded as reported by the parser, i.e. relative to the start of the fragment (which the parser
+ * considers to be at line 1, col 1) when position tracking is enabled, and replay translates them into
+ * document positions. When position tracking is disabled, offsets are already document offsets and are replayed
+ * unchanged.
+ *
+ * The end offset recorded for each event is the offset at which the parser would continue after the text or
+ * structure the event belongs to, and is only recorded for the last event of each text or structure (-1 for the
+ * rest). This allows the replaying code to determine where the parser should continue if, after replaying such
+ * an event, the handler chain has disabled parsing.
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+final class ParsingEventRecorder extends AbstractMarkupHandler {
+
+    private static final int XML_DECLARATION = 0;
+    private static final int DOCTYPE = 1;
+    private static final int CDATA_SECTION = 2;
+    private static final int COMMENT = 3;
+    private static final int TEXT = 4;
+    private static final int STANDALONE_ELEMENT_START = 5;
+    private static final int STANDALONE_ELEMENT_END = 6;
+    private static final int OPEN_ELEMENT_START = 7;
+    private static final int OPEN_ELEMENT_END = 8;
+    private static final int CLOSE_ELEMENT_START = 9;
+    private static final int CLOSE_ELEMENT_END = 10;
+    private static final int ATTRIBUTE = 11;
+    private static final int INNER_WHITESPACE = 12;
+    private static final int PROCESSING_INSTRUCTION = 13;
+
+    // Number of ints used by each type of event, including type and end offset
+    private static final int[] EVENT_SIZES = new int[] { 22, 30, 8, 8, 6, 7, 7, 6, 6, 6, 6, 16, 6, 14 };
+
+
+    private final char[] buffer;
+    private final boolean translatePositions;
+
+    private int[] events;
+    private int size;
+
+    // End of the last recorded part of the element currently being recorded
+    private int elementPartsEnd;
+
+    private int baseLine;
+    private int baseCol;
+
+
+
+
+    ParsingEventRecorder(final char[] buffer, final boolean translatePositions, final int initialCapacity) {
+        super();
+        this.buffer = buffer;
+        this.translatePositions = translatePositions;
+        this.events = new int[Math.max(64, initialCapacity)];
+        this.size = 0;
+    }
+
+
+
+
+    int size() {
+        return this.size;
+    }
+
+
+    int getEnd(final int index) {
+        return this.events[index + 1];
+    }
+
+
+    /*
+     * Specify the position in the document (line, col) of the start of the fragment, which will be used for
+     * translating positions when replaying.
+     */
+    void setBasePosition(final int baseLine, final int baseCol) {
+        this.baseLine = baseLine;
+        this.baseCol = baseCol;
+    }
+
+
+    int translateLine(final int line) {
+        if (!this.translatePositions) {
+            return line;
+        }
+        return this.baseLine + line - 1;
+    }
+
+
+    int translateCol(final int line, final int col) {
+        if (!this.translatePositions || line != 1) {
+            return col;
+        }
+        return this.baseCol + col - 1;
+    }
+
+
+
+
+    private int add(final int type, final int end) {
+        final int eventSize = EVENT_SIZES[type];
+        if (this.size + eventSize > this.events.length) {
+            this.events = Arrays.copyOf(this.events, Math.max(this.events.length * 2, this.size + eventSize));
+        }
+        final int index = this.size;
+        this.events[index] = type;
+        this.events[index + 1] = end;
+        this.size += eventSize;
+        return index + 2;
+    }
+
+
+    private int elementEnd() {
+        // Element ends are not reported with the position of the closing '>', so we have to look for it
+        int i = this.elementPartsEnd;
+        while (this.buffer[i] != '>') {
+            i++;
+        }
+        return i + 1;
+    }
+
+
+    private static int max(final int a, final int b, final int c) {
+        return Math.max(a, Math.max(b, c));
+    }
+
+
+
+
+    @Override
+    public void handleXmlDeclaration(
+            final char[] buffer,
+            final int keywordOffset, final int keywordLen,
+            final int keywordLine, final int keywordCol,
+            final int versionOffset, final int versionLen,
+            final int versionLine, final int versionCol,
+            final int encodingOffset, final int encodingLen,
+            final int encodingLine, final int encodingCol,
+            final int standaloneOffset, final int standaloneLen,
+            final int standaloneLine, final int standaloneCol,
+            final int outerOffset, final int outerLen,
+            final int line, final int col) {
+        int i = add(XML_DECLARATION, outerOffset + outerLen);
+        final int[] e = this.events;
+        e[i++] = keywordOffset; e[i++] = keywordLen; e[i++] = keywordLine; e[i++] = keywordCol;
+        e[i++] = versionOffset; e[i++] = versionLen; e[i++] = versionLine; e[i++] = versionCol;
+        e[i++] = encodingOffset; e[i++] = encodingLen; e[i++] = encodingLine; e[i++] = encodingCol;
+        e[i++] = standaloneOffset; e[i++] = standaloneLen; e[i++] = standaloneLine; e[i++] = standaloneCol;
+        e[i++] = outerOffset; e[i++] = outerLen; e[i++] = line; e[i] = col;
+    }
+
+
+    @Override
+    public void handleDocType(
+            final char[] buffer,
+            final int keywordOffset, final int keywordLen,
+            final int keywordLine, final int keywordCol,
+            final int elementNameOffset, final int elementNameLen,
+            final int elementNameLine, final int elementNameCol,
+            final int typeOffset, final int typeLen,
+            final int typeLine, final int typeCol,
+            final int publicIdOffset, final int publicIdLen,
+            final int publicIdLine, final int publicIdCol,
+            final int systemIdOffset, final int systemIdLen,
+            final int systemIdLine, final int systemIdCol,
+            final int internalSubsetOffset, final int internalSubsetLen,
+            final int internalSubsetLine, final int internalSubsetCol,
+            final int outerOffset, final int outerLen,
+            final int outerLine, final int outerCol) {
+        int i = add(DOCTYPE, outerOffset + outerLen);
+        final int[] e = this.events;
+        e[i++] = keywordOffset; e[i++] = keywordLen; e[i++] = keywordLine; e[i++] = keywordCol;
+        e[i++] = elementNameOffset; e[i++] = elementNameLen; e[i++] = elementNameLine; e[i++] = elementNameCol;
+        e[i++] = typeOffset; e[i++] = typeLen; e[i++] = typeLine; e[i++] = typeCol;
+        e[i++] = publicIdOffset; e[i++] = publicIdLen; e[i++] = publicIdLine; e[i++] = publicIdCol;
+        e[i++] = systemIdOffset; e[i++] = systemIdLen; e[i++] = systemIdLine; e[i++] = systemIdCol;
+        e[i++] = internalSubsetOffset; e[i++] = internalSubsetLen; e[i++] = internalSubsetLine; e[i++] = internalSubsetCol;
+        e[i++] = outerOffset; e[i++] = outerLen; e[i++] = outerLine; e[i] = outerCol;
+    }
+
+
+    @Override
+    public void handleCDATASection(
+            final char[] buffer,
+            final int contentOffset, final int contentLen,
+            final int outerOffset, final int outerLen,
+            final int line, final int col) {
+        int i = add(CDATA_SECTION, outerOffset + outerLen);
+        final int[] e = this.events;
+        e[i++] = contentOffset; e[i++] = contentLen; e[i++] = outerOffset; e[i++] = outerLen; e[i++] = line; e[i] = col;
+    }
+
+
+    @Override
+    public void handleComment(
+            final char[] buffer,
+            final int contentOffset, final int contentLen,
+            final int outerOffset, final int outerLen,
+            final int line, final int col) {
+        int i = add(COMMENT, outerOffset + outerLen);
+        final int[] e = this.events;
+        e[i++] = contentOffset; e[i++] = contentLen; e[i++] = outerOffset; e[i++] = outerLen; e[i++] = line; e[i] = col;
+    }
+
+
+    @Override
+    public void handleText(
+            final char[] buffer,
+            final int offset, final int len,
+            final int line, final int col) {
+        int i = add(TEXT, offset + len);
+        final int[] e = this.events;
+        e[i++] = offset; e[i++] = len; e[i++] = line; e[i] = col;
+    }
+
+
+    @Override
+    public void handleStandaloneElementStart(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final boolean minimized, final int line, final int col) {
+        this.elementPartsEnd = nameOffset + nameLen;
+        int i = add(STANDALONE_ELEMENT_START, -1);
+        final int[] e = this.events;
+        e[i++] = nameOffset; e[i++] = nameLen; e[i++] = (minimized? 1 : 0); e[i++] = line; e[i] = col;
+    }
+
+
+    @Override
+    public void handleStandaloneElementEnd(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final boolean minimized, final int line, final int col) {
+        int i = add(STANDALONE_ELEMENT_END, elementEnd());
+        final int[] e = this.events;
+        e[i++] = nameOffset; e[i++] = nameLen; e[i++] = (minimized? 1 : 0); e[i++] = line; e[i] = col;
+    }
+
+
+    @Override
+    public void handleOpenElementStart(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int line, final int col) {
+        this.elementPartsEnd = nameOffset + nameLen;
+        int i = add(OPEN_ELEMENT_START, -1);
+        final int[] e = this.events;
+        e[i++] = nameOffset; e[i++] = nameLen; e[i++] = line; e[i] = col;
+    }
+
+
+    @Override
+    public void handleOpenElementEnd(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int line, final int col) {
+        int i = add(OPEN_ELEMENT_END, elementEnd());
+        final int[] e = this.events;
+        e[i++] = nameOffset; e[i++] = nameLen; e[i++] = line; e[i] = col;
+    }
+
+
+    @Override
+    public void handleCloseElementStart(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int line, final int col) {
+        this.elementPartsEnd = nameOffset + nameLen;
+        int i = add(CLOSE_ELEMENT_START, -1);
+        final int[] e = this.events;
+        e[i++] = nameOffset; e[i++] = nameLen; e[i++] = line; e[i] = col;
+    }
+
+
+    @Override
+    public void handleCloseElementEnd(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int line, final int col) {
+        int i = add(CLOSE_ELEMENT_END, elementEnd());
+        final int[] e = this.events;
+        e[i++] = nameOffset; e[i++] = nameLen; e[i++] = line; e[i] = col;
+    }
+
+
+    @Override
+    public void handleAttribute(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int nameLine, final int nameCol,
+            final int operatorOffset, final int operatorLen,
+            final int operatorLine, final int operatorCol,
+            final int valueContentOffset, final int valueContentLen,
+            final int valueOuterOffset, final int valueOuterLen,
+            final int valueLine, final int valueCol) {
+        this.elementPartsEnd =
+                max(nameOffset + nameLen, operatorOffset + operatorLen, valueOuterOffset + valueOuterLen);
+        int i = add(ATTRIBUTE, -1);
+        final int[] e = this.events;
+        e[i++] = nameOffset; e[i++] = nameLen; e[i++] = nameLine; e[i++] = nameCol;
+        e[i++] = operatorOffset; e[i++] = operatorLen; e[i++] = operatorLine; e[i++] = operatorCol;
+        e[i++] = valueContentOffset; e[i++] = valueContentLen;
+        e[i++] = valueOuterOffset; e[i++] = valueOuterLen; e[i++] = valueLine; e[i] = valueCol;
+    }
+
+
+    @Override
+    public void handleInnerWhiteSpace(
+            final char[] buffer,
+            final int offset, final int len,
+            final int line, final int col) {
+        this.elementPartsEnd = offset + len;
+        int i = add(INNER_WHITESPACE, -1);
+        final int[] e = this.events;
+        e[i++] = offset; e[i++] = len; e[i++] = line; e[i] = col;
+    }
+
+
+    @Override
+    public void handleProcessingInstruction(
+            final char[] buffer,
+            final int targetOffset, final int targetLen,
+            final int targetLine, final int targetCol,
+            final int contentOffset, final int contentLen,
+            final int contentLine, final int contentCol,
+            final int outerOffset, final int outerLen,
+            final int line, final int col) {
+        int i = add(PROCESSING_INSTRUCTION, outerOffset + outerLen);
+        final int[] e = this.events;
+        e[i++] = targetOffset; e[i++] = targetLen; e[i++] = targetLine; e[i++] = targetCol;
+        e[i++] = contentOffset; e[i++] = contentLen; e[i++] = contentLine; e[i++] = contentCol;
+        e[i++] = outerOffset; e[i++] = outerLen; e[i++] = line; e[i] = col;
+    }
+
+
+
+
+    /*
+     * Replays the event at the specified index to the handler, returning the index of the next event.
+     */
+    int replay(final int index, final IMarkupHandler handler) throws ParseException {
+
+        final int[] e = this.events;
+        final char[] b = this.buffer;
+        final int i = index + 2;
+
+        switch (e[index]) {
+
+            case XML_DECLARATION:
+                handler.handleXmlDeclaration(
+                        b,
+                        e[i], e[i + 1], translateLine(e[i + 2]), translateCol(e[i + 2], e[i + 3]),
+                        e[i + 4], e[i + 5], translateLine(e[i + 6]), translateCol(e[i + 6], e[i + 7]),
+                        e[i + 8], e[i + 9], translateLine(e[i + 10]), translateCol(e[i + 10], e[i + 11]),
+                        e[i + 12], e[i + 13], translateLine(e[i + 14]), translateCol(e[i + 14], e[i + 15]),
+                        e[i + 16], e[i + 17], translateLine(e[i + 18]), translateCol(e[i + 18], e[i + 19]));
+                break;
+
+            case DOCTYPE:
+                handler.handleDocType(
+                        b,
+                        e[i], e[i + 1], translateLine(e[i + 2]), translateCol(e[i + 2], e[i + 3]),
+                        e[i + 4], e[i + 5], translateLine(e[i + 6]), translateCol(e[i + 6], e[i + 7]),
+                        e[i + 8], e[i + 9], translateLine(e[i + 10]), translateCol(e[i + 10], e[i + 11]),
+                        e[i + 12], e[i + 13], translateLine(e[i + 14]), translateCol(e[i + 14], e[i + 15]),
+                        e[i + 16], e[i + 17], translateLine(e[i + 18]), translateCol(e[i + 18], e[i + 19]),
+                        e[i + 20], e[i + 21], translateLine(e[i + 22]), translateCol(e[i + 22], e[i + 23]),
+                        e[i + 24], e[i + 25], translateLine(e[i + 26]), translateCol(e[i + 26], e[i + 27]));
+                break;
+
+            case CDATA_SECTION:
+                handler.handleCDATASection(
+                        b, e[i], e[i + 1], e[i + 2], e[i + 3], translateLine(e[i + 4]), translateCol(e[i + 4], e[i + 5]));
+                break;
+
+            case COMMENT:
+                handler.handleComment(
+                        b, e[i], e[i + 1], e[i + 2], e[i + 3], translateLine(e[i + 4]), translateCol(e[i + 4], e[i + 5]));
+                break;
+
+            case TEXT:
+                handler.handleText(
+                        b, e[i], e[i + 1], translateLine(e[i + 2]), translateCol(e[i + 2], e[i + 3]));
+                break;
+
+            case STANDALONE_ELEMENT_START:
+                handler.handleStandaloneElementStart(
+                        b, e[i], e[i + 1], (e[i + 2] == 1), translateLine(e[i + 3]), translateCol(e[i + 3], e[i + 4]));
+                break;
+
+            case STANDALONE_ELEMENT_END:
+                handler.handleStandaloneElementEnd(
+                        b, e[i], e[i + 1], (e[i + 2] == 1), translateLine(e[i + 3]), translateCol(e[i + 3], e[i + 4]));
+                break;
+
+            case OPEN_ELEMENT_START:
+                handler.handleOpenElementStart(
+                        b, e[i], e[i + 1], translateLine(e[i + 2]), translateCol(e[i + 2], e[i + 3]));
+                break;
+
+            case OPEN_ELEMENT_END:
+                handler.handleOpenElementEnd(
+                        b, e[i], e[i + 1], translateLine(e[i + 2]), translateCol(e[i + 2], e[i + 3]));
+                break;
+
+            case CLOSE_ELEMENT_START:
+                handler.handleCloseElementStart(
+                        b, e[i], e[i + 1], translateLine(e[i + 2]), translateCol(e[i + 2], e[i + 3]));
+                break;
+
+            case CLOSE_ELEMENT_END:
+                handler.handleCloseElementEnd(
+                        b, e[i], e[i + 1], translateLine(e[i + 2]), translateCol(e[i + 2], e[i + 3]));
+                break;
+
+            case ATTRIBUTE:
+                handler.handleAttribute(
+                        b,
+                        e[i], e[i + 1], translateLine(e[i + 2]), translateCol(e[i + 2], e[i + 3]),
+                        e[i + 4], e[i + 5], translateLine(e[i + 6]), translateCol(e[i + 6], e[i + 7]),
+                        e[i + 8], e[i + 9],
+                        e[i + 10], e[i + 11], translateLine(e[i + 12]), translateCol(e[i + 12], e[i + 13]));
+                break;
+
+            case INNER_WHITESPACE:
+                handler.handleInnerWhiteSpace(
+                        b, e[i], e[i + 1], translateLine(e[i + 2]), translateCol(e[i + 2], e[i + 3]));
+                break;
+
+            case PROCESSING_INSTRUCTION:
+                handler.handleProcessingInstruction(
+                        b,
+                        e[i], e[i + 1], translateLine(e[i + 2]), translateCol(e[i + 2], e[i + 3]),
+                        e[i + 4], e[i + 5], translateLine(e[i + 6]), translateCol(e[i + 6], e[i + 7]),
+                        e[i + 8], e[i + 9], translateLine(e[i + 10]), translateCol(e[i + 10], e[i + 11]));
+                break;
+
+            default:
+                throw new IllegalStateException("Unrecognized recorded event type: " + e[index]);
+
+        }
+
+        return index + EVENT_SIZES[e[index]];
+
+    }
+
+}
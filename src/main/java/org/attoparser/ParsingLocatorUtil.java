@@ -23,6 +23,10 @@
 
 /*
  * Class containing utility methods for counting lines and columns during parsing.
+ *
+ * Locators with line 0 are in offset mode (used when position tracking is disabled): lines are never
+ * increased, and the column works as an offset in the document, so that line feeds just count as one more
+ * char. This is unambiguous, as real line numbers start at 1.
  * 
  * @author Daniel Fernandez
  * @since 2.0.0
@@ -30,7 +34,7 @@
 final class ParsingLocatorUtil {
 
     public static void countChar(final int[] locator, final char c) {
-        if (c == '\n') {
+        if (c == '\n' && locator[0] != 0) {
             locator[0]++;
             locator[1] = 1;
             return;
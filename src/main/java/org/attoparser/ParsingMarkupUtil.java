@@ -58,7 +58,7 @@ static int findNextStructureEndAvoidQuotes(
 
             c = text[i];
 
-            if (c == '\n') {
+            if (c == '\n' && locator[0] != 0) {
                 colIndex = i;
                 locator[1] = 0;
                 locator[0]++;
@@ -81,6 +81,56 @@ static int findNextStructureEndAvoidQuotes(
     }
     
     
+    /*
+     * Same as findNextStructureEndAvoidQuotes(...), but starting with (and reporting back) the quote status
+     * specified at quotes[0] (in double quotes) and quotes[1] (in single quotes). This allows resuming the search
+     * for the end of a structure that was started in a previous buffer.
+     */
+    static int findNextStructureEndAvoidQuotes(
+            final char[] text, final int offset, final int maxi,
+            final int[] locator, final boolean[] quotes) {
+
+        boolean inQuotes = quotes[0];
+        boolean inApos = quotes[1];
+
+        char c;
+
+        int colIndex = offset;
+
+        int i = offset;
+        int n = (maxi - offset);
+
+        while (n-- != 0) {
+
+            c = text[i];
+
+            if (c == '\n' && locator[0] != 0) {
+                colIndex = i;
+                locator[1] = 0;
+                locator[0]++;
+            } else if (c == '"' && !inApos) {
+                inQuotes = !inQuotes;
+            } else if (c == '\'' && !inQuotes) {
+                inApos = !inApos;
+            } else if (c == '>' && !inQuotes && !inApos) {
+                locator[1] += (i - colIndex);
+                quotes[0] = false;
+                quotes[1] = false;
+                return i;
+            }
+
+            i++;
+
+        }
+
+        locator[1] += (maxi - colIndex);
+        quotes[0] = inQuotes;
+        quotes[1] = inApos;
+        return -1;
+
+    }
+
+
     static int findNextStructureEndDontAvoidQuotes(
             final char[] text, final int offset, final int maxi, 
             final int[] locator) {
@@ -96,7 +146,7 @@ static int findNextStructureEndDontAvoidQuotes(
 
             c = text[i];
             
-            if (c == '\n') {
+            if (c == '\n' && locator[0] != 0) {
                 colIndex = i;
                 locator[1] = 0;
                 locator[0]++;
@@ -130,7 +180,7 @@ static int findNextStructureStart(
 
             c = text[i];
             
-            if (c == '\n') {
+            if (c == '\n' && locator[0] != 0) {
                 colIndex = i;
                 locator[1] = 0;
                 locator[0]++;
@@ -149,6 +199,102 @@ static int findNextStructureStart(
     }
 
     
+    /*
+     * The following overloads are equivalent to the ones above, but do not track line and column numbers at all.
+     * They are used when position tracking has been disabled at the parse configuration.
+     */
+
+    static int findNextStructureEndAvoidQuotes(
+            final char[] text, final int offset, final int maxi, final boolean[] quotes) {
+
+        boolean inQuotes = quotes[0];
+        boolean inApos = quotes[1];
+
+        char c;
+
+        for (int i = offset; i < maxi; i++) {
+
+            c = text[i];
+
+            if (c == '"' && !inApos) {
+                inQuotes = !inQuotes;
+            } else if (c == '\'' && !inQuotes) {
+                inApos = !inApos;
+            } else if (c == '>' && !inQuotes && !inApos) {
+                quotes[0] = false;
+                quotes[1] = false;
+                return i;
+            }
+
+        }
+
+        quotes[0] = inQuotes;
+        quotes[1] = inApos;
+        return -1;
+
+    }
+
+
+    static int findNextStructureEndDontAvoidQuotes(
+            final char[] text, final int offset, final int maxi) {
+
+        for (int i = offset; i < maxi; i++) {
+            if (text[i] == '>') {
+                return i;
+            }
+        }
+        return -1;
+
+    }
+
+
+    static int findNextStructureStart(
+            final char[] text, final int offset, final int maxi) {
+
+        for (int i = offset; i < maxi; i++) {
+            if (text[i] == '<') {
+                return i;
+            }
+        }
+        return -1;
+
+    }
+
+
+    static int findCharacterSequence(
+            final char[] text, final int offset, final int maxi, final char[] charSeq) {
+
+        if (charSeq == null || charSeq.length == 0) {
+            return offset;
+        }
+
+        final char c1 = charSeq[0];
+        final int seqLen = charSeq.length;
+
+        for (int i = offset; i < maxi; i++) {
+
+            if (text[i] == c1) {
+                // First char matches, let's see the others
+                int j = 1;
+                for ( ; j < seqLen && (i + j) < maxi ; j++) {
+                    if (text[i + j] != charSeq[j]) {
+                        break;
+                    }
+                }
+                if (j >= seqLen) {
+                    return i;
+                }
+            }
+
+        }
+
+        return -1;
+
+    }
+
+
+
+
     static int findNextWhitespaceCharWildcard(
             final char[] text, final int offset, final int maxi, 
             final boolean avoidQuotes, final int[] locator) {
@@ -333,9 +479,15 @@ static int findCharacterSequence(
             return offset;
         }
 
+        // Line and column are tracked the same way as in findNextStructureStart (instead of counting each char
+        // into the locator), as the ranges scanned here (e.g. the contents of <script> elements) can be long.
+
         final char c1 = charSeq[0];
+        final int seqLen = charSeq.length;
         char c;
 
+        int colIndex = offset;
+
         int i = offset;
         int n = (maxi - offset);
 
@@ -347,23 +499,29 @@ static int findCharacterSequence(
                 // First char matches, let's see the others
 
                 int j = 1;
-                for ( ; j < charSeq.length && (i + j) < maxi ; j++) {
+                for ( ; j < seqLen && (i + j) < maxi ; j++) {
                     if (text[i + j] != charSeq[j]) {
                         break;
                     }
                 }
-                if (j >= charSeq.length) {
+                if (j >= seqLen) {
+                    locator[1] += (i - colIndex);
                     return i;
                 }
 
             }
 
-            ParsingLocatorUtil.countChar(locator, c);
+            if (c == '\n' && locator[0] != 0) {
+                colIndex = i;
+                locator[1] = 0;
+                locator[0]++;
+            }
 
             i++;
 
         }
 
+        locator[1] += (maxi - colIndex);
         return -1;
 
     }
@@ -0,0 +1,391 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * <p>
+ *   Interner for standard HTML element and attribute names, shared by all the markup handlers that need to
+ *   turn name fragments of the parsing buffer into reusable <kbd>char[]</kbd> or <kbd>String</kbd> objects.
+ *   Standard names are the ones in the parser's own definitions of HTML elements and attributes (the same ones
+ *   used for applying HTML-specific parsing rules).
+ * </p>
+ * <p>
+ *   Each standard name is given a small integer <em>id</em> (from <kbd>0</kbd> to <kbd>size() - 1</kbd>), which
+ *   is resolved in a case-insensitive way. Canonical <kbd>char[]</kbd> and <kbd>String</kbd> forms are kept for
+ *   the all-lowercase and all-uppercase versions of each name, and are only returned when the text matches one
+ *   of them exactly (names in mixed case are never modified, so a copy of them is returned instead).
+ * </p>
+ * <p>
+ *   Lookups are O(1): names are resolved by means of a minimal-collision hash table which is computed at class
+ *   initialization (a <em>hash and displace</em> perfect hash, in which each first-level bucket is assigned a
+ *   seed that sends all of its names to free slots), so that at most one name comparison is needed per lookup.
+ *   Hashing is case-insensitive and only works on ASCII chars, as all standard names are ASCII.
+ * </p>
+ * <p>
+ *   This class is immutable and therefore thread-safe.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 2.0.10
+ *
+ */
+public final class StandardNameInterner {
+
+
+    private static final char[][] LOWER_CHARS;
+    private static final char[][] UPPER_CHARS;
+    private static final String[] LOWER_STRINGS;
+    private static final String[] UPPER_STRINGS;
+
+    private static final int[] SEEDS;
+    private static final int[] SLOTS;
+    private static final int BUCKET_MASK;
+    private static final int SLOT_SHIFT;
+
+
+
+
+    static {
+
+        final Set<String> nameSet = new LinkedHashSet<String>();
+        nameSet.addAll(HtmlNames.ALL_STANDARD_ELEMENT_NAMES);
+        nameSet.addAll(HtmlNames.ALL_STANDARD_ATTRIBUTE_NAMES);
+        final List<String> names = new ArrayList<String>(nameSet);
+        Collections.sort(names);
+
+        final int size = names.size();
+
+        LOWER_CHARS = new char[size][];
+        UPPER_CHARS = new char[size][];
+        LOWER_STRINGS = new String[size];
+        UPPER_STRINGS = new String[size];
+
+        final int[] hashes = new int[size];
+        for (int i = 0; i < size; i++) {
+            LOWER_STRINGS[i] = names.get(i);
+            UPPER_STRINGS[i] = LOWER_STRINGS[i].toUpperCase();
+            LOWER_CHARS[i] = LOWER_STRINGS[i].toCharArray();
+            UPPER_CHARS[i] = UPPER_STRINGS[i].toCharArray();
+            hashes[i] = hash(LOWER_CHARS[i], 0, LOWER_CHARS[i].length);
+        }
+
+        // Slot table will be kept at a load factor <= 0.5, and first-level buckets will contain ~2 names each
+        int slotBits = 1;
+        while ((1 << slotBits) < size * 2) {
+            slotBits++;
+        }
+        final int slotCount = 1 << slotBits;
+        final int bucketCount = slotCount >>> 2;
+
+        BUCKET_MASK = bucketCount - 1;
+        SLOT_SHIFT = 32 - slotBits;
+        SEEDS = new int[bucketCount];
+        SLOTS = new int[slotCount];
+        Arrays.fill(SLOTS, -1);
+
+        // Names are grouped into buckets, and buckets are processed in descending size order, as the larger
+        // ones are the most difficult to place.
+        final List<List<Integer>> buckets = new ArrayList<List<Integer>>(bucketCount);
+        for (int b = 0; b < bucketCount; b++) {
+            buckets.add(new ArrayList<Integer>(4));
+        }
+        for (int i = 0; i < size; i++) {
+            buckets.get(hashes[i] & BUCKET_MASK).add(Integer.valueOf(i));
+        }
+        final Integer[] bucketOrder = new Integer[bucketCount];
+        for (int b = 0; b < bucketCount; b++) {
+            bucketOrder[b] = Integer.valueOf(b);
+        }
+        Arrays.sort(bucketOrder, new Comparator<Integer>() {
+            public int compare(final Integer o1, final Integer o2) {
+                return buckets.get(o2.intValue()).size() - buckets.get(o1.intValue()).size();
+            }
+        });
+
+        final int[] bucketSlots = new int[size];
+        for (final Integer b : bucketOrder) {
+
+            final List<Integer> bucket = buckets.get(b.intValue());
+            if (bucket.isEmpty()) {
+                break;
+            }
+
+            int seed = 0;
+            while (!placeBucket(bucket, hashes, seed, bucketSlots)) {
+                if (++seed == (1 << 24)) {
+                    throw new IllegalStateException("Cannot build perfect hash table for standard names");
+                }
+            }
+            SEEDS[b.intValue()] = seed;
+
+        }
+
+    }
+
+
+    private static boolean placeBucket(
+            final List<Integer> bucket, final int[] hashes, final int seed, final int[] bucketSlots) {
+
+        final int n = bucket.size();
+        for (int i = 0; i < n; i++) {
+            final int slot = slot(hashes[bucket.get(i).intValue()], seed);
+            if (SLOTS[slot] >= 0) {
+                return false;
+            }
+            for (int j = 0; j < i; j++) {
+                if (bucketSlots[j] == slot) {
+                    return false;
+                }
+            }
+            bucketSlots[i] = slot;
+        }
+        for (int i = 0; i < n; i++) {
+            SLOTS[bucketSlots[i]] = bucket.get(i).intValue();
+        }
+        return true;
+
+    }
+
+
+
+
+    private StandardNameInterner() {
+        super();
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Returns the number of standard names known to this interner. Ids go from <kbd>0</kbd> to
+     *   <kbd>size() - 1</kbd>.
+     * </p>
+     *
+     * @return the number of standard names.
+     */
+    public static int size() {
+        return LOWER_STRINGS.length;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the id of a standard name, resolved in a case-insensitive way.
+     * </p>
+     *
+     * @param text the buffer containing the name.
+     * @param offset the offset of the name in the buffer.
+     * @param len the length of the name.
+     * @return the id of the name, or <kbd>-1</kbd> if it is not a standard name.
+     */
+    public static int getId(final char[] text, final int offset, final int len) {
+
+        final int h = hash(text, offset, len);
+        if (h == 0) {
+            return -1;
+        }
+
+        final int id = SLOTS[slot(h, SEEDS[h & BUCKET_MASK])];
+        if (id < 0) {
+            return -1;
+        }
+
+        final char[] lower = LOWER_CHARS[id];
+        if (lower.length != len) {
+            return -1;
+        }
+        char c;
+        for (int i = 0; i < len; i++) {
+            c = text[offset + i];
+            if (c >= 'A' && c <= 'Z') {
+                c = (char) (c + ('a' - 'A'));
+            }
+            if (c != lower[i]) {
+                return -1;
+            }
+        }
+        return id;
+
+    }
+
+
+    /**
+     * <p>
+     *   Returns the (lowercase) standard name corresponding to an id.
+     * </p>
+     *
+     * @param id the id of the name.
+     * @return the name.
+     */
+    public static String getName(final int id) {
+        return LOWER_STRINGS[id];
+    }
+
+
+    /**
+     * <p>
+     *   Returns the canonical <kbd>char[]</kbd> form of a name, if the name is standard and is written
+     *   all in lowercase or all in uppercase.
+     * </p>
+     *
+     * @param text the buffer containing the name.
+     * @param offset the offset of the name in the buffer.
+     * @param len the length of the name.
+     * @return the canonical form of the name, or null if it cannot be interned.
+     */
+    public static char[] getChars(final char[] text, final int offset, final int len) {
+
+        final int id = getId(text, offset, len);
+        if (id >= 0) {
+            if (matchesExactly(LOWER_CHARS[id], text, offset)) {
+                return LOWER_CHARS[id];
+            }
+            if (matchesExactly(UPPER_CHARS[id], text, offset)) {
+                return UPPER_CHARS[id];
+            }
+        }
+        return null;
+
+    }
+
+
+    /**
+     * <p>
+     *   Returns the canonical <kbd>String</kbd> form of a name, if the name is standard and is written
+     *   all in lowercase or all in uppercase.
+     * </p>
+     *
+     * @param text the buffer containing the name.
+     * @param offset the offset of the name in the buffer.
+     * @param len the length of the name.
+     * @return the canonical form of the name, or null if it cannot be interned.
+     */
+    public static String getString(final char[] text, final int offset, final int len) {
+
+        final int id = getId(text, offset, len);
+        if (id >= 0) {
+            if (matchesExactly(LOWER_CHARS[id], text, offset)) {
+                return LOWER_STRINGS[id];
+            }
+            if (matchesExactly(UPPER_CHARS[id], text, offset)) {
+                return UPPER_STRINGS[id];
+            }
+        }
+        return null;
+
+    }
+
+
+    /**
+     * <p>
+     *   Returns the canonical <kbd>char[]</kbd> form of a name if it can be interned (see
+     *   {@link #getChars(char[], int, int)}), or a new <kbd>char[]</kbd> containing the name if not.
+     * </p>
+     *
+     * @param text the buffer containing the name.
+     * @param offset the offset of the name in the buffer.
+     * @param len the length of the name.
+     * @return the interned name, or a copy of it. Never null.
+     */
+    public static char[] internChars(final char[] text, final int offset, final int len) {
+
+        final char[] standardName = getChars(text, offset, len);
+        if (standardName != null) {
+            return standardName;
+        }
+
+        final char[] name = new char[len];
+        System.arraycopy(text, offset, name, 0, len);
+        return name;
+
+    }
+
+
+    /**
+     * <p>
+     *   Returns the canonical <kbd>String</kbd> form of a name if it can be interned (see
+     *   {@link #getString(char[], int, int)}), or a new <kbd>String</kbd> containing the name if not.
+     * </p>
+     *
+     * @param text the buffer containing the name.
+     * @param offset the offset of the name in the buffer.
+     * @param len the length of the name.
+     * @return the interned name, or a new String containing it. Never null.
+     */
+    public static String internString(final char[] text, final int offset, final int len) {
+
+        final String standardName = getString(text, offset, len);
+        return (standardName != null ? standardName : new String(text, offset, len));
+
+    }
+
+
+
+
+    private static boolean matchesExactly(final char[] name, final char[] text, final int offset) {
+        for (int i = 0; i < name.length; i++) {
+            if (name[i] != text[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /*
+     * Case-insensitive hash code for ASCII names. Returns 0 (and only then) for names containing non-ASCII
+     * chars, which can never be standard.
+     */
+    private static int hash(final char[] text, final int offset, final int len) {
+        int h = len;
+        final int maxi = offset + len;
+        char c;
+        for (int i = offset; i < maxi; i++) {
+            c = text[i];
+            if (c > 0x7F) {
+                return 0;
+            }
+            if (c >= 'A' && c <= 'Z') {
+                c = (char) (c + ('a' - 'A'));
+            }
+            h = 31 * h + c;
+        }
+        h ^= (h >>> 16);
+        return (h == 0 ? 1 : h);
+    }
+
+
+    private static int slot(final int hash, final int seed) {
+        return ((hash ^ seed) * 0x9E3779B1 + seed) >>> SLOT_SHIFT;
+    }
+
+
+}
@@ -0,0 +1,145 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+
+/*
+ * Immutable set of standard names, represented as a bitset indexed by the ids assigned to names by the
+ * StandardNameInterner. Used for precompiling the auto-open and auto-close rules of HTML elements, so that
+ * checking whether an element in the stack is one of the names in a rule is just a couple of bit operations.
+ *
+ * Names are only resolved into ids the first time they are needed (and not when the set is created), as sets are
+ * created while initializing the standard HTML elements, from which the StandardNameInterner gets the names it
+ * assigns ids to. Resolution is idempotent and its result immutable, so it is safe even if it happens to be
+ * performed by several threads at the same time.
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+final class StandardNameSet {
+
+    private final char[][] names;
+    private Resolution resolution = null;
+
+
+
+    /*
+     * Returns null if names is null.
+     */
+    static StandardNameSet of(final char[][] names) {
+        return (names == null ? null : new StandardNameSet(names));
+    }
+
+
+
+    private StandardNameSet(final char[][] names) {
+        super();
+        this.names = names;
+    }
+
+
+
+    private Resolution resolve() {
+        Resolution resolution = this.resolution;
+        if (resolution == null) {
+            resolution = new Resolution(this.names);
+            this.resolution = resolution;
+        }
+        return resolution;
+    }
+
+
+    /*
+     * Whether all the names in the set are standard names (if not, the set cannot be represented by means of ids).
+     */
+    boolean isStandard() {
+        return resolve().ids != null;
+    }
+
+
+    /*
+     * Returns the ids of the names, in the same order, or null if any of the names is not a standard name.
+     */
+    int[] getIds() {
+        return resolve().ids;
+    }
+
+
+    /*
+     * Should only be called if all names are standard.
+     */
+    boolean contains(final int id) {
+        // Ids of non-standard names can be negative or greater than the number of standard names, so they will
+        // never be contained (note a negative id will produce a huge word index)
+        final long[] bits = resolve().bits;
+        final int word = id >>> 6;
+        return word < bits.length && (bits[word] & (1L << id)) != 0L;
+    }
+
+
+    /*
+     * Checks whether any of the names in this set is also contained in the specified bitset of ids. Should only be
+     * called if all names are standard.
+     */
+    boolean intersects(final long[] ids) {
+        final long[] bits = resolve().bits;
+        final int n = Math.min(bits.length, ids.length);
+        for (int i = 0; i < n; i++) {
+            if ((bits[i] & ids[i]) != 0L) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+
+
+    private static final class Resolution {
+
+        // Both null if any of the names is not a standard name
+        final int[] ids;
+        final long[] bits;
+
+        Resolution(final char[][] names) {
+
+            super();
+
+            final int[] ids = new int[names.length];
+            final long[] bits = new long[(StandardNameInterner.size() + 63) >>> 6];
+            for (int i = 0; i < names.length; i++) {
+                ids[i] = StandardNameInterner.getId(names[i], 0, names[i].length);
+                if (ids[i] < 0) {
+                    this.ids = null;
+                    this.bits = null;
+                    return;
+                }
+                bits[ids[i] >>> 6] |= (1L << ids[i]);
+            }
+
+            this.ids = ids;
+            this.bits = bits;
+
+        }
+
+    }
+
+
+}
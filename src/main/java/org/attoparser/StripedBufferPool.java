@@ -0,0 +1,444 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * <p>
+ *   Default implementation of {@link IBufferPool}: a lock-free pool of <kbd>char[]</kbd> buffers,
+ *   striped by thread and organized in size classes.
+ * </p>
+ * <p>
+ *   Size classes are the default buffer size multiplied by powers of two (i.e. the sizes the parser grows
+ *   its buffers to), and there is a separate set of pooled buffers (of size <kbd>poolSize</kbd>) for each of
+ *   them, up to <kbd>sizeClasses</kbd> classes. Buffers of any other size are never pooled.
+ * </p>
+ * <p>
+ *   Buffers in each size class are distributed among a number of <em>stripes</em>, and each thread will first
+ *   look for (or return) buffers in its own stripe before trying the rest of them, so that contention is
+ *   kept low even with a large number of concurrent threads. Taking and returning buffers is performed by means
+ *   of compare-and-set operations, so the pool never blocks.
+ * </p>
+ * <p>
+ *   The total amount of memory retained by buffers sitting idle in the pool is limited by
+ *   <kbd>maxRetainedBytes</kbd>: buffers released when this limit has been reached are simply discarded.
+ * </p>
+ * <p>
+ *   This class keeps counters of pool <em>hits</em> (buffers served from the pool), <em>misses</em>
+ *   (buffers that had to be newly allocated), <em>grows</em> (requests of buffers bigger than the default size,
+ *   which happen when parsers need to grow their buffers) and <em>discards</em> (released buffers that could
+ *   not be returned to the pool).
+ * </p>
+ * <p>
+ *   Objects of this class are <strong>thread-safe</strong>.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 2.0.10
+ *
+ */
+public final class StripedBufferPool implements IBufferPool {
+
+    /**
+     * <p>
+     *   Default number of size classes: buffers from the default size up to 32 times the default size
+     *   will be pooled. Value: 6.
+     * </p>
+     */
+    public static final int DEFAULT_SIZE_CLASSES = 6;
+
+    /**
+     * <p>
+     *   Default maximum amount of memory (in bytes) retained by the buffers kept in the pool.
+     *   Value: 4MB.
+     * </p>
+     */
+    public static final long DEFAULT_MAX_RETAINED_BYTES = 4L * 1024L * 1024L;
+
+    // Slots are spread in the array so that slots belonging to different stripes do not share a cache line
+    private static final int SLOT_SPACING = 16;
+
+
+    private final int bufferSize;
+    private final int poolSize;
+    private final int sizeClasses;
+    private final long maxRetainedBytes;
+
+    private final int stripes;
+    private final int slotsPerStripe;
+    private final AtomicReferenceArray<char[]>[] slots;
+    // Number of buffers created for each size class, only counted up to poolSize (from then on, misses mean that
+    // all the buffers the pool can hold are in use, i.e. the pool is exhausted).
+    private final AtomicIntegerArray created;
+
+    private final AtomicLong retainedBytes = new AtomicLong(0L);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder grows = new LongAdder();
+    private final LongAdder discards = new LongAdder();
+
+
+
+
+    /**
+     * <p>
+     *   Creates a new pool, with the specified pool and buffer sizes, and default values for the number of size
+     *   classes ({@link #DEFAULT_SIZE_CLASSES}) and the maximum retained memory
+     *   ({@link #DEFAULT_MAX_RETAINED_BYTES}).
+     * </p>
+     *
+     * @param poolSize the number of buffers to be kept in the pool for each size class.
+     * @param bufferSize the default size of buffers (in chars).
+     */
+    public StripedBufferPool(final int poolSize, final int bufferSize) {
+        this(poolSize, bufferSize, DEFAULT_SIZE_CLASSES, DEFAULT_MAX_RETAINED_BYTES);
+    }
+
+
+    /**
+     * <p>
+     *   Creates a new pool.
+     * </p>
+     *
+     * @param poolSize the number of buffers to be kept in the pool for each size class.
+     * @param bufferSize the default size of buffers (in chars).
+     * @param sizeClasses the number of size classes (1 = only buffers of the default size will be pooled).
+     * @param maxRetainedBytes the maximum amount of memory (in bytes) to be retained by pooled buffers.
+     */
+    @SuppressWarnings("unchecked")
+    public StripedBufferPool(
+            final int poolSize, final int bufferSize, final int sizeClasses, final long maxRetainedBytes) {
+
+        super();
+
+        if (poolSize < 0) {
+            throw new IllegalArgumentException("Pool size cannot be less than zero");
+        }
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be greater than zero");
+        }
+        if (sizeClasses <= 0 || sizeClasses > 16) {
+            throw new IllegalArgumentException("Number of size classes must be between 1 and 16");
+        }
+        if (maxRetainedBytes < 0L) {
+            throw new IllegalArgumentException("Maximum retained bytes cannot be less than zero");
+        }
+
+        this.bufferSize = bufferSize;
+        this.poolSize = poolSize;
+        this.sizeClasses = sizeClasses;
+        this.maxRetainedBytes = maxRetainedBytes;
+
+        // Number of stripes will be the smallest power of 2 equal or greater than the number of processors,
+        // but we will never have more stripes than pooled buffers per size class.
+        int stripeCount = 1;
+        while (stripeCount < Runtime.getRuntime().availableProcessors()) {
+            stripeCount <<= 1;
+        }
+        this.stripes = Math.max(1, Math.min(stripeCount, poolSize));
+        this.slotsPerStripe = (poolSize + this.stripes - 1) / this.stripes;
+
+        this.slots = new AtomicReferenceArray[sizeClasses];
+        for (int i = 0; i < sizeClasses; i++) {
+            this.slots[i] = new AtomicReferenceArray<char[]>(this.stripes * this.slotsPerStripe * SLOT_SPACING);
+        }
+        this.created = new AtomicIntegerArray(sizeClasses);
+
+    }
+
+
+    /**
+     * <p>
+     *   Creates a new pool sized for the number of processors available to the JVM, with the specified buffer size
+     *   and default values for the number of size classes ({@link #DEFAULT_SIZE_CLASSES}) and the maximum
+     *   retained memory ({@link #DEFAULT_MAX_RETAINED_BYTES}). This is the pool used by the
+     *   {@link MarkupParser#MarkupParser(org.attoparser.config.ParseConfiguration)} constructor.
+     * </p>
+     * <p>
+     *   Pool size will be the number of available processors (so that every thread that can be parsing at the
+     *   same time can be served a pooled buffer), but never less than {@link MarkupParser#DEFAULT_POOL_SIZE} and
+     *   never more than the number of buffers of the specified size that fit in the maximum retained memory.
+     * </p>
+     *
+     * @param bufferSize the default size of buffers (in chars).
+     * @return the new pool.
+     */
+    public static StripedBufferPool forAvailableProcessors(final int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be greater than zero");
+        }
+        final int processors = Math.max(MarkupParser.DEFAULT_POOL_SIZE, Runtime.getRuntime().availableProcessors());
+        final long retainable = DEFAULT_MAX_RETAINED_BYTES / (((long) bufferSize) << 1);
+        final int poolSize = (int) Math.max(1L, Math.min(processors, retainable));
+        return new StripedBufferPool(poolSize, bufferSize);
+    }
+
+
+
+
+    public int getBufferSize() {
+        return this.bufferSize;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the number of buffers to be kept in the pool for each size class.
+     * </p>
+     *
+     * @return the pool size.
+     */
+    public int getPoolSize() {
+        return this.poolSize;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the number of size classes (the largest pooled buffer size will be
+     *   <kbd>bufferSize * 2^(sizeClasses - 1)</kbd>).
+     * </p>
+     *
+     * @return the number of size classes.
+     */
+    public int getSizeClasses() {
+        return this.sizeClasses;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the maximum amount of memory (in bytes) that will be retained by pooled buffers.
+     * </p>
+     *
+     * @return the maximum retained bytes.
+     */
+    public long getMaxRetainedBytes() {
+        return this.maxRetainedBytes;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the amount of memory (in bytes) currently retained by buffers sitting idle in the pool.
+     * </p>
+     *
+     * @return the retained bytes.
+     */
+    public long getRetainedBytes() {
+        return this.retainedBytes.get();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the number of buffer requests that have been served with a buffer from the pool.
+     * </p>
+     *
+     * @return the number of hits.
+     */
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the number of buffer requests that required a new buffer to be allocated.
+     * </p>
+     *
+     * @return the number of misses.
+     */
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the number of requests for buffers bigger than the default buffer size (these requests are also
+     *   counted as either hits or misses).
+     * </p>
+     *
+     * @return the number of grows.
+     */
+    public long getGrows() {
+        return this.grows.sum();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the number of released buffers that could not be returned to the pool, either because they
+     *   were not of a pooled size, because the pool was full, or because the retained memory limit was reached.
+     * </p>
+     *
+     * @return the number of discards.
+     */
+    public long getDiscards() {
+        return this.discards.sum();
+    }
+
+
+
+
+    public char[] allocateBuffer(final int bufferSize) {
+        return allocateBuffer(bufferSize, null);
+    }
+
+
+    /*
+     * Besides the pool's own counters, hits and misses are also counted on the metrics of the parsing operation
+     * requesting the buffer (metrics will be null when called from allocateBuffer(int)).
+     */
+    public char[] allocateBuffer(final int bufferSize, final ParseMetrics metrics) {
+
+        if (bufferSize > this.bufferSize) {
+            this.grows.increment();
+        }
+
+        final int sizeClass = computeSizeClass(bufferSize);
+        if (sizeClass == -1 || this.poolSize == 0) {
+            this.misses.increment();
+            if (metrics != null) {
+                metrics.countPoolMiss();
+            }
+            return new char[bufferSize];
+        }
+
+        final AtomicReferenceArray<char[]> classSlots = this.slots[sizeClass];
+        final int slotCount = this.stripes * this.slotsPerStripe;
+        final int start = computeStripeStart();
+
+        for (int i = 0; i < slotCount; i++) {
+            final int index = ((start + i) % slotCount) * SLOT_SPACING;
+            final char[] buffer = classSlots.get(index);
+            if (buffer != null && classSlots.compareAndSet(index, buffer, null)) {
+                this.retainedBytes.addAndGet(-computeBytes(buffer));
+                this.hits.increment();
+                if (metrics != null) {
+                    metrics.countPoolHit();
+                }
+                return buffer;
+            }
+        }
+
+        this.misses.increment();
+        if (metrics != null) {
+            metrics.countPoolMiss();
+        }
+        if (this.created.get(sizeClass) >= this.poolSize || this.created.getAndIncrement(sizeClass) >= this.poolSize) {
+            // As many buffers as the pool can hold have already been created for this size class, and none of them
+            // is available, so they are all in use (or have been discarded because of the retained memory limit)
+            FlightRecorderSupport.poolExhausted(bufferSize, this.poolSize);
+        }
+        return new char[bufferSize];
+
+    }
+
+
+    public void releaseBuffer(final char[] buffer) {
+
+        if (buffer == null) {
+            return;
+        }
+
+        final int sizeClass = computeSizeClass(buffer.length);
+        if (sizeClass == -1 || this.poolSize == 0) {
+            this.discards.increment();
+            return;
+        }
+
+        final long bytes = computeBytes(buffer);
+        if (this.retainedBytes.addAndGet(bytes) > this.maxRetainedBytes) {
+            this.retainedBytes.addAndGet(-bytes);
+            this.discards.increment();
+            return;
+        }
+
+        final AtomicReferenceArray<char[]> classSlots = this.slots[sizeClass];
+        final int slotCount = this.stripes * this.slotsPerStripe;
+        final int start = computeStripeStart();
+
+        for (int i = 0; i < slotCount; i++) {
+            final int index = ((start + i) % slotCount) * SLOT_SPACING;
+            if (classSlots.get(index) == null && classSlots.compareAndSet(index, null, buffer)) {
+                return;
+            }
+        }
+
+        // Pool is full for this size class
+        this.retainedBytes.addAndGet(-bytes);
+        this.discards.increment();
+
+    }
+
+
+
+
+    private int computeSizeClass(final int size) {
+        int classSize = this.bufferSize;
+        for (int i = 0; i < this.sizeClasses; i++) {
+            if (classSize == size) {
+                return i;
+            }
+            if (classSize > size || classSize > (Integer.MAX_VALUE >> 1)) {
+                return -1;
+            }
+            classSize <<= 1;
+        }
+        return -1;
+    }
+
+
+    private int computeStripeStart() {
+        final int stripe = (int) (Thread.currentThread().getId() % this.stripes);
+        return stripe * this.slotsPerStripe;
+    }
+
+
+    private static long computeBytes(final char[] buffer) {
+        return ((long) buffer.length) << 1;
+    }
+
+
+    @Override
+    public String toString() {
+        return "StripedBufferPool{" +
+                "bufferSize=" + this.bufferSize +
+                ", poolSize=" + this.poolSize +
+                ", sizeClasses=" + this.sizeClasses +
+                ", maxRetainedBytes=" + this.maxRetainedBytes +
+                ", retainedBytes=" + getRetainedBytes() +
+                ", hits=" + getHits() +
+                ", misses=" + getMisses() +
+                ", grows=" + getGrows() +
+                ", discards=" + getDiscards() +
+                '}';
+    }
+
+}
@@ -114,6 +114,8 @@ public static enum ElementBalancing {
     private boolean caseSensitive = true;
 
     private boolean textSplittable = false;
+
+    private boolean positionTracking = true;
     
     private ElementBalancing elementBalancing = ElementBalancing.NO_BALANCING;
 
@@ -170,6 +172,7 @@ public static enum ElementBalancing {
      * <ul>
      *     <li>Mode: {@link org.attoparser.config.ParseConfiguration.ParsingMode#HTML}</li>
      *     <li>Text splittable: false</li>
+     *     <li>Position tracking: true</li>
      *     <li>Element balancing: {@link org.attoparser.config.ParseConfiguration.ElementBalancing#AUTO_CLOSE}</li>
      *     <li>No unmatched close elements required: false</li>
      *     <li>Unique attributes in elements required: false</li>
@@ -199,6 +202,7 @@ public static ParseConfiguration htmlConfiguration() {
      * <ul>
      *     <li>Mode: {@link org.attoparser.config.ParseConfiguration.ParsingMode#XML}</li>
      *     <li>Text splittable: false</li>
+     *     <li>Position tracking: true</li>
      *     <li>Element balancing: {@link org.attoparser.config.ParseConfiguration.ElementBalancing#REQUIRE_BALANCED}</li>
      *     <li>No unmatched close elements required: true</li>
      *     <li>Unique attributes in elements required: true</li>
@@ -350,6 +354,58 @@ public void setTextSplittable(final boolean textSplittable) {
 
 
 
+    /**
+     * <p>
+     *   Returns whether the parser will keep track of the line and column numbers of every event it reports.
+     * </p>
+     * <p>
+     *   When position tracking is disabled, the parser will avoid the cost of maintaining line and column
+     *   numbers while scanning the document, and events will be reported with <kbd>line = 0</kbd> and,
+     *   as <kbd>col</kbd>, the (zero-based) offset in chars of the event from the start of the document. This
+     *   also applies to events inside markup structures spanning several lines (e.g. attributes in an element
+     *   written in more than one line).
+     * </p>
+     * <p>
+     *   Real line and column numbers can still be obtained for any of these offsets by means of the
+     *   {@link org.attoparser.ParseStatus#computeLine(int)} and {@link org.attoparser.ParseStatus#computeCol(int)}
+     *   methods, which compute them lazily, only when asked to. The parser will also use these to report real
+     *   line and column numbers in any {@link org.attoparser.ParseException} raised during parsing.
+     * </p>
+     * <p>
+     *   As offsets are reported as <kbd>int</kbd>, offsets beyond <kbd>Integer.MAX_VALUE</kbd> chars (in
+     *   documents parsed from a <kbd>Reader</kbd> or a {@link org.attoparser.ParseSession}) wrap around. The complete offset can be obtained by means of
+     *   {@link org.attoparser.ParseStatus#computeOffset(int)}.
+     * </p>
+     * <p>
+     *   Default is <kbd>true</kbd>.
+     * </p>
+     *
+     * @return whether line and column numbers will be tracked or not.
+     * @since 2.0.10
+     */
+    public boolean isPositionTracking() {
+        return this.positionTracking;
+    }
+
+
+    /**
+     * <p>
+     *   Specify whether the parser will keep track of the line and column numbers of every event it reports.
+     *   See {@link #isPositionTracking()} for the way events will be reported when tracking is disabled.
+     * </p>
+     * <p>
+     *   Default is <kbd>true</kbd>.
+     * </p>
+     *
+     * @param positionTracking whether line and column numbers will be tracked or not.
+     * @since 2.0.10
+     */
+    public void setPositionTracking(final boolean positionTracking) {
+        this.positionTracking = positionTracking;
+    }
+
+
+
 
     /**
      * <p>
@@ -634,6 +690,8 @@ public ParseConfiguration clone() throws CloneNotSupportedException {
         final ParseConfiguration conf = (ParseConfiguration) super.clone();
         conf.mode = this.mode;
         conf.caseSensitive = this.caseSensitive;
+        conf.textSplittable = this.textSplittable;
+        conf.positionTracking = this.positionTracking;
         conf.elementBalancing = this.elementBalancing;
         conf.uniqueAttributesInElementRequired = this.uniqueAttributesInElementRequired;
         conf.xmlWellFormedAttributeValuesRequired = this.xmlWellFormedAttributeValuesRequired;
@@ -38,10 +38,18 @@ public class CDATASection
     public CDATASection(final String content) {
         super(content);
     }
+
+    CDATASection(final LazyDocumentText lazyText, final int offset, final int len) {
+        super(lazyText, offset, len);
+    }
+
+    CDATASection(final CDATASection original) {
+        super(original);
+    }
     
     @Override
     public CDATASection cloneNode(final INestableNode parent) {
-        final CDATASection cdataSection = new CDATASection(getContent());
+        final CDATASection cdataSection = new CDATASection(this);
         cdataSection.setLine(getLine());
         cdataSection.setCol(getCol());
         cdataSection.setParent(parent);
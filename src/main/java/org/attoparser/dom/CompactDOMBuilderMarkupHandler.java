@@ -0,0 +1,672 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser.dom;
+
+import java.util.Arrays;
+
+import org.attoparser.AbstractMarkupHandler;
+import org.attoparser.ParseException;
+
+
+/**
+ * <p>
+ *   Implementation of {@link org.attoparser.IMarkupHandler} that builds a {@link CompactDocument}: a
+ *   read-only tree stored in arrays, which needs a small fraction of the memory used by the equivalent
+ *   {@link Document} built by {@link org.attoparser.dom.DOMBuilderMarkupHandler}.
+ * </p>
+ * <p>
+ *   Sample usage:
+ * </p>
+ * <pre><code>
+ *   // Instance the compact DOM-builder handler
+ *   final CompactDOMBuilderMarkupHandler handler = new CompactDOMBuilderMarkupHandler("Some document");
+ *
+ *   // Create or obtain the parser instance
+ *   final IMarkupParser parser = new MarkupParser(ParseConfiguration.htmlConfiguration());
+ *
+ *   // Parse the document
+ *   parser.parse(documentReader, handler);
+ *
+ *   // Obtain the parsed document, and navigate it
+ *   final CompactDocument document = handler.getDocument();
+ *   final CompactNode root = document.getDocumentNode();
+ * </code></pre>
+ * <p>
+ *   Note that, as with most handlers, this class is <strong>not thread-safe</strong>. Also, instances of this class
+ *   should not be reused across parsing operations.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 2.0.10
+ *
+ */
+public final class CompactDOMBuilderMarkupHandler extends AbstractMarkupHandler {
+
+    private static final int INITIAL_NODES = 64;
+    private static final int INITIAL_PARTS = 64;
+    private static final int INITIAL_CHARS = 1024;
+    private static final int INITIAL_NAMES = 32;
+
+
+    private final String documentName;
+
+    private CompactDocument document = null;
+    private boolean parsingFinished = false;
+
+    private int numNodes = 0;
+    private byte[] types;
+    private int[] parents;
+    private int[] firstChildren;
+    private int[] lastChildren;
+    private int[] nextSiblings;
+    private int[] names;
+    private int[] offsets;
+    private int[] lens;
+    private int[] lines;
+    private int[] cols;
+
+    private int numParts = 0;
+    private int[] partNames;
+    private int[] partOffsets;
+    private int[] partLens;
+
+    // Text is stored as Latin-1 bytes until a char that does not fit in a byte is found
+    private int numChars = 0;
+    private byte[] bytes;
+    private char[] chars;
+
+    // Open-addressing table of unique names, resolved directly from the parsing buffer
+    private int numNameTable = 0;
+    private String[] nameTable;
+    private int[] nameHashes;
+    private int[] nameSlots;
+
+    private int currentParent = 0;
+    private int currentElement = -1;
+
+
+
+
+    /**
+     * <p>
+     *   Creates a new instance of this handler.
+     * </p>
+     */
+    public CompactDOMBuilderMarkupHandler() {
+        this(null);
+    }
+
+    /**
+     * <p>
+     *   Creates a new instance of this handler.
+     * </p>
+     *
+     * @param documentName the name of the document to be parsed.
+     */
+    public CompactDOMBuilderMarkupHandler(final String documentName) {
+        super();
+        this.documentName =
+                (documentName == null?
+                        String.valueOf(System.identityHashCode(this)) : documentName);
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Returns the {@link CompactDocument} created during parsing, or <kbd>null</kbd> if parsing has not
+     *   finished yet.
+     * </p>
+     *
+     * @return the built compact document.
+     */
+    public CompactDocument getDocument() {
+        return this.document;
+    }
+
+
+    /**
+     * <p>
+     *   Returns whether parsing has already finished or not.
+     * </p>
+     *
+     * @return <kbd>true</kbd> if parsing has finished, <kbd>false</kbd> if not.
+     */
+    public boolean isParsingFinished() {
+        return this.parsingFinished;
+    }
+
+
+
+
+    @Override
+    public void handleDocumentStart(
+            final long startTimeNanos,
+            final int line, final int col)
+            throws ParseException {
+
+        this.types = new byte[INITIAL_NODES];
+        this.parents = new int[INITIAL_NODES];
+        this.firstChildren = new int[INITIAL_NODES];
+        this.lastChildren = new int[INITIAL_NODES];
+        this.nextSiblings = new int[INITIAL_NODES];
+        this.names = new int[INITIAL_NODES];
+        this.offsets = new int[INITIAL_NODES];
+        this.lens = new int[INITIAL_NODES];
+        this.lines = new int[INITIAL_NODES];
+        this.cols = new int[INITIAL_NODES];
+
+        this.partNames = new int[INITIAL_PARTS];
+        this.partOffsets = new int[INITIAL_PARTS];
+        this.partLens = new int[INITIAL_PARTS];
+
+        this.bytes = new byte[INITIAL_CHARS];
+        this.chars = null;
+
+        this.nameTable = new String[INITIAL_NAMES];
+        this.nameHashes = new int[INITIAL_NAMES];
+        this.nameSlots = new int[INITIAL_NAMES * 2];
+        Arrays.fill(this.nameSlots, -1);
+
+        // The document node
+        this.types[0] = (byte) CompactNodeType.DOCUMENT.ordinal();
+        this.parents[0] = -1;
+        this.firstChildren[0] = -1;
+        this.lastChildren[0] = -1;
+        this.nextSiblings[0] = -1;
+        this.names[0] = -1;
+        this.lines[0] = line;
+        this.cols[0] = col;
+        this.numNodes = 1;
+
+        this.currentParent = 0;
+
+    }
+
+
+
+    @Override
+    public void handleDocumentEnd(
+            final long endTimeNanos, final long totalTimeNanos,
+            final int line, final int col)
+            throws ParseException {
+
+        final int n = this.numNodes;
+        final int p = this.numParts;
+
+        this.document =
+                new CompactDocument(
+                        this.documentName, n,
+                        Arrays.copyOf(this.types, n), Arrays.copyOf(this.parents, n),
+                        Arrays.copyOf(this.firstChildren, n), Arrays.copyOf(this.nextSiblings, n),
+                        Arrays.copyOf(this.names, n), Arrays.copyOf(this.offsets, n), Arrays.copyOf(this.lens, n),
+                        Arrays.copyOf(this.lines, n), Arrays.copyOf(this.cols, n),
+                        Arrays.copyOf(this.partNames, p), Arrays.copyOf(this.partOffsets, p),
+                        Arrays.copyOf(this.partLens, p),
+                        (this.bytes != null? Arrays.copyOf(this.bytes, this.numChars) : null),
+                        (this.chars != null? Arrays.copyOf(this.chars, this.numChars) : null),
+                        Arrays.copyOf(this.nameTable, this.numNameTable));
+
+        // Building arrays are no longer needed
+        this.types = null;
+        this.parents = null;
+        this.firstChildren = null;
+        this.lastChildren = null;
+        this.nextSiblings = null;
+        this.names = null;
+        this.offsets = null;
+        this.lens = null;
+        this.lines = null;
+        this.cols = null;
+        this.partNames = null;
+        this.partOffsets = null;
+        this.partLens = null;
+        this.bytes = null;
+        this.chars = null;
+        this.nameTable = null;
+        this.nameHashes = null;
+        this.nameSlots = null;
+
+        this.parsingFinished = true;
+
+    }
+
+
+
+
+    @Override
+    public void handleXmlDeclaration(
+            final char[] buffer,
+            final int keywordOffset, final int keywordLen,
+            final int keywordLine, final int keywordCol,
+            final int versionOffset, final int versionLen,
+            final int versionLine, final int versionCol,
+            final int encodingOffset, final int encodingLen,
+            final int encodingLine, final int encodingCol,
+            final int standaloneOffset, final int standaloneLen,
+            final int standaloneLine, final int standaloneCol,
+            final int outerOffset, final int outerLen,
+            final int line, final int col)
+            throws ParseException {
+
+        final int node = addNode(CompactNodeType.XML_DECLARATION, line, col);
+        this.offsets[node] = this.numParts;
+        this.lens[node] = 3;
+        addPart(-1, buffer, versionOffset, versionLen);
+        addPart(-1, buffer, encodingOffset, (encodingOffset > 0? encodingLen : -1));
+        addPart(-1, buffer, standaloneOffset, (standaloneOffset > 0? standaloneLen : -1));
+
+    }
+
+
+
+    @Override
+    public void handleDocType(
+            final char[] buffer,
+            final int keywordOffset, final int keywordLen,
+            final int keywordLine, final int keywordCol,
+            final int elementNameOffset, final int elementNameLen,
+            final int elementNameLine, final int elementNameCol,
+            final int typeOffset, final int typeLen,
+            final int typeLine, final int typeCol,
+            final int publicIdOffset, final int publicIdLen,
+            final int publicIdLine, final int publicIdCol,
+            final int systemIdOffset, final int systemIdLen,
+            final int systemIdLine, final int systemIdCol,
+            final int internalSubsetOffset, final int internalSubsetLen,
+            final int internalSubsetLine, final int internalSubsetCol,
+            final int outerOffset, final int outerLen,
+            final int outerLine, final int outerCol)
+            throws ParseException {
+
+        final int node = addNode(CompactNodeType.DOC_TYPE, outerLine, outerCol);
+        this.offsets[node] = this.numParts;
+        this.lens[node] = 4;
+        addPart(-1, buffer, elementNameOffset, elementNameLen);
+        addPart(-1, buffer, publicIdOffset, (publicIdOffset <= 0? -1 : publicIdLen));
+        addPart(-1, buffer, systemIdOffset, (systemIdOffset <= 0? -1 : systemIdLen));
+        addPart(-1, buffer, internalSubsetOffset, (internalSubsetOffset <= 0? -1 : internalSubsetLen));
+
+    }
+
+
+
+    @Override
+    public void handleCDATASection(
+            final char[] buffer,
+            final int contentOffset, final int contentLen,
+            final int outerOffset, final int outerLen,
+            final int line, final int col)
+            throws ParseException {
+
+        addContentNode(CompactNodeType.CDATA_SECTION, buffer, contentOffset, contentLen, line, col);
+
+    }
+
+
+
+    @Override
+    public void handleComment(
+            final char[] buffer,
+            final int contentOffset, final int contentLen,
+            final int outerOffset, final int outerLen,
+            final int line, final int col)
+            throws ParseException {
+
+        addContentNode(CompactNodeType.COMMENT, buffer, contentOffset, contentLen, line, col);
+
+    }
+
+
+
+    @Override
+    public void handleText(
+            final char[] buffer,
+            final int offset, final int len,
+            final int line, final int col)
+            throws ParseException {
+
+        addContentNode(CompactNodeType.TEXT, buffer, offset, len, line, col);
+
+    }
+
+
+
+    @Override
+    public void handleStandaloneElementStart(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final boolean minimized, final int line, final int col)
+            throws ParseException {
+
+        addElement(buffer, nameOffset, nameLen, line, col);
+
+    }
+
+
+
+    @Override
+    public void handleOpenElementStart(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int line, final int col)
+            throws ParseException {
+
+        addElement(buffer, nameOffset, nameLen, line, col);
+
+    }
+
+
+
+    @Override
+    public void handleOpenElementEnd(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int line, final int col)
+            throws ParseException {
+
+        this.currentParent = this.currentElement;
+
+    }
+
+
+
+    @Override
+    public void handleAutoOpenElementStart(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int line, final int col)
+            throws ParseException {
+
+        addElement(buffer, nameOffset, nameLen, line, col);
+
+    }
+
+
+
+    @Override
+    public void handleAutoOpenElementEnd(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int line, final int col)
+            throws ParseException {
+
+        this.currentParent = this.currentElement;
+
+    }
+
+
+
+    @Override
+    public void handleCloseElementEnd(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int line, final int col)
+            throws ParseException {
+
+        this.currentParent = this.parents[this.currentParent];
+
+    }
+
+
+
+    @Override
+    public void handleAutoCloseElementEnd(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int line, final int col)
+            throws ParseException {
+
+        this.currentParent = this.parents[this.currentParent];
+
+    }
+
+
+
+    @Override
+    public void handleAttribute(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int nameLine, final int nameCol,
+            final int operatorOffset, final int operatorLen,
+            final int operatorLine, final int operatorCol,
+            final int valueContentOffset, final int valueContentLen,
+            final int valueOuterOffset, final int valueOuterLen,
+            final int valueLine, final int valueCol)
+            throws ParseException {
+
+        // Attributes of an element are always contiguous, as nothing else can add parts until the element ends
+        addPart(nameId(buffer, nameOffset, nameLen), buffer, valueContentOffset, Math.max(valueContentLen, 0));
+        this.lens[this.currentElement]++;
+
+    }
+
+
+
+    @Override
+    public void handleProcessingInstruction(
+            final char[] buffer,
+            final int targetOffset, final int targetLen,
+            final int targetLine, final int targetCol,
+            final int contentOffset, final int contentLen,
+            final int contentLine, final int contentCol,
+            final int outerOffset, final int outerLen,
+            final int line, final int col)
+            throws ParseException {
+
+        final int node = addNode(CompactNodeType.PROCESSING_INSTRUCTION, line, col);
+        this.offsets[node] = this.numParts;
+        this.lens[node] = 2;
+        addPart(-1, buffer, targetOffset, targetLen);
+        addPart(-1, buffer, contentOffset, (contentOffset <= 0? -1 : contentLen));
+
+    }
+
+
+
+
+    private void addElement(
+            final char[] buffer, final int nameOffset, final int nameLen, final int line, final int col) {
+        final int node = addNode(CompactNodeType.ELEMENT, line, col);
+        this.names[node] = nameId(buffer, nameOffset, nameLen);
+        this.offsets[node] = this.numParts;
+        this.currentElement = node;
+    }
+
+
+    private void addContentNode(
+            final CompactNodeType type, final char[] buffer, final int offset, final int len,
+            final int line, final int col) {
+        final int node = addNode(type, line, col);
+        this.offsets[node] = addChars(buffer, offset, len);
+        this.lens[node] = len;
+    }
+
+
+    private int addNode(final CompactNodeType type, final int line, final int col) {
+
+        if (this.numNodes == this.types.length) {
+            final int newLen = this.numNodes * 2;
+            this.types = Arrays.copyOf(this.types, newLen);
+            this.parents = Arrays.copyOf(this.parents, newLen);
+            this.firstChildren = Arrays.copyOf(this.firstChildren, newLen);
+            this.lastChildren = Arrays.copyOf(this.lastChildren, newLen);
+            this.nextSiblings = Arrays.copyOf(this.nextSiblings, newLen);
+            this.names = Arrays.copyOf(this.names, newLen);
+            this.offsets = Arrays.copyOf(this.offsets, newLen);
+            this.lens = Arrays.copyOf(this.lens, newLen);
+            this.lines = Arrays.copyOf(this.lines, newLen);
+            this.cols = Arrays.copyOf(this.cols, newLen);
+        }
+
+        final int node = this.numNodes++;
+        final int parent = this.currentParent;
+
+        this.types[node] = (byte) type.ordinal();
+        this.parents[node] = parent;
+        this.firstChildren[node] = -1;
+        this.lastChildren[node] = -1;
+        this.nextSiblings[node] = -1;
+        this.names[node] = -1;
+        this.offsets[node] = 0;
+        this.lens[node] = 0;
+        this.lines[node] = line;
+        this.cols[node] = col;
+
+        final int lastSibling = this.lastChildren[parent];
+        if (lastSibling < 0) {
+            this.firstChildren[parent] = node;
+        } else {
+            this.nextSiblings[lastSibling] = node;
+        }
+        this.lastChildren[parent] = node;
+
+        return node;
+
+    }
+
+
+    private void addPart(final int name, final char[] buffer, final int offset, final int len) {
+
+        if (this.numParts == this.partNames.length) {
+            final int newLen = this.numParts * 2;
+            this.partNames = Arrays.copyOf(this.partNames, newLen);
+            this.partOffsets = Arrays.copyOf(this.partOffsets, newLen);
+            this.partLens = Arrays.copyOf(this.partLens, newLen);
+        }
+
+        final int part = this.numParts++;
+        this.partNames[part] = name;
+        this.partOffsets[part] = (len < 0? 0 : addChars(buffer, offset, len));
+        this.partLens[part] = len;
+
+    }
+
+
+    private int addChars(final char[] buffer, final int offset, final int len) {
+
+        final int charsOffset = this.numChars;
+        final int newNumChars = charsOffset + len;
+
+        if (this.bytes != null) {
+
+            if (newNumChars > this.bytes.length) {
+                this.bytes = Arrays.copyOf(this.bytes, Math.max(this.bytes.length * 2, newNumChars));
+            }
+            final byte[] b = this.bytes;
+            for (int i = 0; i < len; i++) {
+                final char c = buffer[offset + i];
+                if (c > 0xFF) {
+                    // Cannot be stored as Latin-1: move everything to chars and copy the rest there
+                    widen(Math.max(b.length, newNumChars));
+                    System.arraycopy(buffer, offset + i, this.chars, charsOffset + i, len - i);
+                    this.numChars = newNumChars;
+                    return charsOffset;
+                }
+                b[charsOffset + i] = (byte) c;
+            }
+
+        } else {
+
+            if (newNumChars > this.chars.length) {
+                this.chars = Arrays.copyOf(this.chars, Math.max(this.chars.length * 2, newNumChars));
+            }
+            System.arraycopy(buffer, offset, this.chars, charsOffset, len);
+
+        }
+
+        this.numChars = newNumChars;
+        return charsOffset;
+
+    }
+
+
+    private void widen(final int capacity) {
+        // Also copies the bytes already written by the current call, beyond numChars
+        final byte[] b = this.bytes;
+        final char[] c = new char[capacity];
+        for (int i = 0; i < b.length; i++) {
+            c[i] = (char) (b[i] & 0xFF);
+        }
+        this.chars = c;
+        this.bytes = null;
+    }
+
+
+    private int nameId(final char[] buffer, final int offset, final int len) {
+
+        int hash = 0;
+        for (int i = offset, n = offset + len; i < n; i++) {
+            hash = 31 * hash + buffer[i];
+        }
+
+        int mask = this.nameSlots.length - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        int id;
+        while ((id = this.nameSlots[slot]) >= 0) {
+            if (this.nameHashes[id] == hash && nameEquals(this.nameTable[id], buffer, offset, len)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        id = this.numNameTable++;
+        if (id == this.nameTable.length) {
+            this.nameTable = Arrays.copyOf(this.nameTable, id * 2);
+            this.nameHashes = Arrays.copyOf(this.nameHashes, id * 2);
+            // Keep the load factor of the slot table at 50% or lower
+            this.nameSlots = new int[id * 4];
+            Arrays.fill(this.nameSlots, -1);
+            mask = this.nameSlots.length - 1;
+            for (int i = 0; i < id; i++) {
+                int s = (this.nameHashes[i] ^ (this.nameHashes[i] >>> 16)) & mask;
+                while (this.nameSlots[s] >= 0) {
+                    s = (s + 1) & mask;
+                }
+                this.nameSlots[s] = i;
+            }
+            slot = (hash ^ (hash >>> 16)) & mask;
+            while (this.nameSlots[slot] >= 0) {
+                slot = (slot + 1) & mask;
+            }
+        }
+        this.nameTable[id] = StructureTextsRepository.getStructureName(buffer, offset, len);
+        this.nameHashes[id] = hash;
+        this.nameSlots[slot] = id;
+        return id;
+
+    }
+
+
+    private static boolean nameEquals(final String name, final char[] buffer, final int offset, final int len) {
+        if (name.length() != len) {
+            return false;
+        }
+        for (int i = 0; i < len; i++) {
+            if (name.charAt(i) != buffer[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
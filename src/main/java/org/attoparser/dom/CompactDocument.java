@@ -0,0 +1,262 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser.dom;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * <p>
+ *   Compact, read-only representation of a parsed document, produced by the
+ *   {@link org.attoparser.dom.CompactDOMBuilderMarkupHandler} handler.
+ * </p>
+ * <p>
+ *   Instead of one object per node (plus maps for attributes and Strings for every text), the tree is stored as
+ *   a set of parallel <kbd>int</kbd> arrays indexed by node (parent, first child, next sibling, type, name...),
+ *   and all texts, attribute values and other contents are stored as offsets into a single array holding all
+ *   of them (a <kbd>byte[]</kbd> if all chars in the document are ISO-8859-1, a <kbd>char[]</kbd> if not). Element and attribute names are kept in a table of unique Strings and referenced by id. Strings are only
+ *   created when they are asked for.
+ * </p>
+ * <p>
+ *   The tree is navigated by means of {@link CompactNode} objects, obtained from {@link #getDocumentNode()}.
+ *   The document can also be converted into a {@link Document} by calling {@link #toDocument()}.
+ * </p>
+ * <p>
+ *   Objects of this class are immutable, and therefore thread-safe.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 2.0.10
+ *
+ */
+public final class CompactDocument implements Serializable {
+
+    private static final long serialVersionUID = -4185427071322695307L;
+
+
+    private final String documentName;
+
+    /*
+     * Nodes: node 0 is always the document. Nodes are numbered in document order, so parents always have
+     * lower indexes than their children. Offsets and lengths point to the content in 'text' for TEXT, COMMENT
+     * and CDATA_SECTION nodes, and to the first part and number of parts (attributes for elements, or
+     * components like the public id of a DOCTYPE) in the 'part*' arrays for the rest.
+     */
+    final int numNodes;
+    final byte[] types;
+    final int[] parents;
+    final int[] firstChildren;
+    final int[] nextSiblings;
+    final int[] names;
+    final int[] offsets;
+    final int[] lens;
+    final int[] lines;
+    final int[] cols;
+
+    /*
+     * Parts: attributes of elements, with their name ids, and components of DOCTYPEs, XML declarations and
+     * processing instructions, which have no name (-1). Parts without value (null) have -1 as length.
+     */
+    final int[] partNames;
+    final int[] partOffsets;
+    final int[] partLens;
+
+    /*
+     * Text: either Latin-1 bytes (when all chars fit in one byte, as Strings do in modern JVMs) or chars.
+     */
+    final byte[] bytes;
+    final char[] chars;
+    final String[] nameTable;
+
+
+
+
+    CompactDocument(
+            final String documentName, final int numNodes,
+            final byte[] types, final int[] parents, final int[] firstChildren, final int[] nextSiblings,
+            final int[] names, final int[] offsets, final int[] lens, final int[] lines, final int[] cols,
+            final int[] partNames, final int[] partOffsets, final int[] partLens,
+            final byte[] bytes, final char[] chars, final String[] nameTable) {
+        super();
+        this.documentName = documentName;
+        this.numNodes = numNodes;
+        this.types = types;
+        this.parents = parents;
+        this.firstChildren = firstChildren;
+        this.nextSiblings = nextSiblings;
+        this.names = names;
+        this.offsets = offsets;
+        this.lens = lens;
+        this.lines = lines;
+        this.cols = cols;
+        this.partNames = partNames;
+        this.partOffsets = partOffsets;
+        this.partLens = partLens;
+        this.bytes = bytes;
+        this.chars = chars;
+        this.nameTable = nameTable;
+    }
+
+
+
+
+    public String getDocumentName() {
+        return this.documentName;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the total number of nodes in the document, including the document node itself.
+     * </p>
+     *
+     * @return the number of nodes.
+     */
+    public int numNodes() {
+        return this.numNodes;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the root node of the tree, of type {@link CompactNodeType#DOCUMENT}.
+     * </p>
+     *
+     * @return the document node.
+     */
+    public CompactNode getDocumentNode() {
+        return new CompactNode(this, 0);
+    }
+
+
+    /**
+     * <p>
+     *   Returns the node with the specified index. Nodes are numbered in document order, the document node
+     *   being <kbd>0</kbd>.
+     * </p>
+     *
+     * @param index the index of the node.
+     * @return the node.
+     */
+    public CompactNode getNode(final int index) {
+        if (index < 0 || index >= this.numNodes) {
+            throw new IndexOutOfBoundsException("Node index " + index + " out of bounds: " + this.numNodes);
+        }
+        return new CompactNode(this, index);
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Converts this compact document into an equivalent {@link Document}, with the same tree that the
+     *   {@link org.attoparser.dom.DOMBuilderMarkupHandler} would have built for the same parsing events.
+     * </p>
+     *
+     * @return the new DOM document.
+     */
+    public Document toDocument() {
+
+        final INestableNode[] nestableNodes = new INestableNode[this.numNodes];
+
+        final Document document = new Document(this.documentName);
+        nestableNodes[0] = document;
+
+        // As parents always come before their children and siblings are numbered in order, a single pass is enough
+        for (int i = 1; i < this.numNodes; i++) {
+
+            final INode node;
+            switch (CompactNodeType.VALUES[this.types[i]]) {
+                case ELEMENT:
+                    final Element element = new Element(this.nameTable[this.names[i]]);
+                    if (this.lens[i] > 0) {
+                        final Map<String,String> attributes = new LinkedHashMap<String, String>(5, 1.0f);
+                        for (int j = this.offsets[i], n = j + this.lens[i]; j < n; j++) {
+                            attributes.put(this.nameTable[this.partNames[j]], getPart(j));
+                        }
+                        element.addAttributes(attributes);
+                    }
+                    nestableNodes[i] = element;
+                    node = element;
+                    break;
+                case TEXT:
+                    node = new Text(getContent(i));
+                    break;
+                case COMMENT:
+                    node = new Comment(getContent(i));
+                    break;
+                case CDATA_SECTION:
+                    node = new CDATASection(getContent(i));
+                    break;
+                case DOC_TYPE:
+                    node = new DocType(getPart(i, 0), getPart(i, 1), getPart(i, 2), getPart(i, 3));
+                    break;
+                case XML_DECLARATION:
+                    node = new XmlDeclaration(getPart(i, 0), getPart(i, 1), getPart(i, 2));
+                    break;
+                case PROCESSING_INSTRUCTION:
+                    node = new ProcessingInstruction(getPart(i, 0), getPart(i, 1));
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected node type at index " + i);
+            }
+
+            node.setLine(Integer.valueOf(this.lines[i]));
+            node.setCol(Integer.valueOf(this.cols[i]));
+            nestableNodes[this.parents[i]].addChild(node);
+
+        }
+
+        return document;
+
+    }
+
+
+
+
+    String getContent(final int node) {
+        return getText(this.offsets[node], this.lens[node]);
+    }
+
+
+    String getPart(final int node, final int index) {
+        return getPart(this.offsets[node] + index);
+    }
+
+
+    String getPart(final int part) {
+        final int len = this.partLens[part];
+        return (len < 0? null : getText(this.partOffsets[part], len));
+    }
+
+
+    private String getText(final int offset, final int len) {
+        if (this.bytes != null) {
+            return new String(this.bytes, offset, len, StandardCharsets.ISO_8859_1);
+        }
+        return new String(this.chars, offset, len);
+    }
+
+}
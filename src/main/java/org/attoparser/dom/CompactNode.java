@@ -0,0 +1,311 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser.dom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * <p>
+ *   Read-only view of a node in a {@link CompactDocument}.
+ * </p>
+ * <p>
+ *   Objects of this class are lightweight references (document plus node index) created on demand while
+ *   navigating the tree, so that two objects representing the same node are equal but not necessarily the
+ *   same object. Methods that only apply to some node types will raise an {@link IllegalStateException} when
+ *   called on nodes of a different type.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 2.0.10
+ *
+ */
+public final class CompactNode {
+
+    private final CompactDocument document;
+    private final int index;
+
+
+
+
+    CompactNode(final CompactDocument document, final int index) {
+        super();
+        this.document = document;
+        this.index = index;
+    }
+
+
+
+
+    public CompactDocument getDocument() {
+        return this.document;
+    }
+
+    public int getIndex() {
+        return this.index;
+    }
+
+    public CompactNodeType getType() {
+        return CompactNodeType.VALUES[this.document.types[this.index]];
+    }
+
+    public int getLine() {
+        return this.document.lines[this.index];
+    }
+
+    public int getCol() {
+        return this.document.cols[this.index];
+    }
+
+
+
+
+    /*
+     * ************
+     *  NAVIGATION
+     * ************
+     */
+
+
+    public boolean hasParent() {
+        return this.index != 0;
+    }
+
+    public CompactNode getParent() {
+        return (this.index == 0? null : new CompactNode(this.document, this.document.parents[this.index]));
+    }
+
+    public boolean hasChildren() {
+        return this.document.firstChildren[this.index] >= 0;
+    }
+
+    public CompactNode getFirstChild() {
+        return node(this.document.firstChildren[this.index]);
+    }
+
+    public CompactNode getNextSibling() {
+        return node(this.document.nextSiblings[this.index]);
+    }
+
+    public int numChildren() {
+        int count = 0;
+        for (int i = this.document.firstChildren[this.index]; i >= 0; i = this.document.nextSiblings[i]) {
+            count++;
+        }
+        return count;
+    }
+
+    public List<CompactNode> getChildren() {
+        int i = this.document.firstChildren[this.index];
+        if (i < 0) {
+            return Collections.emptyList();
+        }
+        final List<CompactNode> children = new ArrayList<CompactNode>(4);
+        for (; i >= 0; i = this.document.nextSiblings[i]) {
+            children.add(new CompactNode(this.document, i));
+        }
+        return children;
+    }
+
+
+    private CompactNode node(final int nodeIndex) {
+        return (nodeIndex < 0? null : new CompactNode(this.document, nodeIndex));
+    }
+
+
+
+
+    /*
+     * **********
+     *  ELEMENTS
+     * **********
+     */
+
+
+    public String getElementName() {
+        checkType(CompactNodeType.ELEMENT);
+        return this.document.nameTable[this.document.names[this.index]];
+    }
+
+    public boolean elementNameMatches(final String name) {
+        return getElementName().equals(name);
+    }
+
+    public int numAttributes() {
+        checkType(CompactNodeType.ELEMENT);
+        return this.document.lens[this.index];
+    }
+
+    public boolean hasAttributes() {
+        return numAttributes() != 0;
+    }
+
+    public String getAttributeName(final int attributeIndex) {
+        return this.document.nameTable[this.document.partNames[attributePart(attributeIndex)]];
+    }
+
+    public String getAttributeValue(final int attributeIndex) {
+        return this.document.getPart(attributePart(attributeIndex));
+    }
+
+    public boolean hasAttribute(final String attributeName) {
+        return findAttributePart(attributeName) >= 0;
+    }
+
+    /**
+     * <p>
+     *   Returns the value of an attribute, or <kbd>null</kbd> if the element has no such attribute. As in
+     *   {@link Element}, when an attribute appears more than once, the last value is returned.
+     * </p>
+     *
+     * @param attributeName the name of the attribute.
+     * @return the value of the attribute.
+     */
+    public String getAttributeValue(final String attributeName) {
+        final int part = findAttributePart(attributeName);
+        return (part < 0? null : this.document.getPart(part));
+    }
+
+
+    private int attributePart(final int attributeIndex) {
+        if (attributeIndex < 0 || attributeIndex >= numAttributes()) {
+            throw new IndexOutOfBoundsException(
+                    "Attribute index " + attributeIndex + " out of bounds: " + numAttributes());
+        }
+        return this.document.offsets[this.index] + attributeIndex;
+    }
+
+
+    private int findAttributePart(final String attributeName) {
+        final int first = this.document.offsets[this.index];
+        for (int i = first + numAttributes() - 1; i >= first; i--) {
+            if (this.document.nameTable[this.document.partNames[i]].equals(attributeName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+
+
+
+    /*
+     * **********
+     *  CONTENTS
+     * **********
+     */
+
+
+    /**
+     * <p>
+     *   Returns the content of a text, comment, CDATA section or processing instruction.
+     * </p>
+     *
+     * @return the content.
+     */
+    public String getContent() {
+        switch (getType()) {
+            case TEXT:
+            case COMMENT:
+            case CDATA_SECTION:
+                return this.document.getContent(this.index);
+            case PROCESSING_INSTRUCTION:
+                return this.document.getPart(this.index, 1);
+            default:
+                throw new IllegalStateException("Node of type " + getType() + " has no content");
+        }
+    }
+
+    public String getTarget() {
+        checkType(CompactNodeType.PROCESSING_INSTRUCTION);
+        return this.document.getPart(this.index, 0);
+    }
+
+    public String getRootElementName() {
+        checkType(CompactNodeType.DOC_TYPE);
+        return this.document.getPart(this.index, 0);
+    }
+
+    public String getPublicId() {
+        checkType(CompactNodeType.DOC_TYPE);
+        return this.document.getPart(this.index, 1);
+    }
+
+    public String getSystemId() {
+        checkType(CompactNodeType.DOC_TYPE);
+        return this.document.getPart(this.index, 2);
+    }
+
+    public String getInternalSubset() {
+        checkType(CompactNodeType.DOC_TYPE);
+        return this.document.getPart(this.index, 3);
+    }
+
+    public String getVersion() {
+        checkType(CompactNodeType.XML_DECLARATION);
+        return this.document.getPart(this.index, 0);
+    }
+
+    public String getEncoding() {
+        checkType(CompactNodeType.XML_DECLARATION);
+        return this.document.getPart(this.index, 1);
+    }
+
+    public String getStandalone() {
+        checkType(CompactNodeType.XML_DECLARATION);
+        return this.document.getPart(this.index, 2);
+    }
+
+
+    private void checkType(final CompactNodeType type) {
+        if (this.document.types[this.index] != type.ordinal()) {
+            throw new IllegalStateException("Node of type " + getType() + " is not of type " + type);
+        }
+    }
+
+
+
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CompactNode)) {
+            return false;
+        }
+        final CompactNode other = (CompactNode) o;
+        return this.document == other.document && this.index == other.index;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * System.identityHashCode(this.document) + this.index;
+    }
+
+    @Override
+    public String toString() {
+        return getType() + "[" + this.index + "]";
+    }
+
+}
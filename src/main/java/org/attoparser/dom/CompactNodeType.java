@@ -0,0 +1,40 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser.dom;
+
+
+/**
+ * <p>
+ *   Types of the nodes in a {@link CompactDocument}.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 2.0.10
+ *
+ */
+public enum CompactNodeType {
+
+    DOCUMENT, ELEMENT, TEXT, COMMENT, CDATA_SECTION, DOC_TYPE, XML_DECLARATION, PROCESSING_INSTRUCTION;
+
+
+    static final CompactNodeType[] VALUES = values();
+
+}
@@ -55,6 +55,18 @@
  *   final Document document = handler.getDocument();
  * </code></pre>
  * <p>
+ *   In <em>lazy</em> mode (see {@link #DOMBuilderMarkupHandler(String, boolean)}), the contents of texts,
+ *   comments and CDATA sections and the values of attributes are copied into an array retained by the
+ *   document, and Strings (and attribute maps) are only created for them when they are first accessed.
+ *   Modifying a node makes it transparently switch to the usual (eager) form. This is useful when only a
+ *   small part of the contents of a document are going to be read.
+ * </p>
+ * <p>
+ *   As with eager documents, once built (and safely published) a lazy document can be read by several threads
+ *   at the same time: materializing its contents on first access is race-free. Modifying it while other threads
+ *   are reading it is not safe, whatever the mode.
+ * </p>
+ * <p>
  *   Note that, as with most handlers, this class is <strong>not thread-safe</strong>. Also, instances of this class
  *   should not be reused across parsing operations.
  * </p>
@@ -68,6 +80,7 @@
 public final class DOMBuilderMarkupHandler extends AbstractMarkupHandler {
     
     private final String documentName;
+    private final boolean lazy;
     
     private Document document = null;
     private boolean parsingFinished = false;
@@ -83,6 +96,10 @@ public final class DOMBuilderMarkupHandler extends AbstractMarkupHandler {
     private int currentElementLine = -1;
     private int currentElementCol = -1;
 
+    private LazyDocumentText lazyText = null;
+    private int currentElementLazyAttributesOffset = 0;
+    private int currentElementLazyAttributesLen = 0;
+
     
 
     /**
@@ -102,10 +119,25 @@ public DOMBuilderMarkupHandler() {
      * @param documentName the name of the document to be parsed.
      */
     public DOMBuilderMarkupHandler(final String documentName) {
+        this(documentName, false);
+    }
+
+    /**
+     * <p>
+     *   Creates a new instance of this handler, specifying whether the DOM should be built in <em>lazy</em>
+     *   mode, in which Strings for texts and attribute values are only created when first accessed.
+     * </p>
+     *
+     * @param documentName the name of the document to be parsed.
+     * @param lazy whether the DOM should be built in lazy mode.
+     * @since 2.0.10
+     */
+    public DOMBuilderMarkupHandler(final String documentName, final boolean lazy) {
         super();
         this.documentName = 
                 (documentName == null? 
                         String.valueOf(System.identityHashCode(this)) : documentName);
+        this.lazy = lazy;
     }
 
     
@@ -180,6 +212,10 @@ public void handleDocumentStart(
         this.document = new Document(this.documentName);
         this.parsingStartTimeNanos = startTimeNanos;
 
+        if (this.lazy) {
+            this.lazyText = new LazyDocumentText();
+        }
+
     }
 
     
@@ -192,6 +228,10 @@ public void handleDocumentEnd(
 
         this.parsingEndTimeNanos = endTimeNanos;
         this.parsingTotalTimeNanos = totalTimeNanos;
+
+        if (this.lazyText != null) {
+            this.lazyText.trim();
+        }
         
         this.parsingFinished = true;
 
@@ -288,7 +328,11 @@ public void handleCDATASection(
             final int line, final int col)
             throws ParseException {
 
-        final CDATASection cdataSection = new CDATASection(new String(buffer, contentOffset, contentLen));
+        final CDATASection cdataSection =
+                (this.lazyText == null?
+                        new CDATASection(new String(buffer, contentOffset, contentLen)) :
+                        new CDATASection(
+                                this.lazyText, this.lazyText.addChars(buffer, contentOffset, contentLen), contentLen));
         cdataSection.setLine(Integer.valueOf(line));
         cdataSection.setCol(Integer.valueOf(col));
 
@@ -310,7 +354,10 @@ public void handleComment(
             final int line, final int col)
             throws ParseException {
 
-        final Comment comment = new Comment(new String(buffer, contentOffset, contentLen));
+        final Comment comment =
+                (this.lazyText == null?
+                        new Comment(new String(buffer, contentOffset, contentLen)) :
+                        new Comment(this.lazyText, this.lazyText.addChars(buffer, contentOffset, contentLen), contentLen));
         comment.setLine(Integer.valueOf(line));
         comment.setCol(Integer.valueOf(col));
 
@@ -331,7 +378,10 @@ public void handleText(
             final int line, final int col)
             throws ParseException {
 
-        final Text text = new Text(new String(buffer, offset, len));
+        final Text text =
+                (this.lazyText == null?
+                        new Text(new String(buffer, offset, len)) :
+                        new Text(this.lazyText, this.lazyText.addChars(buffer, offset, len), len));
         text.setLine(Integer.valueOf(line));
         text.setCol(Integer.valueOf(col));
 
@@ -354,6 +404,7 @@ public void handleStandaloneElementStart(
 
         this.currentElementName = StructureTextsRepository.getStructureName(buffer, nameOffset, nameLen);
         this.currentElementAttributes = null;
+        this.currentElementLazyAttributesLen = 0;
         this.currentElementLine = line;
         this.currentElementCol = col;
 
@@ -369,7 +420,7 @@ public void handleStandaloneElementEnd(
             throws ParseException {
 
         final Element element = new Element(this.currentElementName);
-        element.addAttributes(this.currentElementAttributes);
+        addAttributes(element);
         element.setLine(Integer.valueOf(this.currentElementLine));
         element.setCol(Integer.valueOf(this.currentElementCol));
 
@@ -392,6 +443,7 @@ public void handleOpenElementStart(
 
         this.currentElementName = StructureTextsRepository.getStructureName(buffer, nameOffset, nameLen);
         this.currentElementAttributes = null;
+        this.currentElementLazyAttributesLen = 0;
         this.currentElementLine = line;
         this.currentElementCol = col;
 
@@ -407,7 +459,7 @@ public void handleOpenElementEnd(
             throws ParseException {
 
         final Element element = new Element(this.currentElementName);
-        element.addAttributes(this.currentElementAttributes);
+        addAttributes(element);
         element.setLine(Integer.valueOf(this.currentElementLine));
         element.setCol(Integer.valueOf(this.currentElementCol));
 
@@ -431,6 +483,7 @@ public void handleAutoOpenElementStart(
 
         this.currentElementName = StructureTextsRepository.getStructureName(buffer, nameOffset, nameLen);
         this.currentElementAttributes = null;
+        this.currentElementLazyAttributesLen = 0;
         this.currentElementLine = line;
         this.currentElementCol = col;
 
@@ -446,7 +499,7 @@ public void handleAutoOpenElementEnd(
             throws ParseException {
 
         final Element element = new Element(this.currentElementName);
-        element.addAttributes(this.currentElementAttributes);
+        addAttributes(element);
         element.setLine(Integer.valueOf(this.currentElementLine));
         element.setCol(Integer.valueOf(this.currentElementCol));
 
@@ -561,6 +614,19 @@ public void handleAttribute(
             throws ParseException {
 
         final String attributeName = StructureTextsRepository.getStructureName(buffer, nameOffset, nameLen);
+
+        if (this.lazyText != null) {
+            if (this.currentElementLazyAttributesLen == 0) {
+                this.currentElementLazyAttributesOffset = this.lazyText.numAttributes();
+            }
+            if (this.lazyText.addAttribute(
+                    this.currentElementLazyAttributesOffset, attributeName,
+                    buffer, valueContentOffset, (valueContentLen <= 0? 0 : valueContentLen))) {
+                this.currentElementLazyAttributesLen++;
+            }
+            return;
+        }
+
         final String attributeValue =
                 (valueContentLen <= 0?  "" : new String(buffer, valueContentOffset, valueContentLen));
 
@@ -615,4 +681,16 @@ public void handleProcessingInstruction(
     }
 
 
+
+
+    private void addAttributes(final Element element) {
+        if (this.lazyText == null) {
+            element.addAttributes(this.currentElementAttributes);
+        } else if (this.currentElementLazyAttributesLen > 0) {
+            element.setLazyAttributes(
+                    this.lazyText, this.currentElementLazyAttributesOffset, this.currentElementLazyAttributesLen);
+        }
+    }
+
+
 }
@@ -91,16 +91,33 @@ public final class DOMMarkupParser implements IDOMMarkupParser {
 
 
     private final MarkupParser markupParser;
+    private final boolean lazy;
 
 
 
 
     public DOMMarkupParser(final ParseConfiguration configuration) {
+        this(configuration, false);
+    }
+
+
+    /**
+     * <p>
+     *   Creates a new instance of this parser, specifying whether DOM trees should be built in <em>lazy</em>
+     *   mode (see {@link org.attoparser.dom.DOMBuilderMarkupHandler}).
+     * </p>
+     *
+     * @param configuration the parsing configuration.
+     * @param lazy whether DOM trees should be built in lazy mode.
+     * @since 2.0.10
+     */
+    public DOMMarkupParser(final ParseConfiguration configuration, final boolean lazy) {
         super();
         if (configuration == null) {
             throw new IllegalArgumentException("Configuration cannot be null");
         }
         this.markupParser = new MarkupParser(configuration);
+        this.lazy = lazy;
     }
 
 
@@ -136,7 +153,7 @@ public Document parse(final Reader reader)
     public Document parse(final String documentName, final String document)
             throws ParseException {
 
-        final DOMBuilderMarkupHandler domHandler = new DOMBuilderMarkupHandler(documentName);
+        final DOMBuilderMarkupHandler domHandler = new DOMBuilderMarkupHandler(documentName, this.lazy);
         this.markupParser.parse(document, domHandler);
         return domHandler.getDocument();
 
@@ -146,7 +163,7 @@ public Document parse(final String documentName, final String document)
     public Document parse(final String documentName, final char[] document)
             throws ParseException {
 
-        final DOMBuilderMarkupHandler domHandler = new DOMBuilderMarkupHandler(documentName);
+        final DOMBuilderMarkupHandler domHandler = new DOMBuilderMarkupHandler(documentName, this.lazy);
         this.markupParser.parse(document, domHandler);
         return domHandler.getDocument();
 
@@ -156,7 +173,7 @@ public Document parse(final String documentName, final char[] document)
     public Document parse(final String documentName, final char[] document, final int offset, final int len)
             throws ParseException {
 
-        final DOMBuilderMarkupHandler domHandler = new DOMBuilderMarkupHandler(documentName);
+        final DOMBuilderMarkupHandler domHandler = new DOMBuilderMarkupHandler(documentName, this.lazy);
         this.markupParser.parse(document, offset, len, domHandler);
         return domHandler.getDocument();
 
@@ -166,7 +183,7 @@ public Document parse(final String documentName, final char[] document, final in
     public Document parse(final String documentName, final Reader reader)
             throws ParseException {
 
-        final DOMBuilderMarkupHandler domHandler = new DOMBuilderMarkupHandler(documentName);
+        final DOMBuilderMarkupHandler domHandler = new DOMBuilderMarkupHandler(documentName, this.lazy);
         this.markupParser.parse(reader, domHandler);
         return domHandler.getDocument();
 
@@ -19,6 +19,8 @@
  */
 package org.attoparser.dom;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.Collections;
 import java.util.LinkedHashMap;
@@ -45,6 +47,12 @@ public class Element
     
     private Map<String,String> attributes = null;
     private int attributesLen = 0;
+
+    // Lazy attributes (see DOMBuilderMarkupHandler), until they are modified. Reading them (even as a map) never
+    // clears these fields, and the map is fully built before being published, so concurrent readers are safe
+    private transient LazyDocumentText lazyText = null;
+    private transient int lazyAttributesOffset = 0;
+    private transient volatile Map<String,String> lazyAttributeMap = null;
     
 
 
@@ -99,6 +107,9 @@ public boolean hasAttributes() {
     
     
     public boolean hasAttribute(final String attributeName) {
+        if (this.lazyText != null) {
+            return this.lazyText.findAttribute(this.lazyAttributesOffset, this.attributesLen, attributeName) >= 0;
+        }
         if (this.attributesLen > 0) {
             return this.attributes.containsKey(attributeName);
         }
@@ -107,6 +118,12 @@ public boolean hasAttribute(final String attributeName) {
 
     
     public String getAttributeValue(final String attributeName) {
+        if (this.lazyText != null) {
+            // Only the String for the requested value is created
+            final int attribute =
+                    this.lazyText.findAttribute(this.lazyAttributesOffset, this.attributesLen, attributeName);
+            return (attribute < 0? null : this.lazyText.getAttributeValue(attribute));
+        }
         if (this.attributesLen > 0) {
             return this.attributes.get(attributeName);
         }
@@ -117,6 +134,9 @@ public String getAttributeValue(final String attributeName) {
     
     
     public Map<String,String> getAttributeMap() {
+        if (this.lazyText != null) {
+            return Collections.unmodifiableMap(getLazyAttributeMap());
+        }
         if (this.attributesLen > 0) {
             return Collections.unmodifiableMap(this.attributes);
         }
@@ -128,6 +148,7 @@ public Map<String,String> getAttributeMap() {
 
     public void addAttribute(final String attributeName, final String attributeValue) {
         
+        detachAttributes();
         if (this.attributesLen == 0) {
             this.attributes = new LinkedHashMap<String, String>();
         }
@@ -140,6 +161,7 @@ public void addAttribute(final String attributeName, final String attributeValue
     public void addAttributes(final Map<String,String> newAttributes) {
         
         if (newAttributes != null) {
+            detachAttributes();
             if (this.attributesLen == 0) {
                 this.attributes = new LinkedHashMap<String, String>();
             }
@@ -154,6 +176,7 @@ public void addAttributes(final Map<String,String> newAttributes) {
     
     public void removeAttribute(final String attributeName) {
         
+        detachAttributes();
         if (this.attributesLen > 0) {
             
             if (this.attributes.containsKey(attributeName)) {
@@ -171,7 +194,41 @@ public void removeAttribute(final String attributeName) {
     
     
     
+    void setLazyAttributes(final LazyDocumentText lazyText, final int offset, final int len) {
+        this.attributes = null;
+        this.attributesLen = len;
+        this.lazyText = (len > 0? lazyText : null);
+        this.lazyAttributesOffset = offset;
+    }
+
+
+    private Map<String,String> getLazyAttributeMap() {
+        Map<String,String> map = this.lazyAttributeMap;
+        if (map == null) {
+            map = new LinkedHashMap<String, String>(this.attributesLen + 1, 1.0f);
+            for (int i = this.lazyAttributesOffset, n = i + this.attributesLen; i < n; i++) {
+                map.put(this.lazyText.getAttributeName(i), this.lazyText.getAttributeValue(i));
+            }
+            this.lazyAttributeMap = map;
+        }
+        return map;
+    }
+
+
+    private void detachAttributes() {
+        if (this.lazyText != null) {
+            this.attributes = getLazyAttributeMap();
+            this.lazyText = null;
+            this.lazyAttributeMap = null;
+        }
+    }
+
+    
+    
+    
     public void clearAttributes() {
+        this.lazyText = null;
+        this.lazyAttributeMap = null;
         this.attributes = null;
         this.attributesLen = 0;
     }
@@ -189,7 +246,11 @@ public void clearAttributes() {
 
     public Element cloneNode(final INestableNode parent) {
         final Element element = new Element(this.elementName);
-        element.addAttributes(this.attributes);
+        if (this.lazyText != null) {
+            element.setLazyAttributes(this.lazyText, this.lazyAttributesOffset, this.attributesLen);
+        } else {
+            element.addAttributes(this.attributes);
+        }
         for (final INode child : getChildren()) {
             final INode clonedChild = child.cloneNode(element);
             element.addChild(clonedChild);
@@ -200,6 +261,17 @@ public Element cloneNode(final INestableNode parent) {
         return element;
     }
 
-    
+
+
+    private void writeObject(final ObjectOutputStream out) throws IOException {
+        // Lazy attributes cannot be serialized, so the attribute map is written instead (without detaching them,
+        // as serializing is a read operation that might happen concurrently with others)
+        final ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("elementName", this.elementName);
+        fields.put("attributes", (this.lazyText != null? getLazyAttributeMap() : this.attributes));
+        fields.put("attributesLen", this.attributesLen);
+        out.writeFields();
+    }
+
 
 }
@@ -0,0 +1,194 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser.dom;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+
+/*
+ * Copy of the texts of a document (text, comment and CDATA contents, and attribute names and values) retained
+ * by the nodes created by DOMBuilderMarkupHandler in lazy mode, so that Strings (and attribute maps) are only
+ * created for them when they are first accessed.
+ *
+ * Only the builder appends to this object. Once the document has been built its contents never change, so
+ * it can be safely shared by nodes and their clones.
+ *
+ * As in CompactDOMBuilderMarkupHandler, texts are stored as Latin-1 bytes (as Strings are in modern JVMs) until a
+ * char that does not fit in a byte is found.
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+final class LazyDocumentText {
+
+    private static final int INITIAL_CHARS = 1024;
+    private static final int INITIAL_ATTRIBUTES = 32;
+
+    private byte[] bytes = new byte[INITIAL_CHARS];
+    private char[] chars = null;
+    private int numChars = 0;
+
+    private String[] attributeNames = new String[INITIAL_ATTRIBUTES];
+    private int[] attributeOffsets = new int[INITIAL_ATTRIBUTES];
+    private int[] attributeLens = new int[INITIAL_ATTRIBUTES];
+    private int numAttributes = 0;
+
+
+
+
+    LazyDocumentText() {
+        super();
+    }
+
+
+
+
+    int addChars(final char[] buffer, final int offset, final int len) {
+
+        final int charsOffset = this.numChars;
+        final int newNumChars = charsOffset + len;
+
+        if (this.bytes != null) {
+
+            if (newNumChars > this.bytes.length) {
+                this.bytes = Arrays.copyOf(this.bytes, Math.max(this.bytes.length * 2, newNumChars));
+            }
+            final byte[] b = this.bytes;
+            for (int i = 0; i < len; i++) {
+                final char c = buffer[offset + i];
+                if (c > 0xFF) {
+                    // Cannot be stored as Latin-1: move everything to chars and copy the rest there
+                    widen(Math.max(b.length, newNumChars));
+                    System.arraycopy(buffer, offset + i, this.chars, charsOffset + i, len - i);
+                    this.numChars = newNumChars;
+                    return charsOffset;
+                }
+                b[charsOffset + i] = (byte) c;
+            }
+
+        } else {
+
+            if (newNumChars > this.chars.length) {
+                this.chars = Arrays.copyOf(this.chars, Math.max(this.chars.length * 2, newNumChars));
+            }
+            System.arraycopy(buffer, offset, this.chars, charsOffset, len);
+
+        }
+
+        this.numChars = newNumChars;
+        return charsOffset;
+
+    }
+
+
+    private void widen(final int capacity) {
+        // Also copies the bytes already written by the current call, beyond numChars
+        final byte[] b = this.bytes;
+        final char[] c = new char[capacity];
+        for (int i = 0; i < b.length; i++) {
+            c[i] = (char) (b[i] & 0xFF);
+        }
+        this.chars = c;
+        this.bytes = null;
+    }
+
+
+    String getText(final int offset, final int len) {
+        if (this.bytes != null) {
+            return new String(this.bytes, offset, len, StandardCharsets.ISO_8859_1);
+        }
+        return new String(this.chars, offset, len);
+    }
+
+
+
+
+    int numAttributes() {
+        return this.numAttributes;
+    }
+
+
+    /*
+     * Attributes of an element are contiguous (starting at 'first'). As in the attribute maps of eager elements,
+     * repeated names keep their first position but take the last value. Returns whether a new attribute was added.
+     */
+    boolean addAttribute(
+            final int first, final String name, final char[] buffer, final int valueOffset, final int valueLen) {
+
+        final int valueCharsOffset = addChars(buffer, valueOffset, valueLen);
+
+        final int existing = findAttribute(first, this.numAttributes - first, name);
+        if (existing >= 0) {
+            this.attributeOffsets[existing] = valueCharsOffset;
+            this.attributeLens[existing] = valueLen;
+            return false;
+        }
+
+        if (this.numAttributes == this.attributeNames.length) {
+            final int newLen = this.numAttributes * 2;
+            this.attributeNames = Arrays.copyOf(this.attributeNames, newLen);
+            this.attributeOffsets = Arrays.copyOf(this.attributeOffsets, newLen);
+            this.attributeLens = Arrays.copyOf(this.attributeLens, newLen);
+        }
+
+        final int attribute = this.numAttributes++;
+        this.attributeNames[attribute] = name;
+        this.attributeOffsets[attribute] = valueCharsOffset;
+        this.attributeLens[attribute] = valueLen;
+        return true;
+
+    }
+
+
+    int findAttribute(final int first, final int len, final String name) {
+        for (int i = first, n = first + len; i < n; i++) {
+            if (this.attributeNames[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+
+    String getAttributeName(final int attribute) {
+        return this.attributeNames[attribute];
+    }
+
+
+    String getAttributeValue(final int attribute) {
+        return getText(this.attributeOffsets[attribute], this.attributeLens[attribute]);
+    }
+
+
+
+
+    void trim() {
+        if (this.bytes != null) {
+            this.bytes = Arrays.copyOf(this.bytes, this.numChars);
+        } else {
+            this.chars = Arrays.copyOf(this.chars, this.numChars);
+        }
+        this.attributeNames = Arrays.copyOf(this.attributeNames, this.numAttributes);
+        this.attributeOffsets = Arrays.copyOf(this.attributeOffsets, this.numAttributes);
+        this.attributeLens = Arrays.copyOf(this.attributeLens, this.numAttributes);
+    }
+
+}
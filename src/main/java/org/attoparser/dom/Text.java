@@ -19,6 +19,8 @@
  */
 package org.attoparser.dom;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 
 
@@ -41,6 +43,12 @@ public class Text
     
     private String content;
 
+    // Lazy content (see DOMBuilderMarkupHandler), while content is null. Reading the content never clears these
+    // fields: it only sets content, which (being an immutable String) can be safely seen by concurrent readers
+    private transient LazyDocumentText lazyText = null;
+    private transient int lazyOffset = 0;
+    private transient int lazyLen = 0;
+
 
     public Text(final String content) {
         super();
@@ -50,10 +58,32 @@ public Text(final String content) {
         this.content = content;
     }
 
+
+    Text(final LazyDocumentText lazyText, final int offset, final int len) {
+        super();
+        this.lazyText = lazyText;
+        this.lazyOffset = offset;
+        this.lazyLen = len;
+    }
+
+
+    Text(final Text original) {
+        super();
+        this.content = original.content;
+        this.lazyText = original.lazyText;
+        this.lazyOffset = original.lazyOffset;
+        this.lazyLen = original.lazyLen;
+    }
+
     
     
     public String getContent() {
-        return this.content;
+        String content = this.content;
+        if (content == null) {
+            content = this.lazyText.getText(this.lazyOffset, this.lazyLen);
+            this.content = content;
+        }
+        return content;
     }
     
 
@@ -62,22 +92,32 @@ public void setContent(final String content) {
             throw new IllegalArgumentException("Content cannot be null");
         }
         this.content = content;
+        this.lazyText = null;
     }
 
     
     public void setContent(final char[] buffer, final int offset, final int len) {
         this.content = new String(buffer, offset, len);
+        this.lazyText = null;
     }
 
     
     
     public Text cloneNode(final INestableNode parent) {
-        final Text text = new Text(this.content);
+        final Text text = new Text(this);
         text.setLine(getLine());
         text.setCol(getCol());
         text.setParent(parent);
         return text;
     }
 
-    
+
+
+    private void writeObject(final ObjectOutputStream out) throws IOException {
+        // Lazy content cannot be serialized, so it is created first
+        getContent();
+        out.defaultWriteObject();
+    }
+
+
 }
@@ -153,6 +153,19 @@ public void handleText(final char[] buffer, final int offset, final int len, fin
 
 
 
+    @Override
+    public void handleSkippedElementContents(
+            final char[] buffer, final int offset, final int len, final int line, final int col)
+            throws ParseException {
+
+        this.handler1.handleSkippedElementContents(buffer, offset, len, line, col);
+        this.handler2.handleSkippedElementContents(buffer, offset, len, line, col);
+
+    }
+
+
+
+
     @Override
     public void handleComment(
             final char[] buffer, 
@@ -0,0 +1,96 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser.extract;
+
+import java.io.Writer;
+
+
+/*
+ * Reusable writer in which the texts and markup of matched blocks are accumulated until the block ends. Unlike
+ * CharArrayWriter, it allows direct access to its internal buffer, so that values can be reported without
+ * creating new char[] or String objects.
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+final class ExtractionBuffer extends Writer {
+
+    private static final int DEFAULT_BUFFER_SIZE = 256;
+
+    char[] buffer;
+    int len;
+
+
+    ExtractionBuffer() {
+        super();
+        this.buffer = new char[DEFAULT_BUFFER_SIZE];
+        this.len = 0;
+    }
+
+
+    void reset() {
+        this.len = 0;
+    }
+
+
+    private void ensureCapacity(final int required) {
+        if (required > this.buffer.length) {
+            final char[] newBuffer = new char[Math.max(required, this.buffer.length * 2)];
+            System.arraycopy(this.buffer, 0, newBuffer, 0, this.len);
+            this.buffer = newBuffer;
+        }
+    }
+
+
+    @Override
+    public void write(final char[] cbuf, final int off, final int len) {
+        ensureCapacity(this.len + len);
+        System.arraycopy(cbuf, off, this.buffer, this.len, len);
+        this.len += len;
+    }
+
+
+    @Override
+    public void write(final int c) {
+        ensureCapacity(this.len + 1);
+        this.buffer[this.len++] = (char) c;
+    }
+
+
+    @Override
+    public void write(final String str, final int off, final int len) {
+        ensureCapacity(this.len + len);
+        str.getChars(off, off + len, this.buffer, this.len);
+        this.len += len;
+    }
+
+
+    @Override
+    public void flush() {
+        // Nothing to be done
+    }
+
+
+    @Override
+    public void close() {
+        // Nothing to be done
+    }
+
+}
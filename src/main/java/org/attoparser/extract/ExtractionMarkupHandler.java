@@ -0,0 +1,101 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser.extract;
+
+import org.attoparser.AbstractChainedMarkupHandler;
+import org.attoparser.select.BlockSelectorMarkupHandler;
+
+
+/**
+ * <p>
+ *   Implementation of {@link org.attoparser.IMarkupHandler} that extracts values (texts, attribute values or
+ *   markup) from a document by applying a set of {@link ExtractionRules}, reporting these values to an
+ *   {@link IExtractionHandler} as they are found.
+ * </p>
+ * <p>
+ *   All rules are applied in a single pass by means of a {@link BlockSelectorMarkupHandler}, without building any
+ *   DOM trees. Events not matched by any of the rules are simply discarded, without creating any objects for them,
+ *   and attribute values are reported directly from the parser's buffers. Texts and markup are accumulated in
+ *   buffers reused for the whole parsing operation, and reported once the matched block of markup ends.
+ * </p>
+ * <p>
+ *   Rules apply <em>block selection</em> (see {@link BlockSelectorMarkupHandler}): once an element has been matched
+ *   by a rule, the whole block of markup it starts is the value for that match, and elements nested inside it are
+ *   not matched again by the same rule (even if they match its selector), so they are not reported as separate
+ *   values. For example, a <kbd>text("items", "li")</kbd> rule applied on
+ *   <kbd>&lt;li&gt;two&lt;ul&gt;&lt;li&gt;nested&lt;/li&gt;&lt;/ul&gt;&lt;/li&gt;</kbd> will report only one value:
+ *   <kbd>"twonested"</kbd>.
+ * </p>
+ * <p>
+ *   Values are reported exactly as they appear in the document, i.e. texts and attribute values are
+ *   <strong>not unescaped</strong>: <kbd>&lt;title&gt;T &amp;amp; x&lt;/title&gt;</kbd> will be extracted as
+ *   <kbd>"T &amp;amp; x"</kbd>. Unescaping entity and character references, if needed, is left to the caller.
+ * </p>
+ * <p>
+ *   Sample usage:
+ * </p>
+ * <pre><code>
+ *   final ExtractionRules rules = new ExtractionRules(
+ *       ExtractionRule.text("title", "title"),
+ *       ExtractionRule.attribute("links", "a", "href"),
+ *       ExtractionRule.outerMarkup("price", "div.price"));
+ *
+ *   final ExtractionResult result = new ExtractionResult(rules);
+ *   parser.parse(document, new ExtractionMarkupHandler(rules, result));
+ * </code></pre>
+ * <p>
+ *   Note that, as with most handlers, this class is <strong>not thread-safe</strong>. Also, instances of this class
+ *   should not be reused across parsing operations (unlike {@link ExtractionRules} objects, which should).
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 2.0.10
+ *
+ */
+public final class ExtractionMarkupHandler extends AbstractChainedMarkupHandler {
+
+
+    /**
+     * <p>
+     *   Create a new instance of this handler.
+     * </p>
+     *
+     * @param rules the rules to be applied.
+     * @param handler the handler the extracted values will be reported to.
+     */
+    public ExtractionMarkupHandler(final ExtractionRules rules, final IExtractionHandler handler) {
+        super(createSelectorHandler(rules, handler));
+    }
+
+
+    private static BlockSelectorMarkupHandler createSelectorHandler(
+            final ExtractionRules rules, final IExtractionHandler handler) {
+        if (rules == null) {
+            throw new IllegalArgumentException("Extraction rules cannot be null");
+        }
+        if (handler == null) {
+            throw new IllegalArgumentException("Extraction handler cannot be null");
+        }
+        return new BlockSelectorMarkupHandler(
+                new ValueExtractingMarkupHandler(rules, handler), rules.selectors);
+    }
+
+}
@@ -0,0 +1,185 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser.extract;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * <p>
+ *   Implementation of {@link IExtractionHandler} that collects all extracted values as <kbd>String</kbd> objects,
+ *   grouped by rule and in document order.
+ * </p>
+ * <p>
+ *   Objects of this class can be reused for several (non-concurrent) parsing operations by calling
+ *   {@link #reset()} between them, which keeps the internal structures allocated.
+ * </p>
+ * <p>
+ *   Sample usage:
+ * </p>
+ * <pre><code>
+ *   // Rules should be created once and reused
+ *   final ExtractionRules rules = new ExtractionRules(
+ *       ExtractionRule.text("title", "title"),
+ *       ExtractionRule.attribute("links", "a", "href"),
+ *       ExtractionRule.attribute("description", "meta[@name='description']", "content"),
+ *       ExtractionRule.text("price", "div.price"));
+ *
+ *   final ExtractionResult result = new ExtractionResult(rules);
+ *   parser.parse(document, new ExtractionMarkupHandler(rules, result));
+ *   final String title = result.getValue("title");
+ *   final List&lt;String&gt; links = result.getValues("links");
+ * </code></pre>
+ * <p>
+ *   Note that, as with most handlers, this class is <strong>not thread-safe</strong>.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 2.0.10
+ *
+ */
+public final class ExtractionResult implements IExtractionHandler {
+
+    private final ExtractionRules rules;
+    private final List<List<String>> values;
+
+
+
+
+    /**
+     * <p>
+     *   Creates a new result for the specified set of rules.
+     * </p>
+     *
+     * @param rules the rules whose values will be collected.
+     */
+    public ExtractionResult(final ExtractionRules rules) {
+        super();
+        if (rules == null) {
+            throw new IllegalArgumentException("Extraction rules cannot be null");
+        }
+        this.rules = rules;
+        this.values = new ArrayList<List<String>>(rules.size());
+        for (int i = 0; i < rules.size(); i++) {
+            this.values.add(new ArrayList<String>(2));
+        }
+    }
+
+
+
+
+    public void handleValue(final int ruleIndex, final char[] buffer, final int offset, final int len) {
+        this.values.get(ruleIndex).add(new String(buffer, offset, len));
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Returns the set of rules whose values are collected by this result.
+     * </p>
+     *
+     * @return the rules.
+     */
+    public ExtractionRules getRules() {
+        return this.rules;
+    }
+
+
+    /**
+     * <p>
+     *   Returns all the values extracted for the rule with the specified index, in document order.
+     * </p>
+     *
+     * @param ruleIndex the index of the rule.
+     * @return the values (an empty list if none were extracted).
+     */
+    public List<String> getValues(final int ruleIndex) {
+        return Collections.unmodifiableList(this.values.get(ruleIndex));
+    }
+
+
+    /**
+     * <p>
+     *   Returns all the values extracted for the rule with the specified name, in document order.
+     * </p>
+     *
+     * @param ruleName the name of the rule.
+     * @return the values (an empty list if none were extracted).
+     */
+    public List<String> getValues(final String ruleName) {
+        return getValues(ruleIndex(ruleName));
+    }
+
+
+    /**
+     * <p>
+     *   Returns the first value extracted for the rule with the specified name.
+     * </p>
+     *
+     * @param ruleName the name of the rule.
+     * @return the first value, or null if no values were extracted.
+     */
+    public String getValue(final String ruleName) {
+        final List<String> ruleValues = this.values.get(ruleIndex(ruleName));
+        return (ruleValues.isEmpty() ? null : ruleValues.get(0));
+    }
+
+
+    /**
+     * <p>
+     *   Removes all collected values, so that this object can be reused for a new parsing operation.
+     * </p>
+     */
+    public void reset() {
+        for (int i = 0; i < this.values.size(); i++) {
+            this.values.get(i).clear();
+        }
+    }
+
+
+    private int ruleIndex(final String ruleName) {
+        final int ruleIndex = this.rules.indexOf(ruleName);
+        if (ruleIndex < 0) {
+            throw new IllegalArgumentException("No extraction rule exists with name \"" + ruleName + "\"");
+        }
+        return ruleIndex;
+    }
+
+
+    @Override
+    public String toString() {
+        final StringBuilder strBuilder = new StringBuilder();
+        strBuilder.append('{');
+        for (int i = 0; i < this.values.size(); i++) {
+            if (i > 0) {
+                strBuilder.append(", ");
+            }
+            strBuilder.append(this.rules.getRule(i).getName()).append('=').append(this.values.get(i));
+        }
+        strBuilder.append('}');
+        return strBuilder.toString();
+    }
+
+}
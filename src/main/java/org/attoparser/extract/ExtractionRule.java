@@ -0,0 +1,194 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser.extract;
+
+
+/**
+ * <p>
+ *   Rule for extracting a value from a document, applied by {@link ExtractionMarkupHandler}.
+ * </p>
+ * <p>
+ *   Each rule specifies a name, a <em>markup selector</em> (see {@link org.attoparser.select}) and what should be
+ *   extracted from each of the blocks of markup matched by that selector:
+ * </p>
+ * <ul>
+ *   <li>{@link Type#TEXT}: the text contained in the block, i.e. the contents of all the text events in it
+ *       (no tags, comments or CDATA sections).</li>
+ *   <li>{@link Type#ATTRIBUTE}: the value of a specific attribute of the element that starts the block (if the
+ *       element has no such attribute, no value is extracted).</li>
+ *   <li>{@link Type#OUTER_MARKUP}: the complete markup of the block, including the matched element itself.</li>
+ * </ul>
+ * <p>
+ *   Values are extracted as they appear in the document (texts and attribute values are not unescaped), and
+ *   elements nested inside a matched block are not matched again by the same rule, even if they match its
+ *   selector. See {@link ExtractionMarkupHandler} for details.
+ * </p>
+ * <p>
+ *   Rules are created by means of the {@link #text(String, String)}, {@link #attribute(String, String, String)} and
+ *   {@link #outerMarkup(String, String)} methods, and grouped (and compiled) into {@link ExtractionRules} objects.
+ * </p>
+ * <p>
+ *   Objects of this class are immutable and therefore <strong>thread-safe</strong>.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 2.0.10
+ *
+ */
+public final class ExtractionRule {
+
+
+    /**
+     * <p>
+     *   Types of value that can be extracted from the blocks of markup matched by a rule.
+     * </p>
+     */
+    public enum Type { TEXT, ATTRIBUTE, OUTER_MARKUP }
+
+
+    private final String name;
+    private final String selector;
+    private final Type type;
+    private final String attributeName;
+
+
+
+
+    /**
+     * <p>
+     *   Creates a rule for extracting the text contained in the blocks of markup matched by a selector.
+     * </p>
+     *
+     * @param name the name of the rule.
+     * @param selector the markup selector.
+     * @return the new rule.
+     */
+    public static ExtractionRule text(final String name, final String selector) {
+        return new ExtractionRule(name, selector, Type.TEXT, null);
+    }
+
+
+    /**
+     * <p>
+     *   Creates a rule for extracting the value of an attribute from the elements matched by a selector.
+     * </p>
+     *
+     * @param name the name of the rule.
+     * @param selector the markup selector.
+     * @param attributeName the name of the attribute (case-insensitive in HTML mode).
+     * @return the new rule.
+     */
+    public static ExtractionRule attribute(final String name, final String selector, final String attributeName) {
+        if (attributeName == null || attributeName.length() == 0) {
+            throw new IllegalArgumentException("Attribute name cannot be null or empty");
+        }
+        return new ExtractionRule(name, selector, Type.ATTRIBUTE, attributeName);
+    }
+
+
+    /**
+     * <p>
+     *   Creates a rule for extracting the complete markup of the blocks matched by a selector.
+     * </p>
+     *
+     * @param name the name of the rule.
+     * @param selector the markup selector.
+     * @return the new rule.
+     */
+    public static ExtractionRule outerMarkup(final String name, final String selector) {
+        return new ExtractionRule(name, selector, Type.OUTER_MARKUP, null);
+    }
+
+
+
+
+    private ExtractionRule(final String name, final String selector, final Type type, final String attributeName) {
+        super();
+        if (name == null || name.length() == 0) {
+            throw new IllegalArgumentException("Rule name cannot be null or empty");
+        }
+        if (selector == null || selector.trim().length() == 0) {
+            throw new IllegalArgumentException("Selector cannot be null or empty");
+        }
+        this.name = name;
+        this.selector = selector;
+        this.type = type;
+        this.attributeName = attributeName;
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Returns the name of this rule.
+     * </p>
+     *
+     * @return the name of the rule.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the markup selector of this rule.
+     * </p>
+     *
+     * @return the selector.
+     */
+    public String getSelector() {
+        return this.selector;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the type of value extracted by this rule.
+     * </p>
+     *
+     * @return the type of value.
+     */
+    public Type getType() {
+        return this.type;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the name of the attribute extracted by this rule, if its type is {@link Type#ATTRIBUTE}.
+     * </p>
+     *
+     * @return the name of the attribute, or null if this rule does not extract attribute values.
+     */
+    public String getAttributeName() {
+        return this.attributeName;
+    }
+
+
+    @Override
+    public String toString() {
+        return this.name + "=" + this.type + "(" + this.selector +
+                (this.attributeName != null ? ", " + this.attributeName : "") + ")";
+    }
+
+}
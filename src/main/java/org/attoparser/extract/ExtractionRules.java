@@ -0,0 +1,166 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser.extract;
+
+import org.attoparser.select.CompiledMarkupSelectors;
+import org.attoparser.select.IMarkupSelectorReferenceResolver;
+
+
+/**
+ * <p>
+ *   Set of {@link ExtractionRule} objects, compiled so that they can be applied by {@link ExtractionMarkupHandler}
+ *   handlers in a single parsing pass.
+ * </p>
+ * <p>
+ *   Rules are identified by their index in the set, which is the one used for reporting extracted values to
+ *   {@link IExtractionHandler} implementations. Rule names must be unique in a set.
+ * </p>
+ * <p>
+ *   Objects of this class are immutable and therefore <strong>thread-safe</strong>, so they can (and should) be
+ *   created once and reused for as many parsing operations as needed. The selectors of the rules are compiled
+ *   only once (see {@link CompiledMarkupSelectors}), and shared by all the handlers using the set.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 2.0.10
+ *
+ */
+public final class ExtractionRules {
+
+    private final ExtractionRule[] rules;
+
+    // Compiled forms of the rules, used by the extracting handlers
+    final CompiledMarkupSelectors selectors;
+    final ExtractionRule.Type[] types;
+    final char[][] attributeNames;
+
+
+
+
+    /**
+     * <p>
+     *   Creates a new set of rules.
+     * </p>
+     *
+     * @param rules the rules.
+     */
+    public ExtractionRules(final ExtractionRule... rules) {
+        this(rules, null);
+    }
+
+
+    /**
+     * <p>
+     *   Creates a new set of rules, specifying a reference resolver for the selectors in them.
+     * </p>
+     *
+     * @param rules the rules.
+     * @param referenceResolver the reference resolver to be used for the selectors (can be null).
+     */
+    public ExtractionRules(final ExtractionRule[] rules, final IMarkupSelectorReferenceResolver referenceResolver) {
+
+        super();
+
+        if (rules == null || rules.length == 0) {
+            throw new IllegalArgumentException("At least one extraction rule must be specified");
+        }
+
+        this.rules = rules.clone();
+
+        final String[] selectors = new String[this.rules.length];
+        this.types = new ExtractionRule.Type[this.rules.length];
+        this.attributeNames = new char[this.rules.length][];
+
+        for (int i = 0; i < this.rules.length; i++) {
+            final ExtractionRule rule = this.rules[i];
+            if (rule == null) {
+                throw new IllegalArgumentException("Extraction rules cannot be null");
+            }
+            if (indexOf(rule.getName()) != i) {
+                throw new IllegalArgumentException("Duplicate extraction rule name: \"" + rule.getName() + "\"");
+            }
+            selectors[i] = rule.getSelector();
+            this.types[i] = rule.getType();
+            this.attributeNames[i] = (rule.getAttributeName() != null ? rule.getAttributeName().toCharArray() : null);
+        }
+
+        this.selectors = new CompiledMarkupSelectors(selectors, referenceResolver);
+
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Returns the number of rules in this set.
+     * </p>
+     *
+     * @return the number of rules.
+     */
+    public int size() {
+        return this.rules.length;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the rule at the specified index.
+     * </p>
+     *
+     * @param index the index of the rule.
+     * @return the rule.
+     */
+    public ExtractionRule getRule(final int index) {
+        return this.rules[index];
+    }
+
+
+    /**
+     * <p>
+     *   Returns the index of the rule with the specified name.
+     * </p>
+     *
+     * @param name the name of the rule.
+     * @return the index of the rule, or -1 if there is no rule with that name in this set.
+     */
+    public int indexOf(final String name) {
+        for (int i = 0; i < this.rules.length; i++) {
+            if (this.rules[i] != null && this.rules[i].getName().equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the reference resolver used for the selectors in this set.
+     * </p>
+     *
+     * @return the reference resolver, or null if none was specified.
+     */
+    public IMarkupSelectorReferenceResolver getReferenceResolver() {
+        return this.selectors.getReferenceResolver();
+    }
+
+}
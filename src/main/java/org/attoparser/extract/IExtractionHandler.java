@@ -0,0 +1,63 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser.extract;
+
+import org.attoparser.ParseException;
+
+
+/**
+ * <p>
+ *   Interface to be implemented by all the callbacks that receive the values extracted by an
+ *   {@link ExtractionMarkupHandler}.
+ * </p>
+ * <p>
+ *   Values are reported as fragments of <kbd>char[]</kbd> buffers, which can belong to the parser or to the
+ *   extraction handler and <strong>are only valid during the execution of the callback</strong>. Implementations
+ *   needing to keep these values must therefore copy them (e.g. by creating a <kbd>String</kbd>), and should never
+ *   modify the buffers.
+ * </p>
+ * <p>
+ *   {@link ExtractionResult} is an implementation of this interface that collects all values as <kbd>String</kbd>
+ *   objects.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 2.0.10
+ *
+ */
+public interface IExtractionHandler {
+
+
+    /**
+     * <p>
+     *   Called when a value has been extracted.
+     * </p>
+     *
+     * @param ruleIndex the index of the rule (in its {@link ExtractionRules} set) the value was extracted for.
+     * @param buffer the buffer containing the value.
+     * @param offset the offset (position in buffer) where the value starts.
+     * @param len the length (in chars) of the value.
+     * @throws ParseException if any exceptions occur during handling.
+     */
+    public void handleValue(final int ruleIndex, final char[] buffer, final int offset, final int len)
+            throws ParseException;
+
+}
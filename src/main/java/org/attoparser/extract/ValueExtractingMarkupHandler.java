@@ -0,0 +1,582 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser.extract;
+
+import org.attoparser.AbstractMarkupHandler;
+import org.attoparser.ParseException;
+import org.attoparser.config.ParseConfiguration;
+import org.attoparser.output.OutputMarkupHandler;
+import org.attoparser.select.ParseSelection;
+import org.attoparser.util.TextUtil;
+
+
+/*
+ * Handler set as the "selected" handler of the BlockSelectorMarkupHandler created by ExtractionMarkupHandler, so
+ * that it only receives the events belonging to blocks matched by any of the extraction rules. The selector
+ * matching each event is checked at the ParseSelection (selectors have the same indexes as rules).
+ *
+ * A rule becomes active at the first event it matches, and stays active until the end of that event if it is not
+ * an element, or until the element is closed (which happens at the same depth). Given only events in selected
+ * blocks arrive here, depth is computed with respect to the outermost selected block.
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+final class ValueExtractingMarkupHandler extends AbstractMarkupHandler {
+
+    private final IExtractionHandler handler;
+    private final int rulesLen;
+    private final ExtractionRule.Type[] types;
+    private final char[][] attributeNames;
+
+    private ParseSelection selection = null;
+    private int selectionLevel = -1;
+    private boolean html = true;
+
+    private int depth = 0;
+    private final boolean[] active;
+    private final int[] activeDepths;
+    private final boolean[] inStartTag;
+
+    // Created only for TEXT and OUTER_MARKUP rules
+    private final ExtractionBuffer[] buffers;
+    private final OutputMarkupHandler[] outputHandlers;
+
+
+
+    ValueExtractingMarkupHandler(final ExtractionRules rules, final IExtractionHandler handler) {
+
+        super();
+
+        this.handler = handler;
+        this.rulesLen = rules.size();
+        this.types = rules.types;
+        this.attributeNames = rules.attributeNames;
+
+        this.active = new boolean[this.rulesLen];
+        this.activeDepths = new int[this.rulesLen];
+        this.inStartTag = new boolean[this.rulesLen];
+
+        this.buffers = new ExtractionBuffer[this.rulesLen];
+        this.outputHandlers = new OutputMarkupHandler[this.rulesLen];
+        for (int i = 0; i < this.rulesLen; i++) {
+            if (this.types[i] != ExtractionRule.Type.ATTRIBUTE) {
+                this.buffers[i] = new ExtractionBuffer();
+            }
+            if (this.types[i] == ExtractionRule.Type.OUTER_MARKUP) {
+                this.outputHandlers[i] = new OutputMarkupHandler(this.buffers[i]);
+            }
+        }
+
+    }
+
+
+
+
+    @Override
+    public void setParseConfiguration(final ParseConfiguration parseConfiguration) {
+        this.html = (ParseConfiguration.ParsingMode.HTML == parseConfiguration.getMode());
+        for (int i = 0; i < this.rulesLen; i++) {
+            if (this.outputHandlers[i] != null) {
+                this.outputHandlers[i].setParseConfiguration(parseConfiguration);
+            }
+        }
+    }
+
+
+    @Override
+    public void setParseSelection(final ParseSelection selection) {
+        if (this.selection == null) {
+            this.selection = selection;
+        }
+        if (this.selectionLevel == -1) {
+            // Our BlockSelectorMarkupHandler has just subscribed its level, before delegating this call to us
+            this.selectionLevel = this.selection.getSelectionLevels() - 1;
+        }
+    }
+
+
+
+
+    /*
+     * Starts the rules that match the current event and are not active yet. Returns whether any rules are active.
+     */
+    private boolean startMatchingRules(final boolean startTag) {
+        boolean anyActive = false;
+        for (int i = 0; i < this.rulesLen; i++) {
+            if (!this.active[i] && this.selection.isMatching(this.selectionLevel, i)) {
+                this.active[i] = true;
+                this.activeDepths[i] = this.depth;
+                this.inStartTag[i] = startTag;
+                if (this.buffers[i] != null) {
+                    this.buffers[i].reset();
+                }
+            }
+            anyActive |= this.active[i];
+        }
+        return anyActive;
+    }
+
+
+    /*
+     * Finishes the rules started at the current depth, reporting the values accumulated for them.
+     */
+    private void finishRules() throws ParseException {
+        for (int i = 0; i < this.rulesLen; i++) {
+            if (this.active[i] && this.activeDepths[i] == this.depth) {
+                this.active[i] = false;
+                this.inStartTag[i] = false;
+                if (this.buffers[i] != null) {
+                    this.handler.handleValue(i, this.buffers[i].buffer, 0, this.buffers[i].len);
+                }
+            }
+        }
+    }
+
+
+    private void endStartTags() {
+        for (int i = 0; i < this.rulesLen; i++) {
+            this.inStartTag[i] = false;
+        }
+    }
+
+
+
+
+    /*
+     * -------------------------------------------------------------
+     * Non-element events: these start and finish at the same event
+     * -------------------------------------------------------------
+     */
+
+    @Override
+    public void handleXmlDeclaration(
+            final char[] buffer,
+            final int keywordOffset, final int keywordLen,
+            final int keywordLine, final int keywordCol,
+            final int versionOffset, final int versionLen,
+            final int versionLine, final int versionCol,
+            final int encodingOffset, final int encodingLen,
+            final int encodingLine, final int encodingCol,
+            final int standaloneOffset, final int standaloneLen,
+            final int standaloneLine, final int standaloneCol,
+            final int outerOffset, final int outerLen,
+            final int line, final int col)
+            throws ParseException {
+        if (!startMatchingRules(false)) {
+            return;
+        }
+        for (int i = 0; i < this.rulesLen; i++) {
+            if (this.active[i] && this.outputHandlers[i] != null) {
+                this.outputHandlers[i].handleXmlDeclaration(
+                        buffer,
+                        keywordOffset, keywordLen, keywordLine, keywordCol,
+                        versionOffset, versionLen, versionLine, versionCol,
+                        encodingOffset, encodingLen, encodingLine, encodingCol,
+                        standaloneOffset, standaloneLen, standaloneLine, standaloneCol,
+                        outerOffset, outerLen, line, col);
+            }
+        }
+        finishRules();
+    }
+
+
+    @Override
+    public void handleDocType(
+            final char[] buffer,
+            final int keywordOffset, final int keywordLen,
+            final int keywordLine, final int keywordCol,
+            final int elementNameOffset, final int elementNameLen,
+            final int elementNameLine, final int elementNameCol,
+            final int typeOffset, final int typeLen,
+            final int typeLine, final int typeCol,
+            final int publicIdOffset, final int publicIdLen,
+            final int publicIdLine, final int publicIdCol,
+            final int systemIdOffset, final int systemIdLen,
+            final int systemIdLine, final int systemIdCol,
+            final int internalSubsetOffset, final int internalSubsetLen,
+            final int internalSubsetLine, final int internalSubsetCol,
+            final int outerOffset, final int outerLen,
+            final int outerLine, final int outerCol)
+            throws ParseException {
+        if (!startMatchingRules(false)) {
+            return;
+        }
+        for (int i = 0; i < this.rulesLen; i++) {
+            if (this.active[i] && this.outputHandlers[i] != null) {
+                this.outputHandlers[i].handleDocType(
+                        buffer,
+                        keywordOffset, keywordLen, keywordLine, keywordCol,
+                        elementNameOffset, elementNameLen, elementNameLine, elementNameCol,
+                        typeOffset, typeLen, typeLine, typeCol,
+                        publicIdOffset, publicIdLen, publicIdLine, publicIdCol,
+                        systemIdOffset, systemIdLen, systemIdLine, systemIdCol,
+                        internalSubsetOffset, internalSubsetLen, internalSubsetLine, internalSubsetCol,
+                        outerOffset, outerLen, outerLine, outerCol);
+            }
+        }
+        finishRules();
+    }
+
+
+    @Override
+    public void handleCDATASection(
+            final char[] buffer,
+            final int contentOffset, final int contentLen,
+            final int outerOffset, final int outerLen,
+            final int line, final int col)
+            throws ParseException {
+        if (!startMatchingRules(false)) {
+            return;
+        }
+        for (int i = 0; i < this.rulesLen; i++) {
+            if (this.active[i] && this.outputHandlers[i] != null) {
+                this.outputHandlers[i].handleCDATASection(buffer, contentOffset, contentLen, outerOffset, outerLen, line, col);
+            }
+        }
+        finishRules();
+    }
+
+
+    @Override
+    public void handleText(
+            final char[] buffer,
+            final int offset, final int len,
+            final int line, final int col)
+            throws ParseException {
+        if (!startMatchingRules(false)) {
+            return;
+        }
+        for (int i = 0; i < this.rulesLen; i++) {
+            if (this.active[i]) {
+                if (this.outputHandlers[i] != null) {
+                    this.outputHandlers[i].handleText(buffer, offset, len, line, col);
+                } else if (this.buffers[i] != null) {
+                    this.buffers[i].write(buffer, offset, len);
+                }
+            }
+        }
+        finishRules();
+    }
+
+
+    @Override
+    public void handleSkippedElementContents(
+            final char[] buffer,
+            final int offset, final int len,
+            final int line, final int col)
+            throws ParseException {
+        // Skipped contents are markup that has not been parsed, so they are only part of outer markup values
+        if (!startMatchingRules(false)) {
+            return;
+        }
+        for (int i = 0; i < this.rulesLen; i++) {
+            if (this.active[i] && this.outputHandlers[i] != null) {
+                this.outputHandlers[i].handleSkippedElementContents(buffer, offset, len, line, col);
+            }
+        }
+        finishRules();
+    }
+
+
+    @Override
+    public void handleComment(
+            final char[] buffer,
+            final int contentOffset, final int contentLen,
+            final int outerOffset, final int outerLen,
+            final int line, final int col)
+            throws ParseException {
+        if (!startMatchingRules(false)) {
+            return;
+        }
+        for (int i = 0; i < this.rulesLen; i++) {
+            if (this.active[i] && this.outputHandlers[i] != null) {
+                this.outputHandlers[i].handleComment(buffer, contentOffset, contentLen, outerOffset, outerLen, line, col);
+            }
+        }
+        finishRules();
+    }
+
+
+    @Override
+    public void handleProcessingInstruction(
+            final char[] buffer,
+            final int targetOffset, final int targetLen,
+            final int targetLine, final int targetCol,
+            final int contentOffset, final int contentLen,
+            final int contentLine, final int contentCol,
+            final int outerOffset, final int outerLen,
+            final int line, final int col)
+            throws ParseException {
+        if (!startMatchingRules(false)) {
+            return;
+        }
+        for (int i = 0; i < this.rulesLen; i++) {
+            if (this.active[i] && this.outputHandlers[i] != null) {
+                this.outputHandlers[i].handleProcessingInstruction(
+                        buffer,
+                        targetOffset, targetLen, targetLine, targetCol,
+                        contentOffset, contentLen, contentLine, contentCol,
+                        outerOffset, outerLen, line, col);
+            }
+        }
+        finishRules();
+    }
+
+
+
+
+    /*
+     * ----------------------------------------------------------------------------
+     * Element events: rules matching an element are finished when it is closed
+     * ----------------------------------------------------------------------------
+     */
+
+    @Override
+    public void handleStandaloneElementStart(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final boolean minimized,
+            final int line, final int col)
+            throws ParseException {
+        startMatchingRules(true);
+        for (int i = 0; i < this.rulesLen; i++) {
+            if (this.active[i] && this.outputHandlers[i] != null) {
+                this.outputHandlers[i].handleStandaloneElementStart(buffer, nameOffset, nameLen, minimized, line, col);
+            }
+        }
+    }
+
+
+    @Override
+    public void handleStandaloneElementEnd(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final boolean minimized,
+            final int line, final int col)
+            throws ParseException {
+        for (int i = 0; i < this.rulesLen; i++) {
+            if (this.active[i] && this.outputHandlers[i] != null) {
+                this.outputHandlers[i].handleStandaloneElementEnd(buffer, nameOffset, nameLen, minimized, line, col);
+            }
+        }
+        endStartTags();
+        finishRules();
+    }
+
+
+    @Override
+    public void handleOpenElementStart(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int line, final int col)
+            throws ParseException {
+        startMatchingRules(true);
+        for (int i = 0; i < this.rulesLen; i++) {
+            if (this.active[i] && this.outputHandlers[i] != null) {
+                this.outputHandlers[i].handleOpenElementStart(buffer, nameOffset, nameLen, line, col);
+            }
+        }
+    }
+
+
+    @Override
+    public void handleOpenElementEnd(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int line, final int col)
+            throws ParseException {
+        for (int i = 0; i < this.rulesLen; i++) {
+            if (this.active[i] && this.outputHandlers[i] != null) {
+                this.outputHandlers[i].handleOpenElementEnd(buffer, nameOffset, nameLen, line, col);
+            }
+        }
+        endStartTags();
+        this.depth++;
+    }
+
+
+    @Override
+    public void handleAutoOpenElementStart(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int line, final int col)
+            throws ParseException {
+        startMatchingRules(true);
+        for (int i = 0; i < this.rulesLen; i++) {
+            if (this.active[i] && this.outputHandlers[i] != null) {
+                this.outputHandlers[i].handleAutoOpenElementStart(buffer, nameOffset, nameLen, line, col);
+            }
+        }
+    }
+
+
+    @Override
+    public void handleAutoOpenElementEnd(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int line, final int col)
+            throws ParseException {
+        for (int i = 0; i < this.rulesLen; i++) {
+            if (this.active[i] && this.outputHandlers[i] != null) {
+                this.outputHandlers[i].handleAutoOpenElementEnd(buffer, nameOffset, nameLen, line, col);
+            }
+        }
+        endStartTags();
+        this.depth++;
+    }
+
+
+    @Override
+    public void handleCloseElementStart(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int line, final int col)
+            throws ParseException {
+        this.depth--;
+        for (int i = 0; i < this.rulesLen; i++) {
+            if (this.active[i] && this.outputHandlers[i] != null) {
+                this.outputHandlers[i].handleCloseElementStart(buffer, nameOffset, nameLen, line, col);
+            }
+        }
+    }
+
+
+    @Override
+    public void handleCloseElementEnd(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int line, final int col)
+            throws ParseException {
+        for (int i = 0; i < this.rulesLen; i++) {
+            if (this.active[i] && this.outputHandlers[i] != null) {
+                this.outputHandlers[i].handleCloseElementEnd(buffer, nameOffset, nameLen, line, col);
+            }
+        }
+        finishRules();
+    }
+
+
+    @Override
+    public void handleAutoCloseElementStart(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int line, final int col)
+            throws ParseException {
+        this.depth--;
+        for (int i = 0; i < this.rulesLen; i++) {
+            if (this.active[i] && this.outputHandlers[i] != null) {
+                this.outputHandlers[i].handleAutoCloseElementStart(buffer, nameOffset, nameLen, line, col);
+            }
+        }
+    }
+
+
+    @Override
+    public void handleAutoCloseElementEnd(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int line, final int col)
+            throws ParseException {
+        for (int i = 0; i < this.rulesLen; i++) {
+            if (this.active[i] && this.outputHandlers[i] != null) {
+                this.outputHandlers[i].handleAutoCloseElementEnd(buffer, nameOffset, nameLen, line, col);
+            }
+        }
+        finishRules();
+    }
+
+
+    @Override
+    public void handleUnmatchedCloseElementStart(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int line, final int col)
+            throws ParseException {
+        for (int i = 0; i < this.rulesLen; i++) {
+            if (this.active[i] && this.outputHandlers[i] != null) {
+                this.outputHandlers[i].handleUnmatchedCloseElementStart(buffer, nameOffset, nameLen, line, col);
+            }
+        }
+    }
+
+
+    @Override
+    public void handleUnmatchedCloseElementEnd(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int line, final int col)
+            throws ParseException {
+        for (int i = 0; i < this.rulesLen; i++) {
+            if (this.active[i] && this.outputHandlers[i] != null) {
+                this.outputHandlers[i].handleUnmatchedCloseElementEnd(buffer, nameOffset, nameLen, line, col);
+            }
+        }
+    }
+
+
+    @Override
+    public void handleAttribute(
+            final char[] buffer,
+            final int nameOffset, final int nameLen,
+            final int nameLine, final int nameCol,
+            final int operatorOffset, final int operatorLen,
+            final int operatorLine, final int operatorCol,
+            final int valueContentOffset, final int valueContentLen,
+            final int valueOuterOffset, final int valueOuterLen,
+            final int valueLine, final int valueCol)
+            throws ParseException {
+        for (int i = 0; i < this.rulesLen; i++) {
+            if (!this.active[i]) {
+                continue;
+            }
+            if (this.outputHandlers[i] != null) {
+                this.outputHandlers[i].handleAttribute(
+                        buffer,
+                        nameOffset, nameLen, nameLine, nameCol,
+                        operatorOffset, operatorLen, operatorLine, operatorCol,
+                        valueContentOffset, valueContentLen, valueOuterOffset, valueOuterLen,
+                        valueLine, valueCol);
+            } else if (this.inStartTag[i] && this.attributeNames[i] != null &&
+                    TextUtil.equals(
+                            !this.html,
+                            this.attributeNames[i], 0, this.attributeNames[i].length,
+                            buffer, nameOffset, nameLen)) {
+                // Attribute values are reported directly from the parser's buffer
+                this.handler.handleValue(i, buffer, valueContentOffset, valueContentLen);
+            }
+        }
+    }
+
+
+    @Override
+    public void handleInnerWhiteSpace(
+            final char[] buffer,
+            final int offset, final int len,
+            final int line, final int col)
+            throws ParseException {
+        for (int i = 0; i < this.rulesLen; i++) {
+            if (this.active[i] && this.outputHandlers[i] != null) {
+                this.outputHandlers[i].handleInnerWhiteSpace(buffer, offset, len, line, col);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,6 @@
+/**
+ * <p>
+ *   Handlers for extracting values (texts, attribute values, markup) from documents by means of markup selectors.
+ * </p>
+ */
+package org.attoparser.extract;
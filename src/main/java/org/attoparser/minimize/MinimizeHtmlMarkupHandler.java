@@ -224,6 +224,24 @@ public void handleDocumentEnd(
 
 
 
+    @Override
+    public void handleSkippedElementContents(
+            final char[] buffer, final int offset, final int len, final int line, final int col)
+            throws ParseException {
+
+        // If there is a delayed whitespace text event, just output it
+        flushPendingInterBlockElementWhiteSpace(false);
+
+        // Skipped contents have not been parsed, so they cannot be minimized
+        this.lastTextEndedInWhiteSpace = false;
+        this.lastVisibleEventWasElement = false;
+        getNext().handleSkippedElementContents(buffer, offset, len, line, col);
+
+    }
+
+
+
+
     @Override
     public void handleText(final char[] buffer, final int offset, final int len, final int line, final int col)
             throws ParseException {
@@ -98,6 +98,21 @@ public void handleText(final char[] buffer, final int offset, final int len, fin
 
 
 
+    @Override
+    public void handleSkippedElementContents(
+            final char[] buffer, final int offset, final int len, final int line, final int col)
+            throws ParseException {
+
+        try {
+            this.writer.write(buffer, offset, len);
+        } catch (final Exception e) {
+            throw new ParseException(e);
+        }
+
+    }
+
+
+
     @Override
     public void handleComment(
             final char[] buffer, 
@@ -619,6 +619,18 @@ public void handleText(final char[] buffer, final int offset, final int len,
     }
 
 
+
+    @Override
+    public void handleSkippedElementContents(final char[] buffer, final int offset, final int len,
+            final int line, final int col)
+            throws ParseException {
+
+        // Skipped contents have not been parsed, so they are output as text
+        handleText(buffer, offset, len, line, col);
+
+    }
+
+
     
     @Override
     public void handleComment(
@@ -20,7 +20,6 @@
 package org.attoparser.select;
 
 import java.util.Arrays;
-import java.util.List;
 
 import org.attoparser.AbstractMarkupHandler;
 import org.attoparser.IMarkupHandler;
@@ -123,7 +122,7 @@ public final class BlockSelectorMarkupHandler extends AbstractMarkupHandler {
     private ParseSelection selection;
     private int selectionIndex = -1;
 
-    private final IMarkupSelectorReferenceResolver referenceResolver;
+    private final CompiledMarkupSelectors compiledSelectors;
 
     private final SelectorElementBuffer elementBuffer;
 
@@ -133,11 +132,14 @@ public final class BlockSelectorMarkupHandler extends AbstractMarkupHandler {
     private final int selectorsLen;
     private final String[] selectors;
     private final boolean[] selectorMatches;
-    private final MarkupSelectorFilter[] selectorFilters;
+    private MarkupSelectorMatcher selectorMatcher;
 
     private boolean insideAllSelectorMatchingBlock;
     private boolean someSelectorsMatch;
 
+    // Set while delegating the events of an element that no selector could match, and that was therefore not buffered
+    private IMarkupHandler unbufferedElementHandler;
+
     private int markupLevel;
     private int[] matchingMarkupLevelsPerSelector;
 
@@ -302,19 +304,52 @@ public BlockSelectorMarkupHandler(final IMarkupHandler selectedHandler,
                                       final IMarkupHandler nonSelectedHandler,
                                       final String[] selectors,
                                       final IMarkupSelectorReferenceResolver referenceResolver) {
+        this(selectedHandler, nonSelectedHandler, new CompiledMarkupSelectors(selectors, referenceResolver));
+    }
+
+
+    /**
+     * <p>
+     *   Create a new instance of this handler, specifying the <em>selected</em>
+     *   handler and the (already compiled) selectors to be used.
+     * </p>
+     * <p>
+     *   Given no <em>non-selected</em> handler is specified, an instance of
+     *   {@link org.attoparser.discard.DiscardMarkupHandler} is used. So all non-selected events will be just
+     *   discarded.
+     * </p>
+     *
+     * @param selectedHandler the handler to which <em>selected</em> events will be delegated.
+     * @param compiledSelectors the compiled selectors to be used. Cannot be null.
+     * @since 2.0.10
+     */
+    public BlockSelectorMarkupHandler(final IMarkupHandler selectedHandler,
+                                      final CompiledMarkupSelectors compiledSelectors) {
+        this(selectedHandler, DISCARD_MARKUP_HANDLER, compiledSelectors);
+    }
+
+
+    /**
+     * <p>
+     *   Create a new instance of this handler, specifying both the <em>selected</em> and <em>non-selected</em>
+     *   handlers, and the (already compiled) selectors to be used.
+     * </p>
+     *
+     * @param selectedHandler the handler to which <em>selected</em> events will be delegated.
+     * @param nonSelectedHandler the handler to which <em>non-selected</em> events will be delegated.
+     * @param compiledSelectors the compiled selectors to be used. Cannot be null.
+     * @since 2.0.10
+     */
+    public BlockSelectorMarkupHandler(final IMarkupHandler selectedHandler,
+                                      final IMarkupHandler nonSelectedHandler,
+                                      final CompiledMarkupSelectors compiledSelectors) {
 
         super();
 
         // Both markup handlers (selected and non-selected CAN be null
 
-        if (selectors == null || selectors.length == 0) {
-            throw new IllegalArgumentException("Selector array cannot be null or empty");
-        }
-        for (final String selector : selectors) {
-            if (selector == null || selector.trim().length() == 0) {
-                throw new IllegalArgumentException(
-                        "Selector array contains at least one null or empty item, which is forbidden");
-            }
+        if (compiledSelectors == null) {
+            throw new IllegalArgumentException("Compiled selectors cannot be null");
         }
 
         this.selectedHandler = selectedHandler;
@@ -323,10 +358,10 @@ public BlockSelectorMarkupHandler(final IMarkupHandler selectedHandler,
         // By default, send the "document start" and "document end" events to the selected handler
         this.documentStartEndHandler = this.selectedHandler;
 
-        this.referenceResolver = referenceResolver;
+        this.compiledSelectors = compiledSelectors;
 
-        this.selectors = selectors;
-        this.selectorsLen = selectors.length;
+        this.selectors = compiledSelectors.selectors;
+        this.selectorsLen = this.selectors.length;
 
         // Note this variable is defined basically in order to be reused in different events, but will not be dealt with as "state"
         this.selectorMatches = new boolean[this.selectors.length];
@@ -337,8 +372,7 @@ public BlockSelectorMarkupHandler(final IMarkupHandler selectedHandler,
 
         this.insideAllSelectorMatchingBlock = false;
 
-        this.selectorFilters = new MarkupSelectorFilter[this.selectorsLen];
-        // We will not initialize selectorFilters here, but when we receive the configuration (setParseConfiguration)
+        // We will not initialize the selector automaton here, but when we receive the configuration (setParseConfiguration)
 
         this.elementBuffer = new SelectorElementBuffer();
 
@@ -394,18 +428,9 @@ public void setParseConfiguration(final ParseConfiguration parseConfiguration) {
         final boolean html =
                 ParseConfiguration.ParsingMode.HTML == parseConfiguration.getMode();
 
-        for (int i = 0; i < this.selectorsLen; i++) {
-
-            final List<IMarkupSelectorItem> selectorItems =
-                    MarkupSelectorItems.forSelector(html, this.selectors[i], this.referenceResolver);
-
-            this.selectorFilters[i] = new MarkupSelectorFilter(null, selectorItems.get(0));
-            MarkupSelectorFilter last = this.selectorFilters[i];
-            for (int j = 1; j < selectorItems.size(); j++) {
-                last = new MarkupSelectorFilter(last, selectorItems.get(j));
-            }
-
-        }
+        // All selectors are compiled together (only once for the compiled selectors object), so that they can be
+        // evaluated at once for each event. Only the matching state is created for each parsing operation.
+        this.selectorMatcher = this.compiledSelectors.getAutomaton(html).createMatcher();
 
 
         /*
@@ -424,6 +449,7 @@ public void setParseConfiguration(final ParseConfiguration parseConfiguration) {
 
     @Override
     public void setParseStatus(final ParseStatus status) {
+        this.elementBuffer.setParseStatus(status);
         this.selectedHandler.setParseStatus(status);
         if (this.nonSelectedHandler != this.selectedHandler) {
             this.nonSelectedHandler.setParseStatus(status);
@@ -500,11 +526,11 @@ public void handleXmlDeclaration(
         if (!this.insideAllSelectorMatchingBlock) {
 
             this.someSelectorsMatch = false;
+            this.selectorMatcher.matchXmlDeclaration(true, this.markupLevel, this.markupBlocks[this.markupLevel]);
             for (int i = 0; i < this.selectorsLen; i++) {
 
                 if (this.matchingMarkupLevelsPerSelector[i] > this.markupLevel) {
-                    this.selectorMatches[i] =
-                            this.selectorFilters[i].matchXmlDeclaration(true, this.markupLevel, this.markupBlocks[this.markupLevel]);
+                    this.selectorMatches[i] = this.selectorMatcher.matches(i);
                     if (this.selectorMatches[i]) {
                         this.someSelectorsMatch = true;
                     }
@@ -574,11 +600,11 @@ public void handleDocType(
         if (!this.insideAllSelectorMatchingBlock) {
 
             this.someSelectorsMatch = false;
+            this.selectorMatcher.matchDocTypeClause(true, this.markupLevel, this.markupBlocks[this.markupLevel]);
             for (int i = 0; i < this.selectorsLen; i++) {
 
                 if (this.matchingMarkupLevelsPerSelector[i] > this.markupLevel) {
-                    this.selectorMatches[i] =
-                            this.selectorFilters[i].matchDocTypeClause(true, this.markupLevel, this.markupBlocks[this.markupLevel]);
+                    this.selectorMatches[i] = this.selectorMatcher.matches(i);
                     if (this.selectorMatches[i]) {
                         this.someSelectorsMatch = true;
                     }
@@ -652,11 +678,11 @@ public void handleCDATASection(
         if (!this.insideAllSelectorMatchingBlock) {
 
             this.someSelectorsMatch = false;
+            this.selectorMatcher.matchCDATASection(true, this.markupLevel, this.markupBlocks[this.markupLevel]);
             for (int i = 0; i < this.selectorsLen; i++) {
 
                 if (this.matchingMarkupLevelsPerSelector[i] > this.markupLevel) {
-                    this.selectorMatches[i] =
-                            this.selectorFilters[i].matchCDATASection(true, this.markupLevel, this.markupBlocks[this.markupLevel]);
+                    this.selectorMatches[i] = this.selectorMatcher.matches(i);
                     if (this.selectorMatches[i]) {
                         this.someSelectorsMatch = true;
                     }
@@ -709,11 +735,11 @@ public void handleText(
         if (!this.insideAllSelectorMatchingBlock) {
 
             this.someSelectorsMatch = false;
+            this.selectorMatcher.matchText(true, this.markupLevel, this.markupBlocks[this.markupLevel]);
             for (int i = 0; i < this.selectorsLen; i++) {
 
                 if (this.matchingMarkupLevelsPerSelector[i] > this.markupLevel) {
-                    this.selectorMatches[i] =
-                            this.selectorFilters[i].matchText(true, this.markupLevel, this.markupBlocks[this.markupLevel]);
+                    this.selectorMatches[i] = this.selectorMatcher.matches(i);
                     if (this.selectorMatches[i]) {
                         this.someSelectorsMatch = true;
                     }
@@ -746,6 +772,46 @@ public void handleText(
 
 
 
+    @Override
+    public void handleSkippedElementContents(
+            final char[] buffer, final int offset, final int len,
+            final int line, final int col)
+            throws ParseException {
+
+        if (!this.insideAllSelectorMatchingBlock) {
+
+            // Skipped contents have not been parsed, so no selectors can match them. They will only be selected if
+            // they are inside a block matched by some of the selectors.
+            this.someSelectorsMatch = false;
+            for (int i = 0; i < this.selectorsLen; i++) {
+                this.selectorMatches[i] = (this.matchingMarkupLevelsPerSelector[i] <= this.markupLevel);
+                if (this.selectorMatches[i]) {
+                    this.someSelectorsMatch = true;
+                }
+            }
+
+            if (this.someSelectorsMatch) {
+                markCurrentSelection();
+                this.selectedHandler.handleSkippedElementContents(buffer, offset, len, line, col);
+                unmarkCurrentSelection();
+                return;
+            }
+
+            unmarkCurrentSelection();
+            this.nonSelectedHandler.handleSkippedElementContents(buffer, offset, len, line, col);
+            return;
+
+        }
+
+        markCurrentSelection();
+        this.selectedHandler.handleSkippedElementContents(buffer, offset, len, line, col);
+        unmarkCurrentSelection();
+
+    }
+
+
+
+
 
     /*
      * --------------
@@ -764,11 +830,11 @@ public void handleComment(
         if (!this.insideAllSelectorMatchingBlock) {
 
             this.someSelectorsMatch = false;
+            this.selectorMatcher.matchComment(true, this.markupLevel, this.markupBlocks[this.markupLevel]);
             for (int i = 0; i < this.selectorsLen; i++) {
 
                 if (this.matchingMarkupLevelsPerSelector[i] > this.markupLevel) {
-                    this.selectorMatches[i] =
-                            this.selectorFilters[i].matchComment(true, this.markupLevel, this.markupBlocks[this.markupLevel]);
+                    this.selectorMatches[i] = this.selectorMatcher.matches(i);
                     if (this.selectorMatches[i]) {
                         this.someSelectorsMatch = true;
                     }
@@ -822,6 +888,14 @@ public void handleAttribute(
 
 
         if (!this.insideAllSelectorMatchingBlock) {
+            if (this.unbufferedElementHandler != null) {
+                this.unbufferedElementHandler.handleAttribute(
+                        buffer,
+                        nameOffset, nameLen, nameLine, nameCol,
+                        operatorOffset, operatorLen, operatorLine, operatorCol,
+                        valueContentOffset, valueContentLen, valueOuterOffset, valueOuterLen, valueLine, valueCol);
+                return;
+            }
             // We are not in a matching block, so let's put this attribute into the buffer just in case it matches
             this.elementBuffer.bufferAttribute(
                     buffer,
@@ -854,6 +928,12 @@ public void handleStandaloneElementStart(
         if (!this.insideAllSelectorMatchingBlock) {
             // We are not in a matching block, so let's put this element into the buffer just in case it matches
             this.elementBuffer.bufferElementStart(buffer, nameOffset, nameLen, line, col, true, minimized);
+            if (!this.selectorMatcher.canMatchElement(buffer, nameOffset, nameLen)) {
+                // No selector can match this element, whichever its attributes: we don't need to buffer them
+                matchStandaloneElement();
+                this.unbufferedElementHandler = selectUnbufferedElementHandler();
+                this.unbufferedElementHandler.handleStandaloneElementStart(buffer, nameOffset, nameLen, minimized, line, col);
+            }
             return;
         }
 
@@ -874,23 +954,16 @@ public void handleStandaloneElementEnd(
 
         if (!this.insideAllSelectorMatchingBlock) {
 
-            this.elementBuffer.bufferElementEnd(buffer, nameOffset, nameLen, line, col);
-
-            this.someSelectorsMatch = false;
-            for (int i = 0; i < this.selectorsLen; i++) {
+            if (this.unbufferedElementHandler != null) {
+                this.unbufferedElementHandler.handleStandaloneElementEnd(buffer, nameOffset, nameLen, minimized, line, col);
+                this.unbufferedElementHandler = null;
+                unmarkCurrentSelection();
+                return;
+            }
 
-                if (this.matchingMarkupLevelsPerSelector[i] > this.markupLevel) {
-                    this.selectorMatches[i] =
-                            this.selectorFilters[i].matchStandaloneElement(true, this.markupLevel, this.markupBlocks[this.markupLevel], this.elementBuffer);
-                    if (this.selectorMatches[i]) {
-                        this.someSelectorsMatch = true;
-                    }
-                } else {
-                    this.selectorMatches[i] = true;
-                    this.someSelectorsMatch = true;
-                }
+            this.elementBuffer.bufferElementEnd(buffer, nameOffset, nameLen, line, col);
 
-            }
+            matchStandaloneElement();
 
             if (this.someSelectorsMatch) {
                 markCurrentSelection();
@@ -922,6 +995,12 @@ public void handleOpenElementStart(
         if (!this.insideAllSelectorMatchingBlock) {
             // We are not in a matching block, so let's put this element into the buffer just in case it matches
             this.elementBuffer.bufferElementStart(buffer, nameOffset, nameLen, line, col, false, false);
+            if (!this.selectorMatcher.canMatchElement(buffer, nameOffset, nameLen)) {
+                // No selector can match this element, whichever its attributes: we don't need to buffer them
+                matchOpenElement();
+                this.unbufferedElementHandler = selectUnbufferedElementHandler();
+                this.unbufferedElementHandler.handleOpenElementStart(buffer, nameOffset, nameLen, line, col);
+            }
             return;
         }
 
@@ -941,23 +1020,30 @@ public void handleOpenElementEnd(
 
         if (!this.insideAllSelectorMatchingBlock) {
 
-            this.elementBuffer.bufferElementEnd(buffer, nameOffset, nameLen, line, col);
+            if (this.unbufferedElementHandler != null) {
 
-            this.someSelectorsMatch = false;
-            for (int i = 0; i < this.selectorsLen; i++) {
-                if (this.matchingMarkupLevelsPerSelector[i] > this.markupLevel) {
-                    this.selectorMatches[i] =
-                            this.selectorFilters[i].matchOpenElement(true, this.markupLevel, this.markupBlocks[this.markupLevel], this.elementBuffer);
-                    if (this.selectorMatches[i]) {
-                        this.someSelectorsMatch = true;
-                        this.matchingMarkupLevelsPerSelector[i] = this.markupLevel;
-                    }
-                } else {
-                    this.selectorMatches[i] = true;
-                    this.someSelectorsMatch = true;
+                if (this.someSelectorsMatch) {
+                    // Given we are opening a new markup level, we must update this flag (if required)
+                    updateInsideAllSelectorMatchingBlockFlag();
                 }
+
+                this.markupLevel++;
+
+                checkSizeOfMarkupBlocksStructure(this.markupLevel);
+                this.markupBlocks[this.markupLevel] = ++this.markupBlockIndex;
+
+                this.unbufferedElementHandler.handleOpenElementEnd(buffer, nameOffset, nameLen, line, col);
+                this.unbufferedElementHandler = null;
+                unmarkCurrentSelection();
+
+                return;
+
             }
 
+            this.elementBuffer.bufferElementEnd(buffer, nameOffset, nameLen, line, col);
+
+            matchOpenElement();
+
             if (this.someSelectorsMatch) {
 
                 // Given we are opening a new markup level, we must update this flag (if required)
@@ -1010,6 +1096,12 @@ public void handleAutoOpenElementStart(
         if (!this.insideAllSelectorMatchingBlock) {
             // We are not in a matching block, so let's put this element into the buffer just in case it matches
             this.elementBuffer.bufferElementStart(buffer, nameOffset, nameLen, line, col, false, false);
+            if (!this.selectorMatcher.canMatchElement(buffer, nameOffset, nameLen)) {
+                // No selector can match this element, whichever its attributes: we don't need to buffer them
+                matchOpenElement();
+                this.unbufferedElementHandler = selectUnbufferedElementHandler();
+                this.unbufferedElementHandler.handleAutoOpenElementStart(buffer, nameOffset, nameLen, line, col);
+            }
             return;
         }
 
@@ -1029,23 +1121,30 @@ public void handleAutoOpenElementEnd(
 
         if (!this.insideAllSelectorMatchingBlock) {
 
-            this.elementBuffer.bufferElementEnd(buffer, nameOffset, nameLen, line, col);
+            if (this.unbufferedElementHandler != null) {
 
-            this.someSelectorsMatch = false;
-            for (int i = 0; i < this.selectorsLen; i++) {
-                if (this.matchingMarkupLevelsPerSelector[i] > this.markupLevel) {
-                    this.selectorMatches[i] =
-                            this.selectorFilters[i].matchOpenElement(true, this.markupLevel, this.markupBlocks[this.markupLevel], this.elementBuffer);
-                    if (this.selectorMatches[i]) {
-                        this.someSelectorsMatch = true;
-                        this.matchingMarkupLevelsPerSelector[i] = this.markupLevel;
-                    }
-                } else {
-                    this.selectorMatches[i] = true;
-                    this.someSelectorsMatch = true;
+                if (this.someSelectorsMatch) {
+                    // Given we are opening a new markup level, we must update this flag (if required)
+                    updateInsideAllSelectorMatchingBlockFlag();
                 }
+
+                this.markupLevel++;
+
+                checkSizeOfMarkupBlocksStructure(this.markupLevel);
+                this.markupBlocks[this.markupLevel] = ++this.markupBlockIndex;
+
+                this.unbufferedElementHandler.handleAutoOpenElementEnd(buffer, nameOffset, nameLen, line, col);
+                this.unbufferedElementHandler = null;
+                unmarkCurrentSelection();
+
+                return;
+
             }
 
+            this.elementBuffer.bufferElementEnd(buffer, nameOffset, nameLen, line, col);
+
+            matchOpenElement();
+
             if (this.someSelectorsMatch) {
 
                 // Given we are opening a new markup level, we must update this flag (if required)
@@ -1096,9 +1195,7 @@ public void handleCloseElementStart(
             throws ParseException {
 
         this.markupLevel--;
-        for (int i = 0; i < this.selectorsLen; i++) {
-            this.selectorFilters[i].removeMatchesForLevel(this.markupLevel);
-        }
+        this.selectorMatcher.removeMatchesForLevel(this.markupLevel);
 
         if (!this.insideAllSelectorMatchingBlock) {
 
@@ -1190,9 +1287,7 @@ public void handleAutoCloseElementStart(
             throws ParseException {
 
         this.markupLevel--;
-        for (int i = 0; i < this.selectorsLen; i++) {
-            this.selectorFilters[i].removeMatchesForLevel(this.markupLevel);
-        }
+        this.selectorMatcher.removeMatchesForLevel(this.markupLevel);
 
         if (!this.insideAllSelectorMatchingBlock) {
 
@@ -1359,6 +1454,10 @@ public void handleInnerWhiteSpace(
             throws ParseException {
 
         if (!this.insideAllSelectorMatchingBlock) {
+            if (this.unbufferedElementHandler != null) {
+                this.unbufferedElementHandler.handleInnerWhiteSpace(buffer, offset, len, line, col);
+                return;
+            }
             // We are not in a matching block, so let's put this whitespace into the buffer just in case it matches
             this.elementBuffer.bufferElementInnerWhiteSpace(buffer, offset, len, line, col);
             return;
@@ -1389,11 +1488,11 @@ public void handleProcessingInstruction(
         if (!this.insideAllSelectorMatchingBlock) {
 
             this.someSelectorsMatch = false;
+            this.selectorMatcher.matchProcessingInstruction(true, this.markupLevel, this.markupBlocks[this.markupLevel]);
             for (int i = 0; i < this.selectorsLen; i++) {
 
                 if (this.matchingMarkupLevelsPerSelector[i] > this.markupLevel) {
-                    this.selectorMatches[i] =
-                            this.selectorFilters[i].matchProcessingInstruction(true, this.markupLevel, this.markupBlocks[this.markupLevel]);
+                    this.selectorMatches[i] = this.selectorMatcher.matches(i);
                     if (this.selectorMatches[i]) {
                         this.someSelectorsMatch = true;
                     }
@@ -1437,6 +1536,66 @@ public void handleProcessingInstruction(
 
 
 
+    /*
+     * ----------------
+     * Element matching
+     * ----------------
+     */
+
+    private void matchStandaloneElement() {
+
+        this.someSelectorsMatch = false;
+        this.selectorMatcher.matchStandaloneElement(true, this.markupLevel, this.markupBlocks[this.markupLevel], this.elementBuffer);
+        for (int i = 0; i < this.selectorsLen; i++) {
+
+            if (this.matchingMarkupLevelsPerSelector[i] > this.markupLevel) {
+                this.selectorMatches[i] = this.selectorMatcher.matches(i);
+                if (this.selectorMatches[i]) {
+                    this.someSelectorsMatch = true;
+                }
+            } else {
+                this.selectorMatches[i] = true;
+                this.someSelectorsMatch = true;
+            }
+
+        }
+
+    }
+
+
+    private void matchOpenElement() {
+
+        this.someSelectorsMatch = false;
+        this.selectorMatcher.matchOpenElement(true, this.markupLevel, this.markupBlocks[this.markupLevel], this.elementBuffer);
+        for (int i = 0; i < this.selectorsLen; i++) {
+            if (this.matchingMarkupLevelsPerSelector[i] > this.markupLevel) {
+                this.selectorMatches[i] = this.selectorMatcher.matches(i);
+                if (this.selectorMatches[i]) {
+                    this.someSelectorsMatch = true;
+                    this.matchingMarkupLevelsPerSelector[i] = this.markupLevel;
+                }
+            } else {
+                this.selectorMatches[i] = true;
+                this.someSelectorsMatch = true;
+            }
+        }
+
+    }
+
+
+    private IMarkupHandler selectUnbufferedElementHandler() {
+        // Selection is marked for the whole element, until its "end" event has been delegated
+        if (this.someSelectorsMatch) {
+            markCurrentSelection();
+            return this.selectedHandler;
+        }
+        unmarkCurrentSelection();
+        return this.nonSelectedHandler;
+    }
+
+
+
+
     /*
      * -------------------------------
      * Selection handling
@@ -0,0 +1,121 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser.select;
+
+
+/**
+ * <p>
+ *   Set of markup selectors compiled so that they can be evaluated by {@link BlockSelectorMarkupHandler} and
+ *   {@link NodeSelectorMarkupHandler} instances without having to compile them again for each parsing
+ *   operation.
+ * </p>
+ * <p>
+ *   Selectors are compiled the first time they are used for each parsing mode (HTML or XML), and the compiled
+ *   form is kept by this object. Handlers created with the selector arrays instead of an object of this class
+ *   compile their selectors once per handler, so applications that create a new handler for every parsing
+ *   operation with the same selectors should create an object of this class once and use it for every handler.
+ * </p>
+ * <p>
+ *   Objects of this class are immutable (the state of the matching of the selectors against a document is kept
+ *   by the handlers) and therefore <strong>thread-safe</strong>.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 2.0.10
+ *
+ */
+public final class CompiledMarkupSelectors {
+
+    final String[] selectors;
+    private final IMarkupSelectorReferenceResolver referenceResolver;
+
+    private volatile MarkupSelectorAutomaton htmlAutomaton = null;
+    private volatile MarkupSelectorAutomaton xmlAutomaton = null;
+
+
+    /**
+     * <p>
+     *   Creates a new set of compiled selectors.
+     * </p>
+     *
+     * @param selectors the selectors to be used. Cannot be neither null nor empty.
+     * @param referenceResolver the reference resolver to be used. Can be null if none is required.
+     */
+    public CompiledMarkupSelectors(final String[] selectors, final IMarkupSelectorReferenceResolver referenceResolver) {
+
+        super();
+
+        if (selectors == null || selectors.length == 0) {
+            throw new IllegalArgumentException("Selector array cannot be null or empty");
+        }
+        for (final String selector : selectors) {
+            if (selector == null || selector.trim().length() == 0) {
+                throw new IllegalArgumentException(
+                        "Selector array contains at least one null or empty item, which is forbidden");
+            }
+        }
+
+        this.selectors = selectors.clone();
+        this.referenceResolver = referenceResolver;
+
+    }
+
+
+    /**
+     * <p>
+     *   Returns the selectors in this set.
+     * </p>
+     *
+     * @return a copy of the selector array.
+     */
+    public String[] getSelectors() {
+        return this.selectors.clone();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the reference resolver used for the selectors in this set.
+     * </p>
+     *
+     * @return the reference resolver, or null if none was specified.
+     */
+    public IMarkupSelectorReferenceResolver getReferenceResolver() {
+        return this.referenceResolver;
+    }
+
+
+    MarkupSelectorAutomaton getAutomaton(final boolean html) {
+        // If two threads compile the same automaton at the same time, both results are equivalent and any of them
+        // can be kept. Automata are immutable, and they are safely published through the volatile fields.
+        MarkupSelectorAutomaton automaton = (html ? this.htmlAutomaton : this.xmlAutomaton);
+        if (automaton == null) {
+            automaton = new MarkupSelectorAutomaton(html, this.selectors, this.referenceResolver);
+            if (html) {
+                this.htmlAutomaton = automaton;
+            } else {
+                this.xmlAutomaton = automaton;
+            }
+        }
+        return automaton;
+    }
+
+}
@@ -90,4 +90,21 @@ public String toString() {
         return "(" + this.left.toString() + " && " + this.right + ")";
     }
 
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MarkupSelectorAndItem)) {
+            return false;
+        }
+        final MarkupSelectorAndItem that = (MarkupSelectorAndItem) o;
+        return this.left.equals(that.left) && this.right.equals(that.right);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * this.left.hashCode() + this.right.hashCode();
+    }
+
 }
@@ -0,0 +1,361 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser.select;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.attoparser.util.TextUtil;
+
+/*
+ * Compiled form of a set of markup selectors, evaluated once per event for all of them.
+ *
+ * The chains of IMarkupSelectorItem objects obtained for each selector are merged into a tree of states in
+ * which selectors sharing a prefix (equal items at the same positions) share the states for that prefix. Each
+ * state plays the same role a MarkupSelectorFilter plays in a single-selector chain (same matched levels,
+ * same index counters), so selectors keep their exact semantics. The difference is that a shared state is
+ * evaluated only once per event, and that the children of a state are indexed by the element name their items
+ * require, so that only the states that could match an element (or that were matched at a previous level)
+ * are visited.
+ *
+ * Objects of this class are immutable once built, and can therefore be shared by any number of parsing
+ * operations, even concurrently. Everything that changes while matching (matched levels, index counters...)
+ * lives in the MarkupSelectorMatcher objects created for each parsing operation by means of createMatcher().
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+final class MarkupSelectorAutomaton {
+
+    static final State[] NO_STATES = new State[0];
+
+
+    private final boolean html;
+
+    final State root;
+    final State[] selectorStates;
+    final int stateCount;
+
+    // Element names required by items in the automaton, each name being given an id
+    private final char[][] names;
+    private final int[] namesTable; // open addressing, name id + 1 (0 = free)
+
+
+
+
+    MarkupSelectorAutomaton(
+            final boolean html, final String[] selectors, final IMarkupSelectorReferenceResolver referenceResolver) {
+
+        super();
+
+        this.html = html;
+
+        this.root = new State(null, null);
+        this.selectorStates = new State[selectors.length];
+
+        for (int i = 0; i < selectors.length; i++) {
+
+            final List<IMarkupSelectorItem> selectorItems =
+                    MarkupSelectorItems.forSelector(html, selectors[i], referenceResolver);
+
+            State state = this.root;
+            for (final IMarkupSelectorItem selectorItem : selectorItems) {
+                state = state.child(selectorItem);
+            }
+            this.selectorStates[i] = state;
+
+        }
+
+        final List<String> nameList = new ArrayList<String>(10);
+        collectNames(this.root, nameList);
+        this.names = new char[nameList.size()][];
+        for (int i = 0; i < this.names.length; i++) {
+            this.names[i] = nameList.get(i).toCharArray();
+        }
+
+        int namesTableLen = 16;
+        while (namesTableLen < this.names.length * 2) {
+            namesTableLen <<= 1;
+        }
+        this.namesTable = new int[namesTableLen];
+        for (int i = 0; i < this.names.length; i++) {
+            int slot = hash(this.html, this.names[i], 0, this.names[i].length) & (namesTableLen - 1);
+            while (this.namesTable[slot] != 0) {
+                slot = (slot + 1) & (namesTableLen - 1);
+            }
+            this.namesTable[slot] = i + 1;
+        }
+
+        // States are numbered so that matchers can keep their matching state in arrays
+        this.stateCount = compile(this.root, 0);
+
+    }
+
+
+
+
+    MarkupSelectorMatcher createMatcher() {
+        return new MarkupSelectorMatcher(this);
+    }
+
+
+
+
+    private void collectNames(final State state, final List<String> nameList) {
+        for (final State child : state.children) {
+            final String name = elementName(child.item);
+            if (name != null) {
+                int nameId = 0;
+                while (nameId < nameList.size() &&
+                        !TextUtil.equals(!this.html, nameList.get(nameId), name)) { nameId++; }
+                if (nameId == nameList.size()) {
+                    nameList.add(name);
+                }
+                child.nameId = nameId;
+            }
+            collectNames(child, nameList);
+        }
+    }
+
+
+    private static int compile(final State state, final int id) {
+
+        state.id = id;
+        int nextId = id + 1;
+
+        final List<State> elementChildren = new ArrayList<State>(2);
+        final List<State> otherChildren = new ArrayList<State>(2);
+        final List<State> namedChildren = new ArrayList<State>(2);
+
+        for (final State child : state.children) {
+            if (child.nameId >= 0) {
+                namedChildren.add(child);
+            } else if (matchesElementsOnly(child.item)) {
+                elementChildren.add(child);
+            } else {
+                otherChildren.add(child);
+            }
+            nextId = compile(child, nextId);
+        }
+
+        state.elementChildren = elementChildren.toArray(new State[elementChildren.size()]);
+        state.otherChildren = otherChildren.toArray(new State[otherChildren.size()]);
+
+        state.anyElementChildren = (state.elementChildren.length > 0);
+        for (final State child : state.otherChildren) {
+            state.anyElementChildren |= mayMatchElements(child.item);
+        }
+
+        // Named children are grouped by name id into a small open addressing table
+        int tableLen = 2;
+        while (tableLen < namedChildren.size() * 2) {
+            tableLen <<= 1;
+        }
+        state.namedChildrenIds = new int[tableLen];
+        state.namedChildren = new State[tableLen][];
+        Arrays.fill(state.namedChildrenIds, -1);
+        for (final State child : namedChildren) {
+            int slot = child.nameId & (tableLen - 1);
+            while (state.namedChildrenIds[slot] != -1 && state.namedChildrenIds[slot] != child.nameId) {
+                slot = (slot + 1) & (tableLen - 1);
+            }
+            if (state.namedChildrenIds[slot] == -1) {
+                state.namedChildrenIds[slot] = child.nameId;
+                state.namedChildren[slot] = new State[] { child };
+            } else {
+                final State[] group = Arrays.copyOf(state.namedChildren[slot], state.namedChildren[slot].length + 1);
+                group[group.length - 1] = child;
+                state.namedChildren[slot] = group;
+            }
+        }
+
+        state.children = null; // Not needed any more
+
+        return nextId;
+
+    }
+
+
+    /*
+     * Items that can only match elements with a specific name: plain items with an element name, or items
+     * combined (AND) with a reference-resolved item.
+     */
+    private static String elementName(final IMarkupSelectorItem item) {
+        if (item instanceof MarkupSelectorItem) {
+            return ((MarkupSelectorItem) item).getElementName();
+        }
+        if (item instanceof MarkupSelectorAndItem) {
+            return elementName(((MarkupSelectorAndItem) item).left);
+        }
+        return null;
+    }
+
+
+    /*
+     * Whether an item could match elements at all. Only used for items that are not indexed by element name,
+     * so a positive answer means they could match elements with any name.
+     */
+    private static boolean mayMatchElements(final IMarkupSelectorItem item) {
+        if (item instanceof MarkupSelectorItem) {
+            return ((MarkupSelectorItem) item).matchesElementsOnly() || ((MarkupSelectorItem) item).matchesContent();
+        }
+        if (item instanceof MarkupSelectorAndItem) {
+            return mayMatchElements(((MarkupSelectorAndItem) item).left);
+        }
+        if (item instanceof MarkupSelectorOrItem) {
+            return mayMatchElements(((MarkupSelectorOrItem) item).left) ||
+                    mayMatchElements(((MarkupSelectorOrItem) item).right);
+        }
+        return true;
+    }
+
+
+    private static boolean matchesElementsOnly(final IMarkupSelectorItem item) {
+        if (item instanceof MarkupSelectorItem) {
+            return ((MarkupSelectorItem) item).matchesElementsOnly();
+        }
+        if (item instanceof MarkupSelectorAndItem) {
+            return matchesElementsOnly(((MarkupSelectorAndItem) item).left);
+        }
+        if (item instanceof MarkupSelectorOrItem) {
+            return matchesElementsOnly(((MarkupSelectorOrItem) item).left) &&
+                    matchesElementsOnly(((MarkupSelectorOrItem) item).right);
+        }
+        return false;
+    }
+
+
+
+
+    int computeElementNameId(final char[] buffer, final int offset, final int len) {
+
+        if (this.names.length == 0) {
+            return -1;
+        }
+
+        int slot = hash(this.html, buffer, offset, len) & (this.namesTable.length - 1);
+        int nameId;
+        while ((nameId = this.namesTable[slot] - 1) >= 0) {
+            if (equals(this.html, this.names[nameId], buffer, offset, len)) {
+                return nameId;
+            }
+            slot = (slot + 1) & (this.namesTable.length - 1);
+        }
+        return -1;
+
+    }
+
+
+    private static int hash(final boolean html, final char[] buffer, final int offset, final int len) {
+        int h = 0;
+        for (int i = 0; i < len; i++) {
+            h = 31 * h + fold(html, buffer[offset + i]);
+        }
+        return h ^ (h >>> 16);
+    }
+
+
+    private static boolean equals(
+            final boolean html, final char[] name, final char[] buffer, final int offset, final int len) {
+        if (name.length != len) {
+            return false;
+        }
+        for (int i = 0; i < len; i++) {
+            if (name[i] != buffer[offset + i] && fold(html, name[i]) != fold(html, buffer[offset + i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    private static char fold(final boolean html, final char c) {
+        if (!html) {
+            return c;
+        }
+        if (c < 128) {
+            return (c >= 'A' && c <= 'Z' ? (char)(c + 32) : c);
+        }
+        // Same equivalence TextUtil.equals(false, ...) applies to each pair of chars
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+
+
+
+    /*
+     * Not modified once the automaton has been built. Matching state for each State is kept by matchers,
+     * indexed by its id.
+     */
+    static final class State {
+
+        final State parent;
+        final IMarkupSelectorItem item;
+        final boolean anyLevel;
+
+        // Only used while building the automaton
+        List<State> children = new ArrayList<State>(2);
+        int nameId = -1;
+
+        int id;
+        State[] elementChildren;
+        State[] otherChildren;
+        boolean anyElementChildren;
+        int[] namedChildrenIds;
+        State[][] namedChildren;
+
+
+        State(final State parent, final IMarkupSelectorItem item) {
+            super();
+            this.parent = parent;
+            this.item = item;
+            this.anyLevel = (item != null && item.anyLevel());
+        }
+
+
+        State child(final IMarkupSelectorItem childItem) {
+            for (final State child : this.children) {
+                if (child.item.equals(childItem)) {
+                    return child;
+                }
+            }
+            final State child = new State(this, childItem);
+            this.children.add(child);
+            return child;
+        }
+
+
+        State[] namedChildren(final int nameId) {
+            int slot = nameId & (this.namedChildrenIds.length - 1);
+            int id;
+            while ((id = this.namedChildrenIds[slot]) != -1) {
+                if (id == nameId) {
+                    return this.namedChildren[slot];
+                }
+                slot = (slot + 1) & (this.namedChildrenIds.length - 1);
+            }
+            return NO_STATES;
+        }
+
+    }
+
+
+}
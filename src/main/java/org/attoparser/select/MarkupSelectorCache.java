@@ -0,0 +1,343 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser.select;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * <p>
+ *   Cache of compiled markup selectors, shared by all the {@link BlockSelectorMarkupHandler} and
+ *   {@link NodeSelectorMarkupHandler} instances in the application.
+ * </p>
+ * <p>
+ *   Compiled selectors are kept in a bounded cache with a least-recently-used eviction policy, so that
+ *   applications using an open-ended number of (e.g. dynamically built) selectors keep caching the ones being
+ *   currently used instead of parsing them again and again once the cache has filled up. In order to reduce
+ *   contention, the cache is divided into a number of segments by selector hash, each of them evicting its own
+ *   least-recently-used entries, so eviction order is only approximately LRU at the cache level.
+ * </p>
+ * <p>
+ *   Entries are keyed by selector, parsing mode (HTML or XML) and {@link IMarkupSelectorReferenceResolver}.
+ *   Reference resolvers are only weakly referenced by the cache: entries for resolvers that are no longer in
+ *   use will never be hit again and will eventually be evicted.
+ * </p>
+ * <p>
+ *   This class also keeps hit, miss and eviction counters, which can be used for monitoring the adequacy of the
+ *   cache maximum size (see {@link #setMaxSize(int)}) to the number of selectors being used.
+ * </p>
+ * <p>
+ *   This class is <strong>thread-safe</strong>.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 2.0.10
+ *
+ */
+public final class MarkupSelectorCache {
+
+    /**
+     * <p>
+     *   Default maximum number of compiled selectors kept in the cache (1000).
+     * </p>
+     */
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    private static final int SEGMENT_COUNT = 16; // Must be a power of 2
+
+    private static final Segment[] SEGMENTS;
+    private static volatile int maxSize = DEFAULT_MAX_SIZE;
+
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+    private static final LongAdder EVICTIONS = new LongAdder();
+
+
+    static {
+        SEGMENTS = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            SEGMENTS[i] = new Segment(computeSegmentMaxSize(DEFAULT_MAX_SIZE));
+        }
+    }
+
+
+
+
+    private MarkupSelectorCache() {
+        super();
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Returns the maximum number of compiled selectors kept in the cache.
+     * </p>
+     *
+     * @return the maximum size of the cache.
+     */
+    public static int getMaxSize() {
+        return maxSize;
+    }
+
+
+    /**
+     * <p>
+     *   Sets the maximum number of compiled selectors kept in the cache. If the cache currently contains more
+     *   selectors than allowed by the new size, the least recently used ones are evicted.
+     * </p>
+     *
+     * @param maxSize the new maximum size of the cache. Must be greater than zero.
+     */
+    public static void setMaxSize(final int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Maximum size of selector cache must be greater than zero");
+        }
+        MarkupSelectorCache.maxSize = maxSize;
+        final int segmentMaxSize = computeSegmentMaxSize(maxSize);
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            SEGMENTS[i].resize(segmentMaxSize);
+        }
+    }
+
+
+    /**
+     * <p>
+     *   Returns the number of compiled selectors currently in the cache.
+     * </p>
+     *
+     * @return the size of the cache.
+     */
+    public static int getSize() {
+        int size = 0;
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            size += SEGMENTS[i].currentSize();
+        }
+        return size;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the number of times a compiled selector was requested and found in the cache.
+     * </p>
+     *
+     * @return the number of cache hits.
+     */
+    public static long getHitCount() {
+        return HITS.sum();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the number of times a compiled selector was requested and not found in the cache, and therefore
+     *   had to be parsed.
+     * </p>
+     *
+     * @return the number of cache misses.
+     */
+    public static long getMissCount() {
+        return MISSES.sum();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the number of compiled selectors evicted from the cache in order to make room for new ones.
+     * </p>
+     *
+     * @return the number of evictions.
+     */
+    public static long getEvictionCount() {
+        return EVICTIONS.sum();
+    }
+
+
+    /**
+     * <p>
+     *   Removes all compiled selectors from the cache. Counters are not reset.
+     * </p>
+     */
+    public static void clear() {
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            SEGMENTS[i].clearAll();
+        }
+    }
+
+
+
+
+    static List<IMarkupSelectorItem> get(
+            final boolean html, final String selector, final IMarkupSelectorReferenceResolver referenceResolver) {
+
+        final Key key = new Key(html, selector, referenceResolver);
+        final Segment segment = SEGMENTS[spread(key.hash) & (SEGMENT_COUNT - 1)];
+
+        List<IMarkupSelectorItem> items = segment.getItems(key);
+        if (items != null) {
+            HITS.increment();
+            return items;
+        }
+
+        MISSES.increment();
+
+        // Parsing is performed outside the segment lock. If another thread parsed the same selector in the meantime,
+        // we will just keep the items it cached
+        items = Collections.unmodifiableList(MarkupSelectorItems.parseSelector(html, selector, referenceResolver));
+        return segment.putItems(key, items);
+
+    }
+
+
+    private static int computeSegmentMaxSize(final int maxSize) {
+        return Math.max(1, (maxSize + SEGMENT_COUNT - 1) / SEGMENT_COUNT);
+    }
+
+
+    private static int spread(final int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+
+
+
+    private static final class Segment extends LinkedHashMap<Key,List<IMarkupSelectorItem>> {
+
+        private static final long serialVersionUID = 4279381624717613297L;
+
+        private int segmentMaxSize;
+
+
+        Segment(final int segmentMaxSize) {
+            // Access order is used so that iteration (and therefore eviction) order is least-recently-used first
+            super(16, 0.75f, true);
+            this.segmentMaxSize = segmentMaxSize;
+        }
+
+
+        synchronized List<IMarkupSelectorItem> getItems(final Key key) {
+            return get(key);
+        }
+
+
+        synchronized List<IMarkupSelectorItem> putItems(final Key key, final List<IMarkupSelectorItem> items) {
+            final List<IMarkupSelectorItem> existing = get(key);
+            if (existing != null) {
+                return existing;
+            }
+            put(key, items);
+            return items;
+        }
+
+
+        synchronized int currentSize() {
+            return size();
+        }
+
+
+        synchronized void clearAll() {
+            clear();
+        }
+
+
+        synchronized void resize(final int segmentMaxSize) {
+            this.segmentMaxSize = segmentMaxSize;
+            while (size() > this.segmentMaxSize) {
+                remove(keySet().iterator().next());
+                EVICTIONS.increment();
+            }
+        }
+
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Key,List<IMarkupSelectorItem>> eldest) {
+            if (size() > this.segmentMaxSize) {
+                EVICTIONS.increment();
+                return true;
+            }
+            return false;
+        }
+
+    }
+
+
+
+
+    private static final class Key {
+
+        private final boolean html;
+        private final String selector;
+        private final WeakReference<IMarkupSelectorReferenceResolver> referenceResolver;
+        private final int hash;
+
+
+        Key(final boolean html, final String selector, final IMarkupSelectorReferenceResolver referenceResolver) {
+            super();
+            this.html = html;
+            this.selector = selector;
+            this.referenceResolver =
+                    (referenceResolver == null ? null : new WeakReference<IMarkupSelectorReferenceResolver>(referenceResolver));
+            int h = selector.hashCode();
+            h = 31 * h + (html ? 1 : 0);
+            h = 31 * h + (referenceResolver == null ? 0 : referenceResolver.hashCode());
+            this.hash = h;
+        }
+
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key that = (Key) o;
+            if (this.hash != that.hash || this.html != that.html || !this.selector.equals(that.selector)) {
+                return false;
+            }
+            if (this.referenceResolver == null || that.referenceResolver == null) {
+                return this.referenceResolver == that.referenceResolver;
+            }
+            // Once a reference resolver has been garbage collected, its entries will never be matched again
+            final IMarkupSelectorReferenceResolver thisResolver = this.referenceResolver.get();
+            final IMarkupSelectorReferenceResolver thatResolver = that.referenceResolver.get();
+            return thisResolver != null && thatResolver != null &&
+                    (thisResolver == thatResolver || thisResolver.equals(thatResolver));
+        }
+
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+    }
+
+
+}
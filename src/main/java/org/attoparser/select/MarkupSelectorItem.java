@@ -61,7 +61,7 @@ final class MarkupSelectorItem implements IMarkupSelectorItem {
     private final boolean xmlDeclarationSelector;
     private final boolean processingInstructionSelector;
     private final String selectorPath;
-    private final int selectorPathLen;
+    private final char[] selectorPathChars;
     private final IndexCondition index;
     private final IAttributeCondition attributeCondition;
     private final boolean requiresAttributesInElement;
@@ -87,7 +87,7 @@ final class MarkupSelectorItem implements IMarkupSelectorItem {
         this.xmlDeclarationSelector = xmlDeclarationSelector;
         this.processingInstructionSelector = processingInstructionSelector;
         this.selectorPath = selectorPath;
-        this.selectorPathLen = (selectorPath != null? selectorPath.length() : 0);
+        this.selectorPathChars = (selectorPath != null? selectorPath.toCharArray() : null);
         this.index = index;
         this.attributeCondition = attributeCondition;
 
@@ -181,6 +181,65 @@ public String toString() {
 
     }
 
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MarkupSelectorItem)) {
+            return false;
+        }
+        final MarkupSelectorItem that = (MarkupSelectorItem) o;
+        return this.html == that.html &&
+                this.anyLevel == that.anyLevel &&
+                this.contentSelector == that.contentSelector &&
+                this.textSelector == that.textSelector &&
+                this.commentSelector == that.commentSelector &&
+                this.cdataSectionSelector == that.cdataSectionSelector &&
+                this.docTypeClauseSelector == that.docTypeClauseSelector &&
+                this.xmlDeclarationSelector == that.xmlDeclarationSelector &&
+                this.processingInstructionSelector == that.processingInstructionSelector &&
+                (this.selectorPath == null ? that.selectorPath == null : this.selectorPath.equals(that.selectorPath)) &&
+                (this.index == null ? that.index == null : this.index.equals(that.index)) &&
+                (this.attributeCondition == null ? that.attributeCondition == null : this.attributeCondition.equals(that.attributeCondition));
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (this.anyLevel ? 1 : 0);
+        result = 31 * result + (this.selectorPath != null ? this.selectorPath.hashCode() : 0);
+        result = 31 * result + (this.index != null ? this.index.hashCode() : 0);
+        result = 31 * result + (this.attributeCondition != null ? this.attributeCondition.hashCode() : 0);
+        return result;
+    }
+
+
+    /*
+     * Returns the element name this item requires (if it only matches elements with a specific name), or null
+     * if it matches any element or other kinds of markup.
+     */
+    String getElementName() {
+        return this.selectorPath;
+    }
+
+
+    /*
+     * Returns whether this is a content() item, matching any element or other kind of markup.
+     */
+    boolean matchesContent() {
+        return this.contentSelector;
+    }
+
+
+    /*
+     * Returns whether this item can only match elements (i.e. it is not a content(), text(), comment()... item).
+     */
+    boolean matchesElementsOnly() {
+        return !(this.contentSelector || this.textSelector || this.commentSelector || this.cdataSectionSelector ||
+                this.docTypeClauseSelector || this.xmlDeclarationSelector || this.processingInstructionSelector);
+    }
+
+
     private static String toStringAttributeCondition(final IAttributeCondition attributeCondition, final boolean outputParenthesis) {
 
         if (attributeCondition instanceof AttributeConditionRelation) {
@@ -223,11 +282,43 @@ static enum Operator {
         final Operator operator;
         final String value;
 
+        // Precompiled forms of name and value, used for matching against buffered attributes
+        final char[] nameChars;
+        final char[] valueChars;
+        final boolean classAttribute;
+        final boolean valueEmptyOrWhitespace;
+
         AttributeCondition(final String name, final Operator operator, final String value) {
             super();
             this.name = name;
             this.operator = operator;
             this.value = value;
+            this.nameChars = name.toCharArray();
+            this.valueChars = (value != null ? value.toCharArray() : null);
+            this.classAttribute = "class".equals(name);
+            this.valueEmptyOrWhitespace = isEmptyOrWhitespace(value);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof AttributeCondition)) {
+                return false;
+            }
+            final AttributeCondition that = (AttributeCondition) o;
+            return this.name.equals(that.name) &&
+                    this.operator == that.operator &&
+                    (this.value == null ? that.value == null : this.value.equals(that.value));
+        }
+
+        @Override
+        public int hashCode() {
+            int result = this.name.hashCode();
+            result = 31 * result + this.operator.hashCode();
+            result = 31 * result + (this.value != null ? this.value.hashCode() : 0);
+            return result;
         }
 
     }
@@ -247,6 +338,26 @@ static enum Type { AND, OR }
             this.right = right;
         }
 
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof AttributeConditionRelation)) {
+                return false;
+            }
+            final AttributeConditionRelation that = (AttributeConditionRelation) o;
+            return this.type == that.type && this.left.equals(that.left) && this.right.equals(that.right);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = this.type.hashCode();
+            result = 31 * result + this.left.hashCode();
+            result = 31 * result + this.right.hashCode();
+            return result;
+        }
+
     }
 
 
@@ -267,6 +378,23 @@ static enum IndexConditionType { VALUE, LESS_THAN, MORE_THAN, EVEN, ODD }
             this.value = value;
         }
 
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof IndexCondition)) {
+                return false;
+            }
+            final IndexCondition that = (IndexCondition) o;
+            return this.type == that.type && this.value == that.value;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.type.hashCode() + this.value;
+        }
+
     }
 
 
@@ -358,7 +486,7 @@ public boolean matchesElement(final int markupBlockIndex, final SelectorElementB
         if (!this.contentSelector && this.selectorPath != null &&
                 !TextUtil.equals(
                         !this.html,
-                        this.selectorPath, 0, this.selectorPathLen,
+                        this.selectorPathChars, 0, this.selectorPathChars.length,
                         elementBuffer.elementName, 0, elementBuffer.elementNameLen)) {
             return false;
         }
@@ -400,24 +528,22 @@ private static boolean matchesAttributeCondition(
             }
         }
 
-        final AttributeCondition attrCondition = (AttributeCondition) attributeCondition;
-        return matchesAttribute(html, elementBuffer, attrCondition.name, attrCondition.operator, attrCondition.value);
+        return matchesAttribute(html, elementBuffer, (AttributeCondition) attributeCondition);
 
     }
 
 
 
     private static boolean matchesAttribute(
-            final boolean html, final SelectorElementBuffer elementBuffer,
-            final String attrName, final MarkupSelectorItem.AttributeCondition.Operator attrOperator, final String attrValue) {
+            final boolean html, final SelectorElementBuffer elementBuffer, final AttributeCondition attrCondition) {
 
         boolean found = false;
         for (int i = 0; i < elementBuffer.attributeCount; i++) {
 
             if (!TextUtil.equals(
                     !html,
-                    attrName, 0, attrName.length(),
-                    elementBuffer.attributeBuffers[i], 0, elementBuffer.attributeNameLens[i])) {
+                    attrCondition.nameChars, 0, attrCondition.nameChars.length,
+                    elementBuffer.attributeSources[i], elementBuffer.attributeNameOffsets[i], elementBuffer.attributeNameLens[i])) {
                 continue;
             }
 
@@ -426,21 +552,21 @@ private static boolean matchesAttribute(
             // instances.
             found = true;
 
-            if (html && "class".equals(attrName)) {
+            if (html && attrCondition.classAttribute) {
 
                 // The attribute we are comparing is actually the "class" attribute, which requires an special treatment
                 // if we are in HTML mode.
                 if (matchesClassAttributeValue(
-                        attrOperator, attrValue,
-                        elementBuffer.attributeBuffers[i], elementBuffer.attributeValueContentOffsets[i], elementBuffer.attributeValueContentLens[i])) {
+                        attrCondition,
+                        elementBuffer.attributeSources[i], elementBuffer.attributeValueContentOffsets[i], elementBuffer.attributeValueContentLens[i])) {
                     return true;
                 }
 
             } else {
 
                 if (matchesAttributeValue(
-                        attrOperator, attrValue,
-                        elementBuffer.attributeBuffers[i], elementBuffer.attributeValueContentOffsets[i], elementBuffer.attributeValueContentLens[i])) {
+                        attrCondition,
+                        elementBuffer.attributeSources[i], elementBuffer.attributeValueContentOffsets[i], elementBuffer.attributeValueContentLens[i])) {
                     return true;
                 }
 
@@ -455,7 +581,7 @@ private static boolean matchesAttribute(
         }
 
         // Attribute was not found in element, so we will consider it a match if the operator is NOT_EXISTS
-        return MarkupSelectorItem.AttributeCondition.Operator.NOT_EXISTS.equals(attrOperator);
+        return MarkupSelectorItem.AttributeCondition.Operator.NOT_EXISTS.equals(attrCondition.operator);
 
     }
 
@@ -463,38 +589,39 @@ private static boolean matchesAttribute(
 
 
     private static boolean matchesAttributeValue(
-            final MarkupSelectorItem.AttributeCondition.Operator attrOperator,
-            final String attrValue,
+            final AttributeCondition attrCondition,
             final char[] elementAttrValueBuffer, final int elementAttrValueOffset, final int elementAttrValueLen) {
 
-        switch (attrOperator) {
+        final char[] attrValue = attrCondition.valueChars;
+
+        switch (attrCondition.operator) {
 
             case EQUALS:
                 // Test equality: we are testing values, so we always use case-sensitivity = true
                 return TextUtil.equals(true,
-                        attrValue,              0,                      attrValue.length(),
+                        attrValue,              0,                      attrValue.length,
                         elementAttrValueBuffer, elementAttrValueOffset, elementAttrValueLen);
 
             case NOT_EQUALS:
                 // Test inequality: we are testing values, so we always use case-sensitivity = true
                 return !TextUtil.equals(true,
-                        attrValue,              0,                      attrValue.length(),
+                        attrValue,              0,                      attrValue.length,
                         elementAttrValueBuffer, elementAttrValueOffset, elementAttrValueLen);
 
             case STARTS_WITH:
                 return TextUtil.startsWith(true,
                         elementAttrValueBuffer, elementAttrValueOffset, elementAttrValueLen,
-                        attrValue,              0,                      attrValue.length());
+                        attrValue,              0,                      attrValue.length);
 
             case ENDS_WITH:
                 return TextUtil.endsWith(true,
                         elementAttrValueBuffer, elementAttrValueOffset, elementAttrValueLen,
-                        attrValue,              0,                      attrValue.length());
+                        attrValue,              0,                      attrValue.length);
 
             case CONTAINS:
                 return TextUtil.contains(true,
                         elementAttrValueBuffer, elementAttrValueOffset, elementAttrValueLen,
-                        attrValue,              0,                      attrValue.length());
+                        attrValue,              0,                      attrValue.length);
 
             case EXISTS:
                 // The fact that this attribute exists is enough to return true
@@ -505,7 +632,7 @@ private static boolean matchesAttributeValue(
                 return false;
 
             default:
-                throw new IllegalArgumentException("Unknown operator: " + attrOperator);
+                throw new IllegalArgumentException("Unknown operator: " + attrCondition.operator);
 
         }
 
@@ -513,12 +640,11 @@ private static boolean matchesAttributeValue(
 
 
     private static boolean matchesClassAttributeValue(
-            final MarkupSelectorItem.AttributeCondition.Operator attrOperator,
-            final String attrValue,
+            final AttributeCondition attrCondition,
             final char[] elementAttrValueBuffer, final int elementAttrValueOffset, final int elementAttrValueLen) {
 
         if (elementAttrValueLen == 0) {
-            return isEmptyOrWhitespace(attrValue);
+            return attrCondition.valueEmptyOrWhitespace;
         }
 
         int i = 0;
@@ -526,7 +652,7 @@ private static boolean matchesClassAttributeValue(
         while (i < elementAttrValueLen && Character.isWhitespace(elementAttrValueBuffer[elementAttrValueOffset + i])) { i++; }
 
         if (i == elementAttrValueLen) {
-            return isEmptyOrWhitespace(attrValue);
+            return attrCondition.valueEmptyOrWhitespace;
         }
 
         while (i < elementAttrValueLen) {
@@ -535,7 +661,7 @@ private static boolean matchesClassAttributeValue(
 
             while (i < elementAttrValueLen && !Character.isWhitespace(elementAttrValueBuffer[elementAttrValueOffset + i])) { i++; }
 
-            if (matchesAttributeValue(attrOperator, attrValue, elementAttrValueBuffer, lastOffset, (elementAttrValueOffset + i) - lastOffset)) {
+            if (matchesAttributeValue(attrCondition, elementAttrValueBuffer, lastOffset, (elementAttrValueOffset + i) - lastOffset)) {
                 return true;
             }
 
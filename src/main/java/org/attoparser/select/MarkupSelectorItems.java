@@ -20,9 +20,7 @@
 package org.attoparser.select;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -34,12 +32,6 @@
 final class MarkupSelectorItems {
 
 
-    private static final SelectorRepository NO_REFERENCE_RESOLVER_REPOSITORY = new SelectorRepository();
-    private static final ConcurrentHashMap<IMarkupSelectorReferenceResolver,SelectorRepository> REPOSITORIES_BY_REFERENCE_RESOLVER =
-            new ConcurrentHashMap<IMarkupSelectorReferenceResolver, SelectorRepository>(20);
-
-
-
     private static final String selectorPatternStr = "^(/{1,2})([^/\\s]*?)(\\[(?:.*)\\])?$";
     private static final Pattern selectorPattern = Pattern.compile(selectorPatternStr);
     private static final String modifiersPatternStr = "^(?:\\[(.*?)\\])(\\[(?:.*)\\])?$";
@@ -55,48 +47,7 @@ static List<IMarkupSelectorItem> forSelector(
             throw new IllegalArgumentException("Selector cannot be null or empty");
         }
 
-        final ConcurrentHashMap<String,List<IMarkupSelectorItem>> map;
-        if (referenceResolver == null) {
-            map = NO_REFERENCE_RESOLVER_REPOSITORY.getMap(html);
-        } else {
-            if (!REPOSITORIES_BY_REFERENCE_RESOLVER.containsKey(referenceResolver)) {
-                if (REPOSITORIES_BY_REFERENCE_RESOLVER.size() < SelectorRepository.SELECTOR_ITEMS_MAX_SIZE) {
-                    // We will use the same max size for reference resolvers and selectors per resolver (1000)
-                    REPOSITORIES_BY_REFERENCE_RESOLVER.putIfAbsent(referenceResolver, new SelectorRepository());
-                }
-            }
-            map = REPOSITORIES_BY_REFERENCE_RESOLVER.get(referenceResolver).getMap(html);
-        }
-
-        List<IMarkupSelectorItem> items = map.get(selector);
-        if (items != null) {
-            return items;
-        }
-
-        items = Collections.unmodifiableList(parseSelector(html, selector, referenceResolver));
-
-        if (map.size() < SelectorRepository.SELECTOR_ITEMS_MAX_SIZE) {
-            map.putIfAbsent(selector, items);
-        }
-
-        return items;
-
-    }
-
-
-
-    static final class SelectorRepository {
-
-        private static final int SELECTOR_ITEMS_MAX_SIZE = 1000; // Just in case some crazy uses of this are done
-        private final ConcurrentHashMap<String,List<IMarkupSelectorItem>> CASE_INSENSITIVE_SELECTOR_ITEMS =
-                new ConcurrentHashMap<String, List<IMarkupSelectorItem>>(20);
-        private final ConcurrentHashMap<String,List<IMarkupSelectorItem>> CASE_SENSITIVE_SELECTOR_ITEMS =
-                new ConcurrentHashMap<String, List<IMarkupSelectorItem>>(20);
-
-
-        ConcurrentHashMap<String,List<IMarkupSelectorItem>> getMap(final boolean html) {
-            return (html ? CASE_INSENSITIVE_SELECTOR_ITEMS : CASE_SENSITIVE_SELECTOR_ITEMS);
-        }
+        return MarkupSelectorCache.get(html, selector, referenceResolver);
 
     }
 
@@ -0,0 +1,447 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser.select;
+
+import java.util.Arrays;
+
+import org.attoparser.select.MarkupSelectorAutomaton.State;
+
+/*
+ * Matching state of a MarkupSelectorAutomaton for a single parsing operation: the markup levels at which each
+ * state has been matched, its index counters, and the lists of states currently matched.
+ *
+ * As it happens with MarkupSelectorFilter, the results are obtained by first calling one of the "match*"
+ * methods and then asking for each selector by means of "matches(selectorIndex)".
+ *
+ * Objects of this class are not thread-safe, and should be created for each parsing operation (they are cheap
+ * to create, as the automaton is already compiled).
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+final class MarkupSelectorMatcher {
+
+    private static final int EVENT_XML_DECLARATION = 0;
+    private static final int EVENT_DOC_TYPE_CLAUSE = 1;
+    private static final int EVENT_CDATA_SECTION = 2;
+    private static final int EVENT_TEXT = 3;
+    private static final int EVENT_COMMENT = 4;
+    private static final int EVENT_ELEMENT = 5;
+    private static final int EVENT_PROCESSING_INSTRUCTION = 6;
+
+    private static final int MATCHED_MARKUP_LEVELS_LEN = 10;
+
+    private static final boolean[] NO_MATCHED_MARKUP_LEVELS = new boolean[0];
+
+
+    private final MarkupSelectorAutomaton automaton;
+
+    // Matching state for each automaton State, indexed by its id
+    private final boolean[][] matchedMarkupLevels;
+    private final int[] matchedMarkupLevelsCounts;
+    private final MarkupSelectorFilter.MarkupBlockMatchingCounter[] markupBlockMatchingCounters;
+    private final State[][] activeChildren;
+    private final int[] activeChildrenLens;
+    private final int[] activeChildIndexes;
+    private final int[] activeIndexes;
+    private final long[] stamps;
+    private final boolean[] results;
+
+    private long eventStamp;
+    private int elementNameId;
+
+    private State[] activeStates;
+    private int activeStatesLen;
+
+    private State[] pendingStates;
+    private boolean[] pendingValues;
+    private int pendingLen;
+
+
+
+
+    MarkupSelectorMatcher(final MarkupSelectorAutomaton automaton) {
+
+        super();
+
+        this.automaton = automaton;
+
+        final int stateCount = automaton.stateCount;
+
+        this.matchedMarkupLevels = new boolean[stateCount][];
+        Arrays.fill(this.matchedMarkupLevels, NO_MATCHED_MARKUP_LEVELS);
+        this.matchedMarkupLevelsCounts = new int[stateCount];
+        this.markupBlockMatchingCounters = new MarkupSelectorFilter.MarkupBlockMatchingCounter[stateCount];
+        for (int i = 0; i < stateCount; i++) {
+            this.markupBlockMatchingCounters[i] = new MarkupSelectorFilter.MarkupBlockMatchingCounter();
+        }
+        this.activeChildren = new State[stateCount][];
+        Arrays.fill(this.activeChildren, MarkupSelectorAutomaton.NO_STATES);
+        this.activeChildrenLens = new int[stateCount];
+        this.activeChildIndexes = new int[stateCount];
+        this.activeIndexes = new int[stateCount];
+        this.stamps = new long[stateCount];
+        this.results = new boolean[stateCount];
+
+        this.eventStamp = 0L;
+        this.elementNameId = -1;
+
+        this.activeStates = new State[10];
+        this.activeStatesLen = 0;
+
+        this.pendingStates = new State[10];
+        this.pendingValues = new boolean[10];
+        this.pendingLen = 0;
+
+    }
+
+
+
+
+    /*
+     * ---------------
+     * Matching events
+     * ---------------
+     */
+
+    void matchXmlDeclaration(final boolean blockMatching, final int markupLevel, final int markupBlockIndex) {
+        match(EVENT_XML_DECLARATION, false, blockMatching, markupLevel, markupBlockIndex, null);
+    }
+
+
+    void matchDocTypeClause(final boolean blockMatching, final int markupLevel, final int markupBlockIndex) {
+        match(EVENT_DOC_TYPE_CLAUSE, false, blockMatching, markupLevel, markupBlockIndex, null);
+    }
+
+
+    void matchCDATASection(final boolean blockMatching, final int markupLevel, final int markupBlockIndex) {
+        match(EVENT_CDATA_SECTION, false, blockMatching, markupLevel, markupBlockIndex, null);
+    }
+
+
+    void matchText(final boolean blockMatching, final int markupLevel, final int markupBlockIndex) {
+        match(EVENT_TEXT, false, blockMatching, markupLevel, markupBlockIndex, null);
+    }
+
+
+    void matchComment(final boolean blockMatching, final int markupLevel, final int markupBlockIndex) {
+        match(EVENT_COMMENT, false, blockMatching, markupLevel, markupBlockIndex, null);
+    }
+
+
+    void matchStandaloneElement(
+            final boolean blockMatching, final int markupLevel, final int markupBlockIndex,
+            final SelectorElementBuffer elementBuffer) {
+        match(EVENT_ELEMENT, false, blockMatching, markupLevel, markupBlockIndex, elementBuffer);
+    }
+
+
+    void matchOpenElement(
+            final boolean blockMatching, final int markupLevel, final int markupBlockIndex,
+            final SelectorElementBuffer elementBuffer) {
+        match(EVENT_ELEMENT, true, blockMatching, markupLevel, markupBlockIndex, elementBuffer);
+    }
+
+
+    void matchProcessingInstruction(final boolean blockMatching, final int markupLevel, final int markupBlockIndex) {
+        match(EVENT_PROCESSING_INSTRUCTION, false, blockMatching, markupLevel, markupBlockIndex, null);
+    }
+
+
+    /*
+     * Returns whether any of the items that would be evaluated for an element with the specified name at this
+     * point could match it. If not, the result of matching the element does not depend on its attributes, so
+     * these do not need to be buffered.
+     */
+    boolean canMatchElement(final char[] buffer, final int nameOffset, final int nameLen) {
+        return canMatchElement(
+                this.automaton.root, this.automaton.computeElementNameId(buffer, nameOffset, nameLen));
+    }
+
+
+    private boolean canMatchElement(final State state, final int nameId) {
+        if (state.anyElementChildren) {
+            return true;
+        }
+        if (nameId >= 0 && state.namedChildren(nameId).length > 0) {
+            return true;
+        }
+        // Only states matched at previous levels delegate to their children
+        final State[] stateActiveChildren = this.activeChildren[state.id];
+        for (int i = 0, n = this.activeChildrenLens[state.id]; i < n; i++) {
+            if (canMatchElement(stateActiveChildren[i], nameId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /*
+     * Returns the result of the last "match*" operation for the selector with the specified index.
+     */
+    boolean matches(final int selectorIndex) {
+        final int id = this.automaton.selectorStates[selectorIndex].id;
+        return this.stamps[id] == this.eventStamp && this.results[id];
+    }
+
+
+
+
+    private void match(
+            final int event, final boolean open, final boolean blockMatching,
+            final int markupLevel, final int markupBlockIndex, final SelectorElementBuffer elementBuffer) {
+
+        this.eventStamp++;
+        this.elementNameId =
+                (event == EVENT_ELEMENT ?
+                        this.automaton.computeElementNameId(elementBuffer.elementName, 0, elementBuffer.elementNameLen) : -1);
+        this.pendingLen = 0;
+
+        matchChildren(this.automaton.root, event, open, blockMatching, markupLevel, markupBlockIndex, elementBuffer);
+
+        // Levels matched by "open" events are only written once all states have been evaluated, given states
+        // only look at previous levels of their parents, and this way the active state lists are not modified
+        // while being traversed.
+        for (int i = 0; i < this.pendingLen; i++) {
+            setMatchedMarkupLevel(this.pendingStates[i], markupLevel, this.pendingValues[i]);
+            this.pendingStates[i] = null;
+        }
+        this.pendingLen = 0;
+
+    }
+
+
+    private void matchChildren(
+            final State state, final int event, final boolean open, final boolean blockMatching,
+            final int markupLevel, final int markupBlockIndex, final SelectorElementBuffer elementBuffer) {
+
+        if (event == EVENT_ELEMENT) {
+            if (this.elementNameId >= 0) {
+                final State[] namedChildren = state.namedChildren(this.elementNameId);
+                for (int i = 0; i < namedChildren.length; i++) {
+                    matchState(state, namedChildren[i], event, open, blockMatching, markupLevel, markupBlockIndex, elementBuffer);
+                }
+            }
+            for (int i = 0; i < state.elementChildren.length; i++) {
+                matchState(state, state.elementChildren[i], event, open, blockMatching, markupLevel, markupBlockIndex, elementBuffer);
+            }
+        }
+        for (int i = 0; i < state.otherChildren.length; i++) {
+            matchState(state, state.otherChildren[i], event, open, blockMatching, markupLevel, markupBlockIndex, elementBuffer);
+        }
+        // Children matched at previous levels must always be visited, even if they cannot match this event
+        final State[] stateActiveChildren = this.activeChildren[state.id];
+        for (int i = 0; i < this.activeChildrenLens[state.id]; i++) {
+            matchState(state, stateActiveChildren[i], event, open, blockMatching, markupLevel, markupBlockIndex, elementBuffer);
+        }
+
+    }
+
+
+    /*
+     * Equivalent to the "match*" methods in MarkupSelectorFilter, but recording the result for the state instead
+     * of returning it.
+     */
+    private void matchState(
+            final State parent, final State state, final int event, final boolean open, final boolean blockMatching,
+            final int markupLevel, final int markupBlockIndex, final SelectorElementBuffer elementBuffer) {
+
+        final int id = state.id;
+
+        if (this.stamps[id] == this.eventStamp) {
+            // Already visited for this event
+            return;
+        }
+        this.stamps[id] = this.eventStamp;
+
+        final boolean matchesPreviousOrCurrentLevel = matchesPreviousOrCurrentLevel(id, markupLevel);
+
+        if (state.anyLevel || markupLevel == 0 ||
+                (parent != this.automaton.root && matchesLevel(parent.id, markupLevel - 1))) {
+
+            final boolean matchesThisLevel = matchItem(state, event, markupBlockIndex, elementBuffer);
+
+            if (matchesPreviousOrCurrentLevel) {
+                if (open) {
+                    addPending(state, matchesThisLevel);
+                }
+                this.results[id] = (blockMatching || matchesThisLevel);
+            } else if (matchesThisLevel) {
+                if (open) {
+                    addPending(state, true);
+                }
+                this.results[id] = true;
+            } else {
+                this.results[id] = false;
+            }
+
+        } else {
+            this.results[id] = (matchesPreviousOrCurrentLevel && blockMatching);
+        }
+
+        if (matchesPreviousOrCurrentLevel) {
+            // Only states matched before delegate to their children
+            matchChildren(state, event, open, blockMatching, markupLevel, markupBlockIndex, elementBuffer);
+        }
+
+    }
+
+
+    private boolean matchItem(
+            final State state, final int event, final int markupBlockIndex, final SelectorElementBuffer elementBuffer) {
+        final MarkupSelectorFilter.MarkupBlockMatchingCounter counter = this.markupBlockMatchingCounters[state.id];
+        switch (event) {
+            case EVENT_XML_DECLARATION:
+                return state.item.matchesXmlDeclaration(markupBlockIndex, counter);
+            case EVENT_DOC_TYPE_CLAUSE:
+                return state.item.matchesDocTypeClause(markupBlockIndex, counter);
+            case EVENT_CDATA_SECTION:
+                return state.item.matchesCDATASection(markupBlockIndex, counter);
+            case EVENT_TEXT:
+                return state.item.matchesText(markupBlockIndex, counter);
+            case EVENT_COMMENT:
+                return state.item.matchesComment(markupBlockIndex, counter);
+            case EVENT_ELEMENT:
+                return state.item.matchesElement(markupBlockIndex, elementBuffer, counter);
+            case EVENT_PROCESSING_INSTRUCTION:
+                return state.item.matchesProcessingInstruction(markupBlockIndex, counter);
+            default:
+                throw new IllegalArgumentException("Unknown event: " + event);
+        }
+    }
+
+
+
+
+    /*
+     * --------------
+     * Level handling
+     * --------------
+     */
+
+    void removeMatchesForLevel(final int markupLevel) {
+        // Iterating backwards allows us to remove states from the list while traversing it
+        for (int i = this.activeStatesLen - 1; i >= 0; i--) {
+            setMatchedMarkupLevel(this.activeStates[i], markupLevel, false);
+        }
+    }
+
+
+    private boolean matchesLevel(final int id, final int markupLevel) {
+        final boolean[] levels = this.matchedMarkupLevels[id];
+        return (markupLevel >= 0 && markupLevel < levels.length && levels[markupLevel]);
+    }
+
+
+    private boolean matchesPreviousOrCurrentLevel(final int id, final int markupLevel) {
+        if (this.matchedMarkupLevelsCounts[id] == 0) {
+            return false;
+        }
+        final boolean[] levels = this.matchedMarkupLevels[id];
+        int i = Math.min(markupLevel, levels.length - 1);
+        while (i >= 0 && !levels[i]) { i--; }
+        return (i >= 0);
+    }
+
+
+    private void addPending(final State state, final boolean value) {
+        if (this.pendingLen == this.pendingStates.length) {
+            this.pendingStates = Arrays.copyOf(this.pendingStates, this.pendingStates.length * 2);
+            this.pendingValues = Arrays.copyOf(this.pendingValues, this.pendingValues.length * 2);
+        }
+        this.pendingStates[this.pendingLen] = state;
+        this.pendingValues[this.pendingLen] = value;
+        this.pendingLen++;
+    }
+
+
+    private void setMatchedMarkupLevel(final State state, final int markupLevel, final boolean value) {
+
+        final int id = state.id;
+        boolean[] levels = this.matchedMarkupLevels[id];
+
+        if (markupLevel >= levels.length) {
+            if (!value) {
+                return;
+            }
+            // Level arrays are only created for states that are matched at some point
+            levels = Arrays.copyOf(levels, Math.max(markupLevel + 1, Math.max(MATCHED_MARKUP_LEVELS_LEN, levels.length * 2)));
+            this.matchedMarkupLevels[id] = levels;
+        }
+
+        if (levels[markupLevel] == value) {
+            return;
+        }
+        levels[markupLevel] = value;
+
+        if (value) {
+            if (this.matchedMarkupLevelsCounts[id]++ == 0) {
+                activate(state);
+            }
+        } else {
+            if (--this.matchedMarkupLevelsCounts[id] == 0) {
+                deactivate(state);
+            }
+        }
+
+    }
+
+
+    private void activate(final State state) {
+
+        if (this.activeStatesLen == this.activeStates.length) {
+            this.activeStates = Arrays.copyOf(this.activeStates, this.activeStates.length * 2);
+        }
+        this.activeIndexes[state.id] = this.activeStatesLen;
+        this.activeStates[this.activeStatesLen++] = state;
+
+        final int parentId = state.parent.id;
+        State[] parentActiveChildren = this.activeChildren[parentId];
+        if (this.activeChildrenLens[parentId] == parentActiveChildren.length) {
+            parentActiveChildren = Arrays.copyOf(parentActiveChildren, Math.max(4, parentActiveChildren.length * 2));
+            this.activeChildren[parentId] = parentActiveChildren;
+        }
+        this.activeChildIndexes[state.id] = this.activeChildrenLens[parentId];
+        parentActiveChildren[this.activeChildrenLens[parentId]++] = state;
+
+    }
+
+
+    private void deactivate(final State state) {
+
+        final int activeIndex = this.activeIndexes[state.id];
+        final State last = this.activeStates[--this.activeStatesLen];
+        this.activeStates[activeIndex] = last;
+        this.activeIndexes[last.id] = activeIndex;
+        this.activeStates[this.activeStatesLen] = null;
+
+        final int parentId = state.parent.id;
+        final int activeChildIndex = this.activeChildIndexes[state.id];
+        final State[] parentActiveChildren = this.activeChildren[parentId];
+        final State lastChild = parentActiveChildren[--this.activeChildrenLens[parentId]];
+        parentActiveChildren[activeChildIndex] = lastChild;
+        this.activeChildIndexes[lastChild.id] = activeChildIndex;
+        parentActiveChildren[this.activeChildrenLens[parentId]] = null;
+
+    }
+
+
+}
@@ -20,7 +20,6 @@
 package org.attoparser.select;
 
 import java.util.Arrays;
-import java.util.List;
 
 import org.attoparser.AbstractMarkupHandler;
 import org.attoparser.IMarkupHandler;
@@ -128,7 +127,7 @@ public final class NodeSelectorMarkupHandler extends AbstractMarkupHandler {
     private ParseSelection selection;
     private int selectionIndex = -1;
 
-    private final IMarkupSelectorReferenceResolver referenceResolver;
+    private final CompiledMarkupSelectors compiledSelectors;
 
     private final SelectorElementBuffer elementBuffer;
 
@@ -138,12 +137,15 @@ public final class NodeSelectorMarkupHandler extends AbstractMarkupHandler {
     private final int selectorsLen;
     private final String[] selectors;
     private final boolean[] selectorMatches;
-    private final MarkupSelectorFilter[] selectorFilters;
+    private MarkupSelectorMatcher selectorMatcher;
 
     private final int[][] matchingMarkupLevelsPerSelector;
 
     private boolean someSelectorsMatch;
 
+    // Set while delegating the events of an element that no selector could match, and that was therefore not buffered
+    private IMarkupHandler unbufferedElementHandler;
+
 
     private int markupLevel;
 
@@ -226,19 +228,31 @@ public NodeSelectorMarkupHandler(final IMarkupHandler selectedHandler,
                                       final IMarkupHandler nonSelectedHandler,
                                       final String[] selectors,
                                       final IMarkupSelectorReferenceResolver referenceResolver) {
+        this(selectedHandler, nonSelectedHandler, new CompiledMarkupSelectors(selectors, referenceResolver));
+    }
+
+
+    /**
+     * <p>
+     *   Create a new instance of this handler, specifying both the <em>selected</em> and <em>non-selected</em>
+     *   handlers, and the (already compiled) selectors to be used.
+     * </p>
+     *
+     * @param selectedHandler the handler to which <em>selected</em> events will be delegated.
+     * @param nonSelectedHandler the handler to which <em>non-selected</em> events will be delegated.
+     * @param compiledSelectors the compiled selectors to be used. Cannot be null.
+     * @since 2.0.10
+     */
+    public NodeSelectorMarkupHandler(final IMarkupHandler selectedHandler,
+                                     final IMarkupHandler nonSelectedHandler,
+                                     final CompiledMarkupSelectors compiledSelectors) {
 
         super();
 
         // Both markup handlers (selected and non-selected) CAN be null
 
-        if (selectors == null || selectors.length == 0) {
-            throw new IllegalArgumentException("Selector array cannot be null or empty");
-        }
-        for (final String selector : selectors) {
-            if (selector == null || selector.trim().length() == 0) {
-                throw new IllegalArgumentException(
-                        "Selector array contains at least one null or empty item, which is forbidden");
-            }
+        if (compiledSelectors == null) {
+            throw new IllegalArgumentException("Compiled selectors cannot be null");
         }
 
         this.selectedHandler = selectedHandler;
@@ -247,10 +261,10 @@ public NodeSelectorMarkupHandler(final IMarkupHandler selectedHandler,
         // By default, send the "document start" and "document end" events to the selected handler
         this.documentStartEndHandler = this.selectedHandler;
 
-        this.referenceResolver = referenceResolver;
+        this.compiledSelectors = compiledSelectors;
 
-        this.selectors = selectors;
-        this.selectorsLen = selectors.length;
+        this.selectors = compiledSelectors.selectors;
+        this.selectorsLen = this.selectors.length;
 
         // Note this variable is defined basically in order to be reused in different events, but will not be dealt with as "state"
         this.selectorMatches = new boolean[this.selectors.length];
@@ -259,8 +273,7 @@ public NodeSelectorMarkupHandler(final IMarkupHandler selectedHandler,
         // Note this variable is defined basically in order to be reused in different events, but will not be dealt with as "state"
         this.someSelectorsMatch = false;
 
-        this.selectorFilters = new MarkupSelectorFilter[this.selectorsLen];
-        // We will not initialize selectorFilters here, but when we receive the configuration (setParseConfiguration)
+        // We will not initialize the selector automaton here, but when we receive the configuration (setParseConfiguration)
 
         this.elementBuffer = new SelectorElementBuffer();
 
@@ -317,18 +330,9 @@ public void setParseConfiguration(final ParseConfiguration parseConfiguration) {
         final boolean html =
                 ParseConfiguration.ParsingMode.HTML.equals(parseConfiguration.getMode());
 
-        for (int i = 0; i < this.selectorsLen; i++) {
-
-            final List<IMarkupSelectorItem> selectorItems =
-                    MarkupSelectorItems.forSelector(html, this.selectors[i], this.referenceResolver);
-
-            this.selectorFilters[i] = new MarkupSelectorFilter(null, selectorItems.get(0));
-            MarkupSelectorFilter last = this.selectorFilters[i];
-            for (int j = 1; j < selectorItems.size(); j++) {
-                last = new MarkupSelectorFilter(last, selectorItems.get(j));
-            }
-
-        }
+        // All selectors are compiled together (only once for the compiled selectors object), so that they can be
+        // evaluated at once for each event. Only the matching state is created for each parsing operation.
+        this.selectorMatcher = this.compiledSelectors.getAutomaton(html).createMatcher();
 
 
         /*
@@ -347,6 +351,7 @@ public void setParseConfiguration(final ParseConfiguration parseConfiguration) {
 
     @Override
     public void setParseStatus(final ParseStatus status) {
+        this.elementBuffer.setParseStatus(status);
         this.selectedHandler.setParseStatus(status);
         if (this.nonSelectedHandler != this.selectedHandler) {
             this.nonSelectedHandler.setParseStatus(status);
@@ -420,10 +425,10 @@ public void handleXmlDeclaration(
             final int outerOffset, final int outerLen, final int line, final int col) throws ParseException {
 
         this.someSelectorsMatch = false;
+        this.selectorMatcher.matchXmlDeclaration(false, this.markupLevel, this.markupBlocks[this.markupLevel]);
         for (int i = 0; i < this.selectorsLen; i++) {
 
-            this.selectorMatches[i] =
-                    this.selectorFilters[i].matchXmlDeclaration(false, this.markupLevel, this.markupBlocks[this.markupLevel]);
+            this.selectorMatches[i] = this.selectorMatcher.matches(i);
             if (this.selectorMatches[i]) {
                 this.someSelectorsMatch = true;
             }
@@ -477,10 +482,10 @@ public void handleDocType(
             throws ParseException {
 
         this.someSelectorsMatch = false;
+        this.selectorMatcher.matchDocTypeClause(false, this.markupLevel, this.markupBlocks[this.markupLevel]);
         for (int i = 0; i < this.selectorsLen; i++) {
 
-            this.selectorMatches[i] =
-                    this.selectorFilters[i].matchDocTypeClause(false, this.markupLevel, this.markupBlocks[this.markupLevel]);
+            this.selectorMatches[i] = this.selectorMatcher.matches(i);
             if (this.selectorMatches[i]) {
                 this.someSelectorsMatch = true;
             }
@@ -533,10 +538,10 @@ public void handleCDATASection(
             throws ParseException {
 
         this.someSelectorsMatch = false;
+        this.selectorMatcher.matchCDATASection(false, this.markupLevel, this.markupBlocks[this.markupLevel]);
         for (int i = 0; i < this.selectorsLen; i++) {
 
-            this.selectorMatches[i] =
-                    this.selectorFilters[i].matchCDATASection(false, this.markupLevel, this.markupBlocks[this.markupLevel]);
+            this.selectorMatches[i] = this.selectorMatcher.matches(i);
             if (this.selectorMatches[i]) {
                 this.someSelectorsMatch = true;
             }
@@ -574,10 +579,10 @@ public void handleText(
             throws ParseException {
 
         this.someSelectorsMatch = false;
+        this.selectorMatcher.matchText(false, this.markupLevel, this.markupBlocks[this.markupLevel]);
         for (int i = 0; i < this.selectorsLen; i++) {
 
-            this.selectorMatches[i] =
-                    this.selectorFilters[i].matchText(false, this.markupLevel, this.markupBlocks[this.markupLevel]);
+            this.selectorMatches[i] = this.selectorMatcher.matches(i);
             if (this.selectorMatches[i]) {
                 this.someSelectorsMatch = true;
             }
@@ -599,6 +604,21 @@ public void handleText(
 
 
 
+    @Override
+    public void handleSkippedElementContents(
+            final char[] buffer, final int offset, final int len,
+            final int line, final int col)
+            throws ParseException {
+
+        // Skipped contents have not been parsed into nodes, so no selectors can match them
+        unmarkCurrentSelection();
+        this.nonSelectedHandler.handleSkippedElementContents(buffer, offset, len, line, col);
+
+    }
+
+
+
+
 
     /*
      * --------------
@@ -615,10 +635,10 @@ public void handleComment(
             throws ParseException {
 
         this.someSelectorsMatch = false;
+        this.selectorMatcher.matchComment(false, this.markupLevel, this.markupBlocks[this.markupLevel]);
         for (int i = 0; i < this.selectorsLen; i++) {
 
-            this.selectorMatches[i] =
-                    this.selectorFilters[i].matchComment(false, this.markupLevel, this.markupBlocks[this.markupLevel]);
+            this.selectorMatches[i] = this.selectorMatcher.matches(i);
             if (this.selectorMatches[i]) {
                 this.someSelectorsMatch = true;
             }
@@ -659,6 +679,14 @@ public void handleAttribute(
             final int valueLine, final int valueCol)
             throws ParseException {
 
+        if (this.unbufferedElementHandler != null) {
+            this.unbufferedElementHandler.handleAttribute(
+                    buffer,
+                    nameOffset, nameLen, nameLine, nameCol,
+                    operatorOffset, operatorLen, operatorLine, operatorCol,
+                    valueContentOffset, valueContentLen, valueOuterOffset, valueOuterLen, valueLine, valueCol);
+            return;
+        }
 
         this.elementBuffer.bufferAttribute(
                 buffer,
@@ -679,6 +707,12 @@ public void handleStandaloneElementStart(
             throws ParseException {
 
         this.elementBuffer.bufferElementStart(buffer, nameOffset, nameLen, line, col, true, minimized);
+        if (!this.selectorMatcher.canMatchElement(buffer, nameOffset, nameLen)) {
+            // No selector can match this element, whichever its attributes: we don't need to buffer them
+            matchStandaloneElement();
+            this.unbufferedElementHandler = selectUnbufferedElementHandler();
+            this.unbufferedElementHandler.handleStandaloneElementStart(buffer, nameOffset, nameLen, minimized, line, col);
+        }
 
     }
 
@@ -692,18 +726,16 @@ public void handleStandaloneElementEnd(
             final int line, final int col)
             throws ParseException {
 
-        this.elementBuffer.bufferElementEnd(buffer, nameOffset, nameLen, line, col);
-
-        this.someSelectorsMatch = false;
-        for (int i = 0; i < this.selectorsLen; i++) {
+        if (this.unbufferedElementHandler != null) {
+            this.unbufferedElementHandler.handleStandaloneElementEnd(buffer, nameOffset, nameLen, minimized, line, col);
+            this.unbufferedElementHandler = null;
+            unmarkCurrentSelection();
+            return;
+        }
 
-            this.selectorMatches[i] =
-                    this.selectorFilters[i].matchStandaloneElement(false, this.markupLevel, this.markupBlocks[this.markupLevel], this.elementBuffer);
-            if (this.selectorMatches[i]) {
-                this.someSelectorsMatch = true;
-            }
+        this.elementBuffer.bufferElementEnd(buffer, nameOffset, nameLen, line, col);
 
-        }
+        matchStandaloneElement();
 
         if (this.someSelectorsMatch) {
             markCurrentSelection();
@@ -727,6 +759,12 @@ public void handleOpenElementStart(
             throws ParseException {
 
         this.elementBuffer.bufferElementStart(buffer, nameOffset, nameLen, line, col, false, false);
+        if (!this.selectorMatcher.canMatchElement(buffer, nameOffset, nameLen)) {
+            // No selector can match this element, whichever its attributes: we don't need to buffer them
+            matchOpenElement();
+            this.unbufferedElementHandler = selectUnbufferedElementHandler();
+            this.unbufferedElementHandler.handleOpenElementStart(buffer, nameOffset, nameLen, line, col);
+        }
 
     }
 
@@ -739,18 +777,24 @@ public void handleOpenElementEnd(
             final int line, final int col)
             throws ParseException {
 
-        this.elementBuffer.bufferElementEnd(buffer, nameOffset, nameLen, line, col);
+        if (this.unbufferedElementHandler != null) {
+
+            this.markupLevel++;
+
+            checkSizeOfMarkupBlocksStructure(this.markupLevel);
+            this.markupBlocks[this.markupLevel] = ++this.markupBlockIndex;
+
+            this.unbufferedElementHandler.handleOpenElementEnd(buffer, nameOffset, nameLen, line, col);
+            this.unbufferedElementHandler = null;
+            unmarkCurrentSelection();
+            return;
 
-        this.someSelectorsMatch = false;
-        for (int i = 0; i < this.selectorsLen; i++) {
-            this.selectorMatches[i] =
-                    this.selectorFilters[i].matchOpenElement(false, this.markupLevel, this.markupBlocks[this.markupLevel], this.elementBuffer);
-            if (this.selectorMatches[i]) {
-                this.someSelectorsMatch = true;
-                addMatchingMarkupLevel(i, this.markupLevel);
-            }
         }
 
+        this.elementBuffer.bufferElementEnd(buffer, nameOffset, nameLen, line, col);
+
+        matchOpenElement();
+
         this.markupLevel++;
 
         checkSizeOfMarkupBlocksStructure(this.markupLevel);
@@ -778,6 +822,12 @@ public void handleAutoOpenElementStart(
             throws ParseException {
 
         this.elementBuffer.bufferElementStart(buffer, nameOffset, nameLen, line, col, false, false);
+        if (!this.selectorMatcher.canMatchElement(buffer, nameOffset, nameLen)) {
+            // No selector can match this element, whichever its attributes: we don't need to buffer them
+            matchOpenElement();
+            this.unbufferedElementHandler = selectUnbufferedElementHandler();
+            this.unbufferedElementHandler.handleAutoOpenElementStart(buffer, nameOffset, nameLen, line, col);
+        }
 
     }
 
@@ -790,18 +840,24 @@ public void handleAutoOpenElementEnd(
             final int line, final int col)
             throws ParseException {
 
-        this.elementBuffer.bufferElementEnd(buffer, nameOffset, nameLen, line, col);
+        if (this.unbufferedElementHandler != null) {
+
+            this.markupLevel++;
+
+            checkSizeOfMarkupBlocksStructure(this.markupLevel);
+            this.markupBlocks[this.markupLevel] = ++this.markupBlockIndex;
+
+            this.unbufferedElementHandler.handleAutoOpenElementEnd(buffer, nameOffset, nameLen, line, col);
+            this.unbufferedElementHandler = null;
+            unmarkCurrentSelection();
+            return;
 
-        this.someSelectorsMatch = false;
-        for (int i = 0; i < this.selectorsLen; i++) {
-            this.selectorMatches[i] =
-                    this.selectorFilters[i].matchOpenElement(false, this.markupLevel, this.markupBlocks[this.markupLevel], this.elementBuffer);
-            if (this.selectorMatches[i]) {
-                this.someSelectorsMatch = true;
-                addMatchingMarkupLevel(i, this.markupLevel);
-            }
         }
 
+        this.elementBuffer.bufferElementEnd(buffer, nameOffset, nameLen, line, col);
+
+        matchOpenElement();
+
         this.markupLevel++;
 
         checkSizeOfMarkupBlocksStructure(this.markupLevel);
@@ -829,9 +885,7 @@ public void handleCloseElementStart(
             throws ParseException {
 
         this.markupLevel--;
-        for (int i = 0; i < this.selectorsLen; i++) {
-            this.selectorFilters[i].removeMatchesForLevel(this.markupLevel);
-        }
+        this.selectorMatcher.removeMatchesForLevel(this.markupLevel);
 
         this.someSelectorsMatch = false;
         for (int i = 0; i < this.selectorsLen; i++) {
@@ -893,9 +947,7 @@ public void handleAutoCloseElementStart(
             throws ParseException {
 
         this.markupLevel--;
-        for (int i = 0; i < this.selectorsLen; i++) {
-            this.selectorFilters[i].removeMatchesForLevel(this.markupLevel);
-        }
+        this.selectorMatcher.removeMatchesForLevel(this.markupLevel);
 
         this.someSelectorsMatch = false;
         for (int i = 0; i < this.selectorsLen; i++) {
@@ -1014,6 +1066,11 @@ public void handleInnerWhiteSpace(
             final int line, final int col)
             throws ParseException {
 
+        if (this.unbufferedElementHandler != null) {
+            this.unbufferedElementHandler.handleInnerWhiteSpace(buffer, offset, len, line, col);
+            return;
+        }
+
         this.elementBuffer.bufferElementInnerWhiteSpace(buffer, offset, len, line, col);
 
     }
@@ -1037,10 +1094,10 @@ public void handleProcessingInstruction(
             throws ParseException {
 
         this.someSelectorsMatch = false;
+        this.selectorMatcher.matchProcessingInstruction(false, this.markupLevel, this.markupBlocks[this.markupLevel]);
         for (int i = 0; i < this.selectorsLen; i++) {
 
-            this.selectorMatches[i] =
-                    this.selectorFilters[i].matchProcessingInstruction(false, this.markupLevel, this.markupBlocks[this.markupLevel]);
+            this.selectorMatches[i] = this.selectorMatcher.matches(i);
             if (this.selectorMatches[i]) {
                 this.someSelectorsMatch = true;
             }
@@ -1075,6 +1132,48 @@ public void handleProcessingInstruction(
      * -------------------------------
      */
 
+    private void matchStandaloneElement() {
+
+        this.someSelectorsMatch = false;
+        this.selectorMatcher.matchStandaloneElement(false, this.markupLevel, this.markupBlocks[this.markupLevel], this.elementBuffer);
+        for (int i = 0; i < this.selectorsLen; i++) {
+
+            this.selectorMatches[i] = this.selectorMatcher.matches(i);
+            if (this.selectorMatches[i]) {
+                this.someSelectorsMatch = true;
+            }
+
+        }
+
+    }
+
+
+    private void matchOpenElement() {
+
+        this.someSelectorsMatch = false;
+        this.selectorMatcher.matchOpenElement(false, this.markupLevel, this.markupBlocks[this.markupLevel], this.elementBuffer);
+        for (int i = 0; i < this.selectorsLen; i++) {
+            this.selectorMatches[i] = this.selectorMatcher.matches(i);
+            if (this.selectorMatches[i]) {
+                this.someSelectorsMatch = true;
+                addMatchingMarkupLevel(i, this.markupLevel);
+            }
+        }
+
+    }
+
+
+    private IMarkupHandler selectUnbufferedElementHandler() {
+        // Selection is marked for the whole element, until its "end" event has been delegated
+        if (this.someSelectorsMatch) {
+            markCurrentSelection();
+            return this.selectedHandler;
+        }
+        unmarkCurrentSelection();
+        return this.nonSelectedHandler;
+    }
+
+
     private void markCurrentSelection() {
         this.selection.levels[this.selectionIndex].selection = this.selectorMatches;
     }
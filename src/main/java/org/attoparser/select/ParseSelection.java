@@ -153,6 +153,39 @@ public boolean isMatchingAny(final int level) {
     }
 
 
+    /**
+     * <p>
+     *   Returns whether a specific selector is currently matching at the specified selection level. The selector
+     *   is specified by its index in the array of selectors for that level (see {@link #getSelectors(int)}).
+     * </p>
+     * <p>
+     *   Unlike {@link #getCurrentSelection(int)}, this method never creates new objects, so it is the preferred
+     *   way to check selection when handling events that can be very frequent (e.g. texts or attributes).
+     * </p>
+     * <p>
+     *   This method <strong>should only be called from event handlers</strong> or other code called from these, given
+     *   the information about matching selectors will only be updated before (and after) calling the events
+     *   relevant for that selection.
+     * </p>
+     *
+     * @param level the selection level.
+     * @param selectorIndex the index of the selector at the selection level.
+     * @return true if the selector is matching, false if not.
+     * @since 2.0.10
+     */
+    public boolean isMatching(final int level, final int selectorIndex) {
+        if (level >= this.levelCounter) {
+            throw new IllegalArgumentException(
+                    "Cannot return current selection: max level is " + this.levelCounter + " (specified: " + level + ")");
+        }
+        if (this.levels == null) {
+            return false;
+        }
+        final boolean[] selection = this.levels[level].selection;
+        return (selection != null && selection[selectorIndex]);
+    }
+
+
     /**
      * <p>
      *   Returns whether any selectors are currently matching, at any level.
@@ -23,6 +23,7 @@
 
 import org.attoparser.IMarkupHandler;
 import org.attoparser.ParseException;
+import org.attoparser.ParseStatus;
 
 /*
  *
@@ -43,6 +44,17 @@ final class SelectorElementBuffer {
     char[] elementName;
     int elementNameLen;
 
+    // Status of the current parsing, used for knowing which buffer is the document buffer being parsed
+    private ParseStatus parseStatus;
+
+    // Buffer (and offset) in which the element name will be flushed. All the events of an element fired by the
+    // parser come in the document buffer, which will not be modified until the element "end" event has been
+    // handled, so attributes coming in it are not copied: we just keep their offsets until the buffer is flushed.
+    // Any other buffer (e.g. a scratch array reused by a previous handler in the chain) could be modified before
+    // that, so if the element name did not come in the document buffer it will be flushed from our own copy.
+    private char[] elementNameSource;
+    private int elementNameSourceOffset;
+
     int elementNameLine;
     int elementNameCol;
 
@@ -51,13 +63,18 @@ final class SelectorElementBuffer {
 
     int attributeCount;
 
-    char[][] attributeBuffers;
+    // Buffers in which attributes can be found: either the document buffer or a copy in attributeBuffers
+    char[][] attributeSources;
+    private char[][] attributeBuffers;
 
+    int[] attributeNameOffsets;
     int[] attributeNameLens;
-    int[] attributeOperatorLens;
+    private int[] attributeOperatorOffsets;
+    private int[] attributeOperatorLens;
     int[] attributeValueContentOffsets;
     int[] attributeValueContentLens;
-    int[] attributeValueOuterLens;
+    private int[] attributeValueOuterOffsets;
+    private int[] attributeValueOuterLens;
 
     int[] attributeNameLines;
     int[] attributeNameCols;
@@ -97,13 +114,20 @@ final class SelectorElementBuffer {
 
         this.attributeCount = 0;
 
+        this.attributeSources = new char[DEFAULT_ATTRIBUTES_SIZE][];
+        Arrays.fill(this.attributeSources, null);
+
         this.attributeBuffers = new char[DEFAULT_ATTRIBUTES_SIZE][];
         Arrays.fill(this.attributeBuffers, null);
 
+        this.attributeNameOffsets = new int[DEFAULT_ATTRIBUTES_SIZE];
         this.attributeNameLens = new int[DEFAULT_ATTRIBUTES_SIZE];
+        Arrays.fill(this.attributeNameOffsets, 0);
         Arrays.fill(this.attributeNameLens, 0);
 
+        this.attributeOperatorOffsets = new int[DEFAULT_ATTRIBUTES_SIZE];
         this.attributeOperatorLens = new int[DEFAULT_ATTRIBUTES_SIZE];
+        Arrays.fill(this.attributeOperatorOffsets, 0);
         Arrays.fill(this.attributeOperatorLens, 0);
 
         this.attributeValueContentOffsets = new int[DEFAULT_ATTRIBUTES_SIZE];
@@ -111,7 +135,9 @@ final class SelectorElementBuffer {
         Arrays.fill(this.attributeValueContentOffsets, 0);
         Arrays.fill(this.attributeValueContentLens, 0);
 
+        this.attributeValueOuterOffsets = new int[DEFAULT_ATTRIBUTES_SIZE];
         this.attributeValueOuterLens = new int[DEFAULT_ATTRIBUTES_SIZE];
+        Arrays.fill(this.attributeValueOuterOffsets, 0);
         Arrays.fill(this.attributeValueOuterLens, 0);
 
         this.attributeNameLines = new int[DEFAULT_ATTRIBUTES_SIZE];
@@ -146,6 +172,11 @@ final class SelectorElementBuffer {
     }
 
 
+    void setParseStatus(final ParseStatus parseStatus) {
+        this.parseStatus = parseStatus;
+    }
+
+
     void bufferElementStart(final char[] buffer, final int offset, final int len,
                             final int line, final int col,
                             final boolean standalone, final boolean minimized) {
@@ -156,6 +187,14 @@ void bufferElementStart(final char[] buffer, final int offset, final int len,
         System.arraycopy(buffer, offset, this.elementName, 0, len);
         this.elementNameLen = len;
 
+        if (isDocumentBuffer(buffer)) {
+            this.elementNameSource = buffer;
+            this.elementNameSourceOffset = offset;
+        } else {
+            this.elementNameSource = this.elementName;
+            this.elementNameSourceOffset = 0;
+        }
+
         this.elementNameLine = line;
         this.elementNameCol = col;
 
@@ -183,19 +222,32 @@ void bufferAttribute(final char[] buffer,
         if (this.attributeCount >= this.attributeBuffers.length) {
             // We've reached the max number of attributes currently allowed in the structure, so we must grow
 
+            final char[][] newAttributeSources = new char[this.attributeCount + DEFAULT_ATTRIBUTES_INC][];
+            Arrays.fill(newAttributeSources, null);
+            System.arraycopy(this.attributeSources, 0, newAttributeSources, 0, this.attributeCount);
+            this.attributeSources = newAttributeSources;
+
             final char[][] newAttributeBuffers = new char[this.attributeCount + DEFAULT_ATTRIBUTES_INC][];
             Arrays.fill(newAttributeBuffers, null);
             System.arraycopy(this.attributeBuffers, 0, newAttributeBuffers, 0, this.attributeCount);
             this.attributeBuffers = newAttributeBuffers;
 
+            final int[] newAttributeNameOffsets = new int[this.attributeCount + DEFAULT_ATTRIBUTES_INC];
             final int[] newAttributeNameLens = new int[this.attributeCount + DEFAULT_ATTRIBUTES_INC];
+            Arrays.fill(newAttributeNameOffsets, 0);
             Arrays.fill(newAttributeNameLens, 0);
+            System.arraycopy(this.attributeNameOffsets, 0, newAttributeNameOffsets, 0, this.attributeCount);
             System.arraycopy(this.attributeNameLens, 0, newAttributeNameLens, 0, this.attributeCount);
+            this.attributeNameOffsets = newAttributeNameOffsets;
             this.attributeNameLens = newAttributeNameLens;
 
+            final int[] newAttributeOperatorOffsets = new int[this.attributeCount + DEFAULT_ATTRIBUTES_INC];
             final int[] newAttributeOperatorLens = new int[this.attributeCount + DEFAULT_ATTRIBUTES_INC];
+            Arrays.fill(newAttributeOperatorOffsets, 0);
             Arrays.fill(newAttributeOperatorLens, 0);
+            System.arraycopy(this.attributeOperatorOffsets, 0, newAttributeOperatorOffsets, 0, this.attributeCount);
             System.arraycopy(this.attributeOperatorLens, 0, newAttributeOperatorLens, 0, this.attributeCount);
+            this.attributeOperatorOffsets = newAttributeOperatorOffsets;
             this.attributeOperatorLens = newAttributeOperatorLens;
 
             final int[] newAttributeValueContentOffsets = new int[this.attributeCount + DEFAULT_ATTRIBUTES_INC];
@@ -207,9 +259,13 @@ void bufferAttribute(final char[] buffer,
             this.attributeValueContentOffsets = newAttributeValueContentOffsets;
             this.attributeValueContentLens = newAttributeValueContentLens;
 
+            final int[] newAttributeValueOuterOffsets = new int[this.attributeCount + DEFAULT_ATTRIBUTES_INC];
             final int[] newAttributeValueOuterLens = new int[this.attributeCount + DEFAULT_ATTRIBUTES_INC];
+            Arrays.fill(newAttributeValueOuterOffsets, 0);
             Arrays.fill(newAttributeValueOuterLens, 0);
+            System.arraycopy(this.attributeValueOuterOffsets, 0, newAttributeValueOuterOffsets, 0, this.attributeCount);
             System.arraycopy(this.attributeValueOuterLens, 0, newAttributeValueOuterLens, 0, this.attributeCount);
+            this.attributeValueOuterOffsets = newAttributeValueOuterOffsets;
             this.attributeValueOuterLens = newAttributeValueOuterLens;
 
             final int[] newAttributeNameLines = new int[this.attributeCount + DEFAULT_ATTRIBUTES_INC];
@@ -235,33 +291,56 @@ void bufferAttribute(final char[] buffer,
 
         }
 
-        final int requiredLen = nameLen + operatorLen + valueOuterLen;
-
-        if (this.attributeBuffers[this.attributeCount] == null ||
-                this.attributeBuffers[this.attributeCount].length < requiredLen) {
-            // The current buffer for attribute texts hasn't been created yet, or is too small
-            this.attributeBuffers[this.attributeCount] = new char[Math.max(requiredLen, DEFAULT_ATTRIBUTE_BUFFER_SIZE)];
-        }
+        if (isDocumentBuffer(buffer)) {
 
+            // The attribute comes in the document buffer, so it will still be there when needed
+            this.attributeSources[this.attributeCount] = buffer;
 
-        // We check if the entire attribute (name, operator, value) comes in the buffer as a whole block
-        final boolean isContinuous =
-                (nameOffset + nameLen == operatorOffset) &&
-                (operatorOffset + operatorLen == valueOuterOffset) &&
-                (valueOuterOffset <= valueContentOffset && (valueOuterOffset + valueOuterLen) >= (valueContentOffset + valueContentLen));
+            this.attributeNameOffsets[this.attributeCount] = nameOffset;
+            this.attributeOperatorOffsets[this.attributeCount] = operatorOffset;
+            this.attributeValueContentOffsets[this.attributeCount] = valueContentOffset;
+            this.attributeValueOuterOffsets[this.attributeCount] = valueOuterOffset;
 
-        if (isContinuous) {
-            System.arraycopy(buffer, nameOffset,       this.attributeBuffers[this.attributeCount], 0,                     requiredLen);
         } else {
-            System.arraycopy(buffer, nameOffset,       this.attributeBuffers[this.attributeCount], 0,                     nameLen);
-            System.arraycopy(buffer, operatorOffset,   this.attributeBuffers[this.attributeCount], nameLen,               operatorLen);
-            System.arraycopy(buffer, valueOuterOffset, this.attributeBuffers[this.attributeCount], nameLen + operatorLen, valueOuterLen);
+
+            // The attribute comes in a different buffer (possibly reused by the handler that sent it for the
+            // element name or other attributes), so we need to copy it
+
+            final int requiredLen = nameLen + operatorLen + valueOuterLen;
+
+            if (this.attributeBuffers[this.attributeCount] == null ||
+                    this.attributeBuffers[this.attributeCount].length < requiredLen) {
+                // The current buffer for attribute texts hasn't been created yet, or is too small
+                this.attributeBuffers[this.attributeCount] = new char[Math.max(requiredLen, DEFAULT_ATTRIBUTE_BUFFER_SIZE)];
+            }
+
+
+            // We check if the entire attribute (name, operator, value) comes in the buffer as a whole block
+            final boolean isContinuous =
+                    (nameOffset + nameLen == operatorOffset) &&
+                    (operatorOffset + operatorLen == valueOuterOffset) &&
+                    (valueOuterOffset <= valueContentOffset && (valueOuterOffset + valueOuterLen) >= (valueContentOffset + valueContentLen));
+
+            if (isContinuous) {
+                System.arraycopy(buffer, nameOffset,       this.attributeBuffers[this.attributeCount], 0,                     requiredLen);
+            } else {
+                System.arraycopy(buffer, nameOffset,       this.attributeBuffers[this.attributeCount], 0,                     nameLen);
+                System.arraycopy(buffer, operatorOffset,   this.attributeBuffers[this.attributeCount], nameLen,               operatorLen);
+                System.arraycopy(buffer, valueOuterOffset, this.attributeBuffers[this.attributeCount], nameLen + operatorLen, valueOuterLen);
+            }
+
+            this.attributeSources[this.attributeCount] = this.attributeBuffers[this.attributeCount];
+
+            this.attributeNameOffsets[this.attributeCount] = 0;
+            this.attributeOperatorOffsets[this.attributeCount] = nameLen;
+            // valueContentOffset is computed for the structure buffer (not the original buffer that came from parsing)
+            this.attributeValueContentOffsets[this.attributeCount] = (nameLen + operatorLen) + (valueContentOffset - valueOuterOffset);
+            this.attributeValueOuterOffsets[this.attributeCount] = nameLen + operatorLen;
+
         }
 
         this.attributeNameLens[this.attributeCount] = nameLen;
         this.attributeOperatorLens[this.attributeCount] = operatorLen;
-        // valueContentOffset is computed for the structure buffer (not the original buffer that came from parsing)
-        this.attributeValueContentOffsets[this.attributeCount] = (nameLen + operatorLen) + (valueContentOffset - valueOuterOffset);
         this.attributeValueContentLens[this.attributeCount] = valueContentLen;
         this.attributeValueOuterLens[this.attributeCount] = valueOuterLen;
 
@@ -279,6 +358,11 @@ void bufferAttribute(final char[] buffer,
     }
 
 
+    private boolean isDocumentBuffer(final char[] buffer) {
+        return this.parseStatus != null && this.parseStatus.isDocumentBuffer(buffer);
+    }
+
+
     void bufferElementEnd(final char[] buffer, final int offset, final int len,
                           final int line, final int col) {
 
@@ -334,15 +418,20 @@ void bufferElementInnerWhiteSpace(final char[] buffer, final int offset, final i
 
     void flushBuffer(final IMarkupHandler handler, final boolean autoOpen) throws ParseException {
 
+        // If it came in the document buffer, the element name is sent in it so that the attributes that were not
+        // copied still come in the same buffer as the element name (in case the handler is buffering elements too)
         if (this.standalone) {
             handler.handleStandaloneElementStart(
-                    this.elementName, 0, this.elementNameLen, this.minimized, this.elementNameLine, this.elementNameCol);
+                    this.elementNameSource, this.elementNameSourceOffset, this.elementNameLen, this.minimized,
+                    this.elementNameLine, this.elementNameCol);
         } else if (autoOpen) {
             handler.handleAutoOpenElementStart(
-                    this.elementName, 0, this.elementNameLen, this.elementNameLine, this.elementNameCol);
+                    this.elementNameSource, this.elementNameSourceOffset, this.elementNameLen,
+                    this.elementNameLine, this.elementNameCol);
         } else {
             handler.handleOpenElementStart(
-                    this.elementName, 0, this.elementNameLen, this.elementNameLine, this.elementNameCol);
+                    this.elementNameSource, this.elementNameSourceOffset, this.elementNameLen,
+                    this.elementNameLine, this.elementNameCol);
         }
 
         for (int i = 0; i < this.attributeCount; i++) {
@@ -353,11 +442,11 @@ void flushBuffer(final IMarkupHandler handler, final boolean autoOpen) throws Pa
                     this.elementInnerWhiteSpaceLines[i], this.elementInnerWhiteSpaceCols[i]);
 
             handler.handleAttribute(
-                    this.attributeBuffers[i],
-                    0, this.attributeNameLens[i], this.attributeNameLines[i], this.attributeNameCols[i],
-                    this.attributeNameLens[i], this.attributeOperatorLens[i], this.attributeOperatorLines[i], this.attributeOperatorCols[i],
+                    this.attributeSources[i],
+                    this.attributeNameOffsets[i], this.attributeNameLens[i], this.attributeNameLines[i], this.attributeNameCols[i],
+                    this.attributeOperatorOffsets[i], this.attributeOperatorLens[i], this.attributeOperatorLines[i], this.attributeOperatorCols[i],
                     this.attributeValueContentOffsets[i], this.attributeValueContentLens[i],
-                    this.attributeNameLens[i] + this.attributeOperatorLens[i], this.attributeValueOuterLens[i],
+                    this.attributeValueOuterOffsets[i], this.attributeValueOuterLens[i],
                     this.attributeValueLines[i], this.attributeValueCols[i]);
         }
 
@@ -56,7 +56,9 @@ public static enum EventType {
 
         ATTRIBUTE("A"), INNER_WHITE_SPACE("IWS"),
 
-        TEXT("T"), COMMENT("C"), CDATA_SECTION("CD"), XML_DECLARATION("XD"), DOC_TYPE("DT"), PROCESSING_INSTRUCTION("P");
+        TEXT("T"), COMMENT("C"), CDATA_SECTION("CD"), XML_DECLARATION("XD"), DOC_TYPE("DT"), PROCESSING_INSTRUCTION("P"),
+
+        SKIPPED_ELEMENT_CONTENTS("SK");
 
 
         private String stringRepresentation;
@@ -328,6 +330,12 @@ public InnerWhiteSpaceTraceEvent(final String content, final int line, final int
         }
     }
 
+    public static final class SkippedElementContentsTraceEvent extends AbstractContentTraceEvent {
+        public SkippedElementContentsTraceEvent(final String content, final int line, final int col) {
+            super(EventType.SKIPPED_ELEMENT_CONTENTS, content, line, col);
+        }
+    }
+
     static abstract class AbstractElementTraceEvent extends MarkupTraceEvent {
 
         protected AbstractElementTraceEvent(final EventType type, final String elementName, final int line, final int col) {
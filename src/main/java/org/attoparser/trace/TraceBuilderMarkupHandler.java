@@ -297,6 +297,16 @@ public void handleText(final char[] buffer, final int offset, final int len,
     }
 
 
+
+    @Override
+    public void handleSkippedElementContents(final char[] buffer, final int offset, final int len,
+            final int line, final int col)
+            throws ParseException {
+        final String content = new String(buffer, offset, len);
+        this.trace.add(new MarkupTraceEvent.SkippedElementContentsTraceEvent(content, line, col));
+    }
+
+
     
     @Override
     public void handleComment(
@@ -0,0 +1,230 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import org.attoparser.config.ParseConfiguration;
+
+
+/*
+ * Emission of JDK Flight Recorder (JFR) events for parsing operations.
+ *
+ * This is the Java 11+ version of this class (see the Java 8 version at src/main/java, which does nothing),
+ * packaged in the multi-release layer of the attoparser jar. It emits the following events, all of them in the
+ * "attoparser" category:
+ *
+ *   - org.attoparser.DocumentParsed: duration event for every document parsed (from a char[] or a Reader, or
+ *     in parallel), with the number of chars, the input type, the parsing mode and whether parsing succeeded.
+ *     It has a default threshold of 20 ms, so that only slow parsing operations are recorded unless the
+ *     threshold is lowered in the recording settings (e.g. "org.attoparser.DocumentParsed#threshold=0 ms").
+ *   - org.attoparser.BufferGrowth: a parsing buffer had to be doubled.
+ *   - org.attoparser.PoolExhausted: a StripedBufferPool had to allocate a new buffer because all the pooled
+ *     buffers of the requested size were in use.
+ *   - org.attoparser.ParseError: a parsing operation failed with a ParseException.
+ *
+ * Whether each event is enabled is checked on its EventType (obtained once, when this class is initialized)
+ * before creating any event objects, so when these events are not enabled (e.g. when no recording is running)
+ * checking them costs a single volatile read, and no event objects are allocated.
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+final class FlightRecorderSupport {
+
+    static final String INPUT_CHARS = "char[]";
+    static final String INPUT_READER = "Reader";
+    static final String INPUT_PARALLEL = "char[] (parallel)";
+
+
+    private static final String CATEGORY = "attoparser";
+
+    private static final EventType DOCUMENT_PARSED_TYPE = EventType.getEventType(DocumentParsedEvent.class);
+    private static final EventType BUFFER_GROWTH_TYPE = EventType.getEventType(BufferGrowthEvent.class);
+    private static final EventType POOL_EXHAUSTED_TYPE = EventType.getEventType(PoolExhaustedEvent.class);
+    private static final EventType PARSE_ERROR_TYPE = EventType.getEventType(ParseErrorEvent.class);
+
+
+
+
+    private FlightRecorderSupport() {
+        super();
+    }
+
+
+
+
+    static Object beginDocument() {
+        if (!DOCUMENT_PARSED_TYPE.isEnabled()) {
+            return null;
+        }
+        final DocumentParsedEvent event = new DocumentParsedEvent();
+        event.begin();
+        return event;
+    }
+
+
+    static void endDocument(
+            final Object event, final long chars, final String input,
+            final ParseConfiguration configuration, final boolean successful) {
+        if (event == null) {
+            return;
+        }
+        final DocumentParsedEvent documentEvent = (DocumentParsedEvent) event;
+        documentEvent.end();
+        if (documentEvent.shouldCommit()) {
+            documentEvent.chars = chars;
+            documentEvent.input = input;
+            documentEvent.mode = String.valueOf(configuration.getMode());
+            documentEvent.positionTracking = configuration.isPositionTracking();
+            documentEvent.successful = successful;
+            documentEvent.commit();
+        }
+    }
+
+
+    static void bufferGrown(final int oldSize, final int newSize) {
+        if (!BUFFER_GROWTH_TYPE.isEnabled()) {
+            return;
+        }
+        final BufferGrowthEvent event = new BufferGrowthEvent();
+        if (event.shouldCommit()) {
+            event.oldSize = oldSize;
+            event.newSize = newSize;
+            event.commit();
+        }
+    }
+
+
+    static void poolExhausted(final int bufferSize, final int poolSize) {
+        if (!POOL_EXHAUSTED_TYPE.isEnabled()) {
+            return;
+        }
+        final PoolExhaustedEvent event = new PoolExhaustedEvent();
+        if (event.shouldCommit()) {
+            event.bufferSize = bufferSize;
+            event.poolSize = poolSize;
+            event.commit();
+        }
+    }
+
+
+    static void parseFailed(final ParseException exception) {
+        if (!PARSE_ERROR_TYPE.isEnabled()) {
+            return;
+        }
+        final ParseErrorEvent event = new ParseErrorEvent();
+        if (event.shouldCommit()) {
+            event.message = exception.getMessage();
+            event.line = (exception.getLine() != null ? exception.getLine().intValue() : -1);
+            event.col = (exception.getCol() != null ? exception.getCol().intValue() : -1);
+            event.commit();
+        }
+    }
+
+
+
+
+    @Name("org.attoparser.DocumentParsed")
+    @Label("Document Parsed")
+    @Description("A document has been parsed")
+    @Category(CATEGORY)
+    @Threshold("20 ms")
+    @StackTrace(false)
+    static final class DocumentParsedEvent extends Event {
+
+        @Label("Chars")
+        @Description("Length of the document, in chars")
+        long chars;
+
+        @Label("Input")
+        @Description("Type of input the document was parsed from")
+        String input;
+
+        @Label("Mode")
+        @Description("Parsing mode (HTML or XML)")
+        String mode;
+
+        @Label("Position Tracking")
+        @Description("Whether line and column numbers were being tracked")
+        boolean positionTracking;
+
+        @Label("Successful")
+        @Description("Whether the document was parsed without errors")
+        boolean successful;
+
+    }
+
+
+    @Name("org.attoparser.BufferGrowth")
+    @Label("Buffer Growth")
+    @Description("A parsing buffer had to be doubled because a markup structure or text did not fit in it")
+    @Category(CATEGORY)
+    static final class BufferGrowthEvent extends Event {
+
+        @Label("Old Size")
+        int oldSize;
+
+        @Label("New Size")
+        int newSize;
+
+    }
+
+
+    @Name("org.attoparser.PoolExhausted")
+    @Label("Buffer Pool Exhausted")
+    @Description("All pooled buffers of the requested size were in use, so a new buffer was allocated")
+    @Category(CATEGORY)
+    static final class PoolExhaustedEvent extends Event {
+
+        @Label("Buffer Size")
+        int bufferSize;
+
+        @Label("Pool Size")
+        int poolSize;
+
+    }
+
+
+    @Name("org.attoparser.ParseError")
+    @Label("Parse Error")
+    @Description("A document could not be parsed")
+    @Category(CATEGORY)
+    static final class ParseErrorEvent extends Event {
+
+        @Label("Message")
+        String message;
+
+        @Label("Line")
+        int line;
+
+        @Label("Column")
+        int col;
+
+    }
+
+
+}
@@ -0,0 +1,322 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.attoparser.config.ParseConfiguration;
+import org.attoparser.output.OutputMarkupHandler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+/*
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+public class ByteDecodingReaderTest {
+
+
+    private static final String TEXT =
+            "<p title=\"caf\u00E9\">Some ASCII text, then some Latin-1: \u00E1\u00E9\u00ED\u00F3\u00FA\u00F1 " +
+            "and some more: \u20AC \u4E2D\u6587 \uD83D\uDE00 and finally more ASCII</p>\n";
+
+
+
+
+    @Test
+    public void testDecoding() throws Exception {
+
+        final StringBuilder strBuilder = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            strBuilder.append(TEXT);
+        }
+        final String text = strBuilder.toString();
+
+        final Charset[] charsets =
+                new Charset[] {
+                        StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, StandardCharsets.US_ASCII,
+                        StandardCharsets.UTF_16LE, Charset.forName("windows-1252") };
+
+        for (final Charset charset : charsets) {
+
+            final byte[] bytes = text.getBytes(charset);
+            final String expected = new String(bytes, charset);
+
+            for (final int readLen : new int[] { 1, 2, 3, 5, 64, 4096 }) {
+                Assertions.assertEquals(expected, readAll(new ByteDecodingReader(ByteBuffer.wrap(bytes), charset), readLen));
+                for (final int inputBufferSize : new int[] { 1, 2, 3, 7, 100, 8192 }) {
+                    final InputStream stream = new ByteArrayInputStream(bytes);
+                    Assertions.assertEquals(
+                            expected, readAll(new ByteDecodingReader(stream, charset, inputBufferSize), readLen),
+                            "charset=" + charset + ", readLen=" + readLen + ", inputBufferSize=" + inputBufferSize);
+                }
+            }
+
+        }
+
+    }
+
+
+    @Test
+    public void testDirectBuffers() throws Exception {
+
+        // Big enough for input to be staged in several chunks, with multi-byte sequences split between them
+        final StringBuilder strBuilder = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            strBuilder.append(TEXT);
+        }
+        final String text = strBuilder.toString();
+
+        final Charset[] charsets =
+                new Charset[] {
+                        StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, StandardCharsets.US_ASCII,
+                        StandardCharsets.UTF_16LE };
+
+        for (final Charset charset : charsets) {
+
+            final byte[] bytes = text.getBytes(charset);
+            final String expected = new String(bytes, charset);
+
+            for (final int readLen : new int[] { 1, 2, 7, 4096, ByteDecodingReader.STAGING_BUFFER_SIZE + 3 }) {
+                final ByteBuffer directBuffer = ByteBuffer.allocateDirect(bytes.length + 10);
+                directBuffer.put(new byte[5]).put(bytes).flip();
+                directBuffer.position(5);
+                Assertions.assertEquals(
+                        expected, readAll(new ByteDecodingReader(directBuffer, charset), readLen),
+                        "charset=" + charset + ", readLen=" + readLen);
+            }
+
+        }
+
+        // Malformed sequence split between chunks
+        final byte[] malformed = new byte[ByteDecodingReader.STAGING_BUFFER_SIZE + 4];
+        Arrays.fill(malformed, (byte) 'a');
+        malformed[ByteDecodingReader.STAGING_BUFFER_SIZE - 1] = (byte) 0xE2;
+        malformed[ByteDecodingReader.STAGING_BUFFER_SIZE] = (byte) 0x82;
+        final ByteBuffer directBuffer = ByteBuffer.allocateDirect(malformed.length);
+        directBuffer.put(malformed).flip();
+        Assertions.assertEquals(
+                new String(malformed, StandardCharsets.UTF_8),
+                readAll(new ByteDecodingReader(directBuffer, StandardCharsets.UTF_8), 64));
+
+    }
+
+
+    @Test
+    public void testMalformedInput() throws Exception {
+
+        final byte[][] inputs = new byte[][] {
+                new byte[] { 'a', (byte) 0xC3 },
+                new byte[] { 'a', (byte) 0xC3, 'b', 'c' },
+                new byte[] { (byte) 0xE2, (byte) 0x82, 'x', (byte) 0xE2, (byte) 0x82, (byte) 0xAC },
+                new byte[] { (byte) 0xFF, (byte) 0xFE, (byte) 0xFD },
+                new byte[] { 'a', 'b', (byte) 0xF0, (byte) 0x9F, (byte) 0x98 }
+        };
+
+        for (final byte[] input : inputs) {
+            final String expected = new String(input, StandardCharsets.UTF_8);
+            for (final int readLen : new int[] { 1, 2, 3, 64 }) {
+                Assertions.assertEquals(
+                        expected, readAll(new ByteDecodingReader(ByteBuffer.wrap(input), StandardCharsets.UTF_8), readLen));
+                for (final int inputBufferSize : new int[] { 1, 2, 3, 100 }) {
+                    Assertions.assertEquals(
+                            expected,
+                            readAll(new ByteDecodingReader(new ByteArrayInputStream(input), StandardCharsets.UTF_8, inputBufferSize), readLen));
+                }
+            }
+        }
+
+    }
+
+
+    @Test
+    public void testCharsetDetection() throws Exception {
+
+        testDetection(StandardCharsets.UTF_8, new byte[] { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF, '<', 'p', '>' }, "<p>");
+        testDetection(StandardCharsets.UTF_16BE, new byte[] { (byte) 0xFE, (byte) 0xFF, 0x00, '<', 0x00, 'p', 0x00, '>' }, "<p>");
+        testDetection(StandardCharsets.UTF_16LE, new byte[] { (byte) 0xFF, (byte) 0xFE, '<', 0x00, 'p', 0x00, '>', 0x00 }, "<p>");
+
+        final String xmlUtf16 = "<?xml version=\"1.0\" encoding=\"UTF-16\"?><a/>";
+        testDetection(StandardCharsets.UTF_16LE, xmlUtf16.getBytes(StandardCharsets.UTF_16LE), xmlUtf16);
+        testDetection(StandardCharsets.UTF_16BE, xmlUtf16.getBytes(StandardCharsets.UTF_16BE), xmlUtf16);
+
+        final String xmlLatin1 = "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><a>caf\u00E9</a>";
+        testDetection(StandardCharsets.ISO_8859_1, xmlLatin1.getBytes(StandardCharsets.ISO_8859_1), xmlLatin1);
+
+        final String xmlSingleQuotes = "<?xml version='1.0' encoding='us-ascii' ?><a/>";
+        testDetection(StandardCharsets.US_ASCII, xmlSingleQuotes.getBytes(StandardCharsets.US_ASCII), xmlSingleQuotes);
+
+        final String htmlMeta = "<!DOCTYPE html><html><head><META Charset=iso-8859-1><title>caf\u00E9</title>";
+        testDetection(StandardCharsets.ISO_8859_1, htmlMeta.getBytes(StandardCharsets.ISO_8859_1), htmlMeta);
+
+        final String htmlHttpEquiv =
+                "<html><head><meta name=\"viewport\" content=\"width=device-width\">" +
+                "<meta http-equiv=\"Content-Type\" content=\"text/html; charset=windows-1252\">\u20AC";
+        testDetection(Charset.forName("windows-1252"), htmlHttpEquiv.getBytes("windows-1252"), htmlHttpEquiv);
+
+        final String htmlMetaUtf16 = "<html><head><meta charset=\"utf-16\">\u00E9";
+        testDetection(StandardCharsets.UTF_8, htmlMetaUtf16.getBytes(StandardCharsets.UTF_8), htmlMetaUtf16);
+
+        final String htmlUnknown = "<html><head><meta charset=\"nonexistent\">\u00E9";
+        testDetection(StandardCharsets.UTF_8, htmlUnknown.getBytes(StandardCharsets.UTF_8), htmlUnknown);
+
+        final String noDeclaration = "<p>caf\u00E9</p>";
+        testDetection(StandardCharsets.UTF_8, noDeclaration.getBytes(StandardCharsets.UTF_8), noDeclaration);
+
+    }
+
+
+    @Test
+    public void testParseBytes() throws Exception {
+
+        final String doc =
+                "<!DOCTYPE html>\n<html><head><meta charset=\"iso-8859-1\"><title>caf\u00E9</title></head>" +
+                "<body><p>\u00E1\u00E9\u00ED\u00F3\u00FA</p></body></html>";
+        final byte[] bytes = doc.getBytes(StandardCharsets.ISO_8859_1);
+
+        final MarkupParser parser = new MarkupParser(ParseConfiguration.htmlConfiguration());
+
+        StringWriter writer = new StringWriter();
+        parser.parse(bytes, null, new OutputMarkupHandler(writer));
+        Assertions.assertEquals(doc, writer.toString());
+
+        writer = new StringWriter();
+        parser.parse(bytes, StandardCharsets.ISO_8859_1, new OutputMarkupHandler(writer));
+        Assertions.assertEquals(doc, writer.toString());
+
+        final ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
+        writer = new StringWriter();
+        parser.parse(byteBuffer, null, new OutputMarkupHandler(writer));
+        Assertions.assertEquals(doc, writer.toString());
+        Assertions.assertEquals(0, byteBuffer.position());
+
+        final ByteBuffer directByteBuffer = ByteBuffer.allocateDirect(bytes.length);
+        directByteBuffer.put(bytes);
+        directByteBuffer.flip();
+        writer = new StringWriter();
+        parser.parse(directByteBuffer, null, new OutputMarkupHandler(writer));
+        Assertions.assertEquals(doc, writer.toString());
+
+        writer = new StringWriter();
+        parser.parse(new ByteArrayInputStream(bytes), null, new OutputMarkupHandler(writer));
+        Assertions.assertEquals(doc, writer.toString());
+
+    }
+
+
+    @Test
+    public void testMappedFile() throws Exception {
+
+        final StringBuilder strBuilder = new StringBuilder();
+        strBuilder.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<root>\n");
+        for (int i = 0; i < 500; i++) {
+            strBuilder.append(TEXT);
+        }
+        strBuilder.append("</root>");
+        final String text = strBuilder.toString();
+
+        final Path file = Files.createTempFile("attoparser", ".xml");
+        try {
+
+            final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            Files.write(file, bytes);
+
+            // Small windows (and odd read lengths) so that multi-byte sequences are split between windows
+            for (final int windowSize : new int[] { 1024, 1031, 4099 }) {
+                for (final int readLen : new int[] { 1, 7, 4096 }) {
+                    final ByteDecodingReader reader =
+                            new ByteDecodingReader(FileChannel.open(file, StandardOpenOption.READ), null, windowSize);
+                    Assertions.assertEquals(StandardCharsets.UTF_8, reader.getCharset());
+                    Assertions.assertEquals(text, readAll(reader, readLen));
+                }
+            }
+
+            // Reading should start at the current position of the channel
+            final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            channel.position(2000L);
+            Assertions.assertEquals(
+                    new String(bytes, 2000, bytes.length - 2000, StandardCharsets.UTF_8),
+                    readAll(new ByteDecodingReader(channel, StandardCharsets.UTF_8, 1024), 100));
+            Assertions.assertFalse(channel.isOpen());
+
+            final MarkupParser parser = new MarkupParser(ParseConfiguration.xmlConfiguration());
+
+            StringWriter writer = new StringWriter();
+            parser.parse(file, null, new OutputMarkupHandler(writer));
+            Assertions.assertEquals(text, writer.toString());
+
+            writer = new StringWriter();
+            parser.parse(FileChannel.open(file, StandardOpenOption.READ), 1024, null, new OutputMarkupHandler(writer));
+            Assertions.assertEquals(text, writer.toString());
+
+            // Empty file
+            Files.write(file, new byte[0]);
+            writer = new StringWriter();
+            parser.parse(file, null, new OutputMarkupHandler(writer));
+            Assertions.assertEquals("", writer.toString());
+
+        } finally {
+            Files.delete(file);
+        }
+
+    }
+
+
+
+
+    private static void testDetection(final Charset expectedCharset, final byte[] bytes, final String expectedText)
+            throws Exception {
+
+        final ByteDecodingReader bufferReader = new ByteDecodingReader(ByteBuffer.wrap(bytes), null);
+        Assertions.assertEquals(expectedCharset, bufferReader.getCharset());
+        Assertions.assertEquals(expectedText, readAll(bufferReader, 16));
+
+        final ByteDecodingReader streamReader = new ByteDecodingReader(new ByteArrayInputStream(bytes), null, 16);
+        Assertions.assertEquals(expectedCharset, streamReader.getCharset());
+        Assertions.assertEquals(expectedText, readAll(streamReader, 16));
+
+    }
+
+
+    private static String readAll(final ByteDecodingReader reader, final int readLen) throws Exception {
+        final StringBuilder strBuilder = new StringBuilder();
+        final char[] buffer = new char[readLen];
+        int read;
+        while ((read = reader.read(buffer, 0, readLen)) != -1) {
+            Assertions.assertTrue(read > 0);
+            strBuilder.append(buffer, 0, read);
+        }
+        reader.close();
+        return strBuilder.toString();
+    }
+
+}
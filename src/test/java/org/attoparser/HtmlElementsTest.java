@@ -19,6 +19,13 @@
  */
 package org.attoparser;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -74,5 +81,97 @@ public void test() throws Exception {
 
     }
 
+
+    @Test
+    public void testStandardElements() throws Exception {
+
+        final HtmlElements.HtmlElementRepository repository =
+                new HtmlElements.HtmlElementRepository(HtmlElements.ALL_STANDARD_ELEMENTS);
+
+        for (final HtmlElement element : HtmlElements.ALL_STANDARD_ELEMENTS) {
+            final String name = new String(element.name);
+            final char[] buffer = ("<" + name.toUpperCase() + ">").toCharArray();
+            Assertions.assertSame(element, repository.getElement(buffer, 1, name.length()));
+            Assertions.assertSame(element, HtmlElements.forName(buffer, 1, name.length()));
+        }
+        Assertions.assertEquals(0, repository.customSize());
+
+    }
+
+
+    @Test
+    public void testCustomElementsAreBounded() throws Exception {
+
+        final HtmlElements.HtmlElementRepository repository =
+                new HtmlElements.HtmlElementRepository(HtmlElements.ALL_STANDARD_ELEMENTS);
+
+        final HtmlElement element1 = repository.getElement("my-Element".toCharArray(), 0, 10);
+        final HtmlElement element2 = repository.getElement("xMY-ELEMENTx".toCharArray(), 1, 10);
+        Assertions.assertSame(element1, element2);
+        Assertions.assertEquals("my-element", new String(element1.name));
+        Assertions.assertEquals(1, repository.customSize());
+
+        for (int i = 0; i < 100000; i++) {
+            final String name = "custom-" + i;
+            final HtmlElement element = repository.getElement(name.toCharArray(), 0, name.length());
+            Assertions.assertEquals(name, new String(element.name));
+        }
+        Assertions.assertTrue(repository.customSize() <= HtmlElements.HtmlElementRepository.CUSTOM_CACHE_SIZE);
+
+        // Evicted or not, lookups must keep returning the right name, and standard elements are never evicted
+        Assertions.assertEquals("my-element", new String(repository.getElement("my-element".toCharArray(), 0, 10).name));
+        Assertions.assertSame(HtmlElements.DIV, repository.getElement("div".toCharArray(), 0, 3));
+
+        final StringBuilder longName = new StringBuilder();
+        while (longName.length() <= HtmlElements.HtmlElementRepository.CUSTOM_NAME_MAX_LEN) {
+            longName.append("long-");
+        }
+        final char[] longNameBuffer = longName.toString().toCharArray();
+        final HtmlElement long1 = repository.getElement(longNameBuffer, 0, longNameBuffer.length);
+        final HtmlElement long2 = repository.getElement(longNameBuffer, 0, longNameBuffer.length);
+        Assertions.assertNotSame(long1, long2);
+        Assertions.assertEquals(longName.toString(), new String(long2.name));
+
+    }
+
+
+    @Test
+    public void testConcurrentLookups() throws Exception {
+
+        final HtmlElements.HtmlElementRepository repository =
+                new HtmlElements.HtmlElementRepository(HtmlElements.ALL_STANDARD_ELEMENTS);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+
+            final List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int t = 0; t < 8; t++) {
+                final int seed = t;
+                results.add(executor.submit(new Callable<Boolean>() {
+                    public Boolean call() {
+                        for (int i = 0; i < 20000; i++) {
+                            final String name = ((i + seed) % 3 == 0 ? "span" : "x-" + ((i * 7 + seed) % 3000));
+                            final HtmlElement element = repository.getElement(name.toCharArray(), 0, name.length());
+                            if (!name.equals(new String(element.name))) {
+                                return Boolean.FALSE;
+                            }
+                        }
+                        return Boolean.TRUE;
+                    }
+                }));
+            }
+
+            for (final Future<Boolean> result : results) {
+                Assertions.assertTrue(result.get().booleanValue());
+            }
+
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assertions.assertTrue(repository.customSize() <= HtmlElements.HtmlElementRepository.CUSTOM_CACHE_SIZE);
+
+    }
+
     
 }
@@ -0,0 +1,160 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.attoparser.config.ParseConfiguration;
+import org.attoparser.trace.TraceBuilderMarkupHandler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+/*
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+public class ParallelDocumentParserTest {
+
+
+    private static final String[] HTML_FRAGMENTS = new String[] {
+            "<!DOCTYPE html>\n<html><head><title>Title <b>not bold</b></title>\n",
+            "<script>\nif (a < b) {\n  document.write('<p>\\n</p>');\n}\n</script>\n",
+            "<style>\n<p> { color: red; }\n</style>\n</head><body>\n",
+            "<ul>\n  <li>one\n  <li>two<li>three</ul>\n<table><tr><td>a<td>b</table>\n",
+            "<div a='one > two\n<p>' b=\"three\" c=four\n   d>text<!-- a comment\n<with> tags --><br/></div>\n",
+            "<p>\n<![CDATA[ cdata\n<content> ]]>\n<?target <instruction>?>\n</p>< not a tag <\n",
+            "<textarea>\n<b>not\n bold</b></textarea>\n<p>Some <i>text</i>\n with <a href=\"x\">links</a></p>\n",
+    };
+
+    private static final String[] XML_FRAGMENTS = new String[] {
+            "<item id=\"1\">\n  <name>One</name>\n  <value a='<x>'>1</value>\n</item>\n",
+            "<item id=\"2\"><![CDATA[\n<not-an-element>\n]]></item>\n<!-- <item> -->\n",
+            "<item id=\"3\"><?pi\n<data>?><empty/></item>\n",
+    };
+
+
+
+
+    @Test
+    public void testParallelEqualsSequential() throws Exception {
+
+        final ParseConfiguration htmlConfiguration = ParseConfiguration.htmlConfiguration();
+        final ParseConfiguration xmlConfiguration = ParseConfiguration.xmlConfiguration();
+        final ParseConfiguration nonTrackingHtmlConfiguration = ParseConfiguration.htmlConfiguration();
+        nonTrackingHtmlConfiguration.setPositionTracking(false);
+
+        final String htmlDoc = TraceTestUtil.buildDocument("", HTML_FRAGMENTS, 20, "</body></html>");
+        final String xmlDoc =
+                TraceTestUtil.buildDocument("<?xml version=\"1.0\"?>\n<items>\n", XML_FRAGMENTS, 20, "</items>\n");
+
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            checkParallelEqualsSequential(htmlDoc, htmlConfiguration, pool);
+            checkParallelEqualsSequential(htmlDoc, nonTrackingHtmlConfiguration, pool);
+            checkParallelEqualsSequential(xmlDoc, xmlConfiguration, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+    }
+
+
+    @Test
+    public void testParallelErrors() throws Exception {
+
+        final String xmlDoc =
+                TraceTestUtil.buildDocument("<items>\n", XML_FRAGMENTS, 20, "</item>\n</items>\n");
+
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+
+            final MarkupParser parser = new MarkupParser(ParseConfiguration.xmlConfiguration());
+
+            ParseException expected = null;
+            try {
+                parser.parse(xmlDoc, new TraceBuilderMarkupHandler());
+            } catch (final ParseException e) {
+                expected = e;
+            }
+            Assertions.assertNotNull(expected);
+
+            for (final int chunkSize : new int[] { 1, 16, 200 }) {
+                try {
+                    final char[] input = xmlDoc.toCharArray();
+                    parser.parseInParallel(input, 0, input.length, new TraceBuilderMarkupHandler(), pool, chunkSize);
+                    Assertions.fail("An exception should have happened");
+                } catch (final ParseException e) {
+                    Assertions.assertEquals(expected.getLine(), e.getLine());
+                    Assertions.assertEquals(expected.getCol(), e.getCol());
+                }
+            }
+
+        } finally {
+            pool.shutdown();
+        }
+
+    }
+
+
+    @Test
+    public void testChunkStarts() throws Exception {
+
+        final char[] doc = "<a>\n<b>text</b><c x='<d>'>\n</c></a>".toCharArray();
+        final int[] chunkStarts = ParallelDocumentParser.computeChunkStarts(doc, 0, doc.length, 1);
+
+        // Chunks can only start at elements following a '>' or a line feed
+        Assertions.assertArrayEquals(new int[] { 0, 4, 15, 27, 31 }, chunkStarts);
+
+    }
+
+
+
+
+    private static void checkParallelEqualsSequential(
+            final String doc, final ParseConfiguration configuration, final ForkJoinPool pool) throws Exception {
+
+        final MarkupParser parser = new MarkupParser(configuration);
+        final char[] input = doc.toCharArray();
+
+        final TraceBuilderMarkupHandler expectedTraceHandler = new TraceBuilderMarkupHandler();
+        parser.parse(input, expectedTraceHandler);
+        final String expected = TraceTestUtil.toString(expectedTraceHandler.getTrace());
+
+        for (final int chunkSize : new int[] { 1, 3, 16, 64, 200, 1000, input.length }) {
+
+            final TraceBuilderMarkupHandler traceHandler = new TraceBuilderMarkupHandler();
+            parser.parseInParallel(input, 0, input.length, traceHandler, pool, chunkSize);
+
+            Assertions.assertEquals(
+                    expected, TraceTestUtil.toString(traceHandler.getTrace()), "chunkSize=" + chunkSize);
+
+        }
+
+        // Also check non-zero offsets
+        final char[] paddedInput = ("<padding>" + doc + "</padding>").toCharArray();
+        final TraceBuilderMarkupHandler traceHandler = new TraceBuilderMarkupHandler();
+        parser.parseInParallel(paddedInput, 9, input.length, traceHandler, pool, 16);
+        Assertions.assertEquals(expected, TraceTestUtil.toString(traceHandler.getTrace()));
+
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.attoparser.config.ParseConfiguration;
+import org.attoparser.trace.TraceBuilderMarkupHandler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+
+/*
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+public class ParseContextTest {
+
+
+    private static final String[] HTML_DOCS = new String[] {
+            "<!DOCTYPE html>\n<html><head><title>Title</title></head>\n<body><p class=\"a\">Some <b>text</b></p></body></html>",
+            "<ul>\n  <li>one\n  <li>two<li>three</ul>\n<table><tr><td>a<td>b</table>",
+            "<div><p>Unclosed <b>elements",
+            "",
+            "<script type=\"text/javascript\">if (a < b && c > d) { alert('<p>'); }</script><p>after</p>",
+            "<p>\n<![CDATA[ cdata <content> ]]>\n<?target instruction?>\n</p>< not a tag <",
+            "<div class=\"a\" id='b'><p>Some <b>bold</b> text &amp; <a href=\"x\">link</a></p><br></div>",
+    };
+
+    private static final String[] XML_DOCS = new String[] {
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<!DOCTYPE root>\n<root a=\"1\"><child b=\"2\"/>text</root>",
+            "<root><unclosed>",
+            "<root>\n  <a>one</a>\n  <!-- comment -->\n  <b><![CDATA[<x>]]></b>\n  <?pi data?>\n</root>",
+            "<root><a></b></root>",
+            "<r a='>' b=\">\n'\"><![CDATA[ a ]> b ]] > c ]]><?pi a > b ?></r>",
+    };
+
+
+
+
+    @Test
+    public void testContextEqualsFreshParsing() throws Exception {
+
+        final ParseConfiguration positionFreeConfiguration = ParseConfiguration.htmlConfiguration();
+        positionFreeConfiguration.setPositionTracking(false);
+
+        testContext(HTML_DOCS, ParseConfiguration.htmlConfiguration());
+        testContext(HTML_DOCS, positionFreeConfiguration);
+        testContext(XML_DOCS, ParseConfiguration.xmlConfiguration());
+
+    }
+
+
+    @Test
+    public void testReentrantUse() throws Exception {
+
+        final MarkupParser parser = new MarkupParser(ParseConfiguration.htmlConfiguration());
+
+        final ParseContext[] context = new ParseContext[1];
+        context[0] = parser.createContext(new AbstractMarkupHandler() {
+            @Override
+            public void handleText(
+                    final char[] buffer, final int offset, final int len, final int line, final int col)
+                    throws ParseException {
+                context[0].parse("<p>nested</p>".toCharArray());
+            }
+        });
+
+        try {
+            context[0].parse("<p>text</p>".toCharArray());
+            Assertions.fail("An exception should have happened");
+        } catch (final ParseException e) {
+            Assertions.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+
+        // The context should still be usable after the failure
+        context[0].parse("<p></p>".toCharArray());
+
+    }
+
+
+    @Test
+    public void testNoAllocationPerParse() throws Exception {
+
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        Assumptions.assumeTrue(allocationMXBean.isThreadAllocatedMemorySupported());
+        allocationMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        final MarkupParser parser = new MarkupParser(ParseConfiguration.htmlConfiguration());
+        final char[] fragment =
+                "<div class=\"a\" id='b'><p>Some <b>bold</b> text &amp; <a href=\"x\">link</a></p><br></div>".toCharArray();
+        final ParseContext context = parser.createContext(new AbstractMarkupHandler() {});
+
+        final long threadId = Thread.currentThread().getId();
+        final int iterations = 10000;
+
+        for (int i = 0; i < iterations; i++) {
+            context.parse(fragment);
+        }
+        final long before = allocationMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            context.parse(fragment);
+        }
+        final long after = allocationMXBean.getThreadAllocatedBytes(threadId);
+
+        // The exact amount measured here depends on the JIT (and on whatever else the JVM might allocate in this
+        // thread), so we only check that no object is created per parse: even the smallest one would take 16 bytes.
+        // Zero bytes per parse is checked against the packaged jar with fixed JIT flags by FlightRecorderSupportIT.
+        final long bytesPerParse = (after - before) / iterations;
+        Assertions.assertTrue(bytesPerParse < 16L, "Bytes allocated per parse: " + bytesPerParse);
+
+    }
+
+
+
+
+    private static void testContext(final String[] docs, final ParseConfiguration configuration) throws Exception {
+
+        final MarkupParser parser = new MarkupParser(configuration);
+
+        final TraceBuilderMarkupHandler expectedTraceHandler = new TraceBuilderMarkupHandler();
+        final StringBuilder expectedErrors = new StringBuilder();
+        for (final String doc : docs) {
+            try {
+                parser.parse(doc, expectedTraceHandler);
+            } catch (final ParseException e) {
+                expectedErrors.append(e.getMessage()).append('\n');
+            }
+        }
+
+        final TraceBuilderMarkupHandler traceHandler = new TraceBuilderMarkupHandler();
+        final ParseContext context = parser.createContext(traceHandler);
+        final StringBuilder errors = new StringBuilder();
+        // Parse everything twice in order to make sure nothing remains from previous documents
+        for (int i = 0; i < 2; i++) {
+            for (final String doc : docs) {
+                try {
+                    context.parse(doc.toCharArray());
+                } catch (final ParseException e) {
+                    errors.append(e.getMessage()).append('\n');
+                }
+            }
+        }
+
+        final String expected = TraceTestUtil.toString(expectedTraceHandler.getTrace());
+        Assertions.assertEquals(expected + expected, TraceTestUtil.toString(traceHandler.getTrace()));
+        Assertions.assertEquals(expectedErrors.toString() + expectedErrors, errors.toString());
+
+    }
+
+}
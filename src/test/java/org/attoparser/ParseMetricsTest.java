@@ -0,0 +1,277 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.attoparser.config.ParseConfiguration;
+import org.attoparser.discard.DiscardMarkupHandler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+/*
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+public class ParseMetricsTest {
+
+
+    private static final String DOC =
+            "<!DOCTYPE html>\n<html><head><title>T</title></head>" +
+            "<body><div class=\"a\" id=\"b\"><p>one<p>two</div><br/><!-- c --></body></html>";
+
+
+
+
+    @Test
+    public void testEventMetrics() throws Exception {
+
+        final List<ParseMetrics> reported = new ArrayList<ParseMetrics>();
+        final MarkupParser parser =
+                new MarkupParser(ParseConfiguration.htmlConfiguration(), new StripedBufferPool(2, 4096), reported::add);
+
+        parser.parse(DOC.toCharArray(), new DiscardMarkupHandler());
+
+        Assertions.assertEquals(1, reported.size());
+        final ParseMetrics metrics = reported.get(0);
+
+        Assertions.assertEquals(DOC.length(), metrics.getDocumentChars());
+        Assertions.assertEquals(1L, metrics.getEventCount(ParseMetrics.EventType.DOC_TYPE));
+        Assertions.assertEquals(1L, metrics.getEventCount(ParseMetrics.EventType.COMMENT));
+        Assertions.assertEquals(4L, metrics.getEventCount(ParseMetrics.EventType.TEXT));
+        Assertions.assertEquals(7L, metrics.getEventCount(ParseMetrics.EventType.OPEN_ELEMENT));
+        Assertions.assertEquals(5L, metrics.getEventCount(ParseMetrics.EventType.CLOSE_ELEMENT));
+        Assertions.assertEquals(2L, metrics.getEventCount(ParseMetrics.EventType.AUTO_CLOSE_ELEMENT));
+        Assertions.assertEquals(1L, metrics.getEventCount(ParseMetrics.EventType.STANDALONE_ELEMENT));
+        Assertions.assertEquals(2L, metrics.getEventCount(ParseMetrics.EventType.ATTRIBUTE));
+        Assertions.assertEquals(4, metrics.getMaxDepth());
+        Assertions.assertTrue(metrics.getTotalTimeNanos() > 0L);
+        Assertions.assertTrue(metrics.getHandlerTimeNanos() <= metrics.getTotalTimeNanos());
+        Assertions.assertEquals(
+                metrics.getTotalTimeNanos() - metrics.getHandlerTimeNanos(), metrics.getTokenizeTimeNanos());
+
+        // char[] documents are used as buffers themselves
+        Assertions.assertEquals(0, metrics.getBufferGrowths());
+        Assertions.assertEquals(0, metrics.getPoolHits());
+        Assertions.assertEquals(0, metrics.getPoolMisses());
+
+        // Same events must be counted when parsing from a Reader, in parallel or by means of a context
+        parser.parse(new StringReader(DOC), new DiscardMarkupHandler());
+        parser.parseInParallel(DOC.toCharArray(), 0, DOC.length(), new DiscardMarkupHandler(), ForkJoinPool.commonPool(), 16);
+        final ParseContext context = parser.createContext(new DiscardMarkupHandler());
+        context.parse(DOC.toCharArray());
+        context.parse(DOC.toCharArray());
+
+        Assertions.assertEquals(5, reported.size());
+        for (final ParseMetrics other : reported) {
+            Assertions.assertEquals(metrics.getDocumentChars(), other.getDocumentChars());
+            Assertions.assertEquals(metrics.getMaxDepth(), other.getMaxDepth());
+            for (final ParseMetrics.EventType eventType : ParseMetrics.EventType.values()) {
+                Assertions.assertEquals(metrics.getEventCount(eventType), other.getEventCount(eventType));
+            }
+        }
+        Assertions.assertNotSame(reported.get(3), reported.get(4));
+
+    }
+
+
+    @Test
+    public void testBufferMetrics() throws Exception {
+
+        final List<ParseMetrics> reported = new ArrayList<ParseMetrics>();
+        final MarkupParser parser =
+                new MarkupParser(ParseConfiguration.htmlConfiguration(), new StripedBufferPool(2, 16), reported::add);
+
+        // The text is not splittable and needs a 64-char buffer: two growths
+        final String doc = "<p>" + "0123456789012345678901234567890123456789012345678" + "</p>";
+
+        parser.parse(new StringReader(doc), new DiscardMarkupHandler());
+        parser.parse(new StringReader(doc), new DiscardMarkupHandler());
+
+        Assertions.assertEquals(2, reported.size());
+
+        Assertions.assertEquals(doc.length(), reported.get(0).getDocumentChars());
+        Assertions.assertEquals(2, reported.get(0).getBufferGrowths());
+        Assertions.assertEquals(0, reported.get(0).getPoolHits());
+        Assertions.assertEquals(3, reported.get(0).getPoolMisses());
+
+        // Second time, all buffers should come from the pool
+        Assertions.assertEquals(2, reported.get(1).getBufferGrowths());
+        Assertions.assertEquals(3, reported.get(1).getPoolHits());
+        Assertions.assertEquals(0, reported.get(1).getPoolMisses());
+
+    }
+
+
+    @Test
+    public void testCustomPoolMetrics() throws Exception {
+
+        // A pool that never keeps anything, but reports every request as a miss
+        final IBufferPool pool = new IBufferPool() {
+            public int getBufferSize() {
+                return 16;
+            }
+            public char[] allocateBuffer(final int bufferSize) {
+                return new char[bufferSize];
+            }
+            @Override
+            public char[] allocateBuffer(final int bufferSize, final ParseMetrics metrics) {
+                metrics.countPoolMiss();
+                return allocateBuffer(bufferSize);
+            }
+            public void releaseBuffer(final char[] buffer) {
+                // Nothing to do
+            }
+        };
+
+        final List<ParseMetrics> reported = new ArrayList<ParseMetrics>();
+        final MarkupParser parser = new MarkupParser(ParseConfiguration.htmlConfiguration(), pool, reported::add);
+
+        final String doc = "<p>" + "0123456789012345678901234567890123456789012345678" + "</p>";
+        parser.parse(new StringReader(doc), new DiscardMarkupHandler());
+
+        Assertions.assertEquals(1, reported.size());
+        Assertions.assertEquals(2, reported.get(0).getBufferGrowths());
+        Assertions.assertEquals(0, reported.get(0).getPoolHits());
+        Assertions.assertEquals(3, reported.get(0).getPoolMisses());
+
+    }
+
+
+    @Test
+    public void testCollector() throws Exception {
+
+        final ParseMetricsCollector collector = new ParseMetricsCollector();
+        final MarkupParser parser =
+                new MarkupParser(ParseConfiguration.htmlConfiguration(), new StripedBufferPool(2, 4096), collector);
+
+        for (int i = 0; i < 3; i++) {
+            parser.parse(DOC.toCharArray(), new DiscardMarkupHandler());
+        }
+        parser.parse("<div><div><div><div><div>deep</div></div></div></div></div>", new DiscardMarkupHandler());
+
+        Assertions.assertEquals(4L, collector.getParseCount());
+        Assertions.assertEquals(3L * 7L + 5L, collector.getEventCount(ParseMetrics.EventType.OPEN_ELEMENT));
+        Assertions.assertEquals(3L * 2L, collector.getEventCount(ParseMetrics.EventType.ATTRIBUTE));
+        Assertions.assertEquals(5L, collector.getMaxDepth());
+        Assertions.assertEquals(1L, collector.getPoolMisses());
+        Assertions.assertTrue(collector.getDocumentChars() > 3L * DOC.length());
+        Assertions.assertTrue(collector.getCharsPerSecond() > 0.0d);
+
+        collector.reset();
+        Assertions.assertEquals(0L, collector.getParseCount());
+        Assertions.assertEquals(0L, collector.getEventCount());
+        Assertions.assertEquals(0L, collector.getMaxDepth());
+
+    }
+
+
+    @Test
+    public void testFailedParsingReported() throws Exception {
+
+        final List<ParseMetrics> reported = new ArrayList<ParseMetrics>();
+        final MarkupParser parser =
+                new MarkupParser(ParseConfiguration.xmlConfiguration(), new StripedBufferPool(2, 4096), reported::add);
+
+        // Unbalanced element, from a Reader, a char[] and a parse session
+        try {
+            parser.parse("<root><a></b></root>", new DiscardMarkupHandler());
+            Assertions.fail("An exception should have happened");
+        } catch (final ParseException e) {
+            // Expected
+        }
+        try {
+            parser.parse("<root><a></b></root>".toCharArray(), new DiscardMarkupHandler());
+            Assertions.fail("An exception should have happened");
+        } catch (final ParseException e) {
+            // Expected
+        }
+        final ParseSession session = parser.openSession(new DiscardMarkupHandler());
+        try {
+            session.feed("<root><a></b>".toCharArray());
+            Assertions.fail("An exception should have happened");
+        } catch (final ParseException e) {
+            // Expected
+        }
+
+        // Failure at the handler's document end event, which should only be reported once, as failed
+        try {
+            parser.parse("<root/>", new AbstractMarkupHandler() {
+                @Override
+                public void handleDocumentEnd(
+                        final long endTimeNanos, final long totalTimeNanos, final int line, final int col)
+                        throws ParseException {
+                    throw new ParseException("Failed at document end");
+                }
+            });
+            Assertions.fail("An exception should have happened");
+        } catch (final ParseException e) {
+            // Expected
+        }
+
+        Assertions.assertEquals(4, reported.size());
+        for (final ParseMetrics metrics : reported) {
+            Assertions.assertTrue(metrics.isFailed());
+            Assertions.assertTrue(metrics.getTotalTimeNanos() > 0L);
+        }
+        Assertions.assertEquals(20L, reported.get(0).getDocumentChars());
+        Assertions.assertEquals(2L, reported.get(0).getEventCount(ParseMetrics.EventType.OPEN_ELEMENT));
+        Assertions.assertEquals(13L, reported.get(2).getDocumentChars());
+        Assertions.assertEquals(1L, reported.get(3).getEventCount(ParseMetrics.EventType.STANDALONE_ELEMENT));
+
+        final ParseMetricsCollector collector = new ParseMetricsCollector();
+        for (final ParseMetrics metrics : reported) {
+            collector.parseFinished(metrics);
+        }
+        parser.parse("<root/>", new DiscardMarkupHandler());
+        collector.parseFinished(reported.get(4));
+        Assertions.assertFalse(reported.get(4).isFailed());
+        Assertions.assertEquals(5L, collector.getParseCount());
+        Assertions.assertEquals(4L, collector.getFailedParseCount());
+
+    }
+
+
+    @Test
+    public void testFailingListener() throws Exception {
+
+        final MarkupParser parser =
+                new MarkupParser(
+                        ParseConfiguration.xmlConfiguration(), new StripedBufferPool(2, 4096),
+                        metrics -> { throw new IllegalStateException("Listener failed"); });
+
+        // The parsing error should not be masked by the listener's
+        try {
+            parser.parse("<root><a></b></root>", new DiscardMarkupHandler());
+            Assertions.fail("An exception should have happened");
+        } catch (final ParseException e) {
+            Assertions.assertFalse(e.getMessage().contains("Listener failed"));
+            Assertions.assertEquals(1, e.getSuppressed().length);
+            Assertions.assertTrue(e.getSuppressed()[0] instanceof IllegalStateException);
+        }
+
+    }
+
+}
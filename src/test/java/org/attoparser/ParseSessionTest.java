@@ -0,0 +1,309 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+import java.io.StringWriter;
+import java.util.List;
+
+import org.attoparser.config.ParseConfiguration;
+import org.attoparser.output.OutputMarkupHandler;
+import org.attoparser.select.ParseSelection;
+import org.attoparser.trace.MarkupTraceEvent;
+import org.attoparser.trace.TraceBuilderMarkupHandler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+/*
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+public class ParseSessionTest {
+
+
+    private static final String[] HTML_DOCS = new String[] {
+            "",
+            "Hello, world!",
+            "<!DOCTYPE html>\n<html><head><title>Title</title></head>\n<body><p class=\"a\">Some <b>text</b></p></body></html>",
+            "<ul>\n  <li>one\n  <li>two<li>three</ul>\n<table><tr><td>a<td>b</table>",
+            "<script type=\"text/javascript\">if (a < b && c > d) { alert('<p>'); }</script><p>after</p>",
+            "<div a='one > two' b=\"three\" c=four\n   d>text<!-- a comment <with> tags --><br/></div>",
+            "<p>\n<![CDATA[ cdata <content> ]]>\n<?target instruction?>\n</p>< not a tag <",
+            "<style>\n  p > a { color: red; }\n</style>\n<textarea><b>not bold</b></textarea>",
+            "<div data-a=\"x > y\n z\" data-b='it\"s > \"q' >t</div><!-- a -> b >\n c --><!DOCTYPE html>",
+            "text <!-- comment --> text <![CDATA[x]]> <!DOCTYPE html> </p> <?pi?> <!- text <",
+    };
+
+    private static final String[] XML_DOCS = new String[] {
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<!DOCTYPE root>\n<root a=\"1\"><child b=\"2\"/>text</root>",
+            "<root>\n  <a>one</a>\n  <!-- comment -->\n  <b><![CDATA[<x>]]></b>\n  <?pi data?>\n</root>",
+            "<r a='>' b=\">\n'\"><![CDATA[ a ]> b ]] > c ]]><?pi a > b ?></r>",
+    };
+
+
+
+
+    @Test
+    public void testSessionEqualsReaderParsing() throws Exception {
+
+        final ParseConfiguration htmlConfiguration = ParseConfiguration.htmlConfiguration();
+        final ParseConfiguration xmlConfiguration = ParseConfiguration.xmlConfiguration();
+        final ParseConfiguration htmlSplittableConfiguration = ParseConfiguration.htmlConfiguration();
+        htmlSplittableConfiguration.setTextSplittable(true);
+
+        for (final String doc : HTML_DOCS) {
+            testSession(doc, htmlConfiguration);
+            testSplittableSession(doc, htmlConfiguration, htmlSplittableConfiguration);
+        }
+        for (final String doc : XML_DOCS) {
+            testSession(doc, xmlConfiguration);
+        }
+
+    }
+
+
+    @Test
+    public void testIncompleteStructure() throws Exception {
+
+        final MarkupParser parser = new MarkupParser(ParseConfiguration.htmlConfiguration());
+
+        final ParseSession session = parser.openSession(new TraceBuilderMarkupHandler());
+        session.feed("<p>Some text</p><div class=\"".toCharArray());
+        Assertions.assertFalse(session.isClosed());
+
+        try {
+            session.finish();
+            Assertions.fail("An exception should have happened");
+        } catch (final ParseException e) {
+            Assertions.assertEquals(Integer.valueOf(1), e.getLine());
+            Assertions.assertEquals(Integer.valueOf(17), e.getCol());
+        }
+        Assertions.assertTrue(session.isClosed());
+
+    }
+
+
+    @Test
+    public void testOffsetsBeyondIntRange() throws Exception {
+
+        final ParseConfiguration configuration = ParseConfiguration.htmlConfiguration();
+        configuration.setPositionTracking(false);
+        final MarkupParser parser = new MarkupParser(configuration);
+
+        final ParseStatus status = new ParseStatus();
+        final StringBuilder strBuilder = new StringBuilder();
+        final IMarkupHandler markupHandler =
+                new MarkupEventProcessorHandler(new HtmlMarkupHandler(new AbstractMarkupHandler() {
+                    @Override
+                    public void handleText(
+                            final char[] buffer, final int offset, final int len, final int line, final int col) {
+                        strBuilder.append(new String(buffer, offset, len).trim());
+                        strBuilder.append('{').append(col).append(',').append(status.computeOffset(col));
+                        strBuilder.append(',').append(status.computeLine(col));
+                        strBuilder.append(',').append(status.computeCol(col)).append('}');
+                    }
+                }));
+        markupHandler.setParseConfiguration(configuration);
+        markupHandler.setParseStatus(status);
+        markupHandler.setParseSelection(new ParseSelection());
+
+        final ParseSession session = parser.openSession(16, markupHandler, status);
+        session.feed("<p>a</p>".toCharArray());
+
+        // Fast-forward the document offset instead of actually feeding gigabytes of markup
+        status.bufferOffsetDelta = Integer.MAX_VALUE - 10L;
+        status.checkpointOffset = Integer.MAX_VALUE - 10L;
+        session.feed("<p>b</p>\nxy<p>c</p>".toCharArray());
+
+        // Once more, beyond 2^32 chars, where reported offsets become positive again
+        status.bufferOffsetDelta = (3L << 32) + 5L;
+        status.checkpointOffset = (3L << 32) + 5L;
+        session.feed("<p>d</p>".toCharArray());
+        session.finish();
+
+        Assertions.assertEquals(
+                "a{3,3,1,4}b{2147483640,2147483640,1,12}xy{2147483645,2147483645,1,17}" +
+                "c{-2147483645,2147483651,2,6}d{8,12884901896,2,14}",
+                strBuilder.toString());
+
+    }
+
+
+    @Test
+    public void testClosedSession() throws Exception {
+
+        final MarkupParser parser = new MarkupParser(ParseConfiguration.htmlConfiguration());
+
+        final ParseSession session = parser.openSession(new TraceBuilderMarkupHandler());
+        session.feed("<p>Some text</p>".toCharArray());
+        session.close();
+        Assertions.assertTrue(session.isClosed());
+
+        try {
+            session.feed("<p>More text</p>".toCharArray());
+            Assertions.fail("An exception should have happened");
+        } catch (final IllegalStateException e) {
+            // Expected
+        }
+
+        // Closing again should have no effect
+        session.close();
+
+    }
+
+
+
+
+    private static void testSession(final String doc, final ParseConfiguration configuration) throws Exception {
+
+        final MarkupParser parser = new MarkupParser(configuration);
+
+        final TraceBuilderMarkupHandler expectedTraceHandler = new TraceBuilderMarkupHandler();
+        parser.parse(doc, expectedTraceHandler);
+        final String expected = TraceTestUtil.toString(expectedTraceHandler.getTrace());
+
+        final char[] input = doc.toCharArray();
+        final int[] bufferSizes = new int[] { 1, 2, 7, 64, MarkupParser.DEFAULT_BUFFER_SIZE };
+
+        for (final int bufferSize : bufferSizes) {
+
+            for (int chunkSize = 1; chunkSize <= input.length + 1; chunkSize++) {
+
+                final TraceBuilderMarkupHandler traceHandler = new TraceBuilderMarkupHandler();
+                final ParseSession session = openSession(parser, configuration, bufferSize, traceHandler);
+
+                for (int i = 0; i < input.length; i += chunkSize) {
+                    session.feed(input, i, Math.min(chunkSize, input.length - i));
+                }
+                session.finish();
+
+                Assertions.assertTrue(session.isClosed());
+                Assertions.assertEquals(
+                        expected, TraceTestUtil.toString(traceHandler.getTrace()),
+                        "bufferSize=" + bufferSize + ", chunkSize=" + chunkSize);
+
+            }
+
+        }
+
+    }
+
+
+    private static void testSplittableSession(
+            final String doc, final ParseConfiguration nonSplittableConfiguration,
+            final ParseConfiguration configuration) throws Exception {
+
+        // Splittable texts can be split at different points depending on chunk and buffer sizes, so we check that
+        // events are the same as when texts are not splittable once consecutive texts have been merged, and also
+        // that output is equivalent to input
+
+        final TraceBuilderMarkupHandler expectedTraceHandler = new TraceBuilderMarkupHandler();
+        new MarkupParser(nonSplittableConfiguration).parse(doc, expectedTraceHandler);
+        final String expected = toMergedTextString(expectedTraceHandler.getTrace());
+
+        final MarkupParser parser = new MarkupParser(configuration);
+
+        final char[] input = doc.toCharArray();
+        final int[] bufferSizes = new int[] { 1, 2, 7, 64, MarkupParser.DEFAULT_BUFFER_SIZE };
+
+        for (final int bufferSize : bufferSizes) {
+
+            for (int chunkSize = 1; chunkSize <= input.length + 1; chunkSize++) {
+
+                final StringWriter writer = new StringWriter();
+                final ParseSession session =
+                        openSession(parser, configuration, bufferSize, new OutputMarkupHandler(writer));
+
+                for (int i = 0; i < input.length; i += chunkSize) {
+                    session.feed(input, i, Math.min(chunkSize, input.length - i));
+                }
+                session.finish();
+
+                Assertions.assertEquals(
+                        doc, writer.toString(), "bufferSize=" + bufferSize + ", chunkSize=" + chunkSize);
+
+                final TraceBuilderMarkupHandler traceHandler = new TraceBuilderMarkupHandler();
+                final ParseSession traceSession = openSession(parser, configuration, bufferSize, traceHandler);
+                for (int i = 0; i < input.length; i += chunkSize) {
+                    traceSession.feed(input, i, Math.min(chunkSize, input.length - i));
+                }
+                traceSession.finish();
+
+                Assertions.assertEquals(
+                        expected, toMergedTextString(traceHandler.getTrace()),
+                        "bufferSize=" + bufferSize + ", chunkSize=" + chunkSize);
+
+            }
+
+        }
+
+    }
+
+
+    private static ParseSession openSession(
+            final MarkupParser parser, final ParseConfiguration configuration, final int bufferSize,
+            final IMarkupHandler handler) throws ParseException {
+
+        IMarkupHandler markupHandler =
+                (ParseConfiguration.ParsingMode.HTML.equals(configuration.getMode()) ?
+                        new HtmlMarkupHandler(handler) : handler);
+        markupHandler = new MarkupEventProcessorHandler(markupHandler);
+        markupHandler.setParseConfiguration(configuration);
+        final ParseStatus status = new ParseStatus();
+        markupHandler.setParseStatus(status);
+        markupHandler.setParseSelection(new ParseSelection());
+
+        return parser.openSession(bufferSize, markupHandler, status);
+
+    }
+
+
+    private static String toMergedTextString(final List<MarkupTraceEvent> trace) {
+        // Text events are represented as "T(text){line,col}"
+        final StringBuilder strBuilder = new StringBuilder();
+        final StringBuilder text = new StringBuilder();
+        String textPosition = null;
+        for (final MarkupTraceEvent event : trace) {
+            final String eventStr = event.toString();
+            if (event.getEventType().equals(MarkupTraceEvent.EventType.TEXT)) {
+                text.append(eventStr, 2, eventStr.lastIndexOf(')'));
+                if (textPosition == null) {
+                    textPosition = eventStr.substring(eventStr.lastIndexOf('{'));
+                }
+                continue;
+            }
+            if (textPosition != null) {
+                strBuilder.append("T(").append(text).append(')').append(textPosition);
+                text.setLength(0);
+                textPosition = null;
+            }
+            if (event.getEventType().equals(MarkupTraceEvent.EventType.DOCUMENT_START)) {
+                strBuilder.append("[");
+            } else if (event.getEventType().equals(MarkupTraceEvent.EventType.DOCUMENT_END)) {
+                strBuilder.append("]");
+            } else {
+                strBuilder.append(eventStr);
+            }
+        }
+        return strBuilder.toString();
+    }
+
+}
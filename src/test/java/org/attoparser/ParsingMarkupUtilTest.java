@@ -0,0 +1,116 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+/*
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+public class ParsingMarkupUtilTest {
+
+
+    private static final char[] ALPHABET = "ab <\n/sc".toCharArray();
+
+
+
+
+    @Test
+    public void testFindNextStructureStart() throws Exception {
+
+        final Random random = new Random(23L);
+
+        for (int k = 0; k < 5000; k++) {
+
+            final char[] text = randomText(random);
+            final int offset = random.nextInt(text.length + 1);
+
+            final int[] locator = new int[] { 3, 5 };
+            final int index = ParsingMarkupUtil.findNextStructureStart(text, offset, text.length, locator);
+
+            final int[] expectedLocator = new int[] { 3, 5 };
+            final int expectedIndex = findAndCount(text, offset, text.length, expectedLocator, "<".toCharArray());
+
+            Assertions.assertEquals(expectedIndex, index);
+            Assertions.assertArrayEquals(expectedLocator, locator);
+
+        }
+
+    }
+
+
+    @Test
+    public void testFindCharacterSequence() throws Exception {
+
+        final Random random = new Random(23L);
+        final char[][] sequences = new char[][] { "</sc".toCharArray(), "\n".toCharArray(), "a\nb".toCharArray() };
+
+        for (int k = 0; k < 5000; k++) {
+
+            final char[] text = randomText(random);
+            final int offset = random.nextInt(text.length + 1);
+            final char[] sequence = sequences[k % sequences.length];
+
+            final int[] locator = new int[] { 3, 5 };
+            final int index = ParsingMarkupUtil.findCharacterSequence(text, offset, text.length, locator, sequence);
+
+            final int[] expectedLocator = new int[] { 3, 5 };
+            final int expectedIndex = findAndCount(text, offset, text.length, expectedLocator, sequence);
+
+            Assertions.assertEquals(expectedIndex, index);
+            Assertions.assertArrayEquals(expectedLocator, locator);
+
+        }
+
+    }
+
+
+
+
+    private static char[] randomText(final Random random) {
+        final char[] text = new char[random.nextInt(200)];
+        for (int i = 0; i < text.length; i++) {
+            text[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+        }
+        return text;
+    }
+
+
+    /*
+     * Reference implementation: counts every char before the first occurrence of the sequence.
+     */
+    private static int findAndCount(
+            final char[] text, final int offset, final int maxi, final int[] locator, final char[] sequence) {
+        for (int i = offset; i < maxi; i++) {
+            if (i + sequence.length <= maxi && new String(text, i, sequence.length).equals(new String(sequence))) {
+                return i;
+            }
+            ParsingLocatorUtil.countChar(locator, text[i]);
+        }
+        return -1;
+    }
+
+}
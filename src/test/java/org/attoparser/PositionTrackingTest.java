@@ -0,0 +1,359 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.attoparser.config.ParseConfiguration;
+import org.attoparser.select.ParseSelection;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+/*
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+public class PositionTrackingTest {
+
+
+    private static final String[] HTML_DOCS = new String[] {
+            "Hello, world!",
+            "<!DOCTYPE html>\n<html><head><title>Title</title></head>\n<body><p class=\"a\">Some <b>text</b></p></body></html>",
+            "<ul>\n  <li>one\n  <li>two<li>three</ul>\n<table><tr><td>a<td>b</table>",
+            "<script type=\"text/javascript\">\nif (a < b && c > d) {\n alert('<p>'); }</script>\n<p>after</p>",
+            "<div a='one > two' b=\"three\" c=four\n   d>text<!-- a \n comment <with> tags --><br/></div>\n\n",
+            "<p>\n<![CDATA[ cdata\n <content> ]]>\n<?target instruction?>\n</p>< not a tag <",
+            "<html>\n<div a=\"1\"\n   b=\"2\">x</div\n><img\n src=\"a\n b\"\n\n  alt = 'c' />\n</html>",
+            "<!DOCTYPE html PUBLIC\n  \"-//W3C//DTD HTML 4.01//EN\"\n  \"http://www.w3.org/TR/html4/strict.dtd\">\n" +
+                    "<p><?target\n  some\n  instruction?></p>",
+    };
+
+
+
+
+    @Test
+    public void testPositionsFromOffsets() throws Exception {
+
+        final ParseConfiguration trackingConfiguration = ParseConfiguration.htmlConfiguration();
+        final ParseConfiguration nonTrackingConfiguration = ParseConfiguration.htmlConfiguration();
+        nonTrackingConfiguration.setPositionTracking(false);
+
+        final MarkupParser trackingParser = new MarkupParser(trackingConfiguration);
+        final MarkupParser nonTrackingParser = new MarkupParser(nonTrackingConfiguration);
+
+        for (final String doc : HTML_DOCS) {
+
+            final PositionRecordingHandler expectedHandler = new PositionRecordingHandler(true);
+            trackingParser.parse(doc, expectedHandler);
+
+            final PositionRecordingHandler handler = new PositionRecordingHandler(false);
+            nonTrackingParser.parse(doc, handler);
+            Assertions.assertEquals(expectedHandler.positions, handler.positions);
+
+            final char[] input = doc.toCharArray();
+            for (final int bufferSize : new int[] { 1, 7, 64 }) {
+                for (final int chunkSize : new int[] { 1, 3, 16, input.length }) {
+
+                    final PositionRecordingHandler sessionHandler = new PositionRecordingHandler(false);
+                    final IMarkupHandler markupHandler = chain(nonTrackingConfiguration, sessionHandler);
+                    final ParseSession session =
+                            nonTrackingParser.openSession(bufferSize, markupHandler, sessionHandler.status);
+                    for (int i = 0; i < input.length; i += chunkSize) {
+                        session.feed(input, i, Math.min(chunkSize, input.length - i));
+                    }
+                    session.finish();
+
+                    Assertions.assertEquals(
+                            expectedHandler.positions, sessionHandler.positions,
+                            "bufferSize=" + bufferSize + ", chunkSize=" + chunkSize);
+
+                }
+            }
+
+        }
+
+    }
+
+
+    @Test
+    public void testOffsetsInsideMultiLineStructures() throws Exception {
+
+        final ParseConfiguration nonTrackingConfiguration = ParseConfiguration.htmlConfiguration();
+        nonTrackingConfiguration.setPositionTracking(false);
+
+        final String doc = "<html>\n<div a=\"1\"\n   b=\"2\">x</div>";
+
+        final List<String> offsets = new ArrayList<String>();
+        new MarkupParser(nonTrackingConfiguration).parse(doc, new AbstractMarkupHandler() {
+
+            @Override
+            public void handleAttribute(
+                    final char[] buffer,
+                    final int nameOffset, final int nameLen, final int nameLine, final int nameCol,
+                    final int operatorOffset, final int operatorLen, final int operatorLine, final int operatorCol,
+                    final int valueContentOffset, final int valueContentLen,
+                    final int valueOuterOffset, final int valueOuterLen, final int valueLine, final int valueCol) {
+                offsets.add(new String(buffer, nameOffset, nameLen) + "{" +
+                        nameLine + "," + nameCol + "|" + operatorLine + "," + operatorCol + "|" +
+                        valueLine + "," + valueCol + "}");
+            }
+
+            @Override
+            public void handleOpenElementEnd(
+                    final char[] buffer, final int nameOffset, final int nameLen, final int line, final int col) {
+                offsets.add("OEE(" + new String(buffer, nameOffset, nameLen) + "){" + line + "," + col + "}");
+            }
+
+        });
+
+        Assertions.assertEquals(
+                "[OEE(html){0,5}, a{0,12|0,13|0,14}, b{0,21|0,22|0,23}, OEE(div){0,26}]", offsets.toString());
+
+    }
+
+
+    @Test
+    public void testExceptionPositions() throws Exception {
+
+        final ParseConfiguration xmlConfiguration = ParseConfiguration.xmlConfiguration();
+        final ParseConfiguration nonTrackingXmlConfiguration = ParseConfiguration.xmlConfiguration();
+        nonTrackingXmlConfiguration.setPositionTracking(false);
+
+        // Unbalanced element (detected by the event processor) and incomplete structure (detected by the parser)
+        checkExceptionPosition(
+                "<root>\n  <a>one</b>\n</root>", xmlConfiguration, nonTrackingXmlConfiguration,
+                new AbstractMarkupHandler() {}, 2, 9);
+        checkExceptionPosition(
+                "<root>\n\n  <a b=\"one", xmlConfiguration, nonTrackingXmlConfiguration,
+                new AbstractMarkupHandler() {}, 3, 3);
+
+        // Exception raised by a handler at the position of an event, which should keep its message and cause
+        final IMarkupHandler failingHandler = new AbstractMarkupHandler() {
+            @Override
+            public void handleText(
+                    final char[] buffer, final int offset, final int len, final int line, final int col)
+                    throws ParseException {
+                if (buffer[offset] == 'o') {
+                    throw new ParseException("Text not allowed", new IllegalStateException("cause"), line, col);
+                }
+            }
+        };
+        final ParseException exception =
+                checkExceptionPosition(
+                        "<root>\n  <a>one</a>\n</root>", xmlConfiguration, nonTrackingXmlConfiguration,
+                        failingHandler, 2, 6);
+        Assertions.assertEquals("(Line = 2, Column = 6) Text not allowed", exception.getMessage());
+        Assertions.assertEquals("cause", exception.getCause().getMessage());
+
+    }
+
+
+
+
+    /*
+     * Checks that the exception raised when position tracking is disabled is the same one (same position,
+     * message and cause) raised when it is enabled, and returns it
+     */
+    private static ParseException checkExceptionPosition(
+            final String doc, final ParseConfiguration trackingConfiguration,
+            final ParseConfiguration nonTrackingConfiguration, final IMarkupHandler handler,
+            final int line, final int col) {
+
+        final ParseException[] exceptions = new ParseException[2];
+        final ParseConfiguration[] configurations =
+                new ParseConfiguration[] { trackingConfiguration, nonTrackingConfiguration };
+        for (int i = 0; i < configurations.length; i++) {
+            try {
+                new MarkupParser(configurations[i]).parse(doc, handler);
+                Assertions.fail("An exception should have happened");
+            } catch (final ParseException e) {
+                Assertions.assertEquals(Integer.valueOf(line), e.getLine());
+                Assertions.assertEquals(Integer.valueOf(col), e.getCol());
+                Assertions.assertTrue(e.getMessage().startsWith("(Line = " + line + ", Column = " + col + ")"));
+                exceptions[i] = e;
+            }
+        }
+
+        Assertions.assertEquals(exceptions[0].getMessage(), exceptions[1].getMessage());
+        Assertions.assertEquals(
+                String.valueOf(exceptions[0].getCause()), String.valueOf(exceptions[1].getCause()));
+        return exceptions[1];
+
+    }
+
+
+    private static IMarkupHandler chain(final ParseConfiguration configuration, final IMarkupHandler handler) {
+        final IMarkupHandler markupHandler = new MarkupEventProcessorHandler(new HtmlMarkupHandler(handler));
+        markupHandler.setParseConfiguration(configuration);
+        final ParseStatus status = new ParseStatus();
+        markupHandler.setParseStatus(status);
+        markupHandler.setParseSelection(new ParseSelection());
+        return markupHandler;
+    }
+
+
+
+
+    // Records the positions of events, which should be reported at their exact offset when position tracking
+    // is disabled, even if they happen inside a markup structure spanning several lines
+    private static final class PositionRecordingHandler extends AbstractMarkupHandler {
+
+        private final boolean tracking;
+        private final List<String> positions = new ArrayList<String>();
+        private ParseStatus status;
+
+        PositionRecordingHandler(final boolean tracking) {
+            super();
+            this.tracking = tracking;
+        }
+
+        @Override
+        public void setParseStatus(final ParseStatus status) {
+            this.status = status;
+        }
+
+        private void record(final String event, final int line, final int col) {
+            if (this.tracking) {
+                this.positions.add(event + "{" + line + "," + col + "}");
+                return;
+            }
+            Assertions.assertEquals(0, line);
+            this.positions.add(event + "{" + this.status.computeLine(col) + "," + this.status.computeCol(col) + "}");
+        }
+
+        @Override
+        public void handleText(
+                final char[] buffer, final int offset, final int len, final int line, final int col) {
+            record("T(" + new String(buffer, offset, len) + ")", line, col);
+        }
+
+        @Override
+        public void handleComment(
+                final char[] buffer, final int contentOffset, final int contentLen,
+                final int outerOffset, final int outerLen, final int line, final int col) {
+            record("C", line, col);
+        }
+
+        @Override
+        public void handleCDATASection(
+                final char[] buffer, final int contentOffset, final int contentLen,
+                final int outerOffset, final int outerLen, final int line, final int col) {
+            record("D", line, col);
+        }
+
+        @Override
+        public void handleOpenElementStart(
+                final char[] buffer, final int nameOffset, final int nameLen, final int line, final int col) {
+            record("OES(" + new String(buffer, nameOffset, nameLen) + ")", line, col);
+        }
+
+        @Override
+        public void handleStandaloneElementStart(
+                final char[] buffer, final int nameOffset, final int nameLen,
+                final boolean minimized, final int line, final int col) {
+            record("SES(" + new String(buffer, nameOffset, nameLen) + ")", line, col);
+        }
+
+        @Override
+        public void handleCloseElementStart(
+                final char[] buffer, final int nameOffset, final int nameLen, final int line, final int col) {
+            record("CES(" + new String(buffer, nameOffset, nameLen) + ")", line, col);
+        }
+
+        @Override
+        public void handleOpenElementEnd(
+                final char[] buffer, final int nameOffset, final int nameLen, final int line, final int col) {
+            record("OEE(" + new String(buffer, nameOffset, nameLen) + ")", line, col);
+        }
+
+        @Override
+        public void handleStandaloneElementEnd(
+                final char[] buffer, final int nameOffset, final int nameLen,
+                final boolean minimized, final int line, final int col) {
+            record("SEE(" + new String(buffer, nameOffset, nameLen) + ")", line, col);
+        }
+
+        @Override
+        public void handleCloseElementEnd(
+                final char[] buffer, final int nameOffset, final int nameLen, final int line, final int col) {
+            record("CEE(" + new String(buffer, nameOffset, nameLen) + ")", line, col);
+        }
+
+        @Override
+        public void handleAttribute(
+                final char[] buffer,
+                final int nameOffset, final int nameLen, final int nameLine, final int nameCol,
+                final int operatorOffset, final int operatorLen, final int operatorLine, final int operatorCol,
+                final int valueContentOffset, final int valueContentLen,
+                final int valueOuterOffset, final int valueOuterLen, final int valueLine, final int valueCol) {
+            final String name = new String(buffer, nameOffset, nameLen);
+            record("A(" + name + ")", nameLine, nameCol);
+            if (operatorLen > 0) {
+                record("AO(" + name + ")", operatorLine, operatorCol);
+            }
+            if (valueOuterLen > 0) {
+                record("AV(" + name + ")", valueLine, valueCol);
+            }
+        }
+
+        @Override
+        public void handleInnerWhiteSpace(
+                final char[] buffer, final int offset, final int len, final int line, final int col) {
+            record("W", line, col);
+        }
+
+        @Override
+        public void handleDocType(
+                final char[] buffer,
+                final int keywordOffset, final int keywordLen, final int keywordLine, final int keywordCol,
+                final int elementNameOffset, final int elementNameLen, final int elementNameLine, final int elementNameCol,
+                final int typeOffset, final int typeLen, final int typeLine, final int typeCol,
+                final int publicIdOffset, final int publicIdLen, final int publicIdLine, final int publicIdCol,
+                final int systemIdOffset, final int systemIdLen, final int systemIdLine, final int systemIdCol,
+                final int internalSubsetOffset, final int internalSubsetLen,
+                final int internalSubsetLine, final int internalSubsetCol,
+                final int outerOffset, final int outerLen, final int outerLine, final int outerCol) {
+            record("DT", outerLine, outerCol);
+            record("DTP", publicIdLine, publicIdCol);
+            record("DTS", systemIdLine, systemIdCol);
+        }
+
+        @Override
+        public void handleProcessingInstruction(
+                final char[] buffer,
+                final int targetOffset, final int targetLen, final int targetLine, final int targetCol,
+                final int contentOffset, final int contentLen, final int contentLine, final int contentCol,
+                final int outerOffset, final int outerLen, final int line, final int col) {
+            record("PI", line, col);
+            record("PIC", contentLine, contentCol);
+        }
+
+        @Override
+        public void handleDocumentEnd(
+                final long endTimeNanos, final long totalTimeNanos, final int line, final int col) {
+            record("E", line, col);
+        }
+
+    }
+
+}
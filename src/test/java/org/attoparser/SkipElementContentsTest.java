@@ -0,0 +1,311 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.ForkJoinPool;
+
+import org.attoparser.config.ParseConfiguration;
+import org.attoparser.discard.DiscardMarkupHandler;
+import org.attoparser.output.OutputMarkupHandler;
+import org.attoparser.select.BlockSelectorMarkupHandler;
+import org.attoparser.trace.TraceBuilderMarkupHandler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+/*
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+public class SkipElementContentsTest {
+
+
+    private static final String HTML_FRAGMENT =
+            "<div class=\"post\"><p>Some <b>text</b></p>\n" +
+            "<svg width=\"10\"><g><svg><path d=\"M0 0\"/></svg></g><!-- </svg> -->\n" +
+            "<text title='</svg>'><![CDATA[</svg>]]>x</text></svg>\n" +
+            "<noscript><img src=\"a.png\"><noscript>nested</noscript></noscript>" +
+            "<script>document.write(\"<script>\" + \"<!--\");</script>" +
+            "<p>More <a href=\"x\">text</a></p></div>\n";
+
+
+
+
+    @Test
+    public void testSkip() throws Exception {
+
+        final MarkupParser parser = new MarkupParser(ParseConfiguration.htmlConfiguration());
+
+        checkTrace(parser, "<div>a<svg><g><svg><path/></svg></g></svg>b</div>", "svg",
+                "[OES(div){1,1}OEE(div){1,5}T(a){1,6}OES(svg){1,7}OEE(svg){1,11}" +
+                "SK(<g><svg><path/></svg></g>){1,12}CES(svg){1,37}CEE(svg){1,42}T(b){1,43}" +
+                "CES(div){1,44}CEE(div){1,49}]");
+
+        // Comments, CDATA sections and attribute values are avoided
+        checkTrace(parser, "<svg><!-- </svg> --><x a='</svg>'><![CDATA[</svg>]]></svg>", "svg",
+                "[OES(svg){1,1}OEE(svg){1,5}" +
+                "SK(<!-- </svg> --><x a='</svg>'><![CDATA[</svg>]]>){1,6}CES(svg){1,53}CEE(svg){1,58}]");
+
+        // Names are case-insensitive in HTML
+        checkTrace(parser, "<SVG><svg></Svg>x</svG>", "svg",
+                "[OES(SVG){1,1}OEE(SVG){1,5}SK(<svg></Svg>x){1,6}CES(svG){1,18}CEE(svG){1,23}]");
+
+        // Parsing is enabled again after skipping elements with parsing disabled
+        checkTrace(parser, "<script>if (a < b) {}</script><p>x</p>", "script",
+                "[OES(script){1,1}OEE(script){1,8}SK(if (a < b) {}){1,9}CES(script){1,22}CEE(script){1,30}" +
+                "OES(p){1,31}OEE(p){1,33}T(x){1,34}CES(p){1,35}CEE(p){1,38}]");
+
+        // Only the limit sequence is looked for in elements with parsing disabled, as their contents are raw text
+        checkTrace(parser, "<script>var s = \"<!--\";</script><p>after</p>", "script",
+                "[OES(script){1,1}OEE(script){1,8}SK(var s = \"<!--\";){1,9}CES(script){1,24}CEE(script){1,32}" +
+                "OES(p){1,33}OEE(p){1,35}T(after){1,36}CES(p){1,41}CEE(p){1,44}]");
+        checkTrace(parser, "<script>document.write(\"<script src=x>\");</script><p>after</p>", "script",
+                "[OES(script){1,1}OEE(script){1,8}SK(document.write(\"<script src=x>\");){1,9}" +
+                "CES(script){1,42}CEE(script){1,50}OES(p){1,51}OEE(p){1,53}T(after){1,54}CES(p){1,59}CEE(p){1,62}]");
+        checkTrace(parser, "<style>a:after { content:\"<![CDATA[\" }</style><p>after</p>", "style",
+                "[OES(style){1,1}OEE(style){1,7}SK(a:after { content:\"<![CDATA[\" }){1,8}" +
+                "CES(style){1,39}CEE(style){1,46}OES(p){1,47}OEE(p){1,49}T(after){1,50}CES(p){1,55}CEE(p){1,58}]");
+
+        // Void elements have no contents to skip
+        checkTrace(parser, "<br><p>x</p>", "br",
+                "[NSES(br){1,1}NSEE(br){1,4}OES(p){1,5}OEE(p){1,7}T(x){1,8}CES(p){1,9}CEE(p){1,12}]");
+
+        // Empty contents and unclosed elements
+        checkTrace(parser, "<svg></svg><div><svg><g>", "svg",
+                "[OES(svg){1,1}OEE(svg){1,5}CES(svg){1,6}CEE(svg){1,11}OES(div){1,12}OEE(div){1,16}" +
+                "OES(svg){1,17}OEE(svg){1,21}SK(<g>){1,22}ACES(svg){1,25}ACEE(svg){1,25}" +
+                "ACES(div){1,25}ACEE(div){1,25}]");
+
+        // Names are case-sensitive in XML
+        checkTrace(new MarkupParser(ParseConfiguration.xmlConfiguration()), "<a><A><a/></A><a></a></a>", "a",
+                "[OES(a){1,1}OEE(a){1,3}SK(<A><a/></A><a></a>){1,4}CES(a){1,22}CEE(a){1,25}]");
+
+    }
+
+
+    @Test
+    public void testSkipEqualsForAllInputs() throws Exception {
+
+        final ParseConfiguration htmlConfiguration = ParseConfiguration.htmlConfiguration();
+        final ParseConfiguration nonTrackingHtmlConfiguration = ParseConfiguration.htmlConfiguration();
+        nonTrackingHtmlConfiguration.setPositionTracking(false);
+
+        final StringBuilder strBuilder = new StringBuilder("<html><body>\n");
+        for (int i = 0; i < 100; i++) {
+            strBuilder.append(HTML_FRAGMENT);
+        }
+        strBuilder.append("</body></html>\n");
+        final String doc = strBuilder.toString();
+
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (final ParseConfiguration configuration :
+                    new ParseConfiguration[] { htmlConfiguration, nonTrackingHtmlConfiguration }) {
+                checkSkipEqualsForAllInputs(doc, configuration, new String[] { "svg", "noscript", "script" }, pool);
+                checkSkipEqualsForAllInputs(doc, configuration, new String[] { "div" }, pool);
+                checkSkipEqualsForAllInputs(doc, configuration, new String[] { "body" }, pool);
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+    }
+
+
+    @Test
+    public void testSkipWithSelectors() throws Exception {
+
+        final MarkupParser parser = new MarkupParser(ParseConfiguration.htmlConfiguration());
+        final String doc = "<html><body>\n" + HTML_FRAGMENT + HTML_FRAGMENT + "</body></html>\n";
+
+        for (final String selector : new String[] { "div.post", "svg", "p", "div//text()" }) {
+
+            final StringWriter expected = new StringWriter();
+            parser.parse(doc,
+                    new BlockSelectorMarkupHandler(
+                            new OutputMarkupHandler(expected), new DiscardMarkupHandler(), selector));
+
+            final StringWriter writer = new StringWriter();
+            final SkippingMarkupHandler handler =
+                    new SkippingMarkupHandler(new String[] { "svg", "noscript" },
+                            new BlockSelectorMarkupHandler(
+                                    new OutputMarkupHandler(writer), new DiscardMarkupHandler(), selector));
+            parser.parse(doc, handler);
+
+            if (selector.contains("text()")) {
+                // Texts inside skipped elements cannot be selected
+                Assertions.assertFalse(writer.toString().contains("nested"));
+                Assertions.assertTrue(expected.toString().contains("nested"));
+            } else {
+                Assertions.assertEquals(expected.toString(), writer.toString(), selector);
+            }
+
+        }
+
+    }
+
+
+
+
+    private static void checkTrace(
+            final MarkupParser parser, final String doc, final String skippedElementName, final String expected)
+            throws Exception {
+
+        final String[] skippedElementNames = new String[] { skippedElementName };
+
+        // Contents are skipped in a single event when the whole document is in the buffer
+        final String trace = parseAndTrace(skippedElementNames, false, new ParseOperation() {
+            public void parse(final IMarkupHandler handler) throws ParseException {
+                parser.parse(doc, handler);
+            }
+        });
+        Assertions.assertEquals(expected, trace);
+
+        final String fromReader = parseAndTrace(skippedElementNames, true, new ParseOperation() {
+            public void parse(final IMarkupHandler handler) throws ParseException {
+                parser.parse(new StringReader(doc), handler);
+            }
+        });
+        Assertions.assertEquals(expected, fromReader);
+
+        for (final int chunkSize : new int[] { 1, 3 }) {
+            final String fromSession = parseAndTrace(skippedElementNames, true, new ParseOperation() {
+                public void parse(final IMarkupHandler handler) throws ParseException {
+                    final ParseSession session = parser.openSession(handler);
+                    final char[] input = doc.toCharArray();
+                    for (int i = 0; i < input.length; i += chunkSize) {
+                        session.feed(input, i, Math.min(chunkSize, input.length - i));
+                    }
+                    session.finish();
+                }
+            });
+            Assertions.assertEquals(expected, fromSession, "chunkSize=" + chunkSize);
+        }
+
+        // Skipping should not modify output at all
+        final StringWriter writer = new StringWriter();
+        parser.parse(doc, new SkippingMarkupHandler(new String[] { skippedElementName }, new OutputMarkupHandler(writer)));
+        Assertions.assertEquals(doc, writer.toString());
+
+    }
+
+
+    private static void checkSkipEqualsForAllInputs(
+            final String doc, final ParseConfiguration configuration,
+            final String[] skippedElementNames, final ForkJoinPool pool) throws Exception {
+
+        final MarkupParser parser = new MarkupParser(configuration);
+        final char[] input = doc.toCharArray();
+
+        final String expected = parseAndTrace(skippedElementNames, true, new ParseOperation() {
+            public void parse(final IMarkupHandler handler) throws ParseException {
+                parser.parse(input, handler);
+            }
+        });
+        Assertions.assertTrue(expected.contains("SK("));
+
+        final String fromReader = parseAndTrace(skippedElementNames, true, new ParseOperation() {
+            public void parse(final IMarkupHandler handler) throws ParseException {
+                parser.parse(new StringReader(doc), handler);
+            }
+        });
+        Assertions.assertEquals(expected, fromReader);
+
+        for (final int chunkSize : new int[] { 1, 16, 200, 4096 }) {
+
+            final String fromSession = parseAndTrace(skippedElementNames, true, new ParseOperation() {
+                public void parse(final IMarkupHandler handler) throws ParseException {
+                    final ParseSession session = parser.openSession(handler);
+                    for (int i = 0; i < input.length; i += chunkSize) {
+                        session.feed(input, i, Math.min(chunkSize, input.length - i));
+                    }
+                    session.finish();
+                }
+            });
+            Assertions.assertEquals(expected, fromSession, "chunkSize=" + chunkSize);
+
+            final String fromParallel = parseAndTrace(skippedElementNames, true, new ParseOperation() {
+                public void parse(final IMarkupHandler handler) throws ParseException {
+                    parser.parseInParallel(input, 0, input.length, handler, pool, chunkSize);
+                }
+            });
+            Assertions.assertEquals(expected, fromParallel, "chunkSize=" + chunkSize);
+
+        }
+
+    }
+
+
+    private static String parseAndTrace(
+            final String[] skippedElementNames, final boolean mergeSkipped, final ParseOperation operation)
+            throws ParseException {
+        final TraceBuilderMarkupHandler traceHandler = new TraceBuilderMarkupHandler();
+        operation.parse(new SkippingMarkupHandler(skippedElementNames, traceHandler));
+        return TraceTestUtil.toString(traceHandler.getTrace(), mergeSkipped);
+    }
+
+
+
+
+    private interface ParseOperation {
+        void parse(final IMarkupHandler handler) throws ParseException;
+    }
+
+
+
+
+    /*
+     * Asks for the contents of all elements with the specified names to be skipped.
+     */
+    private static final class SkippingMarkupHandler extends AbstractChainedMarkupHandler {
+
+        private final String[] elementNames;
+        private ParseStatus status;
+
+        SkippingMarkupHandler(final String[] elementNames, final IMarkupHandler next) {
+            super(next);
+            this.elementNames = elementNames;
+        }
+
+        @Override
+        public void setParseStatus(final ParseStatus status) {
+            this.status = status;
+            super.setParseStatus(status);
+        }
+
+        @Override
+        public void handleOpenElementStart(
+                final char[] buffer, final int nameOffset, final int nameLen, final int line, final int col)
+                throws ParseException {
+            super.handleOpenElementStart(buffer, nameOffset, nameLen, line, col);
+            final String name = new String(buffer, nameOffset, nameLen);
+            for (final String elementName : this.elementNames) {
+                if (elementName.equalsIgnoreCase(name)) {
+                    this.status.skipElementContents();
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+/*
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+public class StandardNameInternerTest {
+
+
+
+    @Test
+    public void testStandardNames() throws Exception {
+
+        final Set<String> names = new LinkedHashSet<String>();
+        names.addAll(HtmlNames.ALL_STANDARD_ELEMENT_NAMES);
+        names.addAll(HtmlNames.ALL_STANDARD_ATTRIBUTE_NAMES);
+
+        final Set<Integer> ids = new HashSet<Integer>();
+
+        for (final String name : names) {
+
+            final int id = StandardNameInterner.getId(name.toCharArray(), 0, name.length());
+            Assertions.assertTrue(id >= 0 && id < StandardNameInterner.size(), name);
+            Assertions.assertEquals(name, StandardNameInterner.getName(id));
+            Assertions.assertTrue(ids.add(Integer.valueOf(id)), name);
+
+            final char[] upper = ("<" + name.toUpperCase() + ">").toCharArray();
+            final char[] mixed = ("<" + Character.toUpperCase(name.charAt(0)) + name.substring(1) + ">").toCharArray();
+            Assertions.assertEquals(id, StandardNameInterner.getId(upper, 1, name.length()));
+            Assertions.assertEquals(id, StandardNameInterner.getId(mixed, 1, name.length()));
+
+            // Canonical forms are only returned for exact lowercase/uppercase matches
+            final char[] lowerChars = StandardNameInterner.internChars(name.toCharArray(), 0, name.length());
+            Assertions.assertSame(lowerChars, StandardNameInterner.getChars(name.toCharArray(), 0, name.length()));
+            final String lowerString = StandardNameInterner.internString(name.toCharArray(), 0, name.length());
+            Assertions.assertEquals(name, lowerString);
+            Assertions.assertSame(lowerString, StandardNameInterner.getString(name.toCharArray(), 0, name.length()));
+            Assertions.assertSame(lowerString, StandardNameInterner.getName(id));
+            final String upperString = StandardNameInterner.internString(upper, 1, name.length());
+            Assertions.assertEquals(name.toUpperCase(), upperString);
+            Assertions.assertSame(upperString, StandardNameInterner.getString(upper, 1, name.length()));
+            Assertions.assertSame(
+                    StandardNameInterner.internChars(upper, 1, name.length()),
+                    StandardNameInterner.getChars(upper, 1, name.length()));
+
+            if (!name.substring(1).equals(name.substring(1).toUpperCase())) {
+                Assertions.assertNull(StandardNameInterner.getChars(mixed, 1, name.length()));
+                Assertions.assertNull(StandardNameInterner.getString(mixed, 1, name.length()));
+                Assertions.assertEquals(
+                        new String(mixed, 1, name.length()),
+                        new String(StandardNameInterner.internChars(mixed, 1, name.length())));
+                Assertions.assertEquals(
+                        new String(mixed, 1, name.length()), StandardNameInterner.internString(mixed, 1, name.length()));
+            }
+
+        }
+
+        Assertions.assertEquals(names.size(), StandardNameInterner.size());
+
+    }
+
+
+    @Test
+    public void testNonStandardNames() throws Exception {
+
+        final String[] nonStandard =
+                new String[] { "", "x", "my-element", "divv", "di", "spa", "d\u00EDv", "\u00E1", "onclic", "xmlns:th" };
+
+        for (final String name : nonStandard) {
+            final char[] buffer = name.toCharArray();
+            Assertions.assertEquals(-1, StandardNameInterner.getId(buffer, 0, buffer.length), name);
+            Assertions.assertNull(StandardNameInterner.getChars(buffer, 0, buffer.length), name);
+            Assertions.assertNull(StandardNameInterner.getString(buffer, 0, buffer.length), name);
+            final char[] interned = StandardNameInterner.internChars(buffer, 0, buffer.length);
+            Assertions.assertNotSame(buffer, interned);
+            Assertions.assertEquals(name, new String(interned));
+            Assertions.assertEquals(name, StandardNameInterner.internString(buffer, 0, buffer.length));
+        }
+
+    }
+
+
+
+}
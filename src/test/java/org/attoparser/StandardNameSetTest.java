@@ -0,0 +1,107 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+import org.attoparser.config.ParseConfiguration;
+import org.attoparser.trace.MarkupTraceEvent;
+import org.attoparser.trace.TraceBuilderMarkupHandler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+/*
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+public class StandardNameSetTest {
+
+
+
+    @Test
+    public void testCompile() throws Exception {
+
+        final StandardNameSet set =
+                StandardNameSet.of(new char[][] { "li".toCharArray(), "ul".toCharArray(), "xmlns".toCharArray() });
+        Assertions.assertNotNull(set);
+        Assertions.assertTrue(set.isStandard());
+
+        Assertions.assertTrue(set.contains(id("li")));
+        Assertions.assertTrue(set.contains(id("LI")));
+        Assertions.assertTrue(set.contains(id("ul")));
+        Assertions.assertTrue(set.contains(id("xmlns")));
+        Assertions.assertFalse(set.contains(id("ol")));
+        Assertions.assertFalse(set.contains(id("my-element")));
+        Assertions.assertFalse(set.contains(-1));
+
+        Assertions.assertNull(StandardNameSet.of(null));
+        Assertions.assertFalse(
+                StandardNameSet.of(new char[][] { "li".toCharArray(), "my-element".toCharArray() }).isStandard());
+
+        final int[] ids = StandardNameSet.of(new char[][] { "html".toCharArray(), "body".toCharArray() }).getIds();
+        Assertions.assertArrayEquals(new int[] { id("html"), id("body") }, ids);
+        Assertions.assertNull(StandardNameSet.of(new char[][] { "html".toCharArray(), "x".toCharArray() }).getIds());
+
+    }
+
+
+    @Test
+    public void testBalancing() throws Exception {
+
+        final ParseConfiguration configuration = ParseConfiguration.htmlConfiguration();
+
+        Assertions.assertEquals("[LI, li, li]", autoClosed("<ul><LI>one<li>two<li>three</ul>", configuration));
+        // Auto-closing of <li> must stop at the limits (<ul>, <ol>)
+        Assertions.assertEquals(
+                "[li, li, li, li]", autoClosed("<ul><li>a<ul><li>b<li>c</ul><li>d</ul>", configuration));
+        Assertions.assertEquals(
+                "[td, td, tr, td, tr]",
+                autoClosed("<table><tr><td>a<td>b<tr><td>c</table>", configuration));
+        Assertions.assertEquals("[]", autoClosed("<my-list><li>a</li></my-list>", configuration));
+
+    }
+
+
+
+    private static String autoClosed(final String doc, final ParseConfiguration configuration) throws Exception {
+
+        final TraceBuilderMarkupHandler handler = new TraceBuilderMarkupHandler();
+        new MarkupParser(configuration).parse(doc, handler);
+
+        final StringBuilder strBuilder = new StringBuilder();
+        for (final MarkupTraceEvent event : handler.getTrace()) {
+            if (event.getEventType().equals(MarkupTraceEvent.EventType.AUTO_CLOSE_ELEMENT_START)) {
+                // Events are represented as "ACES(name){line,col}"
+                final String eventStr = event.toString();
+                strBuilder.append(strBuilder.length() == 0 ? "[" : ", ");
+                strBuilder.append(eventStr, eventStr.indexOf('(') + 1, eventStr.indexOf(')'));
+            }
+        }
+        return (strBuilder.length() == 0 ? "[]" : strBuilder.append(']').toString());
+
+    }
+
+
+    private static int id(final String name) {
+        return StandardNameInterner.getId(name.toCharArray(), 0, name.length());
+    }
+
+
+}
@@ -0,0 +1,332 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.attoparser.config.ParseConfiguration;
+import org.attoparser.trace.MarkupTraceEvent;
+import org.attoparser.trace.TraceBuilderMarkupHandler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+/*
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+public class StopParsingTest {
+
+
+    private static final String HTML_HEAD =
+            "<!DOCTYPE html>\n<html>\n<head>\n<title>Title</title>\n" +
+            "<meta name=\"description\" content=\"A page\">\n" +
+            "<script>\nif (a < b) { document.write('</head>'); }\n</script>\n</head>\n<body>\n";
+
+    private static final String HTML_BODY_FRAGMENT =
+            "<div class=\"post\"><p>Some <b>text</b> with <a href=\"x\">links</a></p><!-- comment --></div>\n";
+
+
+
+
+    @Test
+    public void testStopAtHead() throws Exception {
+
+        final String doc =
+                TraceTestUtil.buildDocument(HTML_HEAD, new String[] { HTML_BODY_FRAGMENT }, 200, "</body>\n</html>\n");
+
+        final MarkupParser parser = new MarkupParser(ParseConfiguration.htmlConfiguration());
+
+        final TraceBuilderMarkupHandler traceHandler = new TraceBuilderMarkupHandler();
+        final StoppingMarkupHandler handler = new StoppingMarkupHandler("head", 1, traceHandler);
+        parser.parse(doc.toCharArray(), handler);
+
+        Assertions.assertTrue(handler.parsingStoppedAtEnd);
+
+        // Nothing after </head> is reported, except for the auto-closing of <html>
+        final String trace = traceToString(traceHandler.getTrace());
+        Assertions.assertTrue(trace.endsWith("CEE(head){9,7}ACES(html){9,8}ACEE(html){9,8}]"), trace);
+        Assertions.assertFalse(trace.contains("body"), trace);
+
+    }
+
+
+    @Test
+    public void testStopEqualsForAllInputs() throws Exception {
+
+        final ParseConfiguration htmlConfiguration = ParseConfiguration.htmlConfiguration();
+        final ParseConfiguration nonTrackingHtmlConfiguration = ParseConfiguration.htmlConfiguration();
+        nonTrackingHtmlConfiguration.setPositionTracking(false);
+
+        final String doc =
+                TraceTestUtil.buildDocument(HTML_HEAD, new String[] { HTML_BODY_FRAGMENT }, 200, "</body>\n</html>\n");
+
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (final ParseConfiguration configuration :
+                    new ParseConfiguration[] { htmlConfiguration, nonTrackingHtmlConfiguration }) {
+                checkStopEqualsForAllInputs(doc, configuration, "head", 1, pool);
+                checkStopEqualsForAllInputs(doc, configuration, "a", 1, pool);
+                checkStopEqualsForAllInputs(doc, configuration, "a", 150, pool);
+                checkStopEqualsForAllInputs(doc, configuration, "html", 1, pool);
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+    }
+
+
+    @Test
+    public void testStopDoesNotReadRestOfDocument() throws Exception {
+
+        final String doc =
+                TraceTestUtil.buildDocument(HTML_HEAD, new String[] { HTML_BODY_FRAGMENT }, 5000, "</body>\n</html>\n");
+
+        final MarkupParser parser = new MarkupParser(ParseConfiguration.htmlConfiguration());
+
+        final CountingReader reader = new CountingReader(new StringReader(doc));
+        final StoppingMarkupHandler handler =
+                new StoppingMarkupHandler("head", 1, new TraceBuilderMarkupHandler());
+        parser.parse(reader, handler);
+
+        Assertions.assertTrue(handler.parsingStoppedAtEnd);
+        Assertions.assertTrue(reader.count < doc.length() / 10, "Read " + reader.count + " chars");
+
+    }
+
+
+    @Test
+    public void testStopTruncatesValidation() throws Exception {
+
+        // XML configuration requires elements to be balanced, but a truncated document cannot be validated
+        final MarkupParser parser = new MarkupParser(ParseConfiguration.xmlConfiguration());
+        final String doc = "<?xml version=\"1.0\"?>\n<!DOCTYPE items>\n<items><item>one</item><item>two</item></items>";
+
+        final TraceBuilderMarkupHandler traceHandler = new TraceBuilderMarkupHandler();
+        final StoppingMarkupHandler handler = new StoppingMarkupHandler("item", 1, traceHandler);
+        parser.parse(doc, handler);
+
+        Assertions.assertTrue(handler.parsingStoppedAtEnd);
+        final String trace = traceToString(traceHandler.getTrace());
+        Assertions.assertTrue(trace.endsWith("CEE(item){3,23}]"), trace);
+
+        // Without stopping, the same (incomplete) document is still an error
+        try {
+            parser.parse("<items><item>one</item>", new TraceBuilderMarkupHandler());
+            Assertions.fail("An exception should have happened");
+        } catch (final ParseException e) {
+            // Expected
+        }
+
+    }
+
+
+    @Test
+    public void testStopInSession() throws Exception {
+
+        final MarkupParser parser = new MarkupParser(ParseConfiguration.htmlConfiguration());
+
+        final StoppingMarkupHandler handler =
+                new StoppingMarkupHandler("title", 1, new TraceBuilderMarkupHandler());
+        final ParseSession session = parser.openSession(handler);
+        session.feed("<html><head><title>Ti".toCharArray());
+        Assertions.assertFalse(session.isParsingStopped());
+        session.feed("tle</title><meta charset=\"utf-8\">".toCharArray());
+        Assertions.assertTrue(session.isParsingStopped());
+        // Chunks fed after stopping are ignored, even if they would be malformed
+        session.feed("<p class=\"".toCharArray());
+        session.finish();
+
+        Assertions.assertTrue(handler.parsingStoppedAtEnd);
+        Assertions.assertTrue(session.isClosed());
+
+    }
+
+
+    @Test
+    public void testStopResetInContext() throws Exception {
+
+        final MarkupParser parser = new MarkupParser(ParseConfiguration.htmlConfiguration());
+
+        final TraceBuilderMarkupHandler traceHandler = new TraceBuilderMarkupHandler();
+        final StoppingMarkupHandler handler = new StoppingMarkupHandler("b", 1, traceHandler);
+        final ParseContext context = parser.createContext(handler);
+
+        context.parse("<p>Some <b>bold</b> text</p>".toCharArray());
+        Assertions.assertTrue(handler.parsingStoppedAtEnd);
+
+        handler.count = 0;
+        context.parse("<p>Some text</p>".toCharArray());
+        Assertions.assertFalse(handler.parsingStoppedAtEnd);
+
+    }
+
+
+
+
+    private static void checkStopEqualsForAllInputs(
+            final String doc, final ParseConfiguration configuration,
+            final String stopElementName, final int stopCount, final ForkJoinPool pool) throws Exception {
+
+        final MarkupParser parser = new MarkupParser(configuration);
+        final char[] input = doc.toCharArray();
+
+        final String expected = parseAndTrace(stopElementName, stopCount, new ParseOperation() {
+            public void parse(final IMarkupHandler handler) throws ParseException {
+                parser.parse(input, handler);
+            }
+        });
+
+        final String fromReader = parseAndTrace(stopElementName, stopCount, new ParseOperation() {
+            public void parse(final IMarkupHandler handler) throws ParseException {
+                parser.parse(new StringReader(doc), handler);
+            }
+        });
+        Assertions.assertEquals(expected, fromReader);
+
+        for (final int chunkSize : new int[] { 1, 16, 200, 4096 }) {
+
+            final String fromSession = parseAndTrace(stopElementName, stopCount, new ParseOperation() {
+                public void parse(final IMarkupHandler handler) throws ParseException {
+                    final ParseSession session = parser.openSession(handler);
+                    for (int i = 0; i < input.length; i += chunkSize) {
+                        session.feed(input, i, Math.min(chunkSize, input.length - i));
+                    }
+                    session.finish();
+                }
+            });
+            Assertions.assertEquals(expected, fromSession, "chunkSize=" + chunkSize);
+
+            final String fromParallel = parseAndTrace(stopElementName, stopCount, new ParseOperation() {
+                public void parse(final IMarkupHandler handler) throws ParseException {
+                    parser.parseInParallel(input, 0, input.length, handler, pool, chunkSize);
+                }
+            });
+            Assertions.assertEquals(expected, fromParallel, "chunkSize=" + chunkSize);
+
+        }
+
+    }
+
+
+    private static String parseAndTrace(
+            final String stopElementName, final int stopCount, final ParseOperation operation)
+            throws ParseException {
+        final TraceBuilderMarkupHandler traceHandler = new TraceBuilderMarkupHandler();
+        final StoppingMarkupHandler handler = new StoppingMarkupHandler(stopElementName, stopCount, traceHandler);
+        operation.parse(handler);
+        Assertions.assertTrue(handler.parsingStoppedAtEnd);
+        return traceToString(traceHandler.getTrace());
+    }
+
+
+    private static String traceToString(final List<MarkupTraceEvent> trace) {
+        // Even if parsing has been stopped, the document end event should be reported at a valid position
+        final MarkupTraceEvent.DocumentEndTraceEvent end =
+                (MarkupTraceEvent.DocumentEndTraceEvent) trace.get(trace.size() - 1);
+        Assertions.assertTrue(end.getLine() >= 0 && end.getCol() >= 0);
+        return TraceTestUtil.toString(trace);
+    }
+
+
+
+
+    private interface ParseOperation {
+        void parse(final IMarkupHandler handler) throws ParseException;
+    }
+
+
+    /*
+     * Stops parsing once the specified number of elements with the specified name have been closed.
+     */
+    private static final class StoppingMarkupHandler extends AbstractChainedMarkupHandler {
+
+        private final String elementName;
+        private final int stopCount;
+        private ParseStatus status;
+        private int count = 0;
+        private boolean parsingStoppedAtEnd = false;
+
+        StoppingMarkupHandler(final String elementName, final int stopCount, final IMarkupHandler next) {
+            super(next);
+            this.elementName = elementName;
+            this.stopCount = stopCount;
+        }
+
+        @Override
+        public void setParseStatus(final ParseStatus status) {
+            this.status = status;
+            super.setParseStatus(status);
+        }
+
+        @Override
+        public void handleCloseElementEnd(
+                final char[] buffer, final int nameOffset, final int nameLen, final int line, final int col)
+                throws ParseException {
+            super.handleCloseElementEnd(buffer, nameOffset, nameLen, line, col);
+            if (this.elementName.equals(new String(buffer, nameOffset, nameLen)) && ++this.count == this.stopCount) {
+                this.status.stopParsing();
+            }
+        }
+
+        @Override
+        public void handleDocumentEnd(
+                final long endTimeNanos, final long totalTimeNanos, final int line, final int col)
+                throws ParseException {
+            this.parsingStoppedAtEnd = this.status.isParsingStopped();
+            super.handleDocumentEnd(endTimeNanos, totalTimeNanos, line, col);
+        }
+
+    }
+
+
+    private static final class CountingReader extends Reader {
+
+        private final Reader reader;
+        private long count = 0L;
+
+        CountingReader(final Reader reader) {
+            super();
+            this.reader = reader;
+        }
+
+        @Override
+        public int read(final char[] cbuf, final int off, final int len) throws IOException {
+            final int read = this.reader.read(cbuf, off, len);
+            if (read > 0) {
+                this.count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.reader.close();
+        }
+
+    }
+
+}
@@ -0,0 +1,215 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.attoparser.config.ParseConfiguration;
+import org.attoparser.output.OutputMarkupHandler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+/*
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+public class StripedBufferPoolTest {
+
+
+
+    @Test
+    public void testPooling() throws Exception {
+
+        final StripedBufferPool pool = new StripedBufferPool(2, 100, 3, StripedBufferPool.DEFAULT_MAX_RETAINED_BYTES);
+
+        final char[] b1 = pool.allocateBuffer(100);
+        final char[] b2 = pool.allocateBuffer(100);
+        final char[] b3 = pool.allocateBuffer(100);
+        Assertions.assertEquals(3L, pool.getMisses());
+        Assertions.assertEquals(0L, pool.getHits());
+
+        pool.releaseBuffer(b1);
+        pool.releaseBuffer(b2);
+        pool.releaseBuffer(b3); // Pool is full for this size class
+        Assertions.assertEquals(1L, pool.getDiscards());
+        Assertions.assertEquals(400L, pool.getRetainedBytes());
+
+        final char[] b4 = pool.allocateBuffer(100);
+        final char[] b5 = pool.allocateBuffer(100);
+        Assertions.assertEquals(2L, pool.getHits());
+        Assertions.assertTrue((b4 == b1 && b5 == b2) || (b4 == b2 && b5 == b1));
+        Assertions.assertEquals(0L, pool.getRetainedBytes());
+
+        // Grown buffers are pooled in their own size class
+        final char[] g1 = pool.allocateBuffer(200);
+        final char[] g2 = pool.allocateBuffer(400);
+        Assertions.assertEquals(2L, pool.getGrows());
+        pool.releaseBuffer(g1);
+        pool.releaseBuffer(g2);
+        Assertions.assertSame(g1, pool.allocateBuffer(200));
+        Assertions.assertSame(g2, pool.allocateBuffer(400));
+        Assertions.assertEquals(4L, pool.getHits());
+
+        // Sizes out of the size classes are never pooled
+        final char[] o1 = pool.allocateBuffer(800);
+        final char[] o2 = pool.allocateBuffer(150);
+        Assertions.assertEquals(800, o1.length);
+        Assertions.assertEquals(150, o2.length);
+        pool.releaseBuffer(o1);
+        pool.releaseBuffer(o2);
+        Assertions.assertEquals(3L, pool.getDiscards());
+        Assertions.assertEquals(0L, pool.getRetainedBytes());
+
+        pool.releaseBuffer(null);
+
+    }
+
+
+    @Test
+    public void testForAvailableProcessors() throws Exception {
+
+        final int processors = Runtime.getRuntime().availableProcessors();
+
+        final StripedBufferPool pool = StripedBufferPool.forAvailableProcessors(MarkupParser.DEFAULT_BUFFER_SIZE);
+        Assertions.assertEquals(MarkupParser.DEFAULT_BUFFER_SIZE, pool.getBufferSize());
+        Assertions.assertEquals(Math.max(MarkupParser.DEFAULT_POOL_SIZE, processors), pool.getPoolSize());
+
+        // Every processor can be concurrently holding a pooled buffer
+        final List<char[]> buffers = new ArrayList<char[]>();
+        for (int i = 0; i < pool.getPoolSize(); i++) {
+            buffers.add(pool.allocateBuffer(MarkupParser.DEFAULT_BUFFER_SIZE));
+        }
+        for (final char[] buffer : buffers) {
+            pool.releaseBuffer(buffer);
+        }
+        for (int i = 0; i < pool.getPoolSize(); i++) {
+            pool.allocateBuffer(MarkupParser.DEFAULT_BUFFER_SIZE);
+        }
+        Assertions.assertEquals(pool.getPoolSize(), pool.getHits());
+        Assertions.assertEquals(0L, pool.getDiscards());
+
+        // Pool size is limited by the number of buffers that fit in the maximum retained memory
+        final int bigBufferSize = (int) (StripedBufferPool.DEFAULT_MAX_RETAINED_BYTES / 2);
+        Assertions.assertEquals(1, StripedBufferPool.forAvailableProcessors(bigBufferSize).getPoolSize());
+        Assertions.assertEquals(1, StripedBufferPool.forAvailableProcessors(bigBufferSize * 4).getPoolSize());
+
+    }
+
+
+    @Test
+    public void testMaxRetainedBytes() throws Exception {
+
+        final StripedBufferPool pool = new StripedBufferPool(4, 100, 3, 500L);
+
+        final char[] b1 = pool.allocateBuffer(100);
+        final char[] b2 = pool.allocateBuffer(200);
+        final char[] b3 = pool.allocateBuffer(100);
+
+        pool.releaseBuffer(b1); // 200 bytes
+        pool.releaseBuffer(b2); // 400 bytes more: over the limit
+        pool.releaseBuffer(b3); // 200 bytes more: 400 in total
+        Assertions.assertEquals(400L, pool.getRetainedBytes());
+        Assertions.assertEquals(1L, pool.getDiscards());
+
+    }
+
+
+    @Test
+    public void testConcurrency() throws Exception {
+
+        final StripedBufferPool pool = new StripedBufferPool(8, 16);
+        final Set<char[]> inUse = Collections.newSetFromMap(new IdentityHashMap<char[], Boolean>());
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+        final int threadCount = 16;
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final List<Thread> threads = new ArrayList<Thread>();
+
+        for (int t = 0; t < threadCount; t++) {
+            final Thread thread = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        startLatch.await();
+                        for (int i = 0; i < 20000; i++) {
+                            final char[] buffer = pool.allocateBuffer((i % 3 == 0) ? 32 : 16);
+                            synchronized (inUse) {
+                                if (!inUse.add(buffer)) {
+                                    throw new IllegalStateException("Buffer allocated twice");
+                                }
+                            }
+                            synchronized (inUse) {
+                                inUse.remove(buffer);
+                            }
+                            pool.releaseBuffer(buffer);
+                        }
+                    } catch (final Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        startLatch.countDown();
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        Assertions.assertNull(failure.get());
+        Assertions.assertEquals(threadCount * 20000L, pool.getHits() + pool.getMisses());
+        Assertions.assertTrue(pool.getRetainedBytes() <= (8 * 16 * 2) + (8 * 32 * 2));
+
+    }
+
+
+    @Test
+    public void testParserBufferGrowth() throws Exception {
+
+        final StripedBufferPool pool = new StripedBufferPool(2, 16);
+        final MarkupParser parser = new MarkupParser(ParseConfiguration.htmlConfiguration(), pool);
+
+        // Attribute values are longer than the buffer, so it will have to grow to 64 chars
+        final String doc = "<p class=\"some rather long value for the class attribute\">text</p>";
+
+        for (int i = 0; i < 10; i++) {
+            final StringWriter writer = new StringWriter();
+            parser.parse(doc, new OutputMarkupHandler(writer));
+            Assertions.assertEquals(doc, writer.toString());
+        }
+
+        // After the first parsing, all buffers (including grown ones) should come from the pool
+        Assertions.assertEquals(3L, pool.getMisses());
+        Assertions.assertEquals(27L, pool.getHits());
+        Assertions.assertEquals(20L, pool.getGrows());
+        Assertions.assertEquals(0L, pool.getDiscards());
+
+    }
+
+}
@@ -68,4 +68,62 @@ public void test() throws Exception {
 
 
 
+    @Test
+    public void testIds() throws Exception {
+
+        final MarkupEventProcessorHandler.StructureIdsRepository caseInsensitive =
+                new MarkupEventProcessorHandler.StructureIdsRepository(false);
+        final MarkupEventProcessorHandler.StructureIdsRepository caseSensitive =
+                new MarkupEventProcessorHandler.StructureIdsRepository(true);
+
+        final int div = id(caseInsensitive, "div", false);
+        Assertions.assertTrue(div >= 0 && div < StandardNameInterner.size());
+        Assertions.assertEquals(div, id(caseInsensitive, "DIV", false));
+        Assertions.assertEquals(div, id(caseInsensitive, "Div", false));
+        Assertions.assertEquals(div, id(caseSensitive, "div", false));
+        Assertions.assertEquals(-1, id(caseSensitive, "DIV", false));
+        Assertions.assertEquals(0, caseInsensitive.size());
+
+        // Non-ASCII chars that are equal to ASCII letters when ignoring case
+        Assertions.assertEquals(id(caseInsensitive, "link", false), id(caseInsensitive, "lin\u212A", false));
+        Assertions.assertEquals(id(caseInsensitive, "li", false), id(caseInsensitive, "l\u0131", false));
+
+        Assertions.assertEquals(-1, id(caseInsensitive, "my-element", false));
+        final int custom = id(caseInsensitive, "my-element", true);
+        Assertions.assertTrue(custom >= StandardNameInterner.size());
+        Assertions.assertEquals(custom, id(caseInsensitive, "MY-Element", false));
+        Assertions.assertEquals(custom, id(caseInsensitive, "my-element", true));
+        Assertions.assertEquals(1, caseInsensitive.size());
+
+        final int upperDiv = id(caseSensitive, "DIV", true);
+        Assertions.assertTrue(upperDiv >= StandardNameInterner.size());
+        Assertions.assertNotEquals(upperDiv, id(caseSensitive, "Div", true));
+        Assertions.assertEquals(upperDiv, id(caseSensitive, "DIV", false));
+
+        for (int i = 0; i < 10000; i++) {
+            Assertions.assertEquals(custom + 1 + i, id(caseInsensitive, "x-" + i, true));
+        }
+        for (int i = 0; i < 10000; i++) {
+            Assertions.assertEquals(custom + 1 + i, id(caseInsensitive, "X-" + i, false));
+        }
+        Assertions.assertEquals(custom, id(caseInsensitive, "my-element", false));
+
+        caseInsensitive.clear();
+        Assertions.assertEquals(0, caseInsensitive.size());
+        Assertions.assertEquals(-1, id(caseInsensitive, "my-element", false));
+        Assertions.assertEquals(div, id(caseInsensitive, "div", false));
+
+    }
+
+
+
+    private static int id(
+            final MarkupEventProcessorHandler.StructureIdsRepository repository, final String name,
+            final boolean create) {
+        final char[] buffer = ("<" + name + ">").toCharArray();
+        return repository.getId(buffer, 1, name.length(), create);
+    }
+
+
+
 }
@@ -0,0 +1,98 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+import java.util.List;
+
+import org.attoparser.trace.MarkupTraceEvent;
+
+
+/*
+ * Helpers shared by the tests that compare the traces of parsing the same documents in different ways.
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+final class TraceTestUtil {
+
+
+
+    /*
+     * Builds a document by repeating a sequence of fragments the specified number of times.
+     */
+    static String buildDocument(
+            final String prefix, final String[] fragments, final int repetitions, final String suffix) {
+        final StringBuilder strBuilder = new StringBuilder(prefix);
+        for (int i = 0; i < repetitions; i++) {
+            for (final String fragment : fragments) {
+                strBuilder.append(fragment);
+            }
+        }
+        strBuilder.append(suffix);
+        return strBuilder.toString();
+    }
+
+
+    static String toString(final List<MarkupTraceEvent> trace) {
+        return toString(trace, false);
+    }
+
+
+    /*
+     * Skipped contents that did not fit in a single buffer are reported in several consecutive events, so
+     * these can be merged (keeping the position of the first one) before comparing.
+     */
+    static String toString(final List<MarkupTraceEvent> trace, final boolean mergeSkipped) {
+        final StringBuilder strBuilder = new StringBuilder();
+        MarkupTraceEvent.SkippedElementContentsTraceEvent skipped = null;
+        final StringBuilder skippedContent = new StringBuilder();
+        for (final MarkupTraceEvent event : trace) {
+            if (mergeSkipped && event instanceof MarkupTraceEvent.SkippedElementContentsTraceEvent) {
+                if (skipped == null) {
+                    skipped = (MarkupTraceEvent.SkippedElementContentsTraceEvent) event;
+                }
+                skippedContent.append(((MarkupTraceEvent.SkippedElementContentsTraceEvent) event).getContent());
+                continue;
+            }
+            if (skipped != null) {
+                strBuilder.append(
+                        new MarkupTraceEvent.SkippedElementContentsTraceEvent(
+                                skippedContent.toString(), skipped.getLine(), skipped.getCol()));
+                skipped = null;
+                skippedContent.setLength(0);
+            }
+            if (event.getEventType().equals(MarkupTraceEvent.EventType.DOCUMENT_START)) {
+                strBuilder.append("[");
+            } else if (event.getEventType().equals(MarkupTraceEvent.EventType.DOCUMENT_END)) {
+                strBuilder.append("]");
+            } else {
+                strBuilder.append(event);
+            }
+        }
+        return strBuilder.toString();
+    }
+
+
+
+    private TraceTestUtil() {
+        super();
+    }
+
+}
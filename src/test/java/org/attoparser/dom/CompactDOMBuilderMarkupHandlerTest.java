@@ -0,0 +1,221 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser.dom;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+import org.attoparser.IMarkupParser;
+import org.attoparser.MarkupParser;
+import org.attoparser.config.ParseConfiguration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+/*
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+public class CompactDOMBuilderMarkupHandlerTest {
+
+
+    @Test
+    public void testEquivalentToDOM() throws Exception {
+
+        final ParseConfiguration xmlConfig = ParseConfiguration.xmlConfiguration();
+        final ParseConfiguration xmlAutoCloseConfig = ParseConfiguration.xmlConfiguration();
+        xmlAutoCloseConfig.setElementBalancing(ParseConfiguration.ElementBalancing.AUTO_CLOSE);
+        final ParseConfiguration htmlConfig = ParseConfiguration.htmlConfiguration();
+
+        final String[] wellFormedInputs = new String[] {
+                "",
+                "<div>hello</div>",
+                "<div>\n<div>hello</div>\n</div>",
+                "<!DOCTYPE html PUBLIC \"hello\" \"goodbye\">\n\n<html>hello</html>",
+                "one<!-- hello! -->two",
+                "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<a><![CDATA[ x < y ]]><?target some content?><?other?></a>",
+                "<p class=\"one\" id='two'>text<br/><img src=\"a.png\" alt=\"\"/></p>",
+                "<p title=\"caf\u00e9\">\u00e9t\u00e9: 10 \u20ac, caf\u00e9</p><p>\u00e9</p>"
+        };
+        final String[] htmlInputs = new String[] {
+                "<ul><li>hello<li>goodbye</ul>",
+                "<ul><li>hello<li>goodbye",
+                "<!doctype html>\n<html>hello</html>",
+                "<p class=one hidden data-x=>text<br><img src=\"a.png\"></p>",
+                "<p a=\"1\" b=\"2\" a=\"3\">duplicated</p>",
+                "<div><p>unclosed<span>text</div></p>after"
+        };
+
+        for (final String input : wellFormedInputs) {
+            check(xmlConfig, input);
+            check(xmlAutoCloseConfig, input);
+            check(htmlConfig, input);
+        }
+        for (final String input : htmlInputs) {
+            check(htmlConfig, input);
+        }
+
+    }
+
+
+    @Test
+    public void testLargeDocument() throws Exception {
+
+        // Enough nodes, attributes, chars and distinct names to make all the arrays grow several times
+        final StringBuilder strBuilder = new StringBuilder("<root>\n");
+        for (int i = 0; i < 500; i++) {
+            strBuilder.append("<item").append(i % 100).append(" id=\"i").append(i).append("\" a").append(i % 70);
+            strBuilder.append("=\"v\">Item number ").append(i).append("<!-- c --></item").append(i % 100).append(">\n");
+            if (i == 250) {
+                // Text storage will need to be widened from Latin-1 halfway through the document
+                strBuilder.append("<p title=\"\u00e9\u4e2d\u00e9\">\u4e2d\u6587</p>");
+            }
+        }
+        strBuilder.append("</root>");
+
+        check(ParseConfiguration.xmlConfiguration(), strBuilder.toString());
+        check(ParseConfiguration.htmlConfiguration(), strBuilder.toString());
+
+    }
+
+
+    @Test
+    public void testNavigation() throws Exception {
+
+        final IMarkupParser parser = new MarkupParser(ParseConfiguration.htmlConfiguration());
+        final CompactDOMBuilderMarkupHandler handler = new CompactDOMBuilderMarkupHandler("test");
+        parser.parse(
+                "<!DOCTYPE html>\n<ul class=\"list\" id=\"l\"><li>one<li class=a class=b>two</ul><?pi content?>",
+                handler);
+
+        final CompactDocument document = handler.getDocument();
+        Assertions.assertTrue(handler.isParsingFinished());
+        Assertions.assertEquals("test", document.getDocumentName());
+
+        final CompactNode root = document.getDocumentNode();
+        Assertions.assertEquals(CompactNodeType.DOCUMENT, root.getType());
+        Assertions.assertFalse(root.hasParent());
+        Assertions.assertNull(root.getParent());
+        Assertions.assertEquals(4, root.numChildren());
+
+        final CompactNode docType = root.getFirstChild();
+        Assertions.assertEquals(CompactNodeType.DOC_TYPE, docType.getType());
+        Assertions.assertEquals("html", docType.getRootElementName());
+        Assertions.assertNull(docType.getPublicId());
+
+        final CompactNode text = docType.getNextSibling();
+        Assertions.assertEquals(CompactNodeType.TEXT, text.getType());
+        Assertions.assertEquals("\n", text.getContent());
+
+        final CompactNode ul = text.getNextSibling();
+        Assertions.assertEquals("ul", ul.getElementName());
+        Assertions.assertTrue(ul.elementNameMatches("ul"));
+        Assertions.assertEquals(2, ul.numAttributes());
+        Assertions.assertEquals("id", ul.getAttributeName(1));
+        Assertions.assertEquals("l", ul.getAttributeValue(1));
+        Assertions.assertEquals("list", ul.getAttributeValue("class"));
+        Assertions.assertFalse(ul.hasAttribute("style"));
+        Assertions.assertNull(ul.getAttributeValue("style"));
+        Assertions.assertEquals(2, ul.getLine());
+        Assertions.assertEquals(1, ul.getCol());
+        Assertions.assertEquals(root, ul.getParent());
+
+        final List<CompactNode> items = ul.getChildren();
+        Assertions.assertEquals(2, items.size());
+        Assertions.assertEquals("one", items.get(0).getFirstChild().getContent());
+        Assertions.assertEquals("b", items.get(1).getAttributeValue("class"));
+        Assertions.assertEquals(ul, items.get(1).getParent());
+        Assertions.assertNull(items.get(1).getNextSibling());
+        Assertions.assertFalse(items.get(1).getFirstChild().hasChildren());
+        Assertions.assertTrue(items.get(1).getFirstChild().getChildren().isEmpty());
+
+        final CompactNode pi = ul.getNextSibling();
+        Assertions.assertEquals("pi", pi.getTarget());
+        Assertions.assertEquals("content", pi.getContent());
+        Assertions.assertNull(pi.getNextSibling());
+
+        Assertions.assertEquals(document.numNodes() - 1, pi.getIndex());
+        Assertions.assertEquals(pi, document.getNode(pi.getIndex()));
+
+        try {
+            text.getElementName();
+            Assertions.fail();
+        } catch (final IllegalStateException e) {
+            // Expected
+        }
+        try {
+            ul.getAttributeName(2);
+            Assertions.fail();
+        } catch (final IndexOutOfBoundsException e) {
+            // Expected
+        }
+
+    }
+
+
+
+
+    private static void check(final ParseConfiguration configuration, final String input) throws Exception {
+
+        final IMarkupParser parser = new MarkupParser(configuration);
+
+        final DOMBuilderMarkupHandler domHandler = new DOMBuilderMarkupHandler("test");
+        parser.parse(input, domHandler);
+        final Document expected = domHandler.getDocument();
+
+        final CompactDOMBuilderMarkupHandler compactHandler = new CompactDOMBuilderMarkupHandler("test");
+        parser.parse(new StringReader(input), compactHandler);
+        final Document result = compactHandler.getDocument().toDocument();
+
+        Assertions.assertEquals(write(expected), write(result), input);
+        checkEquals(expected, result);
+
+    }
+
+
+    private static void checkEquals(final INestableNode expected, final INestableNode result) {
+        final List<INode> expectedChildren = expected.getChildren();
+        final List<INode> resultChildren = result.getChildren();
+        Assertions.assertEquals(expectedChildren.size(), resultChildren.size());
+        for (int i = 0; i < expectedChildren.size(); i++) {
+            final INode expectedChild = expectedChildren.get(i);
+            final INode resultChild = resultChildren.get(i);
+            Assertions.assertEquals(expectedChild.getClass(), resultChild.getClass());
+            Assertions.assertEquals(expectedChild.getLine(), resultChild.getLine());
+            Assertions.assertEquals(expectedChild.getCol(), resultChild.getCol());
+            Assertions.assertSame(result, resultChild.getParent());
+            if (expectedChild instanceof Element) {
+                Assertions.assertEquals(
+                        ((Element) expectedChild).getAttributeMap(), ((Element) resultChild).getAttributeMap());
+                checkEquals((Element) expectedChild, (Element) resultChild);
+            }
+        }
+    }
+
+
+    private static String write(final INode node) throws Exception {
+        final StringWriter writer = new StringWriter();
+        DOMWriter.write(node, writer);
+        return writer.toString();
+    }
+
+}
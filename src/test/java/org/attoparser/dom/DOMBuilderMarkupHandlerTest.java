@@ -19,7 +19,20 @@
  */
 package org.attoparser.dom;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.attoparser.IMarkupParser;
 import org.attoparser.MarkupParser;
@@ -63,6 +76,9 @@ public void test() throws Exception {
         check(xmlConfig, "one<!-- hello! -->two", "one<!-- hello! -->two");
         check(htmlConfig, "one<!-- hello! -->two", "one<!-- hello! -->two");
 
+        check(htmlConfig, "<p title=\"caf\u00e9\">\u00e9t\u00e9 \u4e2d\u6587</p><p title=\"\u4e2d\">\u00e9</p>",
+                "<p title=\"caf\u00e9\">\u00e9t\u00e9 \u4e2d\u6587</p><p title=\"\u4e2d\">\u00e9</p>");
+
     }
 
 
@@ -83,6 +99,164 @@ private static void check(final ParseConfiguration configuration, final String i
 
         Assertions.assertEquals(expectedOutput, output);
 
+        // Lazy mode, from a Reader so that buffers are reused while parsing
+        final DOMBuilderMarkupHandler lazyHandler = new DOMBuilderMarkupHandler("test", true);
+
+        parser.parse(new StringReader(input), lazyHandler);
+
+        Assertions.assertEquals(expectedOutput, write(lazyHandler.getDocument()));
+
+    }
+
+
+
+
+    @Test
+    public void testLazy() throws Exception {
+
+        final String input =
+                "<div id=\"main\" class=\"a\"><p title=\"t\">one<!-- two --></p>" +
+                "<![CDATA[three]]><img src=\"x.png\" alt=\"\"/></div>";
+
+        final ParseConfiguration xmlConfig = ParseConfiguration.xmlConfiguration();
+        final Document eager = new DOMMarkupParser(xmlConfig).parse(input);
+        final Document lazy = new DOMMarkupParser(xmlConfig, true).parse(input);
+
+        final String expected = write(eager);
+        Assertions.assertEquals(expected, write(lazy));
+        Assertions.assertEquals(expected, write(lazy.getFirstChild().cloneNode(null)));
+
+        // Lazy contents are created before serializing
+        final Document serializable = new DOMMarkupParser(xmlConfig, true).parse(input);
+        final Element serializedDiv = (Element) serializeAndDeserialize(serializable.getFirstChild());
+        Assertions.assertEquals(((Element) eager.getFirstChild()).getAttributeMap(), serializedDiv.getAttributeMap());
+        final Element serializedP = (Element) ((Element) serializable.getFirstChild()).getFirstChild();
+        Assertions.assertEquals("one", ((Text) serializeAndDeserialize(serializedP.getFirstChild())).getContent());
+        Assertions.assertEquals(
+                " two ", ((Comment) serializeAndDeserialize(serializedP.getChildren().get(1))).getContent());
+
+        final Element div = (Element) lazy.getFirstChild();
+        Assertions.assertEquals(2, div.numAttributes());
+        Assertions.assertTrue(div.hasAttribute("class"));
+        Assertions.assertFalse(div.hasAttribute("style"));
+        Assertions.assertEquals("main", div.getAttributeValue("id"));
+        Assertions.assertNull(div.getAttributeValue("style"));
+
+        final Map<String,String> expectedAttributes = new LinkedHashMap<String, String>();
+        expectedAttributes.put("id", "main");
+        expectedAttributes.put("class", "a");
+        Assertions.assertEquals(expectedAttributes, div.getAttributeMap());
+
+        // Modifying lazy nodes should not affect their clones (which share the same lazy contents), and vice versa
+        final Element p = (Element) div.getFirstChild();
+        final Element clonedP = p.cloneNode(null);
+        p.addAttribute("lang", "en");
+        Assertions.assertEquals(2, p.numAttributes());
+        Assertions.assertEquals("t", p.getAttributeValue("title"));
+        Assertions.assertEquals(1, clonedP.numAttributes());
+        Assertions.assertFalse(clonedP.hasAttribute("lang"));
+        clonedP.removeAttribute("title");
+        Assertions.assertFalse(clonedP.hasAttributes());
+        Assertions.assertEquals("t", p.getAttributeValue("title"));
+
+        final Text text = (Text) p.getFirstChild();
+        final Text clonedText = text.cloneNode(null);
+        text.setContent("uno");
+        Assertions.assertEquals("uno", text.getContent());
+        Assertions.assertEquals("one", clonedText.getContent());
+
+        final Comment comment = (Comment) p.getChildren().get(1);
+        comment.setContent("dos".toCharArray(), 0, 3);
+        Assertions.assertEquals("dos", comment.getContent());
+
+        final CDATASection cdataSection = (CDATASection) div.getChildren().get(1);
+        Assertions.assertEquals("three", cdataSection.cloneNode(null).getContent());
+
+        final Element img = (Element) div.getChildren().get(2);
+        Assertions.assertEquals("", img.getAttributeValue("alt"));
+        img.clearAttributes();
+        Assertions.assertFalse(img.hasAttribute("src"));
+        Assertions.assertTrue(img.getAttributeMap().isEmpty());
+
+        Assertions.assertEquals(
+                "<div id=\"main\" class=\"a\"><p title=\"t\" lang=\"en\">uno<!--dos--></p>" +
+                "three<img/></div>",
+                write(lazy));
+
+    }
+
+
+
+
+    @Test
+    public void testLazyConcurrentReads() throws Exception {
+
+        final StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            input.append("<p a=\"").append(i).append("\">t").append(i).append("<!--c").append(i).append("--></p>");
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+
+            for (int round = 0; round < 20; round++) {
+
+                // Several threads read the same lazy nodes at the same time, so that they race to materialize them
+                final Document lazy =
+                        new DOMMarkupParser(ParseConfiguration.htmlConfiguration(), true).parse(input.toString());
+                final List<INode> paragraphs = lazy.getChildren();
+
+                final List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+                for (int t = 0; t < 4; t++) {
+                    final int seed = t;
+                    results.add(executor.submit(new Callable<Boolean>() {
+                        public Boolean call() {
+                            for (int j = 0; j < paragraphs.size(); j++) {
+                                final int i = (seed % 2 == 0 ? j : paragraphs.size() - 1 - j);
+                                final Element p = (Element) paragraphs.get(i);
+                                final String value = String.valueOf(i);
+                                if (!value.equals(p.getAttributeMap().get("a")) ||
+                                        !value.equals(p.getAttributeValue("a")) ||
+                                        !p.hasAttribute("a") ||
+                                        !("t" + i).equals(((Text) p.getFirstChild()).getContent()) ||
+                                        !("c" + i).equals(((Comment) p.getChildren().get(1)).getContent())) {
+                                    return Boolean.FALSE;
+                                }
+                            }
+                            return Boolean.TRUE;
+                        }
+                    }));
+                }
+
+                for (final Future<Boolean> result : results) {
+                    Assertions.assertTrue(result.get().booleanValue());
+                }
+
+            }
+
+        } finally {
+            executor.shutdownNow();
+        }
+
+    }
+
+
+
+
+    private static String write(final INode node) throws Exception {
+        final StringWriter writer = new StringWriter();
+        DOMWriter.write(node, writer);
+        return writer.toString();
+    }
+
+
+    private static INode serializeAndDeserialize(final INode node) throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(node);
+        out.close();
+        final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        return (INode) in.readObject();
     }
 
 
@@ -0,0 +1,216 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser.extract;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.attoparser.MarkupParser;
+import org.attoparser.config.ParseConfiguration;
+import org.attoparser.output.OutputMarkupHandler;
+import org.attoparser.output.TextOutputMarkupHandler;
+import org.attoparser.select.BlockSelectorMarkupHandler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+/*
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+public class ExtractionMarkupHandlerTest {
+
+
+    private static final String HTML_DOC =
+            "<!DOCTYPE html>\n<html><head><title>The Title</title>\n" +
+            "<meta name=\"description\" content=\"A description\"><META NAME=\"keywords\" CONTENT=\"a,b\"></head>\n" +
+            "<body><div class=\"product\"><a href=\"/one\">One</a> <A HREF='/two'>Two <b>bold</b></A><a>none</a>\n" +
+            "<div class=\"price\">12.<span>50</span> EUR<!-- c --></div></div>\n" +
+            "<ul><li>first<li>second <a href=\"/three\">3</a></ul><p>para<div>x</div><br>text</body></html>";
+
+    private static final String XML_DOC =
+            "<?xml version=\"1.0\"?>\n<catalog><item id=\"1\"><name>First</name><price>1.0</price></item>" +
+            "<item ID=\"2\"><name>Second<![CDATA[ cdata ]]></name><price/></item><!-- c --></catalog>";
+
+
+
+
+    @Test
+    public void testHtmlExtraction() throws Exception {
+
+        final ExtractionRules rules = new ExtractionRules(
+                ExtractionRule.text("title", "title"),
+                ExtractionRule.attribute("links", "a", "href"),
+                ExtractionRule.attribute("description", "meta[@name='description']", "content"),
+                ExtractionRule.attribute("keywords", "meta[@name='keywords']", "content"),
+                ExtractionRule.text("price", "div.price"),
+                ExtractionRule.outerMarkup("priceMarkup", "div.price"),
+                ExtractionRule.text("items", "li"),
+                ExtractionRule.text("linkTexts", "a"));
+
+        final ExtractionResult result = new ExtractionResult(rules);
+        new MarkupParser(ParseConfiguration.htmlConfiguration()).parse(HTML_DOC, new ExtractionMarkupHandler(rules, result));
+
+        Assertions.assertEquals("The Title", result.getValue("title"));
+        Assertions.assertEquals(Arrays.asList("/one", "/two", "/three"), result.getValues("links"));
+        Assertions.assertEquals("A description", result.getValue("description"));
+        Assertions.assertEquals("a,b", result.getValue("keywords"));
+        Assertions.assertEquals("12.50 EUR", result.getValue("price"));
+        Assertions.assertEquals(
+                "<div class=\"price\">12.<span>50</span> EUR<!-- c --></div>", result.getValue("priceMarkup"));
+        Assertions.assertEquals(Arrays.asList("first", "second 3"), result.getValues("items"));
+        Assertions.assertEquals(Arrays.asList("One", "Two bold", "none", "3"), result.getValues("linkTexts"));
+        Assertions.assertEquals(
+                Arrays.asList("/one", "/two", "/three"), result.getValues(rules.indexOf("links")));
+
+        // Results can be reused
+        result.reset();
+        Assertions.assertNull(result.getValue("title"));
+        new MarkupParser(ParseConfiguration.htmlConfiguration()).parse(
+                "<title>Other</title>", new ExtractionMarkupHandler(rules, result));
+        Assertions.assertEquals("Other", result.getValue("title"));
+        Assertions.assertEquals(Collections.emptyList(), result.getValues("links"));
+
+    }
+
+
+    @Test
+    public void testXmlExtraction() throws Exception {
+
+        final ExtractionRules rules = new ExtractionRules(
+                ExtractionRule.attribute("ids", "item", "id"),
+                ExtractionRule.text("names", "item/name"),
+                ExtractionRule.outerMarkup("prices", "price"),
+                ExtractionRule.outerMarkup("comments", "comment()"),
+                ExtractionRule.text("declaration", "xmldecl()"));
+
+        final ExtractionResult result = new ExtractionResult(rules);
+        new MarkupParser(ParseConfiguration.xmlConfiguration()).parse(XML_DOC, new ExtractionMarkupHandler(rules, result));
+
+        // Attribute names are case-sensitive in XML
+        Assertions.assertEquals(Arrays.asList("1"), result.getValues("ids"));
+        Assertions.assertEquals(Arrays.asList("First", "Second"), result.getValues("names"));
+        Assertions.assertEquals(Arrays.asList("<price>1.0</price>", "<price/>"), result.getValues("prices"));
+        Assertions.assertEquals(Arrays.asList("<!-- c -->"), result.getValues("comments"));
+        Assertions.assertEquals(Arrays.asList(""), result.getValues("declaration"));
+
+    }
+
+
+    @Test
+    public void testNestedMatchesAndEscaping() throws Exception {
+
+        final String doc =
+                "<title>T &amp; x</title><ul><li>one</li><li>two<ul><li>nested</li></ul></li></ul>" +
+                "<div id=\"a\" title=\"&lt;b&gt;\"><div id=\"b\">in</div></div>";
+
+        final ExtractionRules rules = new ExtractionRules(
+                ExtractionRule.text("title", "title"),
+                ExtractionRule.text("items", "li"),
+                ExtractionRule.attribute("ids", "div", "id"),
+                ExtractionRule.attribute("titles", "div", "title"),
+                ExtractionRule.outerMarkup("divs", "div"));
+
+        final ExtractionResult result = new ExtractionResult(rules);
+        new MarkupParser(ParseConfiguration.htmlConfiguration()).parse(doc, new ExtractionMarkupHandler(rules, result));
+
+        // Values are not unescaped
+        Assertions.assertEquals("T &amp; x", result.getValue("title"));
+        Assertions.assertEquals(Arrays.asList("&lt;b&gt;"), result.getValues("titles"));
+
+        // Nested matches are part of the outer block, and are not reported separately
+        Assertions.assertEquals(Arrays.asList("one", "twonested"), result.getValues("items"));
+        Assertions.assertEquals(Arrays.asList("a"), result.getValues("ids"));
+        Assertions.assertEquals(
+                Arrays.asList("<div id=\"a\" title=\"&lt;b&gt;\"><div id=\"b\">in</div></div>"),
+                result.getValues("divs"));
+
+    }
+
+
+    @Test
+    public void testEquivalentToSelection() throws Exception {
+
+        final String[] selectors = new String[] {
+                "div", "a", "b", "li", "ul", "head", "//text()", "comment()", "body/div[0]", "p", "br", "span" };
+
+        for (final String selector : selectors) {
+
+            final ExtractionRules rules = new ExtractionRules(
+                    ExtractionRule.text("text", selector), ExtractionRule.outerMarkup("markup", selector));
+            final ExtractionResult result = new ExtractionResult(rules);
+            new MarkupParser(ParseConfiguration.htmlConfiguration()).parse(HTML_DOC, new ExtractionMarkupHandler(rules, result));
+
+            final StringWriter textWriter = new StringWriter();
+            new MarkupParser(ParseConfiguration.htmlConfiguration()).parse(
+                    HTML_DOC, new BlockSelectorMarkupHandler(new TextOutputMarkupHandler(textWriter), selector));
+            final StringWriter markupWriter = new StringWriter();
+            new MarkupParser(ParseConfiguration.htmlConfiguration()).parse(
+                    HTML_DOC, new BlockSelectorMarkupHandler(new OutputMarkupHandler(markupWriter), selector));
+
+            Assertions.assertEquals(textWriter.toString(), join(result.getValues("text")), selector);
+            Assertions.assertEquals(markupWriter.toString(), join(result.getValues("markup")), selector);
+
+        }
+
+    }
+
+
+    @Test
+    public void testRules() throws Exception {
+
+        try {
+            new ExtractionRules(ExtractionRule.text("a", "div"), ExtractionRule.text("a", "p"));
+            Assertions.fail("An exception should have happened");
+        } catch (final IllegalArgumentException e) {
+            // Expected
+        }
+
+        try {
+            ExtractionRule.attribute("a", "div", null);
+            Assertions.fail("An exception should have happened");
+        } catch (final IllegalArgumentException e) {
+            // Expected
+        }
+
+        final ExtractionRules rules = new ExtractionRules(ExtractionRule.text("a", "div"));
+        try {
+            new ExtractionResult(rules).getValues("b");
+            Assertions.fail("An exception should have happened");
+        } catch (final IllegalArgumentException e) {
+            // Expected
+        }
+
+    }
+
+
+
+
+    private static String join(final Iterable<String> values) {
+        final StringBuilder strBuilder = new StringBuilder();
+        for (final String value : values) {
+            strBuilder.append(value);
+        }
+        return strBuilder.toString();
+    }
+
+}
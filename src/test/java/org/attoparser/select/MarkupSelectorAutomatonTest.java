@@ -0,0 +1,487 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser.select;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.attoparser.AbstractMarkupHandler;
+import org.attoparser.MarkupParser;
+import org.attoparser.ParseException;
+import org.attoparser.config.ParseConfiguration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/*
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+public class MarkupSelectorAutomatonTest {
+
+
+    private static final String[] HTML_SELECTORS = new String[] {
+            "div", "//div", "/div", "div/p", "div//p", "div/p[0]", "div/p[1]", "div//p[even()]", "div/p/text()",
+            "div.content", "div.content/p", "div#main", "div#main//a", "div[@class='content']/p[odd()]",
+            "p", "p[0]", "p[>0]", "p[<2]", "//p/a", "p//text()", "p/text()[1]", "p/content()", "//a[@href^='http']",
+            "a[@href]", "a[!href]", "ul/li", "ul/li[0]", "ul/li[odd()]", "ul//li//a", "li", "li/content()",
+            "text()", "comment()", "cdata()", "doctype()", "procinstr()", "content()", "//*", "*/p", "/html/body/div",
+            "body/div[@id='main' and @class='content']", "span[@class*='b' or @class$='x']", "%fragA", "p%fragA",
+            "fragB", "fragB/p", "div%fragC", "DIV", "Div/P"
+    };
+
+    private static final String[] XML_SELECTORS = new String[] {
+            "root", "/root", "/root/a", "root/a[0]", "root//b", "//b/text()", "a", "A", "a[@x='1']", "a[@x]/b",
+            "b[odd()]", "b[even()]", "//comment()", "cdata()", "procinstr()", "xmldecl()", "doctype()", "content()",
+            "root/content()", "%fragA", "a%fragA", "fragB"
+    };
+
+    private static final String[] HTML_DOCS = new String[] {
+            "<!DOCTYPE html>\n<html><head><title>Title</title></head><body>\n" +
+                    "<div id=\"main\" class=\"content\"><p>one <a href=\"http://a\">a</a></p><p>two</p><p>three <b>x</b></p></div>\n" +
+                    "<div><p><span class=\"abc\">s</span><div><p>nested</p><p data-f=\"fragA\">n2</p></div></p></div>\n" +
+                    "<ul><li>one<li>two <a>x</a><li>three</ul><!-- a comment --><?pi data?>\n" +
+                    "<p>auto<div>closes</div><p>and <a href=\"x\" class=\"xx\">more</a>" +
+                    "</body></html>",
+            "<div><div><div><p>a</p><p>b<p>c</div></div><p>d</div><div data-f='fragA'><P>e</P><br><p>f</p></div>",
+            "text<p>p1</p><p>p2<![CDATA[cd]]></p><p><p><p></p></p></p></div></p><table><tr><td>x<td>y</table>",
+    };
+
+    private static final String[] XML_DOCS = new String[] {
+            "<?xml version=\"1.0\"?>\n<!DOCTYPE root>\n<root><a x=\"1\"><b>one</b><b>two</b><b/><b>three</b></a>" +
+                    "<A><b>four</b></A><a><a><b>five</b></a></a><!-- c --><![CDATA[d]]><?pi x?><a x=\"2\"/></root>",
+            "<root><b><b><b>x</b></b></b><c data-f=\"fragA\"><b/></c></root><root><a>x</a></root>",
+    };
+
+
+
+
+    @Test
+    public void testEquivalence() throws Exception {
+
+        final IMarkupSelectorReferenceResolver referenceResolver = new TestingReferenceResolver();
+
+        for (final String doc : HTML_DOCS) {
+            check(ParseConfiguration.htmlConfiguration(), doc, HTML_SELECTORS, null);
+            check(ParseConfiguration.htmlConfiguration(), doc, HTML_SELECTORS, referenceResolver);
+        }
+        for (final String doc : XML_DOCS) {
+            check(ParseConfiguration.xmlConfiguration(), doc, XML_SELECTORS, null);
+            check(ParseConfiguration.xmlConfiguration(), doc, XML_SELECTORS, referenceResolver);
+        }
+
+    }
+
+
+    @Test
+    public void testItemEquality() throws Exception {
+
+        final List<IMarkupSelectorItem> items1 = MarkupSelectorItems.parseSelector(true, "div[@class='a']/p[0]", null);
+        final List<IMarkupSelectorItem> items2 = MarkupSelectorItems.parseSelector(true, "div.a/p[0]", null);
+        final List<IMarkupSelectorItem> items3 = MarkupSelectorItems.parseSelector(true, "div.b/p[1]", null);
+
+        Assertions.assertEquals(items1, items2);
+        Assertions.assertEquals(items1.hashCode(), items2.hashCode());
+        Assertions.assertNotEquals(items1.get(0), items3.get(0));
+        Assertions.assertNotEquals(items1.get(1), items3.get(1));
+
+    }
+
+
+
+
+    @Test
+    public void testCanMatchElement() throws Exception {
+
+        final MarkupSelectorMatcher matcher =
+                new MarkupSelectorAutomaton(true, new String[] { "div/p", "a[@href]" }, null).createMatcher();
+        final SelectorElementBuffer elementBuffer = new SelectorElementBuffer();
+
+        Assertions.assertTrue(canMatchElement(matcher, "div"));
+        Assertions.assertTrue(canMatchElement(matcher, "DIV"));
+        Assertions.assertTrue(canMatchElement(matcher, "a"));
+        Assertions.assertFalse(canMatchElement(matcher, "p"));
+        Assertions.assertFalse(canMatchElement(matcher, "span"));
+
+        // Once inside a matching "div", its "p" children can be matched too
+        elementBuffer.bufferElementStart("div".toCharArray(), 0, 3, 1, 1, false, false);
+        matcher.matchOpenElement(false, 0, 0, elementBuffer);
+        Assertions.assertTrue(canMatchElement(matcher, "p"));
+        Assertions.assertFalse(canMatchElement(matcher, "span"));
+        matcher.removeMatchesForLevel(0);
+        Assertions.assertFalse(canMatchElement(matcher, "p"));
+
+        final MarkupSelectorMatcher anyElementMatcher =
+                new MarkupSelectorAutomaton(true, new String[] { "a", "[@id='x']" }, null).createMatcher();
+        Assertions.assertTrue(canMatchElement(anyElementMatcher, "span"));
+
+    }
+
+
+    @Test
+    public void testSharedAutomaton() throws Exception {
+
+        final CompiledMarkupSelectors compiledSelectors = new CompiledMarkupSelectors(new String[] { "div/p" }, null);
+
+        // Automata are compiled only once for each parsing mode
+        final MarkupSelectorAutomaton automaton = compiledSelectors.getAutomaton(true);
+        Assertions.assertSame(automaton, compiledSelectors.getAutomaton(true));
+        Assertions.assertNotSame(automaton, compiledSelectors.getAutomaton(false));
+
+        // Matchers sharing the same automaton do not share any matching state
+        final MarkupSelectorMatcher matcher1 = automaton.createMatcher();
+        final MarkupSelectorMatcher matcher2 = automaton.createMatcher();
+        final SelectorElementBuffer elementBuffer = new SelectorElementBuffer();
+
+        elementBuffer.bufferElementStart("div".toCharArray(), 0, 3, 1, 1, false, false);
+        matcher1.matchOpenElement(false, 0, 0, elementBuffer);
+        Assertions.assertFalse(matcher1.matches(0));
+        Assertions.assertTrue(canMatchElement(matcher1, "p"));
+        Assertions.assertFalse(canMatchElement(matcher2, "p"));
+
+        elementBuffer.bufferElementStart("p".toCharArray(), 0, 1, 1, 1, false, false);
+        matcher1.matchOpenElement(false, 1, 0, elementBuffer);
+        matcher2.matchOpenElement(false, 1, 0, elementBuffer);
+        Assertions.assertTrue(matcher1.matches(0));
+        Assertions.assertFalse(matcher2.matches(0));
+
+    }
+
+
+    private static boolean canMatchElement(final MarkupSelectorMatcher matcher, final String elementName) {
+        final char[] buffer = ("<" + elementName + ">").toCharArray();
+        return matcher.canMatchElement(buffer, 1, elementName.length());
+    }
+
+
+
+
+    private static void check(
+            final ParseConfiguration configuration, final String doc, final String[] selectors,
+            final IMarkupSelectorReferenceResolver referenceResolver) throws Exception {
+
+        final MarkupParser parser = new MarkupParser(configuration);
+
+        // All selectors, and also every selector on its own
+        final String[][] selectorSets = new String[selectors.length + 1][];
+        selectorSets[0] = selectors;
+        for (int i = 0; i < selectors.length; i++) {
+            selectorSets[i + 1] = new String[] { selectors[i] };
+        }
+
+        for (final String[] selectorSet : selectorSets) {
+            for (final boolean blockMatching : new boolean[] { true, false }) {
+                final ComparingMarkupHandler handler =
+                        new ComparingMarkupHandler(selectorSet, referenceResolver, blockMatching);
+                parser.parse(doc, handler);
+                Assertions.assertTrue(handler.events > 0);
+            }
+        }
+
+    }
+
+
+
+
+    /*
+     * Evaluates each selector by means of its own chain of MarkupSelectorFilter objects and checks that results
+     * are the same as the ones computed by the automaton for all selectors at once. When block matching, selector
+     * chains are not evaluated inside the blocks they match (as BlockSelectorMarkupHandler does).
+     */
+    private static final class ComparingMarkupHandler extends AbstractMarkupHandler {
+
+        private final String[] selectors;
+        private final IMarkupSelectorReferenceResolver referenceResolver;
+        private final boolean blockMatching;
+
+        private MarkupSelectorFilter[] filters;
+        private MarkupSelectorMatcher matcher;
+
+        private final SelectorElementBuffer elementBuffer = new SelectorElementBuffer();
+        private int markupLevel = 0;
+        private int[] markupBlocks = new int[10];
+        private int markupBlockIndex = 0;
+        private final int[] matchingMarkupLevelsPerSelector;
+
+        int events = 0;
+
+
+        ComparingMarkupHandler(
+                final String[] selectors, final IMarkupSelectorReferenceResolver referenceResolver,
+                final boolean blockMatching) {
+            super();
+            this.selectors = selectors;
+            this.referenceResolver = referenceResolver;
+            this.blockMatching = blockMatching;
+            this.matchingMarkupLevelsPerSelector = new int[selectors.length];
+            Arrays.fill(this.matchingMarkupLevelsPerSelector, Integer.MAX_VALUE);
+        }
+
+
+        @Override
+        public void setParseConfiguration(final ParseConfiguration parseConfiguration) {
+            final boolean html = ParseConfiguration.ParsingMode.HTML.equals(parseConfiguration.getMode());
+            this.filters = new MarkupSelectorFilter[this.selectors.length];
+            for (int i = 0; i < this.selectors.length; i++) {
+                final List<IMarkupSelectorItem> selectorItems =
+                        MarkupSelectorItems.forSelector(html, this.selectors[i], this.referenceResolver);
+                this.filters[i] = new MarkupSelectorFilter(null, selectorItems.get(0));
+                MarkupSelectorFilter last = this.filters[i];
+                for (int j = 1; j < selectorItems.size(); j++) {
+                    last = new MarkupSelectorFilter(last, selectorItems.get(j));
+                }
+            }
+            this.matcher = new MarkupSelectorAutomaton(html, this.selectors, this.referenceResolver).createMatcher();
+        }
+
+
+        private void compare(final int event, final boolean open) {
+
+            final int markupBlock = this.markupBlocks[this.markupLevel];
+
+            // Elements that cannot be matched by any selector are not matched at all by node selection
+            final boolean canMatchElement =
+                    (event != 5 ||
+                     this.matcher.canMatchElement(this.elementBuffer.elementName, 0, this.elementBuffer.elementNameLen));
+
+            switch (event) {
+                case 0: this.matcher.matchXmlDeclaration(this.blockMatching, this.markupLevel, markupBlock); break;
+                case 1: this.matcher.matchDocTypeClause(this.blockMatching, this.markupLevel, markupBlock); break;
+                case 2: this.matcher.matchCDATASection(this.blockMatching, this.markupLevel, markupBlock); break;
+                case 3: this.matcher.matchText(this.blockMatching, this.markupLevel, markupBlock); break;
+                case 4: this.matcher.matchComment(this.blockMatching, this.markupLevel, markupBlock); break;
+                case 5:
+                    if (open) {
+                        this.matcher.matchOpenElement(this.blockMatching, this.markupLevel, markupBlock, this.elementBuffer);
+                    } else {
+                        this.matcher.matchStandaloneElement(this.blockMatching, this.markupLevel, markupBlock, this.elementBuffer);
+                    }
+                    break;
+                default: this.matcher.matchProcessingInstruction(this.blockMatching, this.markupLevel, markupBlock); break;
+            }
+
+            for (int i = 0; i < this.selectors.length; i++) {
+
+                if (this.blockMatching && this.matchingMarkupLevelsPerSelector[i] <= this.markupLevel) {
+                    continue;
+                }
+
+                final MarkupSelectorFilter filter = this.filters[i];
+                final boolean expected;
+                switch (event) {
+                    case 0: expected = filter.matchXmlDeclaration(this.blockMatching, this.markupLevel, markupBlock); break;
+                    case 1: expected = filter.matchDocTypeClause(this.blockMatching, this.markupLevel, markupBlock); break;
+                    case 2: expected = filter.matchCDATASection(this.blockMatching, this.markupLevel, markupBlock); break;
+                    case 3: expected = filter.matchText(this.blockMatching, this.markupLevel, markupBlock); break;
+                    case 4: expected = filter.matchComment(this.blockMatching, this.markupLevel, markupBlock); break;
+                    case 5:
+                        expected = (open ?
+                                filter.matchOpenElement(this.blockMatching, this.markupLevel, markupBlock, this.elementBuffer) :
+                                filter.matchStandaloneElement(this.blockMatching, this.markupLevel, markupBlock, this.elementBuffer));
+                        break;
+                    default: expected = filter.matchProcessingInstruction(this.blockMatching, this.markupLevel, markupBlock); break;
+                }
+
+                Assertions.assertEquals(
+                        expected, this.matcher.matches(i),
+                        "Selector \"" + this.selectors[i] + "\" (event " + this.events + ", blockMatching " + this.blockMatching + ")");
+                if (!this.blockMatching && !canMatchElement) {
+                    Assertions.assertFalse(
+                            expected, "Selector \"" + this.selectors[i] + "\" (event " + this.events + ")");
+                }
+
+                if (this.blockMatching && open && expected) {
+                    this.matchingMarkupLevelsPerSelector[i] = this.markupLevel;
+                }
+
+            }
+
+            this.events++;
+
+            if (open) {
+                this.markupLevel++;
+                if (this.markupLevel >= this.markupBlocks.length) {
+                    this.markupBlocks = Arrays.copyOf(this.markupBlocks, this.markupBlocks.length * 2);
+                }
+                this.markupBlocks[this.markupLevel] = ++this.markupBlockIndex;
+            }
+
+        }
+
+
+        private void close() {
+            this.markupLevel--;
+            for (int i = 0; i < this.selectors.length; i++) {
+                this.filters[i].removeMatchesForLevel(this.markupLevel);
+                if (this.matchingMarkupLevelsPerSelector[i] == this.markupLevel) {
+                    this.matchingMarkupLevelsPerSelector[i] = Integer.MAX_VALUE;
+                }
+            }
+            this.matcher.removeMatchesForLevel(this.markupLevel);
+        }
+
+
+        @Override
+        public void handleXmlDeclaration(
+                final char[] buffer,
+                final int keywordOffset, final int keywordLen, final int keywordLine, final int keywordCol,
+                final int versionOffset, final int versionLen, final int versionLine, final int versionCol,
+                final int encodingOffset, final int encodingLen, final int encodingLine, final int encodingCol,
+                final int standaloneOffset, final int standaloneLen, final int standaloneLine, final int standaloneCol,
+                final int outerOffset, final int outerLen, final int line, final int col) throws ParseException {
+            compare(0, false);
+        }
+
+        @Override
+        public void handleDocType(
+                final char[] buffer,
+                final int keywordOffset, final int keywordLen, final int keywordLine, final int keywordCol,
+                final int elementNameOffset, final int elementNameLen, final int elementNameLine, final int elementNameCol,
+                final int typeOffset, final int typeLen, final int typeLine, final int typeCol,
+                final int publicIdOffset, final int publicIdLen, final int publicIdLine, final int publicIdCol,
+                final int systemIdOffset, final int systemIdLen, final int systemIdLine, final int systemIdCol,
+                final int internalSubsetOffset, final int internalSubsetLen, final int internalSubsetLine, final int internalSubsetCol,
+                final int outerOffset, final int outerLen, final int outerLine, final int outerCol) throws ParseException {
+            compare(1, false);
+        }
+
+        @Override
+        public void handleCDATASection(
+                final char[] buffer, final int contentOffset, final int contentLen,
+                final int outerOffset, final int outerLen, final int line, final int col) throws ParseException {
+            compare(2, false);
+        }
+
+        @Override
+        public void handleText(
+                final char[] buffer, final int offset, final int len, final int line, final int col) throws ParseException {
+            compare(3, false);
+        }
+
+        @Override
+        public void handleComment(
+                final char[] buffer, final int contentOffset, final int contentLen,
+                final int outerOffset, final int outerLen, final int line, final int col) throws ParseException {
+            compare(4, false);
+        }
+
+        @Override
+        public void handleStandaloneElementStart(
+                final char[] buffer, final int nameOffset, final int nameLen,
+                final boolean minimized, final int line, final int col) throws ParseException {
+            this.elementBuffer.bufferElementStart(buffer, nameOffset, nameLen, line, col, true, minimized);
+        }
+
+        @Override
+        public void handleStandaloneElementEnd(
+                final char[] buffer, final int nameOffset, final int nameLen,
+                final boolean minimized, final int line, final int col) throws ParseException {
+            compare(5, false);
+        }
+
+        @Override
+        public void handleOpenElementStart(
+                final char[] buffer, final int nameOffset, final int nameLen,
+                final int line, final int col) throws ParseException {
+            this.elementBuffer.bufferElementStart(buffer, nameOffset, nameLen, line, col, false, false);
+        }
+
+        @Override
+        public void handleOpenElementEnd(
+                final char[] buffer, final int nameOffset, final int nameLen,
+                final int line, final int col) throws ParseException {
+            compare(5, true);
+        }
+
+        @Override
+        public void handleAutoOpenElementStart(
+                final char[] buffer, final int nameOffset, final int nameLen,
+                final int line, final int col) throws ParseException {
+            this.elementBuffer.bufferElementStart(buffer, nameOffset, nameLen, line, col, false, false);
+        }
+
+        @Override
+        public void handleAutoOpenElementEnd(
+                final char[] buffer, final int nameOffset, final int nameLen,
+                final int line, final int col) throws ParseException {
+            compare(5, true);
+        }
+
+        @Override
+        public void handleCloseElementStart(
+                final char[] buffer, final int nameOffset, final int nameLen,
+                final int line, final int col) throws ParseException {
+            close();
+        }
+
+        @Override
+        public void handleAutoCloseElementStart(
+                final char[] buffer, final int nameOffset, final int nameLen,
+                final int line, final int col) throws ParseException {
+            close();
+        }
+
+        @Override
+        public void handleAttribute(
+                final char[] buffer,
+                final int nameOffset, final int nameLen, final int nameLine, final int nameCol,
+                final int operatorOffset, final int operatorLen, final int operatorLine, final int operatorCol,
+                final int valueContentOffset, final int valueContentLen,
+                final int valueOuterOffset, final int valueOuterLen,
+                final int valueLine, final int valueCol) throws ParseException {
+            this.elementBuffer.bufferAttribute(
+                    buffer,
+                    nameOffset, nameLen, nameLine, nameCol,
+                    operatorOffset, operatorLen, operatorLine, operatorCol,
+                    valueContentOffset, valueContentLen, valueOuterOffset, valueOuterLen, valueLine, valueCol);
+        }
+
+        @Override
+        public void handleProcessingInstruction(
+                final char[] buffer,
+                final int targetOffset, final int targetLen, final int targetLine, final int targetCol,
+                final int contentOffset, final int contentLen, final int contentLine, final int contentCol,
+                final int outerOffset, final int outerLen, final int line, final int col) throws ParseException {
+            compare(6, false);
+        }
+
+    }
+
+
+
+
+    static final class TestingReferenceResolver implements IMarkupSelectorReferenceResolver {
+
+        public String resolveSelectorFromReference(final String reference) {
+            if ("fragA".equals(reference)) {
+                return "[data-f='fragA']";
+            }
+            if ("fragB".equals(reference)) {
+                return "//ul";
+            }
+            if ("p".equals(reference) || "b".equals(reference)) {
+                return "[data-f]";
+            }
+            return null;
+        }
+
+    }
+
+}
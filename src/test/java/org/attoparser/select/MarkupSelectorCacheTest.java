@@ -0,0 +1,112 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser.select;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+/*
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+public class MarkupSelectorCacheTest {
+
+
+    @Test
+    public void testHitsAndMisses() throws Exception {
+
+        MarkupSelectorCache.clear();
+
+        final long hits = MarkupSelectorCache.getHitCount();
+        final long misses = MarkupSelectorCache.getMissCount();
+
+        final List<IMarkupSelectorItem> items1 = MarkupSelectorItems.forSelector(true, "div/p[@class='a']", null);
+        final List<IMarkupSelectorItem> items2 = MarkupSelectorItems.forSelector(true, "div/p[@class='a']", null);
+        final List<IMarkupSelectorItem> items3 = MarkupSelectorItems.forSelector(false, "div/p[@class='a']", null);
+
+        Assertions.assertSame(items1, items2);
+        Assertions.assertNotSame(items1, items3);
+        Assertions.assertEquals(hits + 1, MarkupSelectorCache.getHitCount());
+        Assertions.assertEquals(misses + 2, MarkupSelectorCache.getMissCount());
+        Assertions.assertEquals(2, MarkupSelectorCache.getSize());
+
+    }
+
+
+    @Test
+    public void testReferenceResolvers() throws Exception {
+
+        final IMarkupSelectorReferenceResolver resolver1 = new MarkupSelectorAutomatonTest.TestingReferenceResolver();
+        final IMarkupSelectorReferenceResolver resolver2 = new MarkupSelectorAutomatonTest.TestingReferenceResolver();
+
+        final List<IMarkupSelectorItem> items0 = MarkupSelectorItems.forSelector(true, "div%fragA", null);
+        final List<IMarkupSelectorItem> items1 = MarkupSelectorItems.forSelector(true, "div%fragA", resolver1);
+        final List<IMarkupSelectorItem> items2 = MarkupSelectorItems.forSelector(true, "div%fragA", resolver2);
+
+        Assertions.assertNotEquals(items0, items1);
+        Assertions.assertEquals(items1, items2);
+        Assertions.assertNotSame(items1, items2);
+        Assertions.assertSame(items1, MarkupSelectorItems.forSelector(true, "div%fragA", resolver1));
+
+    }
+
+
+    @Test
+    public void testEviction() throws Exception {
+
+        final int maxSize = MarkupSelectorCache.getMaxSize();
+        try {
+
+            MarkupSelectorCache.clear();
+            MarkupSelectorCache.setMaxSize(64);
+
+            final long evictions = MarkupSelectorCache.getEvictionCount();
+
+            final List<IMarkupSelectorItem> recent = MarkupSelectorItems.forSelector(true, "div.recent", null);
+            for (int i = 0; i < 1000; i++) {
+                MarkupSelectorItems.forSelector(true, "div.c" + i, null);
+                // Keep using this one, so that it is never the least recently used one
+                Assertions.assertSame(recent, MarkupSelectorItems.forSelector(true, "div.recent", null));
+            }
+
+            Assertions.assertTrue(MarkupSelectorCache.getSize() <= 64);
+            Assertions.assertTrue(MarkupSelectorCache.getEvictionCount() - evictions >= 1001 - 64);
+
+            MarkupSelectorCache.setMaxSize(16);
+            Assertions.assertTrue(MarkupSelectorCache.getSize() <= 16);
+
+        } finally {
+            MarkupSelectorCache.setMaxSize(maxSize);
+        }
+
+        try {
+            MarkupSelectorCache.setMaxSize(0);
+            Assertions.fail("An exception should have happened");
+        } catch (final IllegalArgumentException e) {
+            // Expected
+        }
+
+    }
+
+}
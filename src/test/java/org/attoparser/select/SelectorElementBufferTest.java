@@ -0,0 +1,178 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser.select;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.attoparser.AbstractChainedMarkupHandler;
+import org.attoparser.AbstractMarkupHandler;
+import org.attoparser.IMarkupHandler;
+import org.attoparser.MarkupParser;
+import org.attoparser.ParseException;
+import org.attoparser.config.ParseConfiguration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+/*
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+public class SelectorElementBufferTest {
+
+
+    @Test
+    public void testAttributesInDocumentBuffer() throws Exception {
+
+        final char[] document = "<div id=\"one\" class='two three'>text</div>".toCharArray();
+
+        // Attributes coming in the document buffer are not copied, so they reach the selected handler in it
+        final AttributeCollectingHandler handler = new AttributeCollectingHandler(document);
+        new MarkupParser(ParseConfiguration.htmlConfiguration()).parse(document, new BlockSelectorMarkupHandler(handler, "div"));
+        Assertions.assertEquals(
+                "[id=\"one\"(one)*, class='two three'(two three)*]", handler.attributes.toString());
+
+    }
+
+
+    @Test
+    public void testAttributesInScratchBuffer() throws Exception {
+
+        final char[] document = "<div id=\"one\" class=two><p a=b>text</p></div>".toCharArray();
+
+        // Element names and attributes sent by a previous handler in a scratch array that it reuses for every event
+        // must be copied, even if they come in the same array
+        final AttributeCollectingHandler handler = new AttributeCollectingHandler(document);
+        new MarkupParser(ParseConfiguration.htmlConfiguration()).parse(
+                document, new ScratchBufferMarkupHandler(new BlockSelectorMarkupHandler(handler, "div[class='two']")));
+        Assertions.assertEquals("[div, id=\"one\"(one), class=two(two), p, a=b(b)]", handler.attributes.toString());
+
+    }
+
+
+    @Test
+    public void testAttributesInReusedBuffer() throws Exception {
+
+        final char[] buffer = "<div>".toCharArray();
+        final char[] attributeBuffer = new char[20];
+
+        final SelectorElementBuffer elementBuffer = new SelectorElementBuffer();
+        elementBuffer.bufferElementStart(buffer, 1, 3, 1, 2, false, false);
+
+        // Attributes coming in a buffer that is reused by the sender must be copied
+        "id=\"one\"".getChars(0, 8, attributeBuffer, 0);
+        elementBuffer.bufferAttribute(attributeBuffer, 0, 2, 1, 6, 2, 1, 1, 8, 4, 3, 3, 5, 1, 9);
+        "class=two".getChars(0, 9, attributeBuffer, 0);
+        elementBuffer.bufferAttribute(attributeBuffer, 0, 5, 1, 15, 5, 1, 1, 20, 6, 3, 6, 3, 1, 21);
+        attributeBuffer[6] = 'x';
+        elementBuffer.bufferElementEnd(buffer, 1, 3, 1, 32);
+
+        Assertions.assertNotSame(attributeBuffer, elementBuffer.attributeSources[0]);
+        Assertions.assertNotSame(attributeBuffer, elementBuffer.attributeSources[1]);
+
+        final AttributeCollectingHandler handler = new AttributeCollectingHandler(null);
+        elementBuffer.flushBuffer(handler, false);
+        Assertions.assertEquals("[div, id=\"one\"(one), class=two(two)]", handler.attributes.toString());
+
+    }
+
+
+
+
+    private static final class AttributeCollectingHandler extends AbstractMarkupHandler {
+
+        private final char[] document;
+        final List<String> attributes = new ArrayList<String>();
+
+        AttributeCollectingHandler(final char[] document) {
+            super();
+            this.document = document;
+        }
+
+        @Override
+        public void handleOpenElementStart(
+                final char[] buffer, final int nameOffset, final int nameLen, final int line, final int col)
+                throws ParseException {
+            if (buffer != this.document) {
+                this.attributes.add(new String(buffer, nameOffset, nameLen));
+            }
+        }
+
+        @Override
+        public void handleAttribute(
+                final char[] buffer,
+                final int nameOffset, final int nameLen, final int nameLine, final int nameCol,
+                final int operatorOffset, final int operatorLen, final int operatorLine, final int operatorCol,
+                final int valueContentOffset, final int valueContentLen,
+                final int valueOuterOffset, final int valueOuterLen,
+                final int valueLine, final int valueCol) throws ParseException {
+            this.attributes.add(
+                    new String(buffer, nameOffset, nameLen) +
+                    new String(buffer, operatorOffset, operatorLen) +
+                    new String(buffer, valueOuterOffset, valueOuterLen) +
+                    "(" + new String(buffer, valueContentOffset, valueContentLen) + ")" +
+                    (buffer == this.document? "*" : ""));
+        }
+
+    }
+
+
+    /*
+     * Sends element names and attributes to the next handler in a single scratch array, overwriting it for every
+     * event (as e.g. a handler normalizing names might do).
+     */
+    private static final class ScratchBufferMarkupHandler extends AbstractChainedMarkupHandler {
+
+        private final char[] scratch = new char[50];
+
+        ScratchBufferMarkupHandler(final IMarkupHandler next) {
+            super(next);
+        }
+
+        @Override
+        public void handleOpenElementStart(
+                final char[] buffer, final int nameOffset, final int nameLen, final int line, final int col)
+                throws ParseException {
+            System.arraycopy(buffer, nameOffset, this.scratch, 0, nameLen);
+            getNext().handleOpenElementStart(this.scratch, 0, nameLen, line, col);
+        }
+
+        @Override
+        public void handleAttribute(
+                final char[] buffer,
+                final int nameOffset, final int nameLen, final int nameLine, final int nameCol,
+                final int operatorOffset, final int operatorLen, final int operatorLine, final int operatorCol,
+                final int valueContentOffset, final int valueContentLen,
+                final int valueOuterOffset, final int valueOuterLen,
+                final int valueLine, final int valueCol) throws ParseException {
+            System.arraycopy(buffer, nameOffset, this.scratch, 0, valueOuterOffset + valueOuterLen - nameOffset);
+            getNext().handleAttribute(
+                    this.scratch,
+                    0, nameLen, nameLine, nameCol,
+                    operatorOffset - nameOffset, operatorLen, operatorLine, operatorCol,
+                    valueContentOffset - nameOffset, valueContentLen,
+                    valueOuterOffset - nameOffset, valueOuterLen, valueLine, valueCol);
+        }
+
+    }
+
+}
@@ -0,0 +1,170 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2012-2026 Attoparser (https://www.attoparser.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.attoparser;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.attoparser.config.ParseConfiguration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+
+/*
+ * Tests for the Java 11+ version of FlightRecorderSupport. These are integration tests because they need to be
+ * executed against the packaged multi-release jar: the target/classes folder used by unit tests only contains
+ * the Java 8 version of the class, which does nothing.
+ *
+ * @author Daniel Fernandez
+ * @since 2.0.10
+ */
+public class FlightRecorderSupportIT {
+
+
+    private static final String DOCUMENT_PARSED = "org.attoparser.DocumentParsed";
+    private static final String BUFFER_GROWTH = "org.attoparser.BufferGrowth";
+    private static final String POOL_EXHAUSTED = "org.attoparser.PoolExhausted";
+    private static final String PARSE_ERROR = "org.attoparser.ParseError";
+
+
+
+
+    @Test
+    public void testEventsRecorded() throws Exception {
+
+        final List<RecordedEvent> events;
+
+        try (final Recording recording = new Recording()) {
+
+            recording.enable(DOCUMENT_PARSED).withThreshold(Duration.ZERO);
+            recording.enable(BUFFER_GROWTH);
+            recording.enable(POOL_EXHAUSTED);
+            recording.enable(PARSE_ERROR);
+            recording.start();
+
+            // Buffers of 16 chars will need to grow for the attribute in this document, read from a Reader
+            final MarkupParser htmlParser = new MarkupParser(ParseConfiguration.htmlConfiguration(), 2, 16);
+            htmlParser.parse("<p class=\"a rather long attribute value\">text</p>", new AbstractMarkupHandler() {});
+
+            final MarkupParser xmlParser = new MarkupParser(ParseConfiguration.xmlConfiguration());
+            try {
+                xmlParser.parse("<root><a></b></root>".toCharArray(), new AbstractMarkupHandler() {});
+                Assertions.fail("An exception should have happened");
+            } catch (final ParseException e) {
+                // Expected
+            }
+
+            // The second buffer requested from a pool of size 1 while the first is still in use exhausts it
+            final StripedBufferPool pool = new StripedBufferPool(1, 16);
+            pool.allocateBuffer(16);
+            pool.allocateBuffer(16);
+
+            recording.stop();
+
+            final Path file = Files.createTempFile("attoparser", ".jfr");
+            try {
+                recording.dump(file);
+                events = RecordingFile.readAllEvents(file);
+            } finally {
+                Files.delete(file);
+            }
+
+        }
+
+        final RecordedEvent readerDocument = findEvent(events, DOCUMENT_PARSED, "input", "Reader");
+        Assertions.assertEquals("HTML", readerDocument.getString("mode"));
+        Assertions.assertTrue(readerDocument.getBoolean("positionTracking"));
+        Assertions.assertTrue(readerDocument.getBoolean("successful"));
+
+        final RecordedEvent charsDocument = findEvent(events, DOCUMENT_PARSED, "input", "char[]");
+        Assertions.assertEquals("XML", charsDocument.getString("mode"));
+        Assertions.assertEquals(20L, charsDocument.getLong("chars"));
+        Assertions.assertFalse(charsDocument.getBoolean("successful"));
+
+        final RecordedEvent growth = findEvent(events, BUFFER_GROWTH, null, null);
+        Assertions.assertEquals(2 * growth.getInt("oldSize"), growth.getInt("newSize"));
+
+        final RecordedEvent exhaustion = findEvent(events, POOL_EXHAUSTED, null, null);
+        Assertions.assertEquals(16, exhaustion.getInt("bufferSize"));
+        Assertions.assertEquals(1, exhaustion.getInt("poolSize"));
+
+        final RecordedEvent error = findEvent(events, PARSE_ERROR, null, null);
+        Assertions.assertNotNull(error.getString("message"));
+        Assertions.assertTrue(error.getInt("line") > 0);
+
+    }
+
+
+    @Test
+    public void testNoAllocationPerParseWhenNotRecording() throws Exception {
+
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        Assumptions.assumeTrue(allocationMXBean.isThreadAllocatedMemorySupported());
+        allocationMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        final MarkupParser parser = new MarkupParser(ParseConfiguration.htmlConfiguration());
+        final char[] fragment =
+                "<div class=\"a\" id='b'><p>Some <b>bold</b> text &amp; <a href=\"x\">link</a></p><br></div>".toCharArray();
+        final ParseContext context = parser.createContext(new AbstractMarkupHandler() {});
+
+        final long threadId = Thread.currentThread().getId();
+        final int iterations = 10000;
+
+        for (int i = 0; i < iterations; i++) {
+            context.parse(fragment);
+        }
+        final long before = allocationMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            context.parse(fragment);
+        }
+        final long after = allocationMXBean.getThreadAllocatedBytes(threadId);
+
+        // These tests are run without C2 (see the failsafe configuration), so no allocations can be removed by
+        // escape analysis: zero bytes here means that no objects at all are created for checking events.
+        Assertions.assertEquals(0L, (after - before) / iterations);
+
+    }
+
+
+
+
+    private static RecordedEvent findEvent(
+            final List<RecordedEvent> events, final String name, final String field, final String value) {
+        for (final RecordedEvent event : events) {
+            if (event.getEventType().getName().equals(name)
+                    && (field == null || value.equals(event.getString(field)))) {
+                return event;
+            }
+        }
+        Assertions.fail("No " + name + " event recorded" + (field == null ? "" : " with " + field + "=" + value));
+        return null;
+    }
+
+}